@@ -37,6 +37,7 @@
 package projects.defaultProject.models.connectivityModels;
 
 import sinalgo.models.ConnectivityModel;
+import sinalgo.models.StatelessModel;
 import sinalgo.nodes.Node;
 
 /**
@@ -44,6 +45,7 @@ import sinalgo.nodes.Node;
  * method of the ConnectivityModel class. This is a ConnectivityModel to implement 
  * connections that do not change over time.
  */
+@StatelessModel
 public class StaticConnectivity extends ConnectivityModel {
 	
 	/* (non-Javadoc)
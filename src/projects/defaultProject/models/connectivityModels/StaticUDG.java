@@ -36,6 +36,10 @@
 */
 package projects.defaultProject.models.connectivityModels;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import sinalgo.configuration.CorruptConfigurationEntryException;
 import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.nodes.Node;
@@ -58,6 +62,20 @@ public class StaticUDG extends UDG {
 		}
 	}
 	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.Model#writeState(java.io.DataOutput)
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeBoolean(firstTime);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.Model#readState(java.io.DataInput)
+	 */
+	public void readState(DataInput in) throws IOException {
+		firstTime = in.readBoolean();
+	}
+	
 	/**
 	 * The default constructor for this class.  
 	 * @throws CorruptConfigurationEntryException If one of the initialization steps fails.
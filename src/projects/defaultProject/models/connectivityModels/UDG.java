@@ -38,7 +38,7 @@ package projects.defaultProject.models.connectivityModels;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
-import sinalgo.models.ConnectivityModelHelper;
+import sinalgo.models.KineticConnectivityModelHelper;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
 import sinalgo.runtime.Global;
@@ -56,8 +56,11 @@ import sinalgo.runtime.Main;
 		&lt;/UDG&gt;
  </pre>
  * If this entry is not present, the value of <code>rMax</code> from the GeometricNodeCollection is used. 
+ * <p>
+ * The connections are updated incrementally if <code>kineticConnectivitySlack</code> is set.
+ * @see KineticConnectivityModelHelper 
  */
-public class UDG extends ConnectivityModelHelper {
+public class UDG extends KineticConnectivityModelHelper {
 	
 	private double squareRadius;
 	
@@ -1,8 +1,6 @@
 package projects.defaultProject.models.distributionModels;
 
-import java.io.LineNumberReader;
-
-import sinalgo.io.positionFile.PositionFileIO;
+import sinalgo.io.positionFile.PositionFileReader;
 import sinalgo.models.DistributionModel;
 import sinalgo.nodes.Position;
 
@@ -13,23 +11,29 @@ import sinalgo.nodes.Position;
  * distribution later on.
  * <p>
  * The first time the framework retrieves a position from this distribution model,
- * the user is asked to specify a file to read the positions from.
+ * the user is asked to specify a file to read the positions from. Both text 
+ * position files (.pos) and binary position files (.bpos) are supported.
  * <p>
  * The file can be specified as a parameter to the model on the command line.
+ * <p>
+ * To avoid an allocation per node, the same position object is returned by all 
+ * calls to <code>getNextPosition()</code>.
  */
 public class PositionFile extends DistributionModel {
 
-	LineNumberReader reader = null;	
+	PositionFileReader reader = null;	
+	Position position = new Position();
 	
 	@Override
 	public Position getNextPosition() {
 		if(reader == null) {
 			if(super.getParamString().equals("")) {
-				reader = PositionFileIO.getPositionFileReader(null);
+				reader = new PositionFileReader(null);
 			} else {
-				reader = PositionFileIO.getPositionFileReader(super.getParamString());
+				reader = new PositionFileReader(super.getParamString());
 			}
 		}
-		return PositionFileIO.getNextPosition(reader);
+		reader.getNextPosition(position);
+		return position;
 	}
 }
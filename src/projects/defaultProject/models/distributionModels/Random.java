@@ -62,4 +62,16 @@ public class Random extends DistributionModel {
 		}
 		return new Position(randomPosX, randomPosY, randomPosZ);
 	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.models.DistributionModel#getNextPositions(double[], double[], double[], int)
+	 */
+	public void getNextPositions(double[] x, double[] y, double[] z, int count) {
+		boolean is3D = Main.getRuntime().getTransformator().getNumberOfDimensions() == 3;
+		for(int i = 0; i < count; i++) {
+			x[i] = rand.nextDouble() * Configuration.dimX;
+			y[i] = rand.nextDouble() * Configuration.dimY;
+			z[i] = is3D ? rand.nextDouble() * Configuration.dimZ : 0;
+		}
+	}
 }
@@ -0,0 +1,575 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package projects.defaultProject.models.interferenceModels;
+
+import java.util.Arrays;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.models.InterferenceModel;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Runtime;
+import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
+import sinalgo.tools.Tools;
+import sinalgo.tools.logging.LogL;
+
+/**
+ * An approximation of the {@link SINR} interference model, which is considerably faster
+ * if many packets are sent concurrently.
+ * <br>
+ * The exact SINR model sums up the interference of all concurrent transmissions for 
+ * every packet, which takes quadratic time in the number of packets in the air. This
+ * model sorts the senders of all packets in the air into a quad-tree, i.e. aggregates
+ * them hierarchically to larger and larger squares (Barnes-Hut). For each square, the
+ * total intensity and the intensity-weighted center of its senders are stored. The interference of a square 
+ * whose senders are far away from the receiver is approximated by a single sender 
+ * of the total intensity placed at this center. Nearby senders are summed up exactly.
+ * <br>
+ * A square is approximated only if its senders are close enough to its center, compared 
+ * to their distance from the receiver, such that the approximated interference of each 
+ * sender is between 1/(1 + epsilon) and (1 + epsilon) times its exact interference. 
+ * Therefore, the interference determined by this model differs by at most a factor of 
+ * (1 +/- epsilon) from the interference determined by the exact SINR model. The tests whether the receiver is sending itself or whether it receives 
+ * several packets at the same time are exact. 
+ * <br>
+ * If alpha is an integer, the powered distances are obtained by repeated multiplication
+ * instead of <code>Math.pow</code>.
+ * <br><br>
+ * This model requires the same entry in the configuration file as the SINR model, and 
+ * accepts an additional, optional epsilon: 
+ * <br>
+ * &lt;SINR alpha="..." beta="..." noise="..." epsilon="..."/&gt;
+ * <br>
+ * where alpha, beta, noise, and epsilon are floating point values. Epsilon defaults to 0.01.
+ */
+public class ApproximateSINR extends InterferenceModel {
+	private double alpha = 2; // the path-loss exponent
+	private double beta = 0.5; // the threshold 
+	private double ambientNoise = 0; // the ambient noise 
+	private double epsilon = 0.01; // the maximal relative error of the interference
+	
+	private boolean integerAlpha; // true if alpha is an integer
+	private int intAlpha; // alpha, if it is an integer
+	
+	// A square is approximated if the squared distance of its senders from their center
+	// is at most approximationFactor times the squared distance from the receiver to the center.
+	private double approximationFactor;
+	
+	// the aggregated senders of the packets in the air, shared by all nodes
+	private static PacketTree tree = null;
+	
+	/**
+	 * The constructor for the ApproximateSINR class.
+	 */
+	public ApproximateSINR() {
+		try{
+			alpha = Configuration.getDoubleParameter("SINR/alpha");
+		} catch(CorruptConfigurationEntryException e) {
+			Tools.fatalError("The configuration entry SINR/alpha is not a valid double:\n\n" + e.getMessage());
+		}
+		try {
+			beta = Configuration.getDoubleParameter("SINR/beta");
+		} catch(CorruptConfigurationEntryException e) {
+			Tools.fatalError("The configuration entry SINR/beta is not a valid double:\n\n" + e.getMessage());
+		}
+		try {
+			ambientNoise = Configuration.getDoubleParameter("SINR/noise");
+		} catch(CorruptConfigurationEntryException e) {
+			Tools.fatalError("The configuration entry SINR/noise is not a valid double:\n\n" + e.getMessage());
+		}
+		if(Configuration.hasParameter("SINR/epsilon")) {
+			try {
+				epsilon = Configuration.getDoubleParameter("SINR/epsilon");
+			} catch(CorruptConfigurationEntryException e) {
+				Tools.fatalError("The configuration entry SINR/epsilon is not a valid double:\n\n" + e.getMessage());
+			}
+			if(epsilon < 0) {
+				Tools.fatalError("The configuration entry SINR/epsilon must not be negative.");
+			}
+		}
+		
+		integerAlpha = alpha >= 0 && alpha <= Integer.MAX_VALUE && alpha == Math.rint(alpha);
+		intAlpha = (int) alpha;
+		
+		// Let d be the distance from the receiver to the center of a square, and h the maximal 
+		// distance of a sender in the square from the center. Every sender is at distance d +/- h,
+		// so the exact contribution of a sender is between (1 + h/d)^-alpha and (1 - h/d)^-alpha 
+		// times its approximation. With q = (1 + epsilon)^(1/alpha), the upper factor is at most 
+		// 1 + epsilon if h/d <= 1 - 1/q. Then 1 + h/d <= q, and the lower factor is at least 
+		// 1/(1 + epsilon) >= 1 - epsilon. 
+		double ratio = alpha > 0 ? 1 - Math.pow(1 + epsilon, -1 / alpha) : 0.5;
+		ratio = Math.min(ratio, 0.5); // the receiver must lie outside the approximated square 
+		approximationFactor = ratio * ratio;
+		
+		if(tree == null) {
+			tree = new PacketTree();
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.InterferenceModel#isDisturbed(sinalgo.nodes.messages.Packet)
+	 */
+	public boolean isDisturbed(Packet p) {
+		tree.update();
+		
+		Position receiverPos = p.destination.getPosition();
+		Position senderPos = p.origin.getPosition();
+		long receiverKey = tree.getKey(receiverPos);
+		long senderKey = tree.getKey(senderPos);
+		
+		if(!Configuration.canReceiveWhileSending && tree.isSending(p, receiverKey)) {
+			return true; // the receiver node of p is sending a packet itself
+		}
+		if(!Configuration.canReceiveMultiplePacketsInParallel) {
+			// Detect multiple packets that want to arrive in parallel at the same destination.
+			int parallel = tree.countPacketsTo(p.destination.ID);
+			if(p.origin.ID != p.destination.ID && tree.contains(p, senderKey)) {
+				parallel--; // do not count p itself
+			}
+			if(parallel > 0) {
+				return true;
+			}
+		}
+		
+		double dx = senderPos.xCoord - receiverPos.xCoord;
+		double dy = senderPos.yCoord - receiverPos.yCoord;
+		double signal = p.intensity / getPoweredDistance(dx * dx + dy * dy);
+		
+		double noise = ambientNoise + getInterference(p, receiverPos, receiverKey, senderKey);
+
+		boolean disturbed = signal < beta * noise;
+		
+		if(LogL.INTERFERENCE_DETAIL) {
+			Global.log.logln("Node "+p.destination.ID+" is checking a packet from "+p.origin.ID);
+			if(disturbed){
+				Global.log.logln("Dropped the message due to too much interference.");
+			}
+		}
+		
+		return disturbed;
+	}
+	
+	/**
+	 * Determines the interference of all packets in the air at the destination of a given packet.
+	 * The packet itself and the packets sent by the destination are not considered.  
+	 * @param p The packet whose interference is determined.
+	 * @param receiverPos The position of the destination of p.
+	 * @param receiverKey The grid cell of the destination of p.
+	 * @param senderKey The grid cell of the origin of p.
+	 * @return The sum of the intensities of all other packets at the destination of p.
+	 */
+	private double getInterference(Packet p, Position receiverPos, long receiverKey, long senderKey) {
+		PacketTree t = tree;
+		if(t.nodeCount == 0) {
+			return 0;
+		}
+		double rx = receiverPos.xCoord, ry = receiverPos.yCoord;
+		double noise = 0;
+		int[] stack = t.stack;
+		int top = 0;
+		stack[top++] = 0; // the root
+		while(top > 0) {
+			int node = stack[--top];
+			double dx = t.centerX[node] - rx;
+			double dy = t.centerY[node] - ry;
+			double squaredDistance = dx * dx + dy * dy;
+			// squares holding p or packets sent by the receiver are never approximated
+			if(t.radius[node] <= approximationFactor * squaredDistance && squaredDistance > 0 
+					&& !t.covers(node, receiverKey) && !t.covers(node, senderKey)) {
+				noise += t.intensity[node] / getPoweredDistance(squaredDistance);
+			} else if(t.firstChild[node] < 0) {
+				// sum up the senders of this leaf exactly
+				int hi = t.hi[node];
+				for(int i = t.lo[node]; i < hi; i++) {
+					Packet pack = t.packets[i];
+					if(pack == p || pack.origin.ID == p.destination.ID) {
+						continue; // that's the packet we want, or the receiver itself is sending
+					}
+					dx = t.x[i] - rx;
+					dy = t.y[i] - ry;
+					noise += pack.intensity / getPoweredDistance(dx * dx + dy * dy);
+				}
+			} else {
+				for(int child = t.firstChild[node]; child >= 0; child = t.nextSibling[child]) {
+					stack[top++] = child;
+				}
+			}
+		}
+		return noise;
+	}
+	
+	/**
+	 * Computes distance^alpha from the squared distance. 
+	 * @param squaredDistance The squared distance.
+	 * @return The distance to the power of alpha.
+	 */
+	private double getPoweredDistance(double squaredDistance) {
+		if(integerAlpha) {
+			double result = 1;
+			double base = squaredDistance;
+			for(int exp = intAlpha >> 1; exp > 0; exp >>= 1) {
+				if((exp & 1) != 0) {
+					result *= base;
+				}
+				base *= base;
+			}
+			return (intAlpha & 1) == 0 ? result : result * Math.sqrt(squaredDistance);
+		}
+		return Math.pow(squaredDistance, alpha / 2);
+	}
+	
+	/**
+	 * The senders of all packets that actively contribute to interference, sorted 
+	 * into a quad-tree over a fine grid on the deployment area. Only non-empty squares
+	 * are stored, squares with a single non-empty child are skipped, and squares with
+	 * few packets are not split further.
+	 * <p>
+	 * The tree is rebuilt whenever the packets in the air change, or the time 
+	 * advanced (as the nodes may have moved). 
+	 */
+	private static class PacketTree {
+		private static final int CELLS_PER_SIDE = 1 << 16; // the resolution of the Z-order
+		private static final int LEAF_SIZE = 8; // the max. number of packets of a leaf, unless they share a grid cell
+		
+		private double cellSize; // the side length of a grid cell
+		
+		private PacketsInTheAirBuffer builtBuffer = null; // the buffer at the last rebuild
+		private int builtModificationCount;
+		private double builtTime;
+		
+		// the packets, sorted by the grid cells of their origin (Z-order)
+		private Packet[] packets = new Packet[0];
+		private Packet[] unsorted = new Packet[0]; // the packets in the order of the buffer
+		private double[] x = new double[0], y = new double[0]; // the positions of the senders
+		private long[] keys = new long[0]; // the Z-order of the grid cell of each sender
+		private long[] order = new long[0]; // used for sorting: Z-order and index
+		private int[] destinations = new int[0]; // the sorted IDs of the destinations
+		private int destinationCount;
+		
+		// the squares of the tree, the root has index 0
+		private int nodeCount;
+		private int[] lo = new int[0], hi = new int[0]; // the range of packets in the square
+		private int[] shift = new int[0]; // the bits of the Z-order shared by all packets in the square
+		private int[] firstChild = new int[0], nextSibling = new int[0]; // -1 if none
+		private double[] intensity = new double[0]; // the sum of the intensities
+		private double[] centerX = new double[0], centerY = new double[0]; // the intensity-weighted center
+		private double[] radius = new double[0]; // the squared max. distance of a sender from the center
+		private double[] minX = new double[0], maxX = new double[0], minY = new double[0], maxY = new double[0];
+		private int[] stack = new int[0]; // the stack to traverse the tree
+		
+		/**
+		 * Creates the tree, which covers the deployment area.
+		 */
+		private PacketTree() {
+			double side = Math.max(Configuration.dimX, Configuration.dimY);
+			cellSize = side > 0 ? side / CELLS_PER_SIDE : 1;
+		}
+		
+		/**
+		 * Rebuilds the tree if the packets in the air have changed since the last call.
+		 */
+		private void update() {
+			PacketsInTheAirBuffer buffer = Runtime.packetsInTheAir;
+			if(buffer == builtBuffer && buffer.getModificationCount() == builtModificationCount 
+					&& Global.currentTime == builtTime) {
+				return;
+			}
+			builtBuffer = buffer;
+			builtModificationCount = buffer.getModificationCount();
+			builtTime = Global.currentTime;
+			
+			int size = buffer.size();
+			if(packets.length < size) {
+				int capacity = Math.max(size, 2 * packets.length);
+				packets = new Packet[capacity];
+				unsorted = new Packet[capacity];
+				x = new double[capacity];
+				y = new double[capacity];
+				keys = new long[capacity];
+				order = new long[capacity];
+				destinations = new int[capacity];
+			}
+			
+			// sort the packets by the grid cell of their sender, stable w.r.t. the order in the buffer
+			int count = 0;
+			for(Packet pack : buffer) {
+				unsorted[count] = pack;
+				order[count] = (getKey(pack.origin.getPosition()) << 31) | count;
+				count++;
+			}
+			Arrays.sort(order, 0, count);
+			destinationCount = 0;
+			for(int i = 0; i < count; i++) {
+				Packet pack = unsorted[(int) (order[i] & Integer.MAX_VALUE)];
+				Position pos = pack.origin.getPosition();
+				packets[i] = pack;
+				x[i] = pos.xCoord;
+				y[i] = pos.yCoord;
+				keys[i] = order[i] >>> 31;
+				if(pack.origin.ID != pack.destination.ID) {
+					destinations[destinationCount++] = pack.destination.ID;
+				}
+			}
+			Arrays.sort(destinations, 0, destinationCount);
+			// release references to packets that are no longer in the air
+			Arrays.fill(packets, count, packets.length, null);
+			Arrays.fill(unsorted, 0, count, null);
+			
+			nodeCount = 0;
+			if(count > 0) {
+				build(0, count);
+			}
+			if(stack.length < nodeCount) { // every square is pushed at most once
+				stack = new int[Math.max(nodeCount, 2 * stack.length)];
+			}
+		}
+		
+		/**
+		 * Builds the square for a range of packets whose keys share a common prefix.
+		 * @param from The first packet in the range.
+		 * @param to The packet after the last packet in the range.
+		 * @return The index of the created square.
+		 */
+		private int build(int from, int to) {
+			int node = nodeCount++;
+			if(node >= lo.length) {
+				growNodes();
+			}
+			lo[node] = from;
+			hi[node] = to;
+			nextSibling[node] = -1;
+			
+			double sum = 0, sumX = 0, sumY = 0;
+			double x0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y0 = Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+			long diff = keys[from] ^ keys[to - 1];
+			// the children differ in the two bits at position s of the Z-order
+			int s = (63 - Long.numberOfLeadingZeros(diff)) & ~1;
+			shift[node] = diff == 0 ? 0 : s + 2;
+			if(diff == 0 || to - from <= LEAF_SIZE) { // sum up the senders exactly
+				firstChild[node] = -1;
+				for(int i = from; i < to; i++) {
+					double w = packets[i].intensity;
+					sum += w;
+					sumX += w * x[i];
+					sumY += w * y[i];
+					x0 = Math.min(x0, x[i]); x1 = Math.max(x1, x[i]);
+					y0 = Math.min(y0, y[i]); y1 = Math.max(y1, y[i]);
+				}
+			} else {
+				int last = -1;
+				int start = from;
+				while(start < to) {
+					long quadrant = (keys[start] >>> s) & 3;
+					int end = start + 1;
+					while(end < to && ((keys[end] >>> s) & 3) == quadrant) {
+						end++;
+					}
+					int child = build(start, end);
+					if(last < 0) {
+						firstChild[node] = child;
+					} else {
+						nextSibling[last] = child;
+					}
+					last = child;
+					double w = intensity[child];
+					sum += w;
+					sumX += w * centerX[child];
+					sumY += w * centerY[child];
+					x0 = Math.min(x0, minX[child]); x1 = Math.max(x1, maxX[child]);
+					y0 = Math.min(y0, minY[child]); y1 = Math.max(y1, maxY[child]);
+					start = end;
+				}
+			}
+			double cx = sum > 0 ? sumX / sum : (x0 + x1) / 2;
+			double cy = sum > 0 ? sumY / sum : (y0 + y1) / 2;
+			double rx = Math.max(cx - x0, x1 - cx);
+			double ry = Math.max(cy - y0, y1 - cy);
+			intensity[node] = sum;
+			centerX[node] = cx;
+			centerY[node] = cy;
+			radius[node] = rx * rx + ry * ry; // the farthest corner of the bounding box
+			minX[node] = x0; maxX[node] = x1;
+			minY[node] = y0; maxY[node] = y1;
+			return node;
+		}
+		
+		/**
+		 * Doubles the capacity of the arrays describing the squares.
+		 */
+		private void growNodes() {
+			int capacity = Math.max(16, 2 * lo.length);
+			lo = Arrays.copyOf(lo, capacity);
+			hi = Arrays.copyOf(hi, capacity);
+			shift = Arrays.copyOf(shift, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			intensity = Arrays.copyOf(intensity, capacity);
+			centerX = Arrays.copyOf(centerX, capacity);
+			centerY = Arrays.copyOf(centerY, capacity);
+			radius = Arrays.copyOf(radius, capacity);
+			minX = Arrays.copyOf(minX, capacity);
+			maxX = Arrays.copyOf(maxX, capacity);
+			minY = Arrays.copyOf(minY, capacity);
+			maxY = Arrays.copyOf(maxY, capacity);
+		}
+		
+		/**
+		 * Returns the Z-order of the grid cell containing a given position.
+		 * @param pos The position.
+		 * @return The Z-order of the grid cell containing pos.
+		 */
+		private long getKey(Position pos) {
+			int cx = (int) Math.floor(pos.xCoord / cellSize);
+			int cy = (int) Math.floor(pos.yCoord / cellSize);
+			cx = Math.max(0, Math.min(CELLS_PER_SIDE - 1, cx));
+			cy = Math.max(0, Math.min(CELLS_PER_SIDE - 1, cy));
+			return spread(cx) | (spread(cy) << 1);
+		}
+		
+		/**
+		 * Spreads the lower 16 bits of a value to the even bits of the result. 
+		 * @param v The value to spread
+		 * @return The spread value.
+		 */
+		private static long spread(int v) {
+			long r = v & 0xFFFFL;
+			r = (r | (r << 8)) & 0x00FF00FFL;
+			r = (r | (r << 4)) & 0x0F0F0F0FL;
+			r = (r | (r << 2)) & 0x33333333L;
+			r = (r | (r << 1)) & 0x55555555L;
+			return r;
+		}
+		
+		/**
+		 * @param node A square of the tree.
+		 * @param key The Z-order of a grid cell. 
+		 * @return True if the grid cell lies within the given square, otherwise false.
+		 */
+		private boolean covers(int node, long key) {
+			return (key >>> shift[node]) == (keys[lo[node]] >>> shift[node]);
+		}
+		
+		/**
+		 * Returns the leaf holding the packets sent from a given grid cell.
+		 * @param key The Z-order of the grid cell.
+		 * @return The index of the leaf containing the packets of the grid cell, 
+		 * -1 if there are no packets sent from the grid cell.
+		 */
+		private int findCell(long key) {
+			if(nodeCount == 0) {
+				return -1;
+			}
+			int node = 0;
+			while(covers(node, key)) {
+				if(firstChild[node] < 0) {
+					return node;
+				}
+				int child = firstChild[node];
+				while(child >= 0 && !covers(child, key)) {
+					child = nextSibling[child];
+				}
+				if(child < 0) {
+					return -1;
+				}
+				node = child;
+			}
+			return -1;
+		}
+		
+		/**
+		 * @param p A packet
+		 * @param key The Z-order of the grid cell of the sender of p.
+		 * @return True if p is in the tree, i.e. actively contributes to interference.
+		 */
+		private boolean contains(Packet p, long key) {
+			int node = findCell(key);
+			if(node >= 0) {
+				for(int i = lo[node]; i < hi[node]; i++) {
+					if(packets[i] == p) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * @param p A packet
+		 * @param key The Z-order of the grid cell of the destination of p.
+		 * @return True if the destination of p sends a packet other than p.
+		 */
+		private boolean isSending(Packet p, long key) {
+			int node = findCell(key);
+			if(node >= 0) {
+				for(int i = lo[node]; i < hi[node]; i++) {
+					if(packets[i] != p && packets[i].origin.ID == p.destination.ID) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * @param id The ID of a node.
+		 * @return The number of packets sent to the node, not counting packets a node sends to itself. 
+		 */
+		private int countPacketsTo(int id) {
+			int from = lowerBound(id);
+			return lowerBound(id + 1) - from;
+		}
+		
+		/**
+		 * @param id The ID of a node.
+		 * @return The index of the first destination that is at least id.
+		 */
+		private int lowerBound(int id) {
+			int l = 0, r = destinationCount;
+			while(l < r) {
+				int m = (l + r) >>> 1;
+				if(destinations[m] < id) {
+					l = m + 1;
+				} else {
+					r = m;
+				}
+			}
+			return l;
+		}
+	}
+}
@@ -38,12 +38,14 @@ package projects.defaultProject.models.interferenceModels;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.models.InterferenceModel;
+import sinalgo.models.StatelessModel;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.runtime.Main;
 
 /**
  * A dummy interference model that does not consider intereference. 
  */
+@StatelessModel
 public class NoInterference extends InterferenceModel {
 	private static boolean firstTime = true;
 	
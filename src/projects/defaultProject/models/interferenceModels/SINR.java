@@ -39,7 +39,9 @@ package projects.defaultProject.models.interferenceModels;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.models.AdditiveInterferenceModel;
 import sinalgo.models.InterferenceModel;
+import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
 import sinalgo.nodes.messages.Packet;
 import sinalgo.runtime.Global;
@@ -66,8 +68,11 @@ import sinalgo.tools.logging.LogL;
  * &lt;SINR alpha="..." beta="..." noise="..."/&gt;
  * <br>
  * where alpha, beta, and noise are three floating point values.
+ * <br>
+ * The interference of this model is additive. In asynchronous mode with additive 
+ * interference, the framework tests the packets from a running sum of the interference. 
  */
-public class SINR extends InterferenceModel {
+public class SINR extends InterferenceModel implements AdditiveInterferenceModel {
 	private int alpha = 2; // the path-loss exponent
 	private double beta = 0.5; // the threshold 
 	private double ambientNoise = 0; // the ambient noise 
@@ -139,4 +144,36 @@ public class SINR extends InterferenceModel {
 		
 		return disturbed;
 	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.AdditiveInterferenceModel#getInterference(sinalgo.nodes.messages.Packet, sinalgo.nodes.Node)
+	 */
+	public double getInterference(Packet interferer, Node receiver) {
+		double distance = interferer.origin.getPosition().distanceTo(receiver.getPosition());
+		return interferer.intensity / Math.pow(distance, alpha);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.AdditiveInterferenceModel#isDisturbed(sinalgo.nodes.messages.Packet, double)
+	 */
+	public boolean isDisturbed(Packet p, double interference) {
+		double distanceFromSource = p.origin.getPosition().distanceTo(p.destination.getPosition());
+		double signal = p.intensity / Math.pow(distanceFromSource, alpha);
+		double threshold = beta * (ambientNoise + interference);
+		
+		if(Math.abs(signal - threshold) <= 1e-9 * signal) {
+			return isDisturbed(p); // too close to decide with the accumulated interference
+		}
+		
+		boolean disturbed = signal < threshold;
+		
+		if(LogL.INTERFERENCE_DETAIL) {
+			Global.log.logln("Node "+p.destination.ID+" is checking a packet from "+p.origin.ID);
+			if(disturbed){
+				Global.log.logln("Dropped the message due to too much interference.");
+			}
+		}
+		
+		return disturbed;
+	}
 }
@@ -38,6 +38,7 @@ package projects.defaultProject.models.messageTransmissionModels;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.configuration.ParameterKey;
 import sinalgo.models.MessageTransmissionModel;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Message;
@@ -55,13 +56,16 @@ public class ConstantTime extends MessageTransmissionModel {
 
 	private double time = 1.0;
 	
+	// the handle of the configuration entry for the transmission time
+	private static ParameterKey timeKey = Configuration.getParameterKey("MessageTransmission/ConstantTime");
+	
 	/**
 	 * Creates a new Constant time DefaultMessageTransmissionModel. It tries to read the parameter called
 	 * ConstantTime/ConstantValue from the configuration file. You can vary the value there.
 	 */
 	public ConstantTime(){
 		try {
-			time = Configuration.getDoubleParameter("MessageTransmission/ConstantTime");
+			time = timeKey.getDouble();
 		} catch (CorruptConfigurationEntryException e) {
 			Main.warning("Missing or wrong entry in the configuration file for the ConstantTime DefaultMessageTransmissionModel:\n" 
 			             + e.getMessage() +	"\n\nDefaulting to constant transmission time of 1 time unit.");
@@ -74,4 +78,11 @@ public class ConstantTime extends MessageTransmissionModel {
 	public double timeToReach(Node startNode, Node endNode, Message msg) {
 		return time;
 	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.models.MessageTransmissionModel#getMinimumTransmissionTime()
+	 */
+	public double getMinimumTransmissionTime() {
+		return time;
+	}
 }
@@ -39,7 +39,9 @@ package projects.defaultProject.models.messageTransmissionModels;
 import sinalgo.configuration.CorruptConfigurationEntryException;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Message;
+import sinalgo.tools.statistics.ConstantDistribution;
 import sinalgo.tools.statistics.Distribution;
+import sinalgo.tools.statistics.UniformDistribution;
 
 /**
  * Dummy message transmission model whose delivery time is defined
@@ -74,4 +76,14 @@ public class RandomTime extends sinalgo.models.MessageTransmissionModel {
 		}
 		return time;
 	}
+	
+	@Override
+	public double getMinimumTransmissionTime() {
+		if(dist instanceof UniformDistribution) {
+			return Math.max(((UniformDistribution) dist).getMin(), minTime);
+		} else if(dist instanceof ConstantDistribution) {
+			return Math.max(((ConstantDistribution) dist).getValue(), minTime);
+		}
+		return minTime;
+	}
 }
@@ -38,6 +38,7 @@ package projects.defaultProject.models.mobilityModels;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.models.MobilityModel;
+import sinalgo.models.StatelessModel;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
 import sinalgo.runtime.Main;
@@ -45,6 +46,7 @@ import sinalgo.runtime.Main;
 /**
  * Implements a mobility model under which nodes are not moving at all. 
  */
+@StatelessModel
 public class NoMobility extends MobilityModel {
 	private static boolean firstTime = true;
 	
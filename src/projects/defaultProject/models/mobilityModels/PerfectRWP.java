@@ -36,6 +36,10 @@
 */
 package projects.defaultProject.models.mobilityModels;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import sinalgo.configuration.CorruptConfigurationEntryException;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
@@ -122,6 +126,22 @@ public class PerfectRWP extends RandomWayPoint {
 	 * waiting time distribution configuration from the XML config file.
 	 * @throws CorruptConfigurationEntryException
 	 */
+	/* (non-Javadoc)
+	 * @see projects.defaultProject.models.mobilityModels.RandomWayPoint#writeState(java.io.DataOutput)
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeBoolean(initialize);
+		super.writeState(out);
+	}
+	
+	/* (non-Javadoc)
+	 * @see projects.defaultProject.models.mobilityModels.RandomWayPoint#readState(java.io.DataInput)
+	 */
+	public void readState(DataInput in) throws IOException {
+		initialize = in.readBoolean();
+		super.readState(in);
+	}
+	
 	public PerfectRWP() throws CorruptConfigurationEntryException {
 		super();
 	}
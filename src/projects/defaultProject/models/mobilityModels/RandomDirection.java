@@ -37,6 +37,9 @@
 package projects.defaultProject.models.mobilityModels;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 import sinalgo.configuration.Configuration;
@@ -156,6 +159,9 @@ public class RandomDirection extends MobilityModel {
 			currentPosition = n.getPosition(); // initially, currentPos is null
 			initialize = false;
 		}
+		if(currentPosition == null && !initialize) { // restored from a checkpoint
+			currentPosition = n.getPosition();
+		}
 		
 		// restart a new move to a new destination if the node was moved by another means than this mobility model
 		if(currentPosition != null) {
@@ -241,6 +247,33 @@ public class RandomDirection extends MobilityModel {
 	 * @see RandomWayPoint
 	 * @throws CorruptConfigurationEntryException
 	 */
+	/* (non-Javadoc)
+	 * @see sinalgo.models.Model#writeState(java.io.DataOutput)
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		// the current position is the position of the node, which is set again in getNextPos()
+		out.writeBoolean(initialize);
+		out.writeBoolean(moveVector != null);
+		if(moveVector != null) {
+			out.writeDouble(moveVector.xCoord);
+			out.writeDouble(moveVector.yCoord);
+			out.writeDouble(moveVector.zCoord);
+		}
+		out.writeInt(remaining_hops);
+		out.writeInt(remaining_waitingTime);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.Model#readState(java.io.DataInput)
+	 */
+	public void readState(DataInput in) throws IOException {
+		initialize = in.readBoolean();
+		moveVector = in.readBoolean() ? new Position(in.readDouble(), in.readDouble(), in.readDouble()) : null;
+		remaining_hops = in.readInt();
+		remaining_waitingTime = in.readInt();
+		currentPosition = null;
+	}
+	
 	public RandomDirection() throws CorruptConfigurationEntryException {
 		if(!initialized) {
 			moveTimeDistribution = Distribution.getDistributionFromConfigFile("RandomDirection/MoveTime");
@@ -37,6 +37,9 @@
 package projects.defaultProject.models.mobilityModels;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 import sinalgo.configuration.Configuration;
@@ -166,6 +169,41 @@ public class RandomWayPoint extends MobilityModel {
 	 * The position is expected to be within the deployment area.
 	 * @return the next waypoint where this node moves after having waited. 
 	 */
+	/* (non-Javadoc)
+	 * @see sinalgo.models.Model#writeState(java.io.DataOutput)
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		writePosition(out, nextDestination);
+		writePosition(out, moveVector);
+		out.writeBoolean(currentPosition != null);
+		if(currentPosition != null) {
+			writePosition(out, currentPosition);
+		}
+		out.writeInt(remaining_hops);
+		out.writeInt(remaining_waitingTime);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.Model#readState(java.io.DataInput)
+	 */
+	public void readState(DataInput in) throws IOException {
+		nextDestination = readPosition(in);
+		moveVector = readPosition(in);
+		currentPosition = in.readBoolean() ? readPosition(in) : null;
+		remaining_hops = in.readInt();
+		remaining_waitingTime = in.readInt();
+	}
+	
+	private static void writePosition(DataOutput out, Position p) throws IOException {
+		out.writeDouble(p.xCoord);
+		out.writeDouble(p.yCoord);
+		out.writeDouble(p.zCoord);
+	}
+	
+	private static Position readPosition(DataInput in) throws IOException {
+		return new Position(in.readDouble(), in.readDouble(), in.readDouble());
+	}
+	
 	protected Position getNextWayPoint() {
 		double randx = random.nextDouble() * Configuration.dimX;
 		double randy = random.nextDouble() * Configuration.dimY;
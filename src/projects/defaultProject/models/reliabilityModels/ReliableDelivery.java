@@ -37,11 +37,13 @@
 package projects.defaultProject.models.reliabilityModels;
 
 import sinalgo.models.ReliabilityModel;
+import sinalgo.models.StatelessModel;
 import sinalgo.nodes.messages.Packet;
 
 /**
  * A reliability model which never drops a message due to link-failures. 
  */
+@StatelessModel
 public class ReliableDelivery extends ReliabilityModel {
 
 	/* (non-Javadoc)
@@ -1,5 +1,11 @@
 package projects.defaultProject.nodes.timers;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import sinalgo.io.checkpoint.CheckpointReader;
+import sinalgo.io.checkpoint.CheckpointWriter;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Message;
 import sinalgo.nodes.timers.Timer;
@@ -25,6 +31,28 @@ public class DirectMessageTimer extends Timer {
 		target = n;
 	}
 	
+	/**
+	 * Constructor used to restore this timer from a checkpoint.
+	 */
+	private DirectMessageTimer() {
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.timers.Timer#writeState(java.io.DataOutput)
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		CheckpointWriter.writeMessage(out, msg);
+		CheckpointWriter.writeNode(out, target);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.timers.Timer#readState(java.io.DataInput)
+	 */
+	public void readState(DataInput in) throws IOException {
+		msg = CheckpointReader.readMessage(in);
+		target = CheckpointReader.readNode(in);
+	}
+	
 	@Override
 	public void fire() {
 		this.node.sendDirect(msg, target);
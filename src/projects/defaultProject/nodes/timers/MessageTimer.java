@@ -36,6 +36,12 @@
 */
 package projects.defaultProject.nodes.timers;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import sinalgo.io.checkpoint.CheckpointReader;
+import sinalgo.io.checkpoint.CheckpointWriter;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Message;
 import sinalgo.nodes.timers.Timer;
@@ -71,6 +77,28 @@ public class MessageTimer extends Timer {
 		this.receiver = null; // indicates broadcasting
 	}
 	
+	/**
+	 * Constructor used to restore this timer from a checkpoint.
+	 */
+	private MessageTimer() {
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.timers.Timer#writeState(java.io.DataOutput)
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		CheckpointWriter.writeMessage(out, msg);
+		CheckpointWriter.writeNode(out, receiver);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.timers.Timer#readState(java.io.DataInput)
+	 */
+	public void readState(DataInput in) throws IOException {
+		msg = CheckpointReader.readMessage(in);
+		receiver = CheckpointReader.readNode(in);
+	}
+	
 	@Override
 	public void fire() {
 		if(receiver != null) { // there's a receiver => unicast the message
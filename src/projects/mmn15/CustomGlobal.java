@@ -41,6 +41,9 @@ import projects.mmn15.nodes.edges.WeightedEdge;
 import projects.mmn15.nodes.nodeImplementations.GHSNode;
 import sinalgo.configuration.Configuration;
 import sinalgo.gui.controlPanel.ControlPanel;
+import sinalgo.io.graphFileIO.GraphFileReader;
+import sinalgo.io.graphFileIO.GraphFileWriter;
+import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.runtime.AbstractCustomGlobal;
 import sinalgo.runtime.Global;
@@ -100,7 +103,19 @@ public class CustomGlobal extends AbstractCustomGlobal {
      * @return the weight of the edge from start to end
      */
     public static Integer getWeight(int start, int end) {
-        return weights.get(start).get(end);
+        HashMap<Integer, Integer> startWeights = weights.get(start);
+        return startWeights == null ? null : startWeights.get(end);
+    }
+
+    /**
+     * Set the weight of an edge in the current graph
+     *
+     * @param start  the start node of the edge
+     * @param end    the end node of the edge
+     * @param weight the weight of the edge
+     */
+    public static void setWeight(int start, int end, int weight) {
+        weights.computeIfAbsent(start, k -> new HashMap<>()).put(end, weight);
     }
 
     /**
@@ -202,6 +217,50 @@ public class CustomGlobal extends AbstractCustomGlobal {
         }
     }
 
+    /**
+     * Save the current graph (including the weights of the edges) to a graph file.
+     */
+    @CustomButton(buttonText = "Save Graph", toolTipText = "Save the graph to a graph file")
+    public void saveGraph() {
+        String fileName = Tools.showQueryDialog("Graph file name:");
+        if (fileName == null) return;
+        new GraphFileWriter(new File(fileName)).write();
+    }
+
+    /**
+     * Load a graph saved with the Save Graph button, and select a node to be the server.
+     */
+    @CustomButton(buttonText = "Load Graph", toolTipText = "Load a graph from a graph file")
+    public void loadGraph() {
+        String fileName = Tools.showQueryDialog("Graph file name:");
+        if (fileName == null) return;
+
+        weights.clear();
+        nodes.clear();
+        sumOfWeights = BigInteger.ZERO;
+        new GraphFileReader(new File(fileName)).read();
+
+        // Rebuild the nodes vector and the sum of the weights from the loaded graph
+        for (Node node : Tools.getNodeList()) {
+            if (!(node instanceof GHSNode)) continue;
+            nodes.add((GHSNode) node);
+            for (Edge e : node.outgoingConnections) {
+                if (e instanceof WeightedEdge && node.ID < e.endNode.ID) {
+                    sumOfWeights = sumOfWeights.add(BigInteger.valueOf(((WeightedEdge) e).getWeight()));
+                }
+            }
+        }
+        if (nodes.isEmpty()) return;
+
+        Tools.getNodeSelectedByUser(n -> {
+            if (n == null || !(n instanceof GHSNode)) {
+                return; // aborted
+            }
+            GHSNode node = (GHSNode) n;
+            node.setIsServer(true);
+        }, "Select a node to be the server...");
+    }
+
     /**
      * Restart the GHS algorithm in the existing graph.
      */
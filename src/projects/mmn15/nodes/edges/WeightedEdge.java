@@ -6,6 +6,7 @@ import sinalgo.nodes.edges.BidirectionalEdge;
 import sinalgo.tools.statistics.UniformDistribution;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
 
 /**
  * A weighted edge which its weight is uniformly selected from [1, 1000000000].
@@ -38,6 +39,27 @@ public class WeightedEdge extends BidirectionalEdge {
         this.weight = weight;
     }
 
+    /**
+     * Store the weight of the edge in a graph file.
+     *
+     * @param buffer The buffer to write the weight to
+     */
+    @Override
+    public void writeAttributes(ByteBuffer buffer) {
+        buffer.putInt(weight);
+    }
+
+    /**
+     * Restore the weight of the edge when a graph file is loaded.
+     *
+     * @param buffer The buffer to read the weight from
+     */
+    @Override
+    public void readAttributes(ByteBuffer buffer) {
+        weight = buffer.getInt();
+        CustomGlobal.setWeight(startNode.ID, endNode.ID, weight);
+    }
+
     /**
      * Get the edge's weight.
      *
@@ -1,13 +1,14 @@
 package projects.mmn15.nodes.messages;
 
 import projects.mmn15.nodes.nodeImplementations.GHSNode;
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Message;
 
 /**
  * A message that is broadcasted in the MWOE_BROADCASTING state of the GHS algorithm.
  * This message is used to broadcast the MWOE that was chosen by the root of the fragment to be added to the MST.
  */
-public class ChosenMWOEMessage extends Message {
+public class ChosenMWOEMessage extends Message implements ImmutableMessage {
     GHSNode from;
     GHSNode to;
     Integer weight;
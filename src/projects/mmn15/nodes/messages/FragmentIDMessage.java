@@ -1,12 +1,13 @@
 package projects.mmn15.nodes.messages;
 
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Message;
 
 /**
  * A message that is sent in the FRAGMENT_ID_DISCOVERY state of the GHS algorithm.
  * This message indicates that the neighbor has changed its fragment ID.
  */
-public class FragmentIDMessage extends Message {
+public class FragmentIDMessage extends Message implements ImmutableMessage {
     int id;
 
     public int getId() {
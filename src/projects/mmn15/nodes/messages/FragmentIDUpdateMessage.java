@@ -1,12 +1,13 @@
 package projects.mmn15.nodes.messages;
 
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Message;
 
 /**
  * A message that is broadcasted in the FRAGMENT_ID_DISCOVERY state of the GHS algorithm.
  * This message is used by the root to broadcast its ID as the new fragment ID.
  */
-public class FragmentIDUpdateMessage extends Message {
+public class FragmentIDUpdateMessage extends Message implements ImmutableMessage {
     int id;
 
     public int getId() {
@@ -1,12 +1,13 @@
 package projects.mmn15.nodes.messages;
 
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Message;
 
 /**
  * A message that is sent in the MWOE_SEND state of the GHS algorithm.
  * This message indicates that the sender is connecting its fragment to the receiver's fragment using the edge between them.
  */
-public class MWOEChoiceMessage extends Message {
+public class MWOEChoiceMessage extends Message implements ImmutableMessage {
     int weight;
 
     public int getWeight() {
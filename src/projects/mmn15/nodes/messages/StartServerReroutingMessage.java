@@ -1,12 +1,13 @@
 package projects.mmn15.nodes.messages;
 
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Message;
 
 /**
  * A message that is broadcasted when the algorithm is finished, i.e. when the root finds out all the nodes in the graph are in its fragment.
  * This message starts the server rerouting processes which makes the server the root of the MST.
  */
-public class StartServerReroutingMessage extends Message {
+public class StartServerReroutingMessage extends Message implements ImmutableMessage {
     int startTime;
 
     public int getStartTime() {
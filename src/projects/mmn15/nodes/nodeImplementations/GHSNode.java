@@ -10,6 +10,8 @@ import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.Message;
 import sinalgo.tools.Tools;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Vector;
 
@@ -305,9 +307,7 @@ public class GHSNode extends Node {
             }
             // Listen for a start server rerouting message
             else if (msg instanceof StartServerReroutingMessage) {
-                for (GHSNode child : children) {
-                    send(msg, child);
-                }
+                multicast(msg, children);
                 startServerRerouting((StartServerReroutingMessage) msg);
             }
         }
@@ -332,9 +332,7 @@ public class GHSNode extends Node {
             // If it is the first iteration of this state send the node's id (which is the new fragment id) to its children
             if (roundCounter == 0) {
                 fragmentID = ID;
-                for (GHSNode child : children) {
-                    send(new FragmentIDUpdateMessage(fragmentID), child);
-                }
+                multicast(new FragmentIDUpdateMessage(fragmentID), children);
                 // Update neighbors about my new fragment id
                 for (Edge e : outgoingConnections) {
                     send(new FragmentIDMessage(fragmentID), e.endNode);
@@ -348,9 +346,7 @@ public class GHSNode extends Node {
                 }
                 // Listen for a start server rerouting message
                 else if (msg instanceof StartServerReroutingMessage) {
-                    for (GHSNode child : children) {
-                        send(msg, child);
-                    }
+                    multicast(msg, children);
                     startServerRerouting((StartServerReroutingMessage) msg);
                 }
             }
@@ -361,9 +357,7 @@ public class GHSNode extends Node {
                 Message msg = inbox.next();
                 if (msg instanceof FragmentIDUpdateMessage) {
                     fragmentID = ((FragmentIDUpdateMessage) msg).getId();
-                    for (GHSNode child : children) {
-                        send(msg, child);
-                    }
+                    multicast(msg, children);
                     // Update neighbors about my new fragment id
                     for (Edge e : outgoingConnections) {
                         send(new FragmentIDMessage(fragmentID), e.endNode);
@@ -375,9 +369,7 @@ public class GHSNode extends Node {
                 }
                 // Listen for a start server rerouting message
                 else if (msg instanceof StartServerReroutingMessage) {
-                    for (GHSNode child : children) {
-                        send(msg, child);
-                    }
+                    multicast(msg, children);
                     startServerRerouting((StartServerReroutingMessage) msg);
                 }
             }
@@ -415,9 +407,7 @@ public class GHSNode extends Node {
                 }
                 // Listen for a start server rerouting message
                 else if (msg instanceof StartServerReroutingMessage) {
-                    for (GHSNode child : children) {
-                        send(msg, child);
-                    }
+                    multicast(msg, children);
                     startServerRerouting((StartServerReroutingMessage) msg);
                 }
             }
@@ -442,9 +432,7 @@ public class GHSNode extends Node {
                     // If all the nodes are in the subtree of the current root, the algorithm is finished
                     if (nodesInSubtreeCounter == CustomGlobal.getNumOfNodes()) {
                         StartServerReroutingMessage msg = new StartServerReroutingMessage((int) Tools.getGlobalTime());
-                        for (GHSNode child : children) {
-                            send(msg, child);
-                        }
+                        multicast(msg, children);
                         startServerRerouting(msg);
                     }
                     mwoeToAdd = mwoeSuggestionToSend;
@@ -475,9 +463,7 @@ public class GHSNode extends Node {
                 }
                 // Otherwise, update the children about the MWOE
                 else {
-                    for (GHSNode child : children) {
-                        send(new ChosenMWOEMessage(mwoeToAdd), child);
-                    }
+                    multicast(new ChosenMWOEMessage(mwoeToAdd), children);
                 }
                 mwoeToAdd = null;
             }
@@ -494,16 +480,12 @@ public class GHSNode extends Node {
                     }
                     // Otherwise, update the children about the MWOE
                     else {
-                        for (GHSNode child : children) {
-                            send(chosenMWOEMsg, child);
-                        }
+                        multicast(chosenMWOEMsg, children);
                     }
                 }
                 // Listen for a start server rerouting message
                 else if (msg instanceof StartServerReroutingMessage) {
-                    for (GHSNode child : children) {
-                        send(msg, child);
-                    }
+                    multicast(msg, children);
                     startServerRerouting((StartServerReroutingMessage) msg);
                 }
             }
@@ -541,9 +523,7 @@ public class GHSNode extends Node {
             }
             // Listen for a start server rerouting message
             else if (msg instanceof StartServerReroutingMessage) {
-                for (GHSNode child : children) {
-                    send(msg, child);
-                }
+                multicast(msg, children);
                 startServerRerouting((StartServerReroutingMessage) msg);
             }
         }
@@ -576,9 +556,7 @@ public class GHSNode extends Node {
             }
             // Listen for a start server rerouting message
             else if (msg instanceof StartServerReroutingMessage) {
-                for (GHSNode child : children) {
-                    send(msg, child);
-                }
+                multicast(msg, children);
                 startServerRerouting((StartServerReroutingMessage) msg);
             }
         }
@@ -697,6 +675,16 @@ public class GHSNode extends Node {
     public void checkRequirements() throws WrongConfigurationException {
     }
 
+    /**
+     * This project cannot be checkpointed: the state of the GHS algorithm refers to other nodes
+     * and to messages without a constructor without parameters, and the edge weights are kept in
+     * the CustomGlobal. Refuse to write a checkpoint instead of silently losing this state.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        throw new IOException("The mmn15 project does not support checkpoints.");
+    }
+
     /* End of Sinalgo hooks */
 
     /* Sinalgo menu buttons */
@@ -85,6 +85,20 @@ public class Run {
 			// parse the -overwrite parameters
 			Main.parseOverwriteParameters(args, false);
 			
+			if(Configuration.inProcessLaunch && canLaunchInProcess()) {
+				// the settings of this VM match, start the simulator without a second VM
+				Vector<String> mainArgs = new Vector<String>();
+				if(projectName != null) {
+					mainArgs.add("-project");
+					mainArgs.add(projectName);
+				}
+				for(String s : args) {
+					mainArgs.add(s);
+				}
+				Main.main(mainArgs.toArray(new String[mainArgs.size()]));
+				return;
+			}
+			
 			// assemble the cmd-line args to start the simulator
 			// The simulator is started in a new process s.t. we can 
 			// - dynamically set the max memory usage
@@ -157,6 +171,21 @@ public class Run {
 		}
 	}
 	
+	/**
+	 * Tests whether the simulation may run in this VM, i.e. whether the java-command 
+	 * does not wrap the VM (e.g. with 'nice') and this VM may use the memory 
+	 * requested by javaVMmaxMem. 
+	 * @return True if the simulation may run in this VM, otherwise false.
+	 */
+	private static boolean canLaunchInProcess() {
+		if(!Configuration.javaCmd.trim().equals("java")) {
+			return false;
+		}
+		// the VM reports a slightly smaller maximum than given with -Xmx
+		long requested = (long) Configuration.javaVMmaxMem * 1024 * 1024;
+		return Runtime.getRuntime().maxMemory() >= requested * 0.9;
+	}
+	
 	/**
 	 * Adds jdom.jar to the classpath if it's not already there.
 	 * This method is clearly a hack (only works if the default 
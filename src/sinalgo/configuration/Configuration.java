@@ -263,6 +263,14 @@ public class Configuration {
 	                     "immediately upon arrival in asynchronous mode.")
 	public static boolean generateNAckMessages = false;
 	
+	/** */
+	@OptionalInConfigFile("This flag only affects the synchronous simulation mode.\n" +
+	                      "If set to true, the messages on the way to a node are stored\n" +
+	                      "in buckets, one for each round in which messages arrive. Set this\n" +
+	                      "flag to true if messages take several rounds to arrive, such that\n" +
+	                      "the nodes do not test all pending messages in every round.")
+	public static boolean bucketPacketsByArrivalRound = false;
+	
 	/** */
 	@DefaultInConfigFile("This flag only affects the asynchronous simulation mode. \n" +
 	                     "When set to true, the framework calls handleEmptyEventQueue \n" +
@@ -270,6 +278,108 @@ public class Configuration {
 	                     "becomes empty.")
 	public static boolean handleEmptyEventQueue = true;
 
+	/** */
+	@OptionalInConfigFile("This flag only affects the asynchronous simulation mode.\n" +
+	                      "The number of worker threads that execute the events in parallel.\n" +
+	                      "Set to 1 to execute the events one after the other.\n" +
+	                      "With more than one thread, the nodes are partitioned among the\n" +
+	                      "threads, and all events within a time window given by the minimum\n" +
+	                      "transmission time of the message transmission model are executed\n" +
+	                      "in parallel. The event order is deterministic for a given number\n" +
+	                      "of threads. The node implementations may only modify their own\n" +
+	                      "state, and must obtain the current time through Tools.getGlobalTime().\n" +
+	                      "Not available with interference or NACK messages.")
+	public static int asynchronousThreads = 1;
+
+	/** */
+	@OptionalInConfigFile("This flag only affects the synchronous simulation mode.\n" +
+	                      "The number of worker threads that execute the mobility and the\n" +
+	                      "connectivity phase of each round in parallel. Set to 1 to execute\n" +
+	                      "the phases sequentially. The mobility models may only depend on\n" +
+	                      "the node they move. The connectivity models that extend\n" +
+	                      "ConnectivityModelHelper evaluate isConnected in parallel, all other\n" +
+	                      "connectivity models are executed sequentially. The result is\n" +
+	                      "deterministic for a given number of threads.")
+	public static int synchronousThreads = 1;
+
+	/** */
+	@OptionalInConfigFile("This flag only affects the asynchronous simulation mode.\n" +
+	                      "When set to true, messages that arrive at the same node at\n" +
+	                      "exactly the same time, and whose events follow each other\n" +
+	                      "directly in the event queue, are delivered together in one\n" +
+	                      "Inbox, instead of calling handleMessages once per message.\n" +
+	                      "Has no effect when interference is turned on, or when the\n" +
+	                      "events are executed by several threads.")
+	public static boolean coalescePacketEvents = false;
+
+	/** */
+	@OptionalInConfigFile("The order in which the nodes are stored and traversed, e.g.\n" +
+	                      "when they are stepped in the synchronous mode. The nodes are\n" +
+	                      "reordered once, just before the simulation starts:\n" +
+	                      "none: The nodes are kept in the order they were added.\n" +
+	                      "hilbert: The nodes are sorted along a Hilbert curve over\n" +
+	                      "         their positions.\n" +
+	                      "rcm: The nodes are sorted in reverse Cuthill-McKee order\n" +
+	                      "     over their edges.")
+	public static String nodeOrdering = "none";
+
+	/** */
+	@OptionalInConfigFile("If set to true, the nodes get the IDs 1, 2, 3, ... in the\n" +
+	                      "order given by nodeOrdering when they are reordered.")
+	public static boolean renumberNodes = false;
+
+	/** */
+	@OptionalInConfigFile("If larger than 0, connectivity models that only depend on the\n" +
+	                      "distance between the nodes (e.g. the UDG) keep a list of the\n" +
+	                      "nodes closer than the transmission range plus this slack, and\n" +
+	                      "only re-evaluate the pairs in this list where one of the nodes\n" +
+	                      "moved. The list of a node is rebuilt after it moved more than\n" +
+	                      "half of the slack. Larger values rebuild the lists less often,\n" +
+	                      "but evaluate more pairs.")
+	public static double kineticConnectivitySlack = 0;
+
+	/** */
+	@OptionalInConfigFile("If larger than 0, the framework writes a checkpoint of the\n" +
+	                      "simulation to the checkpointFile every checkpointInterval rounds\n" +
+	                      "(synchronous mode) or events (asynchronous mode). Use the flag\n" +
+	                      "'-restore file' to continue a simulation from a checkpoint.")
+	public static long checkpointInterval = 0;
+
+	/** */
+	@OptionalInConfigFile("The file to which the periodic checkpoints are written. The\n" +
+	                      "file is replaced by each checkpoint.")
+	public static String checkpointFile = "checkpoint.scp";
+
+	/** */
+	@OptionalInConfigFile("If set to true, the framework records each message that is\n" +
+	                      "sent, delivered or dropped in the binary messageTraceFile.\n" +
+	                      "Read the file with the MessageTraceReader.")
+	public static boolean messageTrace = false;
+
+	/** */
+	@OptionalInConfigFile("The file to which the message trace is written. An existing\n" +
+	                      "file is replaced.")
+	public static String messageTraceFile = "messages.smt";
+
+	/** */
+	@OptionalInConfigFile("The number of records the message trace buffers in memory\n" +
+	                      "before the nodes need to wait for the file to be written.")
+	public static int messageTraceBufferSize = 1 << 20;
+
+	/** */
+	@OptionalInConfigFile("If set to true, the blocks of the message trace are compressed\n" +
+	                      "before they are written to the file.")
+	public static boolean messageTraceCompression = false;
+
+	/** */
+	@OptionalInConfigFile("The number of threads that construct the nodes generated with\n" +
+	                      "the -gen flag or Tools.generateNodes. If larger than 1, the\n" +
+	                      "nodes and their models are constructed in parallel, and the\n" +
+	                      "constructors need to be thread-safe. The generated nodes do\n" +
+	                      "not depend on the number of threads, but may differ from the\n" +
+	                      "nodes generated by a single thread.")
+	public static int nodeGenerationThreads = 1;
+
 	/** */
 	@DefaultInConfigFile("The java-command used to start the simulation process.\n" +
 	                     "E.g. 'java', 'nice -n 19 java', 'time java'\n" +
@@ -281,6 +391,12 @@ public class Configuration {
 	@DefaultInConfigFile("Maximum memory the Java VM is allowed to use (in MB)")
 	public static int javaVMmaxMem = 500;
 	
+	/** */
+	@OptionalInConfigFile("If set to true, sinalgo.Run starts the simulation in its own\n" +
+	                      "process instead of a new process, provided that javaCmd is\n" +
+	                      "'java' and the running VM may already use javaVMmaxMem.")
+	public static boolean inProcessLaunch = false;
+	
 	//-------------------------------------------------------------------------
 	// Seed for random number generator
 	//-------------------------------------------------------------------------
@@ -334,6 +450,13 @@ public class Configuration {
 	                       "a new log is added.")
 	public static boolean eagerFlush = false;
 
+	/** */
+	@OptionalInConfigFile("If set to true, the log statements are collected in a buffer\n" +
+	                      "per thread and written to the log files by a background thread.\n" +
+	                      "With eagerFlush, the files are flushed after each write of the\n" +
+	                      "background thread.")
+	public static boolean asynchronousLogging = false;
+
 	//-------------------------------------------------------------------------
 	// GUI
 	//-------------------------------------------------------------------------
@@ -542,6 +665,12 @@ public class Configuration {
 			"panel")
 	public static int shownEventQueueSize = 10;
 	
+	/** */
+	@OptionalInConfigFile("Keep a list of all packets that are currently in use, and\n" +
+	                      "report packets that are freed more than once. This list\n" +
+	                      "is always kept if the message animations are shown.")
+	public static boolean trackIssuedPackets = false;
+	
 	
 	/** */
 	@OptionalInConfigFile("Height of the output text field in pixels.")
@@ -757,6 +886,36 @@ public class Configuration {
 	private static HashMap<String, String> parameters = new HashMap<String, String>();
 	
 	
+	/**
+	 * The handles of the custom entries, by their lower-case key and by the keys with which
+	 * the handles were requested. 
+	 */
+	private static HashMap<String, ParameterKey> parameterKeys = new HashMap<String, ParameterKey>();
+	
+	/**
+	 * Returns the handle of a custom entry of the configuration file. Subsequent calls 
+	 * with the same key (ignoring the case) return the same handle object. 
+	 * <p>
+	 * The handle converts the entry to the different types when the entry is set. Code
+	 * that reads an entry often, e.g. when a node or edge is created, should obtain the
+	 * handle once and read the value from the handle.
+	 * @param key The key of the entry, which is case-insensitive.
+	 * @return The handle of the entry, also if there is no entry for this key. 
+	 */
+	public static synchronized ParameterKey getParameterKey(String key) {
+		ParameterKey k = parameterKeys.get(key);
+		if(k == null) {
+			String lowerKey = key.toLowerCase();
+			k = parameterKeys.get(lowerKey);
+			if(k == null) {
+				k = new ParameterKey(lowerKey);
+				parameterKeys.put(lowerKey, k);
+			}
+			parameterKeys.put(key, k);
+		}
+		return k;
+	}
+	
 	/**
 	 * Adds a property entry to the list of properties. 
 	 * @param key The key of the property, which is converted to lower-case.
@@ -764,6 +923,7 @@ public class Configuration {
 	 */
 	public static void putPropertyEntry(String key, String property) {
 		parameters.put(key.toLowerCase(), property);
+		getParameterKey(key).setValue(property);
 	}
 	
 	/**
@@ -775,13 +935,7 @@ public class Configuration {
 	 * @throws CorruptConfigurationEntryException If no entry is associated with the key.
 	 */
 	public static String getStringParameter(String key) throws CorruptConfigurationEntryException {
-		key = key.toLowerCase();
-		if(parameters.containsKey(key)) {
-			return parameters.get(key);
-		} else {
-			throw new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
-			                                             + key + "' is missing in the config file of project '"+Global.projectName+"'.");
-		}
+		return getParameterKey(key).getString();
 	}
 	
 	
@@ -794,7 +948,7 @@ public class Configuration {
 	 * @return true if there is an entry for this key, otherwise false.
 	 */
 	public static boolean hasParameter(String key) {
-		return parameters.containsKey(key.toLowerCase());
+		return getParameterKey(key).isSet();
 	}
 
 	/**
@@ -805,17 +959,7 @@ public class Configuration {
 	 * @throws CorruptConfigurationEntryException If no entry is associated with the key or the entry cannot be converted to a double.
 	 */
 	public static double getDoubleParameter(String key) throws CorruptConfigurationEntryException {
-		key = key.toLowerCase();
-		if(parameters.containsKey(key)) {
-			try {
-				return Double.parseDouble(parameters.get(key));
-			} catch(NumberFormatException e) {
-				throw new CorruptConfigurationEntryException("The entry '" + key + "' in the configuration file cannot be converted to a double value."); 
-			}
-		} else {
-			throw new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
-					+ key + "' is missing.");
-		}
+		return getParameterKey(key).getDouble();
 	}
 	
 	/**
@@ -826,17 +970,7 @@ public class Configuration {
 	 * @throws CorruptConfigurationEntryException If no entry is associated with the key or the entry cannot be converted to a integer.
 	 */
 	public static int getIntegerParameter(String key) throws CorruptConfigurationEntryException {
-		key = key.toLowerCase();
-		if(parameters.containsKey(key)) {
-			try {
-				return Integer.parseInt(parameters.get(key));
-			} catch(NumberFormatException e) {
-				throw new CorruptConfigurationEntryException("The entry '" + key + "' in the configuration file cannot be converted to a integer value."); 
-			}
-		} else {
-			throw new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
-					+ key + "' is missing.");
-		}
+		return getParameterKey(key).getInt();
 	}
 	
 	/**
@@ -847,13 +981,7 @@ public class Configuration {
 	 * @throws CorruptConfigurationEntryException If no entry is associated with the key.
 	 */
 	public static boolean getBooleanParameter(String key) throws CorruptConfigurationEntryException {
-		key = key.toLowerCase();
-		if(parameters.containsKey(key)) {
-			return Boolean.parseBoolean(parameters.get(key));
-		} else {
-			throw new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
-					+ key + "' is missing.");
-		}
+		return getParameterKey(key).getBoolean();
 	}
 	
 	/**
@@ -865,19 +993,7 @@ public class Configuration {
 	 * is not a valid color name (a static Color member of the java.awt.Color class). 
 	 */
 	public static Color getColorParameter(String key) throws CorruptConfigurationEntryException {
-		key = key.toLowerCase();
-		if(!parameters.containsKey(key)) {
-			throw new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
-					+ key + "' is missing.");
-		}
-		String color = parameters.get(key);
-		try {
-			Field f = Color.class.getDeclaredField(color.toLowerCase());
-			return (Color) f.get(null);
-		} catch(Throwable t) {
-			throw new CorruptConfigurationEntryException("Invalid color: '" + color + "' specified by the configuration entry" + key + 
-			"\nValid color names are the static color members of the java.awt.Color class.");  
-		}
+		return getParameterKey(key).getColor();
 	}
 	
 	
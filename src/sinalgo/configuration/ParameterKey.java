@@ -0,0 +1,197 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.configuration;
+
+import java.awt.Color;
+import java.lang.reflect.Field;
+
+import sinalgo.runtime.Global;
+
+/**
+ * A handle to a custom entry of the configuration file. 
+ * <p>
+ * The handle of a key is obtained once with {@link Configuration#getParameterKey(String)},
+ * and may be stored, e.g. in a static member. The value of the entry is converted to 
+ * the different types when the entry is set, such that the getter methods of this handle
+ * neither look up nor parse the entry. The handle always reflects the current value of 
+ * the entry, also if the entry is set or changed after the handle was obtained, e.g. 
+ * through the -overwrite flag.
+ * <p>
+ * E.g. to read the entry &lt;Node defaultSize="..."&gt; whenever a node is created, write
+ * <pre>
+ * static ParameterKey sizeKey = Configuration.getParameterKey("Node/defaultSize");
+ * ...
+ * int size = sizeKey.getInt();
+ * </pre>
+ */
+public final class ParameterKey {
+
+	private String key; // the lower-case key
+	private String value = null; // null if the entry is not set
+	private boolean isInt, isDouble;
+	private int intValue;
+	private double doubleValue;
+	private boolean booleanValue;
+	private Color colorValue; // null if the value is no valid color name
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Creates a handle for an entry that is not yet set.
+	 * @param key The lower-case key of the entry.
+	 */
+	ParameterKey(String key) {
+		this.key = key;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Sets the value of the entry and converts it to the different types.
+	 * @param value The value of the entry.
+	 */
+	void setValue(String value) {
+		this.value = value;
+		try {
+			intValue = Integer.parseInt(value);
+			isInt = true;
+		} catch(NumberFormatException e) {
+			isInt = false;
+		}
+		try {
+			doubleValue = Double.parseDouble(value);
+			isDouble = true;
+		} catch(NumberFormatException e) {
+			isDouble = false;
+		}
+		booleanValue = Boolean.parseBoolean(value);
+		try {
+			Field f = Color.class.getDeclaredField(value.toLowerCase());
+			colorValue = (Color) f.get(null);
+		} catch(Throwable t) {
+			colorValue = null;
+		}
+	}
+	
+	/**
+	 * @return The key of this entry, converted to lower case.
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * @return True if the configuration file (or the -overwrite flag) contains an 
+	 * entry for this key, otherwise false.
+	 */
+	public boolean isSet() {
+		return value != null;
+	}
+	
+	/**
+	 * @return The configuration entry of this key.
+	 * @throws CorruptConfigurationEntryException If the entry is not set.
+	 */
+	public String getString() throws CorruptConfigurationEntryException {
+		if(value == null) {
+			throw new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
+			                                             + key + "' is missing in the config file of project '"+Global.projectName+"'.");
+		}
+		return value;
+	}
+	
+	/**
+	 * @return The configuration entry of this key, converted to an integer.
+	 * @throws CorruptConfigurationEntryException If the entry is not set or cannot be converted to an integer.
+	 */
+	public int getInt() throws CorruptConfigurationEntryException {
+		if(!isInt) {
+			if(value == null) {
+				throw missingEntry();
+			}
+			throw new CorruptConfigurationEntryException("The entry '" + key + "' in the configuration file cannot be converted to a integer value."); 
+		}
+		return intValue;
+	}
+
+	/**
+	 * @return The configuration entry of this key, converted to a double.
+	 * @throws CorruptConfigurationEntryException If the entry is not set or cannot be converted to a double.
+	 */
+	public double getDouble() throws CorruptConfigurationEntryException {
+		if(!isDouble) {
+			if(value == null) {
+				throw missingEntry();
+			}
+			throw new CorruptConfigurationEntryException("The entry '" + key + "' in the configuration file cannot be converted to a double value."); 
+		}
+		return doubleValue;
+	}
+
+	/**
+	 * @return The configuration entry of this key, converted to a boolean.
+	 * @throws CorruptConfigurationEntryException If the entry is not set.
+	 */
+	public boolean getBoolean() throws CorruptConfigurationEntryException {
+		if(value == null) {
+			throw missingEntry();
+		}
+		return booleanValue;
+	}
+	
+	/**
+	 * @return The configuration entry of this key, converted to a Color object.
+	 * @throws CorruptConfigurationEntryException If the entry is not set or the entry
+	 * is not a valid color name (a static Color member of the java.awt.Color class). 
+	 */
+	public Color getColor() throws CorruptConfigurationEntryException {
+		if(colorValue == null) {
+			if(value == null) {
+				throw missingEntry();
+			}
+			throw new CorruptConfigurationEntryException("Invalid color: '" + value + "' specified by the configuration entry" + key + 
+			"\nValid color names are the static color members of the java.awt.Color class.");  
+		}
+		return colorValue;
+	}
+	
+	/**
+	 * @return The exception that reports that this entry is not set.
+	 */
+	private CorruptConfigurationEntryException missingEntry() {
+		return new CorruptConfigurationEntryException("Missing entry in the configuration file: An entry for the key '" 
+		                                              + key + "' is missing.");
+	}
+}
@@ -51,6 +51,7 @@ import java.awt.event.ComponentListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -59,6 +60,7 @@ import java.util.HashMap;
 import java.util.Vector;
 
 import javax.swing.BoxLayout;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
@@ -82,14 +84,21 @@ import sinalgo.gui.dialogs.GraphInfoDialog;
 import sinalgo.gui.dialogs.GraphPreferencesDialog;
 import sinalgo.gui.dialogs.HelpDialog;
 import sinalgo.gui.transformation.PositionTransformation;
+import sinalgo.io.checkpoint.CheckpointFileFilter;
+import sinalgo.io.checkpoint.CheckpointReader;
+import sinalgo.io.checkpoint.CheckpointWriter;
 import sinalgo.io.eps.ExportException;
 import sinalgo.io.eps.Exporter;
+import sinalgo.io.graphFileIO.GraphFileFilter;
+import sinalgo.io.graphFileIO.GraphFileReader;
+import sinalgo.io.graphFileIO.GraphFileWriter;
 import sinalgo.nodes.Position;
 import sinalgo.runtime.AbstractCustomGlobal;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
 import sinalgo.runtime.Runtime;
 import sinalgo.runtime.events.Event;
+import sinalgo.runtime.events.EventQueue;
 import sinalgo.tools.storage.SortableVector;
 
 
@@ -102,8 +111,10 @@ public class GUI extends JFrame implements ActionListener{
 	private JMenuBar menuBar;
 	private Font menuFont;
 	private JMenu graphMenu;
-	//private JMenuItem load;
-	//private JMenuItem save;
+	private JMenuItem loadMenuItem;
+	private JMenuItem saveMenuItem;
+	private JMenuItem restoreCheckpointMenuItem;
+	private JMenuItem saveCheckpointMenuItem;
 	private JMenuItem exportMenuItem;
 	private JMenuItem clearMenuItem;
 	private JMenuItem reevaluateMenuItem;
@@ -361,6 +372,20 @@ public class GUI extends JFrame implements ActionListener{
 		exportMenuItem.setMnemonic(java.awt.event.KeyEvent.VK_E);  
 		exportMenuItem.setIcon(GuiHelper.getIcon("export.gif"));
 		
+		loadMenuItem = new JMenuItem("Load Graph...");
+		loadMenuItem.addActionListener(this);
+		loadMenuItem.setMnemonic(java.awt.event.KeyEvent.VK_L);
+		
+		saveMenuItem = new JMenuItem("Save Graph...");
+		saveMenuItem.addActionListener(this);
+		saveMenuItem.setMnemonic(java.awt.event.KeyEvent.VK_V);
+		
+		restoreCheckpointMenuItem = new JMenuItem("Restore Checkpoint...");
+		restoreCheckpointMenuItem.addActionListener(this);
+		
+		saveCheckpointMenuItem = new JMenuItem("Save Checkpoint...");
+		saveCheckpointMenuItem.addActionListener(this);
+		
 		clearMenuItem = new JMenuItem("Clear Graph");
 		clearMenuItem.addActionListener(this);
 		clearMenuItem.setMnemonic(java.awt.event.KeyEvent.VK_C);
@@ -397,6 +422,10 @@ public class GUI extends JFrame implements ActionListener{
 
 		graphMenu.addSeparator();
 		graphMenu.add(infoMenuItem);
+		graphMenu.add(loadMenuItem);
+		graphMenu.add(saveMenuItem);
+		graphMenu.add(restoreCheckpointMenuItem);
+		graphMenu.add(saveCheckpointMenuItem);
 		graphMenu.add(exportMenuItem);
 		graphMenu.add(preferencesMenuItem);
 		graphMenu.addSeparator();
@@ -790,6 +819,80 @@ public class GUI extends JFrame implements ActionListener{
 		Runtime.clearAllNodes();
 	}
 
+	/**
+	 * Opens a dialog to select a graph file and replaces the current graph 
+	 * with the graph stored in the file.
+	 */
+	public void loadGraph() {
+		JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
+		fc.setDialogTitle("Select the graph file to load");
+		fc.setFileFilter(new GraphFileFilter());
+		if(fc.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = fc.getSelectedFile();
+			rememberDirectory(file);
+			new GraphFileReader(file).read();
+		}
+	}
+	
+	/**
+	 * Opens a dialog to select a file and saves the current graph to it.
+	 */
+	public void saveGraph() {
+		JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
+		fc.setDialogTitle("Select the destination file");
+		fc.setFileFilter(new GraphFileFilter());
+		if(fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = fc.getSelectedFile();
+			if(!file.getName().endsWith(".gf")) {
+				file = new File(file.getPath() + ".gf");
+			}
+			rememberDirectory(file);
+			new GraphFileWriter(file).write();
+		}
+	}
+	
+	/**
+	 * Opens a dialog to select a checkpoint file and continues the simulation
+	 * stored in the file.
+	 */
+	public void restoreCheckpoint() {
+		JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
+		fc.setDialogTitle("Select the checkpoint to restore");
+		fc.setFileFilter(new CheckpointFileFilter());
+		if(fc.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = fc.getSelectedFile();
+			rememberDirectory(file);
+			new CheckpointReader(file).read();
+			if(Global.isAsynchronousMode) {
+				setRoundsPerformed(Global.currentTime, EventQueue.eventNumber);
+			} else {
+				setRoundsPerformed((int) Global.currentTime);
+			}
+		}
+	}
+	
+	/**
+	 * Opens a dialog to select a file and saves a checkpoint of the simulation to it.
+	 */
+	public void saveCheckpoint() {
+		JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
+		fc.setDialogTitle("Select the destination file");
+		fc.setFileFilter(new CheckpointFileFilter());
+		if(fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = fc.getSelectedFile();
+			if(!file.getName().endsWith(".scp")) {
+				file = new File(file.getPath() + ".scp");
+			}
+			rememberDirectory(file);
+			new CheckpointWriter(file).write();
+		}
+	}
+	
+	private void rememberDirectory(File file) {
+		String p = file.getPath();
+		AppConfig.getAppConfig().lastSelectedFileDirectory = p.substring(0, p.length() - file.getName().length());
+	}
+
 	/**
 	 * Opens a dialog that allows to add new nodes
 	 */
@@ -832,6 +935,18 @@ public class GUI extends JFrame implements ActionListener{
 				this.redrawGUI();
 			}
 		}
+		else if(e.getActionCommand().equals(loadMenuItem.getActionCommand())){
+			loadGraph();
+		}
+		else if(e.getActionCommand().equals(saveMenuItem.getActionCommand())){
+			saveGraph();
+		}
+		else if(e.getActionCommand().equals(restoreCheckpointMenuItem.getActionCommand())){
+			restoreCheckpoint();
+		}
+		else if(e.getActionCommand().equals(saveCheckpointMenuItem.getActionCommand())){
+			saveCheckpoint();
+		}
 		else if(e.getActionCommand().equals(exportMenuItem.getActionCommand())){
 			try {
 				new Exporter(this).export(new Rectangle(0, 0, graphPanel.getWidth(), graphPanel.getHeight()), getTransformator());
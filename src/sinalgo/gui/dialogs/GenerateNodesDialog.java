@@ -69,6 +69,7 @@ import sinalgo.models.DistributionModel;
 import sinalgo.models.InterferenceModel;
 import sinalgo.models.MobilityModel;
 import sinalgo.models.Model;
+import sinalgo.models.ModelType;
 import sinalgo.models.ReliabilityModel;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
@@ -380,20 +381,16 @@ public class GenerateNodesDialog extends JDialog implements ActionListener, Prog
 		Node node = Node.createNodeByClassname(nodeTypeSel);
 		node.setPosition(pos);
 
-		InterferenceModel im = Model.getInterferenceModelInstance(interferenceSel);
-		im.setParamString(interferenceDefString);
+		InterferenceModel im = (InterferenceModel) Model.newModelInstance(ModelType.InterferenceModel, interferenceSel, interferenceDefString);
 		node.setInterferenceModel(im);
 		
-		MobilityModel mm = Model.getMobilityModelInstance(mobilitySel);
-		mm.setParamString(mobilityDefString);
+		MobilityModel mm = (MobilityModel) Model.newModelInstance(ModelType.MobilityModel, mobilitySel, mobilityDefString);
 		node.setMobilityModel(mm);
 		
-		ReliabilityModel rm = Model.getReliabilityModelInstance(reliabilitySel);
-		rm.setParamString(reliabilityDefString);
+		ReliabilityModel rm = (ReliabilityModel) Model.newModelInstance(ModelType.ReliabilityModel, reliabilitySel, reliabilityDefString);
 		node.setReliabilityModel(rm);
 		
-		ConnectivityModel cm = Model.getConnectivityModelInstance(connectivitySel);
-		cm.setParamString(connectivityDefString);
+		ConnectivityModel cm = (ConnectivityModel) Model.newModelInstance(ModelType.ConnectivityModel, connectivitySel, connectivityDefString);
 		node.setConnectivityModel(cm);
 		return node;
 	}
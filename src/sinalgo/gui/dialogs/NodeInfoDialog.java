@@ -50,7 +50,6 @@ import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.Enumeration;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -124,21 +123,9 @@ public class NodeInfoDialog extends JDialog implements ActionListener, PropertyC
 		
 		JPanel nodeSel = new JPanel();
 		
-		//evaluate whether a node is the first or the last in the enumeration and thus has no
-		//previous respective next element.
-		boolean hasPrev = false;
-		Enumeration<Node> nodesEnumer = Runtime.nodes.getNodeEnumeration();
-		while(nodesEnumer.hasMoreElements()){
-			Node nd = nodesEnumer.nextElement();
-			if(nd.ID == n.ID){
-				if(!nodesEnumer.hasMoreElements()){
-					nextNode.setEnabled(false);
-				}
-				prevNode.setEnabled(hasPrev);
-				break;
-			}
-			hasPrev = true;
-		}
+		//evaluate whether there is a node with the previous respective next ID.
+		prevNode.setEnabled(Runtime.nodes.getNodeByID(n.ID - 1) != null);
+		nextNode.setEnabled(Runtime.nodes.getNodeByID(n.ID + 1) != null);
 		
 		prevNode.addActionListener(this);
 		nodeNumber.setColumns(6);
@@ -310,26 +297,18 @@ public class NodeInfoDialog extends JDialog implements ActionListener, PropertyC
 			parent.redrawGUINow(); // needs blocking redrawing
 		}
 		else if(event.getActionCommand().equals("Next Node")){
-			Enumeration<Node> nodesEnumer = Runtime.nodes.getNodeEnumeration();
-			while(nodesEnumer.hasMoreElements()){
-				Node nd = nodesEnumer.nextElement();
-				if(nd.ID == node.ID+1){
-					nodeNumber.setValue(new Integer(nd.ID));
-					//this triggers a property change event.
-					break;
-				}
+			Node nd = Runtime.nodes.getNodeByID(node.ID+1);
+			if(nd != null){
+				nodeNumber.setValue(new Integer(nd.ID));
+				//this triggers a property change event.
 			}
 		}
 		else if(event.getActionCommand().equals("Previous Node")){ 
-			Enumeration<Node> nodesEnumer = Runtime.nodes.getNodeEnumeration();
-			while(nodesEnumer.hasMoreElements()){
-				Node nd = nodesEnumer.nextElement();
-				if(nd.ID == node.ID-1){
-					nodeNumber.setValue(new Integer(nd.ID));
-					//this triggers a property change event.
-					break;
-				}
-			}			
+			Node nd = Runtime.nodes.getNodeByID(node.ID-1);
+			if(nd != null){
+				nodeNumber.setValue(new Integer(nd.ID));
+				//this triggers a property change event.
+			}
 		}
 	}
 
@@ -337,19 +316,11 @@ public class NodeInfoDialog extends JDialog implements ActionListener, PropertyC
 		
 		int newId = ((Integer)evt.getNewValue()).intValue();
 		
-		boolean hasPrev = false;
-		Enumeration<Node> nodesEnumer = Runtime.nodes.getNodeEnumeration();
-		while(nodesEnumer.hasMoreElements()){
-			Node nd = nodesEnumer.nextElement();
-			if(nd.ID == newId){
-				boolean hasNext = true;
-				if(!nodesEnumer.hasMoreElements()){
-					hasNext = false;
-				}
-				this.revalidate(nd, hasPrev, hasNext);
-				break;
-			}
-			hasPrev = true;
-		}		
+		Node nd = Runtime.nodes.getNodeByID(newId);
+		if(nd != null){
+			boolean hasPrev = Runtime.nodes.getNodeByID(newId - 1) != null;
+			boolean hasNext = Runtime.nodes.getNodeByID(newId + 1) != null;
+			this.revalidate(nd, hasPrev, hasNext);
+		}
 	}
 }
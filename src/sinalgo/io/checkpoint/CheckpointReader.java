@@ -0,0 +1,620 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.io.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.io.replay.ReplayLog;
+import sinalgo.models.ConnectivityModel;
+import sinalgo.models.InterferenceModel;
+import sinalgo.models.KineticConnectivityModelHelper;
+import sinalgo.models.MessageTransmissionModel;
+import sinalgo.models.MobilityModel;
+import sinalgo.models.Model;
+import sinalgo.models.ReliabilityModel;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.TimerCollection;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.nodes.messages.Packet.PacketType;
+import sinalgo.nodes.timers.Timer;
+import sinalgo.runtime.AsynchronousRuntimeThread;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.Runtime;
+import sinalgo.runtime.events.Event;
+import sinalgo.runtime.events.EventQueue;
+import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.TimerEvent;
+import sinalgo.tools.Tools;
+import sinalgo.tools.statistics.Distribution;
+import sinalgo.tools.storage.DoublyLinkedList;
+
+/**
+ * Restores a checkpoint written by the CheckpointWriter. The current simulation is 
+ * removed, and the simulation stored in the checkpoint continues exactly where the 
+ * checkpoint was written, with the same sequence of random numbers. 
+ * <p>
+ * The nodes, messages, timers and models are created with their constructor without 
+ * parameters, which may be private, and then read their project specific state with 
+ * their <code>readState</code> method. The <code>init()</code> method of the nodes, 
+ * the <code>nodeAddedEvent</code> and the <code>preRun()</code> method of the 
+ * CustomGlobal are not called. 
+ * <p>
+ * The checkpoint must have been written by the same project in the same simulation
+ * mode. 
+ */
+public class CheckpointReader {
+	
+	// the reader that is currently restoring a checkpoint, used to read objects referenced by project specific state 
+	private static CheckpointReader current = null;
+	
+	private File file;
+	private DataInputStream in;
+	
+	private ArrayList<Class<?>> classes = new ArrayList<Class<?>>();
+	private ArrayList<Object> objects = new ArrayList<Object>();
+	private HashMap<Long, Packet> packets = new HashMap<Long, Packet>(); // the restored packets by their ID
+	
+	/**
+	 * The one and only constructor for the CheckpointReader class.
+	 * 
+	 * @param file The file to read from.
+	 */
+	public CheckpointReader(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Reads a message written by <code>CheckpointWriter.writeMessage</code>. Call this 
+	 * method from the <code>readState</code> method of a node, message, timer, model or 
+	 * the CustomGlobal.
+	 * @param in The stream passed to <code>readState</code>.
+	 * @return The message, null if null was written.
+	 * @throws IOException If the message cannot be read.
+	 */
+	public static Message readMessage(DataInput in) throws IOException {
+		Object o = getCurrent().readObject(in);
+		if(o != null && !(o instanceof Message)) {
+			throw new IOException("Expected a message, but found an object of type " + o.getClass().getName() + ".");
+		}
+		return (Message) o;
+	}
+	
+	/**
+	 * Reads a timer written by <code>CheckpointWriter.writeTimer</code>. Call this 
+	 * method from the <code>readState</code> method of a node, message, timer, model or 
+	 * the CustomGlobal. 
+	 * @param in The stream passed to <code>readState</code>.
+	 * @return The timer, null if null was written.
+	 * @throws IOException If the timer cannot be read.
+	 */
+	public static Timer readTimer(DataInput in) throws IOException {
+		Object o = getCurrent().readObject(in);
+		if(o != null && !(o instanceof Timer)) {
+			throw new IOException("Expected a timer, but found an object of type " + o.getClass().getName() + ".");
+		}
+		return (Timer) o;
+	}
+	
+	/**
+	 * Reads a reference to a node written by <code>CheckpointWriter.writeNode</code>. 
+	 * All nodes are restored before any project specific state is read.
+	 * @param in The stream passed to <code>readState</code>.
+	 * @return The node, null if null was written.
+	 * @throws IOException If the node cannot be read or does not exist.
+	 */
+	public static Node readNode(DataInput in) throws IOException {
+		int id = in.readInt();
+		return id < 0 ? null : getNode(id);
+	}
+	
+	private static CheckpointReader getCurrent() throws IOException {
+		if(current == null) {
+			throw new IOException("No checkpoint is being restored.");
+		}
+		return current;
+	}
+	
+	/**
+	 * Removes the current simulation and restores the simulation stored in the file selected 
+	 * in the constructor. 
+	 */
+	public void read() {
+		current = this;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			try {
+				readCheckpoint();
+			} finally {
+				in.close();
+			}
+		} catch(IOException e) {
+			Runtime.clearAllNodes();
+			Main.minorError("Error restoring the checkpoint from the file " + file.getName() + ":\n" + e.getMessage());
+		} catch(WrongConfigurationException e) {
+			Runtime.clearAllNodes();
+			Main.minorError("Error restoring the checkpoint from the file " + file.getName() + ":\n" + e.getMessage());
+		} finally {
+			current = null;
+			in = null;
+			classes.clear();
+			objects.clear();
+			packets.clear();
+		}
+		if(Global.isGuiMode) {
+			Tools.repaintGUI();
+		}
+	}
+	
+	private void readCheckpoint() throws IOException, WrongConfigurationException {
+		// the header
+		if(in.readInt() != CheckpointWriter.MAGIC) {
+			throw new IOException("The file is not a checkpoint.");
+		}
+		int version = in.readInt();
+		if(version != CheckpointWriter.VERSION) {
+			throw new IOException("Unsupported version " + version + " of the checkpoint file format.");
+		}
+		boolean asynchronous = in.readBoolean();
+		if(asynchronous != Configuration.asynchronousMode) {
+			throw new IOException("The checkpoint was written in the " + (asynchronous ? "asynchronous" : "synchronous") + 
+			                      " mode, but the simulation runs in the " + (asynchronous ? "synchronous" : "asynchronous") + " mode.");
+		}
+		int dimensions = in.readInt();
+		if(dimensions != Configuration.dimensions) {
+			throw new IOException("The checkpoint contains a " + dimensions + "D simulation, but the simulation is " + 
+			                      Configuration.dimensions + "D.");
+		}
+		String projectName = in.readUTF();
+		if(!projectName.equals(Global.projectName)) {
+			throw new IOException("The checkpoint was written by the project '" + projectName + "'.");
+		}
+		String edgeType = in.readUTF();
+		
+		// the global counters, which are set after all objects were restored 
+		double time = in.readDouble();
+		boolean isEvenRound = in.readBoolean();
+		int numberOfMessagesInThisRound = in.readInt();
+		int numberOfMessagesOverAll = in.readInt();
+		int eventNumber = in.readInt();
+		long nextEventID = in.readLong();
+		long nextPacketID = in.readLong();
+		long nextEdgeID = in.readLong();
+		int idCounter = in.readInt();
+		boolean connectivityInitialized = in.readBoolean();
+		
+		// remove the current simulation
+		Configuration.setEdgeType(edgeType);
+		Runtime.clearAllNodes();
+		Runtime.eventQueue.dropAllEvents(); // the global timers
+		Global.customGlobal.globalTimers.clear();
+		Global.customGlobal.getGlobalTimerWheel().reset(time);
+		TimerCollection.resetAllTimers(time);
+		Global.currentTime = time; // needed by the packet buffers of the nodes
+		Global.isEvenRound = isEvenRound;
+		Global.messageTransmissionModel = readModel(in, MessageTransmissionModel.class);
+		
+		// the nodes
+		Node[] nodes = new Node[in.readInt()];
+		for(int i = 0; i < nodes.length; i++) {
+			Node n = Node.createNodeByClassname(readClass(in).getName());
+			n.ID = in.readInt();
+			Position p = n.getPosition(); // set the position without notifying the node
+			p.xCoord = in.readDouble();
+			p.yCoord = in.readDouble();
+			p.zCoord = in.readDouble();
+			n.setRadioIntensity(in.readDouble());
+			n.setConnectivityModel(readModel(in, ConnectivityModel.class));
+			n.setInterferenceModel(readModel(in, InterferenceModel.class));
+			n.setMobilityModel(readModel(in, MobilityModel.class));
+			n.setReliabilityModel(readModel(in, ReliabilityModel.class));
+			n.finishInitializationWithDefaultModels(false);
+			Runtime.nodes.addNode(n);
+			nodes[i] = n;
+		}
+		if(in.readBoolean()) {
+			Node[] cellOrder = new Node[nodes.length];
+			for(int i = 0; i < cellOrder.length; i++) {
+				cellOrder[i] = getNode(in.readInt());
+			}
+			Runtime.nodes.setCellOrder(cellOrder);
+		}
+		
+		// the edges
+		Edge[][] edges = new Edge[nodes.length][];
+		ByteBuffer attributes = ByteBuffer.allocate(CheckpointWriter.MAX_ATTRIBUTE_SIZE);
+		for(int i = 0; i < nodes.length; i++) {
+			Node n = nodes[i];
+			edges[i] = new Edge[in.readInt()];
+			for(int j = 0; j < edges[i].length; j++) {
+				Node end = getNode(in.readInt());
+				n.outgoingConnections.add(n, end, false); // the edge may already exist, e.g. as the opposite of a bidirectional edge
+				Edge e = n.getEdgeTo(end);
+				e.setID(in.readLong());
+				e.valid = in.readBoolean();
+				int size = in.readShort();
+				if(size < 0) {
+					throw new IOException("Invalid attributes of the edge from node " + n.ID + " to node " + end.ID + ".");
+				}
+				in.readFully(attributes.array(), 0, size);
+				attributes.clear();
+				attributes.limit(size);
+				e.readAttributes(attributes);
+				edges[i][j] = e;
+			}
+		}
+		for(int i = 0; i < nodes.length; i++) {
+			restoreEdgeOrder(nodes[i], edges[i]);
+		}
+		
+		// the project specific state of the nodes
+		for(Node n : nodes) {
+			readBlock(in, n);
+		}
+		KineticConnectivityModelHelper.readCandidateLists(in);
+		
+		// the packets on their way
+		if(Configuration.asynchronousMode) {
+			readEventQueue();
+		} else {
+			readPacketBuffers(nodes);
+		}
+		if(Configuration.interference) {
+			readPacketsInTheAir(false);
+			readPacketsInTheAir(true);
+		}
+		
+		// the timers of the synchronous mode
+		if(!Configuration.asynchronousMode) {
+			int numTimers = in.readInt();
+			for(int i = 0; i < numTimers; i++) {
+				Timer t = readTimer(in);
+				if(t == null || !t.isNodeTimer()) {
+					throw new IOException("Invalid node timer.");
+				}
+				t.getTargetNode().getTimers().add(t);
+			}
+			numTimers = in.readInt();
+			for(int i = 0; i < numTimers; i++) {
+				Timer t = readTimer(in);
+				if(t == null || t.isNodeTimer()) {
+					throw new IOException("Invalid global timer.");
+				}
+				Global.customGlobal.getGlobalTimerWheel().add(t);
+			}
+		}
+		
+		readBlock(in, Global.customGlobal);
+		Distribution.readState(in);
+		if(in.readInt() != CheckpointWriter.MAGIC) {
+			throw new IOException("The checkpoint is corrupt.");
+		}
+		
+		// the counters are set last, as the restored objects got new IDs first
+		Global.numberOfMessagesInThisRound = numberOfMessagesInThisRound;
+		Global.numberOfMessagesOverAll = numberOfMessagesOverAll;
+		EventQueue.eventNumber = eventNumber;
+		Event.setNextID(nextEventID);
+		Packet.setNextID(nextPacketID);
+		Edge.setNextID(nextEdgeID);
+		Node.setIDCounter(idCounter);
+		AsynchronousRuntimeThread.connectivityInitialized = connectivityInitialized;
+		CheckpointWriter.setLastCheckpoint(asynchronous ? eventNumber : (long) time);
+		Runtime.eventQueue.notifyListeners();
+		if(ReplayLog.isActive()) {
+			ReplayLog.checkpointRestored();
+		}
+	}
+	
+	/**
+	 * Stores the outgoing edges of a node in the given order. Some edges may have been
+	 * added in a different order, e.g. when they were created as the opposite edge of a 
+	 * bidirectional edge.
+	 */
+	@SuppressWarnings("unchecked")
+	private void restoreEdgeOrder(Node n, Edge[] order) {
+		if(!(n.outgoingConnections instanceof DoublyLinkedList<?>)) {
+			return;
+		}
+		DoublyLinkedList<Edge> list = (DoublyLinkedList<Edge>) n.outgoingConnections;
+		for(Edge e : order) {
+			list.remove(e);
+			list.append(e);
+		}
+	}
+	
+	private void readEventQueue() throws IOException {
+		int numEvents = in.readInt();
+		for(int i = 0; i < numEvents; i++) {
+			byte kind = in.readByte();
+			long id = in.readLong();
+			double time = in.readDouble();
+			Event e;
+			if(kind == CheckpointWriter.PACKET_EVENT) {
+				e = PacketEvent.getNewPacketEvent(readPacket(true), time);
+			} else if(kind == CheckpointWriter.TIMER_EVENT) {
+				Timer t = readTimer(in);
+				if(t == null) {
+					throw new IOException("Invalid timer event.");
+				}
+				e = TimerEvent.getNewTimerEvent(t, time);
+			} else {
+				throw new IOException("Invalid event type " + kind + ".");
+			}
+			e.setID(id);
+			Runtime.eventQueue.add(e); // the listeners are notified at the end
+		}
+	}
+	
+	private void readPacketBuffers(Node[] nodes) throws IOException {
+		int numPackets = in.readInt();
+		for(int i = 0; i < numPackets; i++) {
+			Packet p = readPacket(true);
+			p.destination.getInboxPacketBuffer().addPacket(p);
+		}
+		for(Node n : nodes) {
+			for(int parity = 0; parity < 2; parity++) {
+				int numNacks = in.readInt();
+				for(int i = 0; i < numNacks; i++) {
+					n.getNackPackets(parity == 0).add(readPacket(false));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads a packet. 
+	 * @param inFlight True if the packet is still being sent over its edge, false if it already arrived.
+	 */
+	private Packet readPacket(boolean inFlight) throws IOException {
+		long id = in.readLong();
+		Node origin = getNode(in.readInt());
+		Node destination = getNode(in.readInt());
+		boolean hasEdge = in.readBoolean();
+		double sendingTime = in.readDouble();
+		double arrivingTime = in.readDouble();
+		double intensity = in.readDouble();
+		boolean positiveDelivery = in.readBoolean();
+		int type = in.readByte();
+		if(type < 0 || type >= PacketType.values().length) {
+			throw new IOException("Invalid type of packet " + id + ".");
+		}
+		Message msg = readMessage(in);
+		if(msg == null) {
+			throw new IOException("The packet " + id + " has no message.");
+		}
+		
+		Packet p = Packet.fabricatePacket(msg);
+		p.ID = id;
+		p.origin = origin;
+		p.destination = destination;
+		p.sendingTime = sendingTime;
+		p.arrivingTime = arrivingTime;
+		p.intensity = intensity;
+		p.positiveDelivery = positiveDelivery;
+		p.type = PacketType.values()[type];
+		p.edge = hasEdge ? origin.getEdgeTo(destination) : null;
+		if(inFlight && p.edge != null) {
+			p.edge.addPacketInFlight(p);
+		}
+		packets.put(id, p);
+		return p;
+	}
+	
+	/**
+	 * Adds the packets that are being sent to the packets in the air. The delivery flags are 
+	 * restored after the packets were added, as adding a packet may test for interference.
+	 * @param passive True to read the passive packets, false to read the active packets.
+	 */
+	private void readPacketsInTheAir(boolean passive) throws IOException {
+		int size = in.readInt();
+		Packet[] list = new Packet[size];
+		boolean[] positiveDelivery = new boolean[size];
+		for(int i = 0; i < size; i++) {
+			long id = in.readLong();
+			list[i] = packets.get(id);
+			if(list[i] == null) {
+				throw new IOException("The packet " + id + " is being sent, but does not exist.");
+			}
+			positiveDelivery[i] = in.readBoolean();
+			if(passive) {
+				Runtime.packetsInTheAir.addPassivePacket(list[i]);
+			} else {
+				Runtime.packetsInTheAir.add(list[i]);
+			}
+		}
+		for(int i = 0; i < size; i++) {
+			list[i].positiveDelivery = positiveDelivery[i];
+		}
+	}
+	
+	/**
+	 * Reads a class written by its name the first time, and by its index afterwards.
+	 */
+	private Class<?> readClass(DataInput i) throws IOException {
+		int index = i.readInt();
+		if(index >= 0) {
+			if(index >= classes.size()) {
+				throw new IOException("Invalid class reference " + index + ".");
+			}
+			return classes.get(index);
+		}
+		String name = i.readUTF();
+		try {
+			Class<?> c = Class.forName(name);
+			classes.add(c);
+			return c;
+		} catch(ClassNotFoundException e) {
+			throw new IOException("Cannot find the class " + name + ".");
+		}
+	}
+	
+	/**
+	 * Reads a model written by <code>CheckpointWriter.writeModel</code>.
+	 * @param type The expected type of the model
+	 */
+	private <T> T readModel(DataInput i, Class<T> type) throws IOException {
+		int ref = i.readInt();
+		Object model;
+		if(ref == CheckpointWriter.NULL_REFERENCE) {
+			return null;
+		} else if(ref == CheckpointWriter.NEW_OBJECT) {
+			Class<?> c = readClass(i);
+			if(!Model.class.isAssignableFrom(c)) {
+				throw new IOException("The class " + c.getName() + " is not a model.");
+			}
+			model = newInstance(c);
+			objects.add(model);
+			((Model) model).setParamString(i.readUTF());
+			readBlock(i, model);
+		} else {
+			model = getObject(ref);
+		}
+		if(!type.isInstance(model)) {
+			throw new IOException("Expected a model of type " + type.getSimpleName() + ", but found " + model.getClass().getName() + ".");
+		}
+		return type.cast(model);
+	}
+	
+	/**
+	 * Reads a message or a timer written by <code>CheckpointWriter.writeObject</code>. 
+	 */
+	private Object readObject(DataInput i) throws IOException {
+		int ref = i.readInt();
+		if(ref == CheckpointWriter.NULL_REFERENCE) {
+			return null;
+		} else if(ref != CheckpointWriter.NEW_OBJECT) {
+			return getObject(ref);
+		}
+		Class<?> c = readClass(i);
+		if(!Message.class.isAssignableFrom(c) && !Timer.class.isAssignableFrom(c)) {
+			throw new IOException("The class " + c.getName() + " is neither a message nor a timer.");
+		}
+		Object obj = newInstance(c);
+		objects.add(obj); // before reading the state, such that the object may refer to itself
+		if(obj instanceof Timer) {
+			int nodeID = i.readInt();
+			double fireTime = i.readDouble();
+			((Timer) obj).setRestoredState(nodeID < 0 ? null : getNode(nodeID), fireTime);
+		}
+		readBlock(i, obj);
+		return obj;
+	}
+	
+	private Object getObject(int ref) throws IOException {
+		if(ref < 0 || ref >= objects.size()) {
+			throw new IOException("Invalid object reference " + ref + ".");
+		}
+		return objects.get(ref);
+	}
+	
+	/**
+	 * Reads the block holding the project specific state of an object, and ensures that 
+	 * the <code>readState</code> method of the object read exactly this block. 
+	 */
+	private void readBlock(DataInput i, Object obj) throws IOException {
+		int length = i.readInt();
+		if(length < 0) {
+			throw new IOException("Invalid state of " + obj.getClass().getName() + ".");
+		}
+		byte[] bytes = new byte[length];
+		i.readFully(bytes);
+		DataInputStream block = new DataInputStream(new ByteArrayInputStream(bytes));
+		try {
+			if(obj instanceof Node) {
+				((Node) obj).readState(block);
+			} else if(obj instanceof Message) {
+				((Message) obj).readState(block);
+			} else if(obj instanceof Timer) {
+				((Timer) obj).readState(block);
+			} else if(obj instanceof Model) {
+				((Model) obj).readState(block);
+			} else {
+				Global.customGlobal.readState(block);
+			}
+		} catch(EOFException e) {
+			throw new IOException("The readState method of " + obj.getClass().getName() + " reads more than its writeState method wrote.");
+		}
+		if(block.available() > 0) {
+			throw new IOException("The readState method of " + obj.getClass().getName() + " reads less than its writeState method wrote.");
+		}
+	}
+	
+	/**
+	 * Creates an instance of a class with its constructor without parameters, which may be private.
+	 */
+	private static Object newInstance(Class<?> c) throws IOException {
+		try {
+			Constructor<?> constructor = c.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor.newInstance();
+		} catch(NoSuchMethodException e) {
+			throw new IOException("The class " + c.getName() + " needs a constructor without parameters to be restored from a checkpoint.");
+		} catch(InstantiationException e) {
+			throw new IOException("Cannot create an instance of " + c.getName() + ": " + e.getMessage());
+		} catch(IllegalAccessException e) {
+			throw new IOException("Cannot create an instance of " + c.getName() + ": " + e.getMessage());
+		} catch(InvocationTargetException e) {
+			throw new IOException("Cannot create an instance of " + c.getName() + ": " + e.getCause());
+		}
+	}
+	
+	private static Node getNode(int id) throws IOException {
+		Node n = Runtime.nodes.getNodeByID(id);
+		if(n == null) {
+			throw new IOException("The checkpoint refers to the unknown node " + id + ".");
+		}
+		return n;
+	}
+}
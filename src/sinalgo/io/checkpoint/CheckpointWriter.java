@@ -0,0 +1,585 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.io.checkpoint;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.io.replay.ReplayLog;
+import sinalgo.models.KineticConnectivityModelHelper;
+import sinalgo.models.Model;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.nodes.messages.PacketCollection;
+import sinalgo.nodes.timers.Timer;
+import sinalgo.runtime.AsynchronousRuntimeThread;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.Runtime;
+import sinalgo.runtime.events.Event;
+import sinalgo.runtime.events.EventQueue;
+import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.TimerEvent;
+import sinalgo.tools.statistics.Distribution;
+
+/**
+ * Writes a checkpoint of the entire simulation to a binary checkpoint file (.scp), from
+ * which the CheckpointReader continues the simulation exactly as if it had never been 
+ * interrupted.
+ * <p>
+ * The checkpoint holds the nodes with their models, the edges, the packets that are 
+ * still on their way (the packet buffers of the nodes in synchronous mode, the event 
+ * queue in asynchronous mode), the timers, the global counters and the state of the 
+ * random number generator. The framework stores its own state. The state of the 
+ * project specific classes is written through the <code>writeState</code> methods of 
+ * the nodes, messages, timers, models and the CustomGlobal, which write nothing by default. 
+ * <p>
+ * The state written by each of these methods is stored as a separate block, such that 
+ * the reader can detect a <code>readState</code> method that does not match its 
+ * <code>writeState</code> method. Messages and timers that are referenced several times 
+ * (e.g. by a node and by a packet) are stored once, and are restored as one object.
+ */
+public class CheckpointWriter {
+
+	/**
+	 * The magic number at the beginning and the end of each checkpoint file ("SCP1").
+	 */
+	public static final int MAGIC = 0x53435031;
+	
+	/**
+	 * The version of the checkpoint file format.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The maximal number of bytes an edge may write as attributes.
+	 */
+	public static final int MAX_ATTRIBUTE_SIZE = Short.MAX_VALUE;
+	
+	// the kinds of events stored in the event queue
+	static final byte PACKET_EVENT = 0;
+	static final byte TIMER_EVENT = 1;
+	
+	// the markers of an object reference, all other references are the index of an object that was already written  
+	static final int NULL_REFERENCE = -1;
+	static final int NEW_OBJECT = -2;
+	
+	// the node, message and timer classes whose state was already checked by checkRestorable 
+	private static HashSet<Class<?>> checkedClasses = new HashSet<Class<?>>();
+	
+	// the writer that is currently writing a checkpoint, used to store objects referenced by project specific state 
+	private static CheckpointWriter current = null;
+	
+	// the progress (rounds or events) at which the last periodic checkpoint was written
+	private static long lastCheckpoint = 0;
+	
+	private File file;
+	private DataOutputStream out;
+	
+	private HashMap<Class<?>, Integer> classIndex = new HashMap<Class<?>, Integer>();
+	private IdentityHashMap<Object, Integer> objectIndex = new IdentityHashMap<Object, Integer>();
+	private ArrayList<ByteArrayOutputStream> blocks = new ArrayList<ByteArrayOutputStream>(); // one buffer per nesting level
+	private int depth = 0;
+	
+	/**
+	 * The one and only constructor for the CheckpointWriter class.
+	 * 
+	 * @param file The file where to save the checkpoint.
+	 */
+	public CheckpointWriter(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Writes a checkpoint to the <code>checkpointFile</code> of the configuration whenever the
+	 * progress of the simulation passed a multiple of the <code>checkpointInterval</code>.
+	 * @param progress The number of rounds (synchronous mode) or events (asynchronous mode)
+	 * performed so far.
+	 */
+	public static void writePeriodicCheckpoint(long progress) {
+		if(progress / Configuration.checkpointInterval > lastCheckpoint / Configuration.checkpointInterval) {
+			new CheckpointWriter(new File(Configuration.checkpointFile)).write();
+		}
+		lastCheckpoint = progress;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Sets the progress of the simulation after it was restored from a checkpoint, such that
+	 * the next periodic checkpoint is written after the next multiple of the interval.
+	 * @param progress The number of rounds (synchronous mode) or events (asynchronous mode)
+	 * performed so far.
+	 */
+	public static void setLastCheckpoint(long progress) {
+		lastCheckpoint = progress;
+	}
+	
+	/**
+	 * Writes a message to a checkpoint. Call this method from the <code>writeState</code> 
+	 * method of a node, message, timer, model or the CustomGlobal to store a message it 
+	 * references, and read it with <code>CheckpointReader.readMessage</code>. 
+	 * A message that is referenced several times is stored only once.  
+	 * @param out The stream passed to <code>writeState</code>.
+	 * @param msg The message to write, may be null.
+	 * @throws IOException If the message cannot be written.
+	 */
+	public static void writeMessage(DataOutput out, Message msg) throws IOException {
+		getCurrent().writeObject(out, msg);
+	}
+	
+	/**
+	 * Writes a timer to a checkpoint. Call this method from the <code>writeState</code> 
+	 * method of a node, message, timer, model or the CustomGlobal to store a timer it 
+	 * references, and read it with <code>CheckpointReader.readTimer</code>. 
+	 * A timer that is referenced several times, e.g. because it is also scheduled, is 
+	 * stored only once.  
+	 * @param out The stream passed to <code>writeState</code>.
+	 * @param timer The timer to write, may be null.
+	 * @throws IOException If the timer cannot be written.
+	 */
+	public static void writeTimer(DataOutput out, Timer timer) throws IOException {
+		getCurrent().writeObject(out, timer);
+	}
+	
+	/**
+	 * Writes a reference to a node, which is read with <code>CheckpointReader.readNode</code>. 
+	 * @param out The stream passed to <code>writeState</code>.
+	 * @param n The node to write, may be null.
+	 * @throws IOException If the node cannot be written.
+	 */
+	public static void writeNode(DataOutput out, Node n) throws IOException {
+		out.writeInt(n == null ? -1 : n.ID);
+	}
+	
+	private static CheckpointWriter getCurrent() throws IOException {
+		if(current == null) {
+			throw new IOException("No checkpoint is being written.");
+		}
+		return current;
+	}
+	
+	/**
+	 * Writes a checkpoint of the current simulation to the file selected in the constructor. 
+	 * The checkpoint is first written to a temporary file, which then replaces an existing file.
+	 * <p>
+	 * Call this method only between two rounds or events, i.e. not while the simulation 
+	 * is running. 
+	 */
+	public void write() {
+		File tmp = new File(file.getPath() + ".tmp");
+		current = this;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+			try {
+				writeCheckpoint();
+			} finally {
+				out.close();
+			}
+			if(file.exists() && !file.delete()) {
+				throw new IOException("Cannot replace the file " + file.getPath() + ".");
+			}
+			if(!tmp.renameTo(file)) {
+				throw new IOException("Cannot rename the file " + tmp.getPath() + ".");
+			}
+			if(ReplayLog.isActive()) {
+				ReplayLog.checkpointWritten(); // such that a replay can start at this checkpoint
+			}
+		} catch(IOException e) {
+			tmp.delete();
+			Main.minorError("Error saving the checkpoint to the file " + file.getName() + ":\n" + e.getMessage());
+		} finally {
+			current = null;
+			out = null;
+			classIndex.clear();
+			objectIndex.clear();
+		}
+	}
+	
+	private void writeCheckpoint() throws IOException {
+		// the header
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeBoolean(Configuration.asynchronousMode);
+		out.writeInt(Configuration.dimensions);
+		out.writeUTF(Global.projectName);
+		out.writeUTF(Configuration.getEdgeType());
+		
+		// the global counters
+		out.writeDouble(Global.currentTime);
+		out.writeBoolean(Global.isEvenRound);
+		out.writeInt(Global.numberOfMessagesInThisRound);
+		out.writeInt(Global.numberOfMessagesOverAll);
+		out.writeInt(EventQueue.eventNumber);
+		out.writeLong(Event.getNextID());
+		out.writeLong(Packet.getNextID());
+		out.writeLong(Edge.getNextID());
+		out.writeInt(Node.getIDCounter());
+		out.writeBoolean(AsynchronousRuntimeThread.connectivityInitialized);
+		writeModel(out, Global.messageTransmissionModel);
+		
+		// the nodes, in the order in which they are traversed
+		out.writeInt(Runtime.nodes.size());
+		for(Node n : Runtime.nodes) {
+			writeClass(out, n.getClass());
+			out.writeInt(n.ID);
+			Position p = n.getPosition();
+			out.writeDouble(p.xCoord);
+			out.writeDouble(p.yCoord);
+			out.writeDouble(p.zCoord);
+			out.writeDouble(n.getRadioIntensity());
+			writeModel(out, n.getConnectivityModel());
+			writeModel(out, n.getInterferenceModel());
+			writeModel(out, n.getMobilityModel());
+			writeModel(out, n.getReliabilityModel());
+		}
+		// the order of the nodes in the cells of the node collection, which determines the order of the neighbors
+		Node[] cellOrder = Runtime.nodes.getCellOrder();
+		out.writeBoolean(cellOrder != null);
+		if(cellOrder != null) {
+			for(Node n : cellOrder) {
+				out.writeInt(n.ID);
+			}
+		}
+		
+		// the edges of each node, in the order of its outgoing connections
+		ByteBuffer attributes = ByteBuffer.allocate(MAX_ATTRIBUTE_SIZE);
+		for(Node n : Runtime.nodes) {
+			out.writeInt(n.outgoingConnections.size());
+			for(Edge e : n.outgoingConnections) {
+				out.writeInt(e.endNode.ID);
+				out.writeLong(e.getID());
+				out.writeBoolean(e.valid);
+				attributes.clear();
+				try {
+					e.writeAttributes(attributes);
+				} catch(BufferOverflowException ex) {
+					throw new IOException("The edge from node " + e.startNode.ID + " to node " + e.endNode.ID + 
+					                      " wrote more than " + MAX_ATTRIBUTE_SIZE + " bytes of attributes.");
+				}
+				out.writeShort(attributes.position());
+				out.write(attributes.array(), 0, attributes.position());
+			}
+		}
+		
+		// the project specific state of the nodes, which may refer to all nodes
+		for(Node n : Runtime.nodes) {
+			writeBlock(out, n);
+		}
+		KineticConnectivityModelHelper.writeCandidateLists(out);
+		
+		// the packets on their way 
+		if(Configuration.asynchronousMode) {
+			writeEventQueue();
+		} else {
+			writePacketBuffers();
+		}
+		if(Configuration.interference) {
+			writePacketIDs(Runtime.packetsInTheAir.size(), Runtime.packetsInTheAir.iterator());
+			ArrayList<Packet> passive = new ArrayList<Packet>();
+			for(Iterator<Packet> it = Runtime.packetsInTheAir.passiveIterator(); it.hasNext(); ) {
+				passive.add(it.next());
+			}
+			writePacketIDs(passive.size(), passive.iterator());
+		}
+		
+		// the timers of the synchronous mode, in the order they were scheduled
+		if(!Configuration.asynchronousMode) {
+			ArrayList<Timer> timers = new ArrayList<Timer>();
+			for(Node n : Runtime.nodes) {
+				for(Timer t : n.getTimers()) {
+					timers.add(t);
+				}
+			}
+			writeTimers(timers);
+			timers.clear();
+			Global.customGlobal.getGlobalTimerWheel().addTimersTo(timers);
+			timers.addAll(Global.customGlobal.globalTimers);
+			writeTimers(timers);
+		}
+		
+		writeBlock(out, Global.customGlobal);
+		Distribution.writeState(out);
+		out.writeInt(MAGIC);
+	}
+	
+	/**
+	 * Writes the pending events in the order they were created. 
+	 */
+	private void writeEventQueue() throws IOException {
+		ArrayList<Event> events = new ArrayList<Event>(Runtime.eventQueue);
+		Collections.sort(events, new Comparator<Event>() {
+			public int compare(Event e1, Event e2) {
+				return e1.getID() < e2.getID() ? -1 : (e1.getID() == e2.getID() ? 0 : 1);
+			}
+		});
+		out.writeInt(events.size());
+		for(Event e : events) {
+			if(e instanceof PacketEvent) {
+				out.writeByte(PACKET_EVENT);
+				out.writeLong(e.getID());
+				out.writeDouble(e.time);
+				writePacket(((PacketEvent) e).packet);
+			} else if(e instanceof TimerEvent) {
+				out.writeByte(TIMER_EVENT);
+				out.writeLong(e.getID());
+				out.writeDouble(e.time);
+				writeObject(out, ((TimerEvent) e).timer);
+			} else {
+				throw new IOException("Cannot store events of type " + e.getClass().getName() + ".");
+			}
+		}
+	}
+	
+	/**
+	 * Writes the packets of the synchronous mode that did not yet arrive, in the order they were sent,
+	 * and the packets that are returned to their sender in the next round.
+	 */
+	private void writePacketBuffers() throws IOException {
+		ArrayList<Packet> packets = new ArrayList<Packet>();
+		for(Node n : Runtime.nodes) {
+			n.getInboxPacketBuffer().addPacketsTo(packets);
+		}
+		Collections.sort(packets, new Comparator<Packet>() {
+			public int compare(Packet p1, Packet p2) {
+				return p1.ID < p2.ID ? -1 : (p1.ID == p2.ID ? 0 : 1);
+			}
+		});
+		out.writeInt(packets.size());
+		for(Packet p : packets) {
+			writePacket(p);
+		}
+		for(Node n : Runtime.nodes) {
+			for(int parity = 0; parity < 2; parity++) {
+				PacketCollection nacks = n.getNackPackets(parity == 0);
+				out.writeInt(nacks.size());
+				for(Packet p : nacks) {
+					writePacket(p);
+				}
+			}
+		}
+	}
+	
+	private void writePacket(Packet p) throws IOException {
+		out.writeLong(p.ID);
+		out.writeInt(p.origin.ID);
+		out.writeInt(p.destination.ID);
+		out.writeBoolean(p.edge != null);
+		out.writeDouble(p.sendingTime);
+		out.writeDouble(p.arrivingTime);
+		out.writeDouble(p.intensity);
+		out.writeBoolean(p.positiveDelivery);
+		out.writeByte(p.type.ordinal());
+		writeObject(out, p.message);
+	}
+	
+	private void writePacketIDs(int size, Iterator<Packet> it) throws IOException {
+		out.writeInt(size);
+		while(it.hasNext()) {
+			Packet p = it.next();
+			out.writeLong(p.ID);
+			out.writeBoolean(p.positiveDelivery);
+		}
+	}
+	
+	private void writeTimers(ArrayList<Timer> timers) throws IOException {
+		Collections.sort(timers, new Comparator<Timer>() {
+			public int compare(Timer t1, Timer t2) {
+				return t1.getScheduleOrder() < t2.getScheduleOrder() ? -1 : (t1.getScheduleOrder() == t2.getScheduleOrder() ? 0 : 1);
+			}
+		});
+		out.writeInt(timers.size());
+		for(Timer t : timers) {
+			writeObject(out, t);
+		}
+	}
+	
+	/**
+	 * Writes a class, by its name the first time it is written, and by its index afterwards. 
+	 */
+	private void writeClass(DataOutput o, Class<?> c) throws IOException {
+		Integer index = classIndex.get(c);
+		if(index != null) {
+			o.writeInt(index);
+		} else {
+			checkRestorable(c);
+			classIndex.put(c, classIndex.size());
+			o.writeInt(-1);
+			o.writeUTF(c.getName());
+		}
+	}
+	
+	/**
+	 * Ensures that the reader can restore the objects of a class. Messages, timers and models 
+	 * are restored with their constructor without parameters, which may be private. 
+	 * <p>
+	 * A warning is printed once for each node, message and timer class that has members, 
+	 * but does not overwrite <code>writeState</code>, as the state of these members is lost. 
+	 * @throws IOException If the class has no constructor without parameters.
+	 */
+	private static void checkRestorable(Class<?> c) throws IOException {
+		Class<?> base = Node.class.isAssignableFrom(c) ? Node.class : 
+		                Message.class.isAssignableFrom(c) ? Message.class : 
+		                Timer.class.isAssignableFrom(c) ? Timer.class : null;
+		if(base != Node.class) { // nodes are created like any other node, by their class name 
+			try {
+				c.getDeclaredConstructor();
+			} catch(NoSuchMethodException e) {
+				throw new IOException("The class " + c.getName() + " needs a constructor without parameters to be restored from a checkpoint.");
+			}
+		}
+		if(base == null || !checkedClasses.add(c)) {
+			return;
+		}
+		boolean hasMembers = false;
+		for(Class<?> k = c; k != base; k = k.getSuperclass()) {
+			try {
+				k.getDeclaredMethod("writeState", DataOutput.class);
+				return; // the class stores its state
+			} catch(NoSuchMethodException e) {
+				// not overwritten by this class
+			}
+			for(Field f : k.getDeclaredFields()) {
+				if(!Modifier.isStatic(f.getModifiers()) && !Modifier.isTransient(f.getModifiers()) && !f.isSynthetic()) {
+					hasMembers = true;
+				}
+			}
+		}
+		if(hasMembers) {
+			Main.warning("The class " + c.getName() + " has members, but does not overwrite writeState. " +
+			             "The values of these members are not stored in the checkpoint.");
+		}
+	}
+	
+	/**
+	 * Writes a model, with its class, parameter string and state the first time it is written, 
+	 * and by its index afterwards. 
+	 */
+	private void writeModel(DataOutput o, Model m) throws IOException {
+		if(writeReference(o, m)) {
+			writeClass(o, m.getClass());
+			o.writeUTF(m.getParamString());
+			writeBlock(o, m);
+		}
+	}
+	
+	/**
+	 * Writes a message or a timer, with its class and state the first time it is written, 
+	 * and by its index afterwards.
+	 */
+	private void writeObject(DataOutput o, Object obj) throws IOException {
+		if(writeReference(o, obj)) {
+			writeClass(o, obj.getClass());
+			if(obj instanceof Timer) {
+				Timer t = (Timer) obj;
+				o.writeInt(t.isNodeTimer() ? t.getTargetNode().ID : -1);
+				o.writeDouble(t.getFireTime());
+			}
+			writeBlock(o, obj);
+		}
+	}
+	
+	/**
+	 * Writes the reference to an object. 
+	 * @return True if the object was not written before, and needs to be written after the reference.
+	 */
+	private boolean writeReference(DataOutput o, Object obj) throws IOException {
+		if(obj == null) {
+			o.writeInt(NULL_REFERENCE);
+			return false;
+		}
+		Integer index = objectIndex.get(obj);
+		if(index != null) {
+			o.writeInt(index);
+			return false;
+		}
+		objectIndex.put(obj, objectIndex.size());
+		o.writeInt(NEW_OBJECT);
+		return true;
+	}
+	
+	/**
+	 * Writes the project specific state of an object as a block preceded by its length. 
+	 */
+	private void writeBlock(DataOutput o, Object obj) throws IOException {
+		if(depth == blocks.size()) {
+			blocks.add(new ByteArrayOutputStream());
+		}
+		ByteArrayOutputStream block = blocks.get(depth);
+		block.reset();
+		DataOutputStream blockOut = new DataOutputStream(block);
+		depth++;
+		try {
+			if(obj instanceof Node) {
+				((Node) obj).writeState(blockOut);
+			} else if(obj instanceof Message) {
+				((Message) obj).writeState(blockOut);
+			} else if(obj instanceof Timer) {
+				((Timer) obj).writeState(blockOut);
+			} else if(obj instanceof Model) {
+				((Model) obj).writeState(blockOut);
+			} else {
+				Global.customGlobal.writeState(blockOut);
+			}
+			blockOut.flush();
+		} finally {
+			depth--;
+		}
+		o.writeInt(block.size());
+		o.write(block.toByteArray());
+	}
+}
@@ -102,7 +102,9 @@ public class Exporter {
 		SingleFileFilter psFf = new EPSFileFilter();
 		SingleFileFilter pdfFf = new PDFFileFilter();
 		SingleFileFilter posFf = new PositionFileFilter();
+		SingleFileFilter binPosFf = new BinaryPositionFileFilter();
 		fc.addChoosableFileFilter(posFf);
+		fc.addChoosableFileFilter(binPosFf);
 		fc.addChoosableFileFilter(psFf);
 		fc.addChoosableFileFilter(pdfFf);
 
@@ -125,7 +127,9 @@ public class Exporter {
 			p = p.substring(0, p.length() - file.getName().length()); // remember the selected path
 			AppConfig.getAppConfig().lastSelectedFileDirectory = p;
 			
-			if(file.getName().endsWith(posFf.getExtension())) {
+			if(file.getName().endsWith(binPosFf.getExtension())) { // test before '.pos', which is a suffix of '.bpos'
+				PositionFileIO.printBinaryPos(file.getPath());
+			} else if(file.getName().endsWith(posFf.getExtension())) {
 				PositionFileIO.printPos(file.getPath());
 			} else if(file.getName().endsWith(psFf.getExtension())){
 				graphToPS(file, boundingBox, pt);
@@ -362,4 +366,26 @@ public class Exporter {
 		}
 		public String getDescription() { return "Position File (*.pos)"; }
 	}
+	
+	/**
+	 * A filter that only allows files with an extension '.bpos' (ignoring the case)
+	 * and directories to pass.
+	 */
+	public static class BinaryPositionFileFilter extends SingleFileFilter {
+		
+		/**
+		 * The constructor of the BinaryPositionFileFilter. Sets the valid extension of the single file filter.
+		 */
+		public BinaryPositionFileFilter(){
+			setExtension(PositionFileIO.binaryExtension);
+		}
+		
+		public boolean accept(File pathname) {
+			if(pathname.isDirectory()) {
+				return true;
+			}
+			return pathname.getName().toLowerCase().endsWith(getExtension());
+		}
+		public String getDescription() { return "Binary Position File (*.bpos)"; }
+	}
 }
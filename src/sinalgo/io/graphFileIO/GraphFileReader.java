@@ -36,121 +36,175 @@
 */
 package sinalgo.io.graphFileIO;
 
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.Runtime;
+import sinalgo.tools.Tools;
 
 /**
- * Concrete Implementation of the GraphFileReaderInterface. This class loads a existing GraphFile
- * specified by the Parameter of the constructor into the system and resets all the necessary
- * configuration settings. 
+ * Loads a graph file written by the GraphFileWriter into the system. All existing nodes 
+ * are removed, and the dimensions of the deployment area as well as the edge type 
+ * are set to the values stored in the file.
+ * <p>
+ * The file is memory mapped in windows of at most 64 MB, and the nodes and edges are 
+ * added to the system while the records are read. The nodes are created with the 
+ * default models of the configuration.
  */
-public class GraphFileReader{
-//	
-//	private File file = null;
-//	private Runtime runtime = null;
-//	
-//	/**
-//	 * @param f The File to read from.
-//	 * @param r The instance of the Runtime. This is needed to reset some global settings at
-//	 * loading the graphFile.
-//	 */
-//	public GraphFileReader(File f, Runtime r){
-//		runtime = r;
-//		file = f;
-//	}
-//	
-//	/**
-//	 * 
-//	 */
-//	public void read(){
-//		int lineCounter = 0;
-//		Runtime.clearAllNodes();
-//		
-//		BufferedReader bR;
-//		try {
-//			bR = new BufferedReader(new FileReader(file));
-//			
-//			String line = bR.readLine();
-//			String[] parts = line.split(";");
-//			
-//			//read in the dimension of the field and set the proper configuration fields
-//			String dim = (parts[0].split("=")[1]);
-//			String dimX = dim.split(",")[0];
-//			String dimY = dim.split(",")[1];
-//			
-//			Configuration.dimX = Integer.parseInt(dimX);
-//			Configuration.dimY = Integer.parseInt(dimY);
-//			
-//			//read in the type of the edges
-//			String edgeType = (parts[1].split("=")[1]);
-//			Configuration.setEdgeType(edgeType);
-//			
-//			runtime.reset();
-//			
-//			//first create all nodes (has to be done, because all the nodes must exist, when
-//			//trying to add the edges between them.)
-//			String oneLine = bR.readLine();
-//			while(oneLine != null){
-//				String[] params = oneLine.split(";");
-//				String type = params[0];
-//				Node oneNode = Node.createNodeByClassname(type); // assumes fully qualified type-name.
-//				
-//				int id = Integer.parseInt(params[1].split("=")[1]);
-//				oneNode.ID = id;
-//				
-//				double posX = Double.parseDouble(params[2].substring(5, params[2].length()-1).split(",")[0]);
-//				double posY = Double.parseDouble(params[2].substring(5, params[2].length()-1).split(",")[1]);
-//				
-//				oneNode.setPosition(new Position(posX, posY, 0));
-//				Runtime.addNode(oneNode);
-//				oneLine = bR.readLine();
-//				lineCounter++;
-//				
-//				oneNode.init();
-//				oneNode.checkRequirements();
-//			}
-//			
-//			//then add all the edges
-//			bR = new BufferedReader(new FileReader(file));
-//			
-//			lineCounter = 0;
-//			
-//			//skip the dimension line
-//			oneLine = bR.readLine();
-//			
-//			oneLine = bR.readLine();
-//			while(oneLine != null){
-//				Enumeration<Node> nodeEnumer = Runtime.nodes.getNodeEnumeration();
-//				int ID = Integer.parseInt(oneLine.split(";")[1].split("=")[1]);
-//
-//				while(nodeEnumer.hasMoreElements()){
-//					Node n = nodeEnumer.nextElement();
-//					if(n.ID == ID){
-//						n.deSerialize(oneLine);
-//						break;
-//					}
-//				}
-//				oneLine = bR.readLine();
-//				lineCounter++;
-//			}
-//			
-//			bR.close();
-//			
-//		} 
-//		catch (java.io.FileNotFoundException e){ 
-//			Runtime.clearAllNodes();
-//			Main.minorError("Error loading the graph: The specified graph-file named " + 
-//			                file.getName() + " cannot be found:\n" + e);
-//		}
-//		catch (ArrayIndexOutOfBoundsException e) {
-//			Runtime.clearAllNodes();
-//			Main.minorError("Error loading the graph: The specified graph-file named " + 
-//			                file.getName() + " seems to be corrupt at line " + lineCounter + " :\n" + e);
-//		} 
-//		catch (IOException e) {
-//			Main.minorError("Error loading the graph: The specified graph-file named " + 
-//			                file.getName() + " cannot be read:\n" + e);
-//		} 
-//		catch (WrongConfigurationException e) {
-//			Main.minorError("Error loading the graph: " + e);
-//		}	
-//	}
+public class GraphFileReader {
+	
+	private static final int WINDOW_SIZE = 1 << 26;
+	
+	private File file;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private long bufferStart;
+	
+	/**
+	 * The one and only constructor for the GraphFileReader class.
+	 * 
+	 * @param file The file to read from.
+	 */
+	public GraphFileReader(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Clears the current graph and loads the graph stored in the file selected in 
+	 * the constructor.
+	 */
+	public void read() {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			channel = raf.getChannel();
+			bufferStart = 0;
+			buffer = ByteBuffer.allocate(0);
+			
+			// the header
+			require(24);
+			if(buffer.getInt() != GraphFileWriter.MAGIC) {
+				throw new IOException("The file is not a graph file.");
+			}
+			int version = buffer.getInt();
+			if(version != GraphFileWriter.VERSION) {
+				throw new IOException("Unsupported version " + version + " of the graph file format.");
+			}
+			int dimensions = buffer.getInt();
+			if(dimensions != Configuration.dimensions) {
+				throw new IOException("The graph file contains a " + dimensions + "D graph, but the simulation is " + 
+				                      Configuration.dimensions + "D.");
+			}
+			int dimX = buffer.getInt();
+			int dimY = buffer.getInt();
+			int dimZ = buffer.getInt();
+			String edgeType = getString();
+			require(4);
+			String[] typeNames = new String[buffer.getInt()];
+			for(int i = 0; i < typeNames.length; i++) {
+				typeNames[i] = getString();
+			}
+			require(12);
+			int numNodes = buffer.getInt();
+			long numEdges = buffer.getLong();
+			
+			Configuration.dimX = dimX;
+			Configuration.dimY = dimY;
+			Configuration.dimZ = dimZ;
+			Configuration.setEdgeType(edgeType);
+			Runtime.clearAllNodes();
+			
+			// the nodes
+			int maxID = 0;
+			for(int i = 0; i < numNodes; i++) {
+				require(30);
+				int type = buffer.getShort();
+				if(type < 0 || type >= typeNames.length) {
+					throw new IOException("Invalid node type in the record of node " + i + ".");
+				}
+				Node node = Node.createNodeByClassname(typeNames[type]);
+				node.ID = buffer.getInt();
+				maxID = Math.max(maxID, node.ID);
+				node.setPosition(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+				node.finishInitializationWithDefaultModels(true);
+			}
+			Node.setIDCounter(maxID);
+			
+			// the edges
+			for(long i = 0; i < numEdges; i++) {
+				require(10);
+				Node from = Runtime.nodes.getNodeByID(buffer.getInt());
+				Node to = Runtime.nodes.getNodeByID(buffer.getInt());
+				int size = buffer.getShort();
+				if(from == null || to == null || size < 0) {
+					throw new IOException("Invalid record of edge " + i + ".");
+				}
+				from.outgoingConnections.add(from, to, false);
+				require(size);
+				int end = buffer.position() + size;
+				buffer.limit(end);
+				from.getEdgeTo(to).readAttributes(buffer);
+				buffer.limit(buffer.capacity());
+				buffer.position(end);
+			}
+		} catch(IOException e) {
+			Runtime.clearAllNodes();
+			Main.minorError("Error loading the graph from the file " + file.getName() + ":\n" + e.getMessage());
+		} catch(WrongConfigurationException e) {
+			Runtime.clearAllNodes();
+			Main.minorError("Error loading the graph from the file " + file.getName() + ":\n" + e.getMessage());
+		} finally {
+			channel = null;
+			buffer = null;
+			if(raf != null) {
+				try {
+					raf.close();
+				} catch(IOException e) {
+					Main.minorError("Error closing the graph file " + file.getName() + ":\n" + e.getMessage());
+				}
+			}
+		}
+		if(Global.isGuiMode) {
+			Tools.repaintGUI();
+		}
+	}
+	
+	private String getString() throws IOException {
+		require(2);
+		int length = buffer.getShort() & 0xFFFF;
+		require(length);
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Ensures that the next given number of bytes of the file are mapped.
+	 * 
+	 * @param bytes The number of bytes to be read next.
+	 * @throws IOException If the file ends before or cannot be mapped.
+	 */
+	private void require(int bytes) throws IOException {
+		if(buffer.remaining() >= bytes) {
+			return;
+		}
+		long position = bufferStart + buffer.position();
+		long length = Math.min(WINDOW_SIZE, channel.size() - position);
+		if(length < bytes) {
+			throw new EOFException("The graph file ends unexpectedly.");
+		}
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		bufferStart = position;
+	}
 }
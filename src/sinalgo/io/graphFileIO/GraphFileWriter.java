@@ -36,57 +36,211 @@
 */
 package sinalgo.io.graphFileIO;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.Runtime;
+
 /**
- * This is a concrete Implementation of the GraphFileWriterInterface. It writed the current graph
- * to a File specified by the parameters of the Consturctor.
+ * Writes the current graph to a binary graph file (.gf), which can be loaded again 
+ * with the GraphFileReader.
+ * <p>
+ * The file starts with a header holding the dimensions of the deployment area, the
+ * edge type and a table of the node types. It is followed by one fixed-size record 
+ * per node (type, ID and position), and one record per edge, which holds the IDs of 
+ * its end nodes and the attributes written by <code>Edge.writeAttributes</code>.
+ * <p>
+ * The records are streamed through a single direct buffer to a file channel, such 
+ * that no intermediate representation of the graph is built.
  */
-public class GraphFileWriter{
-//	private File file;
-//
-//	/**
-//	 * The one and only constructor for the GraphFileWriter class.
-//	 * 
-//	 * @param file The file where to save the informations about the current graph.
-//	 */
-//	public GraphFileWriter(File file)
-//	{
-//		this.file = file;
-//	}
-//	
-//	/**
-//	 * Writes the information about the current graph in the file selected in the
-//	 * constructor. Uses the serialize method of the nodes.
-//	 */
-//	public void write(){
-//		
-//		FileOutputStream fOut;
-//		
-//		try {
-//			
-//			if(file.exists()){
-//				file.delete();
-//			}
-//			
-//			file.createNewFile();
-//			
-//			fOut = new FileOutputStream(file);
-//			
-//			//write the dimension on top of the file
-//			fOut.write(("DIMENSION="+Configuration.dimX+","+Configuration.dimY+";").getBytes());
-//			fOut.write(("EDGETYPE="+Configuration.getEdgeType()+"\n").getBytes());
-//			
-//			Enumeration<Node> nodeEnumer = Runtime.nodes.getNodeEnumeration();
-//			
-//			while(nodeEnumer.hasMoreElements()){
-//				Node node = nodeEnumer.nextElement();
-//				fOut.write((node.serialize()+"\n").toString().getBytes());
-//			}
-//			
-//			fOut.flush();
-//			fOut.close();
-//			
-//		} catch (IOException e) {
-//			Global.log.logln(LogL.ERROR_DETAIL, "Error saving the graph.");
-//		}
-//	}
+public class GraphFileWriter {
+	
+	/**
+	 * The magic number at the beginning of each graph file ("SGF1").
+	 */
+	public static final int MAGIC = 0x53474631;
+	
+	/**
+	 * The version of the graph file format.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The maximal number of bytes an edge may write as attributes.
+	 */
+	public static final int MAX_ATTRIBUTE_SIZE = Short.MAX_VALUE;
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	private File file;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	/**
+	 * The one and only constructor for the GraphFileWriter class.
+	 * 
+	 * @param file The file where to save the informations about the current graph.
+	 */
+	public GraphFileWriter(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Writes the current graph to the file selected in the constructor. An existing
+	 * file is replaced.
+	 */
+	public void write() {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(0);
+			channel = raf.getChannel();
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			
+			// collect the node types and count the edges
+			HashMap<Class<?>, Integer> typeIndex = new HashMap<Class<?>, Integer>();
+			String[] typeNames = new String[4];
+			long numEdges = 0;
+			for(Node n : Runtime.nodes) {
+				Class<?> c = n.getClass();
+				if(!typeIndex.containsKey(c)) {
+					if(typeIndex.size() == typeNames.length) {
+						String[] tmp = new String[2 * typeNames.length];
+						System.arraycopy(typeNames, 0, tmp, 0, typeNames.length);
+						typeNames = tmp;
+					}
+					typeNames[typeIndex.size()] = c.getName();
+					typeIndex.put(c, typeIndex.size());
+				}
+				numEdges += n.outgoingConnections.size();
+			}
+			if(typeIndex.size() > Short.MAX_VALUE) {
+				throw new IOException("Too many node types.");
+			}
+			
+			// the header
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(Configuration.dimensions);
+			buffer.putInt(Configuration.dimX);
+			buffer.putInt(Configuration.dimY);
+			buffer.putInt(Configuration.dimZ);
+			putString(Configuration.getEdgeType());
+			buffer.putInt(typeIndex.size());
+			for(int i = 0; i < typeIndex.size(); i++) {
+				putString(typeNames[i]);
+			}
+			buffer.putInt(Runtime.nodes.size());
+			buffer.putLong(numEdges);
+			
+			// the nodes
+			Class<?> lastClass = null;
+			int lastIndex = 0;
+			for(Node n : Runtime.nodes) {
+				ensureRemaining(30);
+				if(n.getClass() != lastClass) {
+					lastClass = n.getClass();
+					lastIndex = typeIndex.get(lastClass);
+				}
+				Position p = n.getPosition();
+				buffer.putShort((short) lastIndex);
+				buffer.putInt(n.ID);
+				buffer.putDouble(p.xCoord);
+				buffer.putDouble(p.yCoord);
+				buffer.putDouble(p.zCoord);
+			}
+			
+			// the edges
+			for(Node n : Runtime.nodes) {
+				for(Edge e : n.outgoingConnections) {
+					putEdge(e);
+				}
+			}
+			flush();
+		} catch(IOException e) {
+			Main.minorError("Error saving the graph to the file " + file.getName() + ":\n" + e.getMessage());
+		} finally {
+			channel = null;
+			buffer = null;
+			if(raf != null) {
+				try {
+					raf.close();
+				} catch(IOException e) {
+					Main.minorError("Error closing the graph file " + file.getName() + ":\n" + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the record of an edge. The attributes are written directly into the buffer.
+	 * If they do not fit, the buffer is flushed and the attributes are written again.  
+	 * 
+	 * @param e The edge to write.
+	 * @throws IOException If the attributes are too large or the file cannot be written.
+	 */
+	private void putEdge(Edge e) throws IOException {
+		ensureRemaining(10);
+		int start = buffer.position();
+		try {
+			putEdgeRecord(e);
+			return;
+		} catch(BufferOverflowException ex) {
+			buffer.position(start);
+		}
+		flush();
+		try {
+			putEdgeRecord(e);
+		} catch(BufferOverflowException ex) {
+			throw new IOException("The edge from node " + e.startNode.ID + " to node " + e.endNode.ID + 
+			                      " wrote more than " + MAX_ATTRIBUTE_SIZE + " bytes of attributes.");
+		}
+	}
+	
+	private void putEdgeRecord(Edge e) throws IOException {
+		int start = buffer.position();
+		buffer.putInt(e.startNode.ID);
+		buffer.putInt(e.endNode.ID);
+		buffer.putShort((short) 0);
+		int limit = buffer.limit();
+		buffer.limit(Math.min(limit, start + 10 + MAX_ATTRIBUTE_SIZE));
+		try {
+			e.writeAttributes(buffer);
+		} finally {
+			buffer.limit(limit);
+		}
+		buffer.putShort(start + 8, (short) (buffer.position() - start - 10));
+	}
+	
+	private void putString(String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		ensureRemaining(2 + bytes.length);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+	}
+	
+	private void ensureRemaining(int bytes) throws IOException {
+		if(buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+	
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
 }
@@ -0,0 +1,252 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.io.messageTrace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a message trace file written by the MessageTraceRecorder, one record
+ * at a time. Call <code>next()</code> to move to the next record, and read its 
+ * fields with the getter methods:
+ * <pre>
+ * MessageTraceReader r = new MessageTraceReader(new File("messages.smt"));
+ * while(r.next()) {
+ *   if(r.getKind() == MessageTraceRecorder.DROPPED) { ... }
+ * }
+ * r.close();
+ * </pre>
+ */
+public class MessageTraceReader {
+	
+	private DataInputStream in;
+	private Inflater inflater = new Inflater();
+	private byte[] stored = new byte[0];
+	private ByteBuffer records = ByteBuffer.allocate(0);
+	private ArrayList<String> classNames = new ArrayList<String>();
+	
+	// the fields of the current record
+	private long packetID;
+	private double time;
+	private int origin, destination, size;
+	private short classID;
+	private byte kind;
+	
+	/**
+	 * Opens a message trace file and reads its header.
+	 * @param file The message trace file.
+	 * @throws IOException If the file cannot be read or is not a message trace file.
+	 */
+	public MessageTraceReader(File file) throws IOException {
+		in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		try {
+			if(in.readInt() != MessageTraceRecorder.MAGIC) {
+				throw new IOException("The file " + file.getName() + " is not a message trace file.");
+			}
+			int version = in.readInt();
+			if(version != MessageTraceRecorder.VERSION) {
+				throw new IOException("The message trace file " + file.getName() + " has version " + version + 
+				                      ", but only version " + MessageTraceRecorder.VERSION + " is supported.");
+			}
+			if(in.readInt() != MessageTraceRecorder.RECORD_SIZE) {
+				throw new IOException("The message trace file " + file.getName() + " has an unknown record size.");
+			}
+		} catch(IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Moves to the next record of the trace.
+	 * @return True if there is a next record, false if the end of the trace was reached.
+	 * @throws IOException If the file cannot be read or is corrupt.
+	 */
+	public boolean next() throws IOException {
+		while(!records.hasRemaining()) {
+			if(!readBlock()) {
+				return false;
+			}
+		}
+		packetID = records.getLong();
+		time = records.getDouble();
+		origin = records.getInt();
+		destination = records.getInt();
+		size = records.getInt();
+		classID = records.getShort();
+		kind = records.get();
+		records.get();
+		return true;
+	}
+	
+	/**
+	 * Reads the next block of the file.
+	 * @return False if the end of the file was reached.
+	 */
+	private boolean readBlock() throws IOException {
+		byte type;
+		try {
+			type = in.readByte();
+		} catch(EOFException e) {
+			return false;
+		}
+		int length = in.readInt();
+		int storedLength = in.readInt();
+		if(length < 0 || storedLength < 0 || storedLength > length) {
+			throw new IOException("Corrupt block in the message trace file.");
+		}
+		if(stored.length < storedLength) {
+			stored = new byte[storedLength];
+		}
+		in.readFully(stored, 0, storedLength);
+		if(type == MessageTraceRecorder.BLOCK_CLASSES) {
+			ByteBuffer b = ByteBuffer.wrap(stored, 0, storedLength);
+			int numClasses = b.getInt();
+			String[] names = new String(stored, 4, storedLength - 4, StandardCharsets.UTF_8).split("\n");
+			if(names.length != numClasses) {
+				throw new IOException("Corrupt list of message classes in the message trace file.");
+			}
+			for(String name : names) {
+				classNames.add(name);
+			}
+		} else if(type == MessageTraceRecorder.BLOCK_RECORDS) {
+			if(length % MessageTraceRecorder.RECORD_SIZE != 0) {
+				throw new IOException("Corrupt block of records in the message trace file.");
+			}
+			if(records.capacity() < length) {
+				records = ByteBuffer.allocate(length);
+			}
+			records.clear();
+			if(storedLength == length) { // not compressed
+				records.put(stored, 0, length);
+			} else {
+				inflater.reset();
+				inflater.setInput(stored, 0, storedLength);
+				try {
+					if(inflater.inflate(records.array(), 0, length) != length) {
+						throw new IOException("Corrupt compressed block in the message trace file.");
+					}
+				} catch(DataFormatException e) {
+					throw new IOException("Corrupt compressed block in the message trace file: " + e.getMessage());
+				}
+				records.position(length);
+			}
+			records.flip();
+		} else {
+			throw new IOException("Unknown block type " + type + " in the message trace file.");
+		}
+		return true;
+	}
+	
+	/**
+	 * Closes the message trace file.
+	 * @throws IOException If the file cannot be closed.
+	 */
+	public void close() throws IOException {
+		inflater.end();
+		in.close();
+	}
+	
+	/**
+	 * @return The ID of the packet of the current record.
+	 */
+	public long getPacketID() {
+		return packetID;
+	}
+	
+	/**
+	 * @return The time when the packet was sent (SENT) or arrived (DELIVERED, DROPPED).
+	 */
+	public double getTime() {
+		return time;
+	}
+	
+	/**
+	 * @return The ID of the sender of the packet.
+	 */
+	public int getOrigin() {
+		return origin;
+	}
+	
+	/**
+	 * @return The ID of the destination of the packet.
+	 */
+	public int getDestination() {
+		return destination;
+	}
+	
+	/**
+	 * @return The size of the message as returned by <code>Message.getTraceSize()</code>.
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * @return The ID of the class of the message.
+	 */
+	public short getMessageClassID() {
+		return classID;
+	}
+	
+	/**
+	 * @return The fully qualified name of the class of the message.
+	 * @throws IOException If the class ID is unknown.
+	 */
+	public String getMessageClass() throws IOException {
+		if(classID < 0 || classID >= classNames.size()) {
+			throw new IOException("Unknown message class ID " + classID + " in the message trace file.");
+		}
+		return classNames.get(classID);
+	}
+	
+	/**
+	 * @return SENT, DELIVERED or DROPPED, as defined in the MessageTraceRecorder.
+	 */
+	public byte getKind() {
+		return kind;
+	}
+}
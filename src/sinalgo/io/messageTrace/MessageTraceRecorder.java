@@ -0,0 +1,437 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.io.messageTrace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.zip.Deflater;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.runtime.Main;
+
+/**
+ * Records the messages sent and received during the simulation in a binary
+ * message trace file (.smt), which can be read with the MessageTraceReader.
+ * <p>
+ * The recorder is enabled with the configuration entry <code>messageTrace</code>.
+ * It writes one fixed-size record when a message is sent, and one when it reaches
+ * its destination, where it is either delivered or dropped. The nodes append the 
+ * records to a ring of blocks in memory, which a background thread drains to the 
+ * file. Full blocks are optionally compressed before they are written. When the 
+ * writer falls behind, the sending node waits until a block becomes free, such that
+ * no record is lost. Packets that are removed from the simulation before they 
+ * arrive, e.g. together with their destination node, only have a SENT record.
+ * <p>
+ * The file starts with a header holding the MAGIC number, the VERSION and the size
+ * of a record. It is followed by a sequence of blocks, each of which starts with its 
+ * type (BLOCK_CLASSES or BLOCK_RECORDS), its length and its stored length. A block 
+ * is compressed with the deflate algorithm if the stored length is smaller than its 
+ * length. A BLOCK_CLASSES block assigns names to the message class IDs used in the 
+ * records and always precedes the first record that uses these IDs. A record holds:
+ * <ul>
+ * <li>the ID of the packet (long)</li>
+ * <li>the time of the send or arrival (double)</li>
+ * <li>the ID of the sender and of the destination (int, int)</li>
+ * <li>the size of the message as returned by <code>Message.getTraceSize()</code> (int)</li>
+ * <li>the class ID of the message (short)</li>
+ * <li>SENT, DELIVERED or DROPPED (byte), followed by one unused byte</li>
+ * </ul>
+ */
+public class MessageTraceRecorder {
+
+	/**
+	 * The magic number at the beginning of each message trace file ("SMT1").
+	 */
+	public static final int MAGIC = 0x534D5431;
+	
+	/**
+	 * The version of the message trace file format.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The number of bytes of a record.
+	 */
+	public static final int RECORD_SIZE = 32;
+	
+	/**
+	 * The type of a block that holds the names of message classes.
+	 */
+	public static final byte BLOCK_CLASSES = 0;
+	
+	/**
+	 * The type of a block that holds records.
+	 */
+	public static final byte BLOCK_RECORDS = 1;
+	
+	/**
+	 * Kind of a record written when a message is sent.
+	 */
+	public static final byte SENT = 0;
+	
+	/**
+	 * Kind of a record written when a message is delivered to its destination.
+	 */
+	public static final byte DELIVERED = 1;
+	
+	/**
+	 * Kind of a record written when a message is dropped, e.g. due to interference.
+	 */
+	public static final byte DROPPED = 2;
+	
+	// the number of blocks in the ring
+	private static final int NUMBER_OF_BLOCKS = 8;
+	
+	// the recorder of the running simulation, null if no trace is recorded
+	private static volatile MessageTraceRecorder current = null;
+	
+	private File file;
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private Deflater deflater; // null if the blocks are not compressed
+	private byte[] compressed;
+	private ByteBuffer blockHeader = ByteBuffer.allocate(9);
+	
+	// the ring of blocks. The nodes fill the block at fillIndex, the writer writes the 
+	// block at writeIndex. All blocks from writeIndex to fillIndex (exclusive) are full.
+	private ByteBuffer[] blocks = new ByteBuffer[NUMBER_OF_BLOCKS];
+	private int fillIndex = 0;
+	private int writeIndex = 0;
+	private int numFullBlocks = 0;
+	private boolean closing = false;
+	private boolean failed = false;
+	private Thread writer;
+	
+	// the class IDs of the messages, and the names of the classes the writer has not yet written 
+	private IdentityHashMap<Class<?>, Integer> classIDs = new IdentityHashMap<Class<?>, Integer>();
+	private Class<?> lastClass = null;
+	private short lastClassID = 0;
+	private StringBuilder pendingClasses = new StringBuilder();
+	private int numPendingClasses = 0;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Starts to record the messages to the file given by <code>Configuration.messageTraceFile</code>.
+	 * Does nothing if a trace is already being recorded.
+	 */
+	public static synchronized void start() {
+		if(current != null) {
+			return;
+		}
+		try {
+			current = new MessageTraceRecorder(new File(Configuration.messageTraceFile));
+		} catch(IOException e) {
+			Main.minorError("Cannot write the message trace to the file " + Configuration.messageTraceFile + ":\n" + e.getMessage());
+			return;
+		}
+		java.lang.Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				MessageTraceRecorder.stop();
+			}
+		});
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Writes all pending records and closes the message trace file. 
+	 */
+	public static synchronized void stop() {
+		if(current != null) {
+			current.close();
+			current = null;
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Records that a packet was sent.
+	 * @param p The packet that was sent.
+	 */
+	public static void recordSent(Packet p) {
+		MessageTraceRecorder r = current;
+		if(r != null) {
+			r.record(p, p.sendingTime, SENT);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Records that a packet arrived at its destination, where it is delivered if its 
+	 * positiveDelivery flag is set, and dropped otherwise.
+	 * @param p The packet that arrived.
+	 */
+	public static void recordArrival(Packet p) {
+		MessageTraceRecorder r = current;
+		if(r != null) {
+			r.record(p, p.arrivingTime, p.positiveDelivery ? DELIVERED : DROPPED);
+		}
+	}
+	
+	/**
+	 * Creates the trace file, writes its header and starts the writer thread.
+	 * @param file The file to write the trace to. An existing file is replaced.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private MessageTraceRecorder(File file) throws IOException {
+		this.file = file;
+		int recordsPerBlock = Math.max(1024, Configuration.messageTraceBufferSize / NUMBER_OF_BLOCKS);
+		for(int i = 0; i < NUMBER_OF_BLOCKS; i++) {
+			blocks[i] = ByteBuffer.allocate(recordsPerBlock * RECORD_SIZE);
+		}
+		if(Configuration.messageTraceCompression) {
+			deflater = new Deflater(Deflater.BEST_SPEED);
+			compressed = new byte[recordsPerBlock * RECORD_SIZE];
+		}
+		raf = new RandomAccessFile(file, "rw");
+		raf.setLength(0);
+		channel = raf.getChannel();
+		ByteBuffer header = ByteBuffer.allocate(12);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(RECORD_SIZE);
+		header.flip();
+		writeFully(header);
+		
+		writer = new Thread("MessageTraceWriter") {
+			public void run() {
+				writeBlocks();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Appends a record to the current block. Waits if all blocks are full. 
+	 */
+	private synchronized void record(Packet p, double time, byte kind) {
+		if(closing) {
+			return;
+		}
+		ByteBuffer b = blocks[fillIndex];
+		if(!b.hasRemaining()) {
+			submitBlock();
+			b = blocks[fillIndex];
+		}
+		Message m = p.message;
+		b.putLong(p.ID);
+		b.putDouble(time);
+		b.putInt(p.origin.ID);
+		b.putInt(p.destination.ID);
+		b.putInt(m.getTraceSize());
+		b.putShort(getClassID(m.getClass()));
+		b.put(kind);
+		b.put((byte) 0);
+	}
+	
+	/**
+	 * Hands the current block to the writer and waits until the next block is free. 
+	 */
+	private void submitBlock() {
+		numFullBlocks++;
+		fillIndex = (fillIndex + 1) % NUMBER_OF_BLOCKS;
+		notifyAll();
+		boolean interrupted = false;
+		while(numFullBlocks == NUMBER_OF_BLOCKS) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Returns the ID of a message class and registers the name of the class 
+	 * if the class is not yet known.
+	 */
+	private short getClassID(Class<?> c) {
+		if(c == lastClass) {
+			return lastClassID;
+		}
+		Integer id = classIDs.get(c);
+		if(id == null) {
+			if(classIDs.size() == Short.MAX_VALUE) {
+				Main.fatalError("The message trace supports at most " + Short.MAX_VALUE + " message classes.");
+			}
+			id = classIDs.size();
+			classIDs.put(c, id);
+			pendingClasses.append(c.getName()).append('\n');
+			numPendingClasses++;
+		}
+		lastClass = c;
+		lastClassID = id.shortValue();
+		return lastClassID;
+	}
+	
+	/**
+	 * Writes all pending records, stops the writer thread and closes the file.
+	 */
+	private void close() {
+		boolean interrupted = false;
+		synchronized(this) {
+			if(blocks[fillIndex].position() > 0) {
+				submitBlock();
+			}
+			closing = true;
+			notifyAll();
+		}
+		while(writer.isAlive()) {
+			try {
+				writer.join();
+			} catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		try {
+			channel.force(false);
+			raf.close();
+		} catch(IOException e) {
+			Main.minorError("Error closing the message trace file " + file.getName() + ":\n" + e.getMessage());
+		}
+		if(deflater != null) {
+			deflater.end();
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * The loop of the writer thread: writes the full blocks to the file until the 
+	 * recorder is closed.
+	 */
+	private void writeBlocks() {
+		while(true) {
+			ByteBuffer block;
+			String classNames = null;
+			int numClasses = 0;
+			synchronized(this) {
+				while(numFullBlocks == 0 && !closing) {
+					try {
+						wait();
+					} catch(InterruptedException e) {
+						// continue to wait for blocks
+					}
+				}
+				if(numFullBlocks == 0) {
+					return; // closing and all blocks written
+				}
+				block = blocks[writeIndex];
+				if(numPendingClasses > 0) { // the classes used in the block are registered before
+					classNames = pendingClasses.toString();
+					numClasses = numPendingClasses;
+					pendingClasses.setLength(0);
+					numPendingClasses = 0;
+				}
+			}
+			if(!failed) {
+				try {
+					if(classNames != null) {
+						writeClasses(classNames, numClasses);
+					}
+					writeRecords(block);
+				} catch(IOException e) {
+					failed = true; // drop all further records
+					Main.minorError("Error writing the message trace to the file " + file.getName() + ":\n" + e.getMessage());
+				}
+			}
+			synchronized(this) {
+				block.clear();
+				writeIndex = (writeIndex + 1) % NUMBER_OF_BLOCKS;
+				numFullBlocks--;
+				notifyAll();
+			}
+		}
+	}
+	
+	private void writeClasses(String classNames, int numClasses) throws IOException {
+		byte[] names = classNames.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer b = ByteBuffer.allocate(4 + names.length);
+		b.putInt(numClasses);
+		b.put(names);
+		b.flip();
+		writeBlockHeader(BLOCK_CLASSES, b.remaining(), b.remaining());
+		writeFully(b);
+	}
+	
+	private void writeRecords(ByteBuffer block) throws IOException {
+		block.flip();
+		int length = block.remaining();
+		if(deflater != null) {
+			deflater.reset();
+			deflater.setInput(block.array(), 0, length);
+			deflater.finish();
+			int stored = 0;
+			while(!deflater.finished() && stored < compressed.length) {
+				stored += deflater.deflate(compressed, stored, compressed.length - stored);
+			}
+			if(deflater.finished() && stored < length) {
+				writeBlockHeader(BLOCK_RECORDS, length, stored);
+				writeFully(ByteBuffer.wrap(compressed, 0, stored));
+				return;
+			}
+		}
+		writeBlockHeader(BLOCK_RECORDS, length, length); // not compressed
+		writeFully(block);
+	}
+	
+	private void writeBlockHeader(byte type, int length, int storedLength) throws IOException {
+		blockHeader.clear();
+		blockHeader.put(type);
+		blockHeader.putInt(length);
+		blockHeader.putInt(storedLength);
+		blockHeader.flip();
+		writeFully(blockHeader);
+	}
+	
+	private void writeFully(ByteBuffer b) throws IOException {
+		while(b.hasRemaining()) {
+			channel.write(b);
+		}
+	}
+}
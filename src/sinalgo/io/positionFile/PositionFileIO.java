@@ -6,12 +6,16 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import javax.swing.JFileChooser;
 
 import sinalgo.configuration.AppConfig;
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.io.eps.Exporter.BinaryPositionFileFilter;
 import sinalgo.io.eps.Exporter.PositionFileFilter;
 import sinalgo.io.eps.Exporter.SingleFileFilter;
 import sinalgo.nodes.Node;
@@ -26,6 +30,18 @@ public class PositionFileIO {
 
 	private static final String separator = "#####----- start of node posiitons -----#####";
 	
+	/**
+	 * The extension of binary position files.
+	 */
+	public static final String binaryExtension = ".bpos";
+	
+	/**
+	 * The magic number at the beginning of each binary position file ("SPF1"). It is 
+	 * followed by the number of positions (int) and the x, y and z coordinates of 
+	 * each position (doubles).
+	 */
+	public static final int binaryMagic = 0x53504631;
+	
 	/**
 	 * Creates a file containing a list of the positions
 	 * of all nodes currently hold by the framework.
@@ -76,24 +92,7 @@ public class PositionFileIO {
 	 */
 	public static LineNumberReader getPositionFileReader(String fileName) throws PositionFileException {
 		LineNumberReader reader = null;
-		String name = null;
-		
-		if(fileName == null) {
-			JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
-			fc.setDialogTitle("Select input file");
-			SingleFileFilter posFf = new PositionFileFilter();
-			fc.setAcceptAllFileFilterUsed(true);
-			fc.setFileFilter(posFf);
-			if(fc.showOpenDialog(Tools.getGUI()) != JFileChooser.APPROVE_OPTION){
-				throw new PositionFileException("Aborted file selection");
-			}
-			name = fc.getSelectedFile().getPath();
-			String p = name;
-			p = p.substring(0, p.length() - fc.getSelectedFile().getName().length()); // remember the selected path
-			AppConfig.getAppConfig().lastSelectedFileDirectory = p;
-		} else {
-			name = fileName;
-		}
+		String name = fileName == null ? selectInputFile() : fileName;
 
 		try {
 			reader = new LineNumberReader(new FileReader(new File(name)));
@@ -112,6 +111,118 @@ public class PositionFileIO {
 		return reader;
 	}
 	
+	/**
+	 * Opens a file dialog that lets the user select a (text or binary) position 
+	 * file to read from.
+	 * @return The path of the selected file
+	 * @throws PositionFileException If the user aborted the selection
+	 */
+	static String selectInputFile() throws PositionFileException {
+		JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
+		fc.setDialogTitle("Select input file");
+		SingleFileFilter posFf = new PositionFileFilter();
+		fc.setAcceptAllFileFilterUsed(true);
+		fc.addChoosableFileFilter(new BinaryPositionFileFilter());
+		fc.setFileFilter(posFf);
+		if(fc.showOpenDialog(Tools.getGUI()) != JFileChooser.APPROVE_OPTION){
+			throw new PositionFileException("Aborted file selection");
+		}
+		String name = fc.getSelectedFile().getPath();
+		String p = name;
+		p = p.substring(0, p.length() - fc.getSelectedFile().getName().length()); // remember the selected path
+		AppConfig.getAppConfig().lastSelectedFileDirectory = p;
+		return name;
+	}
+	
+	/**
+	 * Skips the header of a text position file.
+	 * @param buffer A buffer holding the content of the file, positioned at the beginning of the file.
+	 * @return The offset of the first position in the file, or the size of the 
+	 * file if the file contains no separator line.
+	 */
+	static int skipHeader(ByteBuffer buffer) {
+		int limit = buffer.limit();
+		int lineStart = 0;
+		while(lineStart < limit) {
+			int lineEnd = lineStart;
+			while(lineEnd < limit && buffer.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			int end = lineEnd;
+			if(end > lineStart && buffer.get(end - 1) == '\r') {
+				end--;
+			}
+			if(end - lineStart == separator.length()) {
+				boolean equal = true;
+				for(int i = 0; equal && i < separator.length(); i++) {
+					equal = buffer.get(lineStart + i) == separator.charAt(i);
+				}
+				if(equal) {
+					return Math.min(lineEnd + 1, limit);
+				}
+			}
+			lineStart = lineEnd + 1;
+		}
+		return limit;
+	}
+	
+	/**
+	 * Creates a binary position file containing the positions of all nodes 
+	 * currently hold by the framework. Binary position files are read by 
+	 * the PositionFileReader without parsing.
+	 * @param name The name of the file, null if the user should be asked using a file-dialog 
+	 * @return true upon success, otherwise false. 
+	 */
+	public static boolean printBinaryPos(String name) {
+		if(name == null) {
+			JFileChooser fc = new JFileChooser(AppConfig.getAppConfig().getLastSelectedFileDirectory());
+			fc.setDialogTitle("Select destination file");
+			fc.setFileFilter(new BinaryPositionFileFilter());
+			if(fc.showSaveDialog(Tools.getGUI()) == JFileChooser.APPROVE_OPTION){
+				name = fc.getSelectedFile().getAbsolutePath();
+				String p = name;
+				p = p.substring(0, p.length() - fc.getSelectedFile().getName().length()); // remember the selected path
+				AppConfig.getAppConfig().lastSelectedFileDirectory = p;
+			} else {
+				return false; // (aborted)
+			}
+		}
+		
+		try {
+			RandomAccessFile file = new RandomAccessFile(name, "rw");
+			try {
+				file.setLength(0);
+				FileChannel channel = file.getChannel();
+				ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+				buffer.putInt(binaryMagic);
+				buffer.putInt(Tools.getNodeList().size());
+				for(Node n : Tools.getNodeList()) {
+					if(buffer.remaining() < 24) {
+						buffer.flip();
+						while(buffer.hasRemaining()) {
+							channel.write(buffer);
+						}
+						buffer.clear();
+					}
+					Position p = n.getPosition();
+					buffer.putDouble(p.xCoord);
+					buffer.putDouble(p.yCoord);
+					buffer.putDouble(p.zCoord);
+				}
+				buffer.flip();
+				while(buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} finally {
+				file.close();
+			}
+			return true;
+		} catch (IOException e) {
+			Tools.minorError(e.getMessage());
+		}
+		return false;
+	}
+	
 	public static Position getNextPosition(LineNumberReader reader) {
 		try {
 			String line = reader.readLine();
@@ -0,0 +1,414 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.io.positionFile;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import sinalgo.io.positionFile.PositionFileIO.PositionFileException;
+import sinalgo.nodes.Position;
+
+/**
+ * Reads the positions stored in a position file, either a text file written by 
+ * <code>PositionFileIO.printPos</code> or a binary file written by 
+ * <code>PositionFileIO.printBinaryPos</code>.
+ * <p>
+ * Binary files are memory mapped and the coordinates are read directly from the
+ * mapping. Text files are memory mapped as well and parsed when the file is opened.
+ * Large files are cut into chunks at line boundaries, which are parsed in parallel. 
+ * Neither kind of file requires an allocation per position when the positions are 
+ * read with <code>getNextPosition(Position)</code>.
+ */
+public class PositionFileReader {
+	
+	/**
+	 * Text files smaller than this size are parsed by a single thread.
+	 */
+	private static final int minChunkSize = 1 << 20;
+	
+	private DoubleBuffer binary; // the coordinates of a binary file
+	private double[] coordinates; // the parsed coordinates of a text file
+	private int size; // the number of positions in the file
+	private int next = 0; // the index of the next position to return
+	
+	// the first illegal line of a text file, which is reported when its position is requested
+	private int errorIndex = Integer.MAX_VALUE;
+	private String errorMessage;
+	
+	/**
+	 * Opens a position file. Files ending with <code>.bpos</code> are read as binary 
+	 * position files, all other files as text position files.
+	 * @param fileName The name of the file to open, null if a dialog to choose the file should be shown
+	 * @throws PositionFileException If the file cannot be read.
+	 */
+	public PositionFileReader(String fileName) throws PositionFileException {
+		String name = fileName == null ? PositionFileIO.selectInputFile() : fileName;
+		try {
+			RandomAccessFile file = new RandomAccessFile(name, "r");
+			try {
+				FileChannel channel = file.getChannel();
+				if(channel.size() > Integer.MAX_VALUE) {
+					throw new PositionFileException("The position file " + name + " is larger than 2 GB.");
+				}
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				if(name.toLowerCase().endsWith(PositionFileIO.binaryExtension)) {
+					mapBinary(buffer, name);
+				} else {
+					parseText(buffer);
+				}
+			} finally {
+				file.close(); // the mapping remains valid
+			}
+		} catch(IOException e) {
+			throw new PositionFileException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * @return The number of positions stored in the file.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Reads the next position of the file into a given position object.
+	 * @param p The position object to which the coordinates are written
+	 * @throws PositionFileException If the file contains no more positions, or 
+	 * the next line of a text file is illegal.
+	 */
+	public void getNextPosition(Position p) throws PositionFileException {
+		if(next >= size) {
+			throw new PositionFileException("The specified file contains not enough positions");
+		}
+		if(next >= errorIndex) {
+			throw new PositionFileException(errorMessage);
+		}
+		int i = 3 * next++;
+		if(binary != null) {
+			p.xCoord = binary.get(i);
+			p.yCoord = binary.get(i + 1);
+			p.zCoord = binary.get(i + 2);
+		} else {
+			p.xCoord = coordinates[i];
+			p.yCoord = coordinates[i + 1];
+			p.zCoord = coordinates[i + 2];
+		}
+	}
+	
+	/**
+	 * @return A new position object holding the next position of the file.
+	 * @throws PositionFileException If the file contains no more positions, or 
+	 * the next line of a text file is illegal.
+	 */
+	public Position getNextPosition() throws PositionFileException {
+		Position p = new Position();
+		getNextPosition(p);
+		return p;
+	}
+	
+	private void mapBinary(ByteBuffer buffer, String name) throws PositionFileException {
+		if(buffer.limit() < 8 || buffer.getInt(0) != PositionFileIO.binaryMagic) {
+			throw new PositionFileException("The file " + name + " is not a binary position file.");
+		}
+		size = buffer.getInt(4);
+		if(size < 0 || 8 + 24L * size > buffer.limit()) {
+			throw new PositionFileException("The binary position file " + name + " is truncated.");
+		}
+		buffer.position(8);
+		binary = buffer.slice().asDoubleBuffer();
+	}
+	
+	//-----------------------------------------------------------------------------------
+	// Parsing of text files
+	//-----------------------------------------------------------------------------------
+	
+	private void parseText(final ByteBuffer buffer) throws PositionFileException {
+		int start = PositionFileIO.skipHeader(buffer);
+		int end = buffer.limit();
+		int numChunks = Math.max(1, Math.min(java.lang.Runtime.getRuntime().availableProcessors(), (end - start) / minChunkSize));
+		
+		// cut the data into chunks that start at the beginning of a line
+		final int[] chunkStart = new int[numChunks + 1];
+		chunkStart[0] = start;
+		chunkStart[numChunks] = end;
+		for(int c = 1; c < numChunks; c++) {
+			int pos = Math.max(chunkStart[c - 1], start + (int) ((long) (end - start) * c / numChunks));
+			while(pos < end && buffer.get(pos - 1) != '\n') {
+				pos++;
+			}
+			chunkStart[c] = pos;
+		}
+		
+		// count the lines of each chunk and parse the chunks in parallel
+		final ChunkParser[] parsers = new ChunkParser[numChunks];
+		for(int c = 0; c < numChunks; c++) {
+			parsers[c] = new ChunkParser(buffer.duplicate(), chunkStart[c], chunkStart[c + 1]);
+		}
+		runParallel(parsers, false);
+		int[] firstLine = new int[numChunks + 1];
+		for(int c = 0; c < numChunks; c++) {
+			firstLine[c + 1] = firstLine[c] + parsers[c].numLines;
+		}
+		size = firstLine[numChunks];
+		coordinates = new double[3 * size];
+		for(int c = 0; c < numChunks; c++) {
+			parsers[c].firstLine = firstLine[c];
+		}
+		runParallel(parsers, true);
+		for(ChunkParser p : parsers) {
+			if(p.errorLine >= 0) {
+				errorIndex = p.errorLine;
+				errorMessage = p.errorMessage;
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Runs the given parsers, the first one in the calling thread and the others in 
+	 * their own threads.
+	 */
+	private void runParallel(ChunkParser[] parsers, boolean parse) throws PositionFileException {
+		Thread[] threads = new Thread[parsers.length];
+		for(int c = 0; c < parsers.length; c++) {
+			parsers[c].parse = parse;
+			if(c > 0) {
+				threads[c] = new Thread(parsers[c], "PositionFileParser-" + c);
+				threads[c].start();
+			}
+		}
+		parsers[0].run();
+		for(int c = 1; c < parsers.length; c++) {
+			try {
+				threads[c].join();
+			} catch (InterruptedException e) {
+				throw new PositionFileException("Interrupted while reading the position file.");
+			}
+		}
+	}
+	
+	/**
+	 * Counts or parses the lines of a chunk of a text position file.
+	 */
+	private class ChunkParser implements Runnable {
+		private ByteBuffer buffer; // the mapped file, until the chunk has been copied
+		private byte[] data; // a copy of the chunk, which is faster to access than the mapped buffer
+		private int start, end;
+		private boolean parse; // count the lines if false
+		int numLines = 0;
+		int firstLine; // the index of the first line of this chunk in the file
+		int errorLine = -1; // the index of the first illegal line of this chunk
+		String errorMessage;
+		
+		ChunkParser(ByteBuffer buffer, int start, int end) {
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+		}
+		
+		public void run() {
+			if(data == null) { // copy the chunk when it is processed the first time
+				data = new byte[end - start];
+				buffer.position(start);
+				buffer.get(data);
+				buffer = null;
+				end -= start;
+				start = 0;
+			}
+			int line = 0;
+			int lineStart = start;
+			while(lineStart < end) {
+				int lineEnd = lineStart;
+				while(lineEnd < end && data[lineEnd] != '\n') {
+					lineEnd++;
+				}
+				if(parse && errorLine < 0) {
+					parseLine(lineStart, lineEnd, 3 * (firstLine + line));
+				}
+				line++;
+				lineStart = lineEnd + 1;
+			}
+			numLines = line;
+		}
+		
+		/**
+		 * Parses the first three comma separated doubles of a line.
+		 */
+		private void parseLine(int lineStart, int lineEnd, int index) {
+			int fieldStart = lineStart;
+			for(int i = 0; i < 3; i++) {
+				int fieldEnd = fieldStart;
+				while(fieldEnd < lineEnd && data[fieldEnd] != ',') {
+					fieldEnd++;
+				}
+				if(fieldEnd == lineEnd && i < 2) { // less than three fields
+					setError(lineStart, lineEnd, index);
+					return;
+				}
+				double d = parseDouble(fieldStart, fieldEnd);
+				if(Double.isNaN(d) && !isNaN(fieldStart, fieldEnd)) {
+					setError(lineStart, lineEnd, index);
+					return;
+				}
+				coordinates[index + i] = d;
+				fieldStart = fieldEnd + 1;
+			}
+		}
+		
+		private void setError(int lineStart, int lineEnd, int index) {
+			if(lineEnd > lineStart && data[lineEnd - 1] == '\r') {
+				lineEnd--;
+			}
+			errorLine = index / 3;
+			errorMessage = "Illegal line: expected three doubles, separated by comma. Found \n" + getString(lineStart, lineEnd);
+		}
+		
+		/**
+		 * Parses a double, using an exact fast path for decimals whose significant digits 
+		 * are at most 2^53 and falling back to Double.parseDouble otherwise.
+		 * @return The parsed value, NaN if the field is not a legal double.
+		 */
+		private double parseDouble(int from, int to) {
+			int i = from;
+			while(i < to && data[i] <= ' ') { // same trimming as Double.parseDouble 
+				i++;
+			}
+			int last = to;
+			while(last > i && data[last - 1] <= ' ') {
+				last--;
+			}
+			boolean negative = false;
+			if(i < last && (data[i] == '-' || data[i] == '+')) {
+				negative = data[i] == '-';
+				i++;
+			}
+			long mantissa = 0;
+			int digits = 0, exponent = 0;
+			boolean anyDigit = false, point = false;
+			for(; i < last; i++) {
+				byte b = data[i];
+				if(b >= '0' && b <= '9') {
+					anyDigit = true;
+					if(mantissa == 0 && b == '0') { // leading zero
+						if(point) {
+							exponent--;
+						}
+						continue;
+					}
+					if(++digits > 18) {
+						return parseDoubleSlow(from, to);
+					}
+					mantissa = 10 * mantissa + (b - '0');
+					if(point) {
+						exponent--;
+					}
+				} else if(b == '.' && !point) {
+					point = true;
+				} else {
+					break;
+				}
+			}
+			if(!anyDigit) {
+				return parseDoubleSlow(from, to);
+			}
+			if(i < last) { // exponent
+				byte b = data[i];
+				if((b != 'e' && b != 'E') || ++i == last) {
+					return parseDoubleSlow(from, to);
+				}
+				boolean negativeExponent = false;
+				if(data[i] == '-' || data[i] == '+') {
+					negativeExponent = data[i] == '-';
+					i++;
+				}
+				int e = 0;
+				if(i == last) {
+					return parseDoubleSlow(from, to);
+				}
+				for(; i < last; i++) {
+					b = data[i];
+					if(b < '0' || b > '9' || e > 1000) {
+						return parseDoubleSlow(from, to);
+					}
+					e = 10 * e + (b - '0');
+				}
+				exponent += negativeExponent ? -e : e;
+			}
+			double value;
+			if(mantissa > maxExactMantissa) {
+				return parseDoubleSlow(from, to);
+			} else if(mantissa == 0) {
+				value = 0;
+			} else if(exponent >= 0 && exponent <= 22) {
+				value = mantissa * powersOfTen[exponent]; // both factors are exact, hence the result is correctly rounded
+			} else if(exponent < 0 && exponent >= -22) {
+				value = mantissa / powersOfTen[-exponent];
+			} else {
+				return parseDoubleSlow(from, to);
+			}
+			return negative ? -value : value;
+		}
+		
+		private double parseDoubleSlow(int from, int to) {
+			try {
+				return Double.parseDouble(getString(from, to));
+			} catch(NumberFormatException e) {
+				return Double.NaN;
+			}
+		}
+		
+		private boolean isNaN(int from, int to) {
+			return getString(from, to).trim().endsWith("NaN");
+		}
+		
+		private String getString(int from, int to) {
+			return new String(data, from, to - from, StandardCharsets.ISO_8859_1);
+		}
+	}
+	
+	private static final long maxExactMantissa = 1L << 53; // largest integer up to which all integers are exact doubles
+	
+	private static final double[] powersOfTen = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+}
@@ -0,0 +1,522 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.io.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Node;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.ParallelRoundExecutor;
+import sinalgo.runtime.events.Event;
+import sinalgo.runtime.events.EventQueue;
+import sinalgo.runtime.events.ParallelEventWorker;
+import sinalgo.tools.statistics.Distribution;
+
+/**
+ * Records the decisions that determine the course of a simulation, and replays 
+ * them in a later run, such that the later run is guaranteed to repeat the recorded 
+ * run exactly, or stops at the first point where it diverges.  
+ * <p>
+ * A run is recorded with the command-line flag <code>-record file</code> and replayed
+ * with <code>-replay file</code>. The log holds
+ * <ul>
+ * <li>the seed of the random generator and the number of threads, which are used
+ * for the replay instead of the values from the configuration,</li>
+ * <li>the ID, time and node of each event executed in the asynchronous mode, and the 
+ * number of events of each time window executed in parallel,</li>
+ * <li>the state of the random generator after each event, and after each phase of a 
+ * synchronous round (global timers, mobility, connectivity, interference, node steps
+ * and postRound), which reveals the model that drew different random numbers,</li>
+ * <li>the outcome of the reliability model for each packet, which is enforced during 
+ * the replay.</li>
+ * </ul>
+ * The replay checks each recorded event and state of the random generator, and stops
+ * the simulation with a description of the difference as soon as the simulation
+ * diverges from the recorded run. 
+ * <p>
+ * Whenever a checkpoint is written during the recording, the log marks the position
+ * of the checkpoint. To replay only the part of the run after a checkpoint, combine 
+ * <code>-replay</code> with <code>-restore</code>: The replay skips the log up to the 
+ * mark of the restored checkpoint, without executing the events before. 
+ */
+public class ReplayLog {
+	
+	/**
+	 * The magic number at the beginning of each replay log ("SRL1").
+	 */
+	public static final int MAGIC = 0x53524C31;
+	
+	/**
+	 * The version of the replay log format.
+	 */
+	public static final int VERSION = 1;
+	
+	// the types of the entries
+	private static final byte EVENT = 0;
+	private static final byte WINDOW = 1;
+	private static final byte PHASE = 2;
+	private static final byte RELIABILITY = 3;
+	private static final byte CHECKPOINT = 4;
+	
+	/**
+	 * Phase of a synchronous round: preRound and the global timers.
+	 */
+	public static final byte PHASE_GLOBAL = 0;
+	
+	/**
+	 * Phase of a synchronous round: the mobility models.
+	 */
+	public static final byte PHASE_MOBILITY = 1;
+	
+	/**
+	 * Phase of a synchronous round: the connectivity models.
+	 */
+	public static final byte PHASE_CONNECTIVITY = 2;
+	
+	/**
+	 * Phase of a synchronous round: the interference test.
+	 */
+	public static final byte PHASE_INTERFERENCE = 3;
+	
+	/**
+	 * Phase of a synchronous round: the steps of the nodes, including the reliability 
+	 * and message transmission models.
+	 */
+	public static final byte PHASE_NODES = 4;
+	
+	/**
+	 * Phase of a synchronous round: postRound of the CustomGlobal.
+	 */
+	public static final byte PHASE_POST_ROUND = 5;
+	
+	private static final String[] phaseNames = {"preRound and global timers", "mobility", "connectivity", 
+	                                             "interference", "node steps", "postRound"};
+	
+	// the log of this run, null if no log is recorded or replayed
+	private static ReplayLog current = null;
+	private static boolean active = false;
+	
+	private File file;
+	private boolean replay; // true if the log is replayed, false if it is recorded
+	private DataOutputStream out;
+	private DataInputStream in;
+	
+	/**
+	 * @return True if the decisions of this run are recorded or replayed.
+	 */
+	public static boolean isActive() {
+		return active;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Starts to record the decisions of the simulation. Must be called before the 
+	 * random generator is used. 
+	 * @param file The file to write the log to. An existing file is replaced.
+	 */
+	public static void startRecording(File file) {
+		try {
+			current = new ReplayLog(file, false);
+		} catch(IOException e) {
+			Main.fatalError("Cannot record the replay log to the file " + file.getName() + ":\n" + e.getMessage());
+		}
+		active = true;
+		java.lang.Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				ReplayLog.stop();
+			}
+		});
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Starts to replay a recorded log. Sets the seed of the random generator and the 
+	 * number of threads to the recorded values. Must be called before the random generator 
+	 * is used. 
+	 * @param file The recorded log.
+	 */
+	public static void startReplay(File file) {
+		try {
+			current = new ReplayLog(file, true);
+		} catch(IOException e) {
+			Main.fatalError("Cannot replay the log " + file.getName() + ":\n" + e.getMessage());
+		}
+		active = true;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Writes the remaining entries of the log and closes the file.
+	 */
+	public static synchronized void stop() {
+		if(current != null) {
+			active = false;
+			current.close();
+			current = null;
+		}
+	}
+	
+	/**
+	 * Opens the log and writes or reads its header.
+	 */
+	private ReplayLog(File file, boolean replay) throws IOException {
+		this.file = file;
+		this.replay = replay;
+		if(replay) {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			if(in.readInt() != MAGIC) {
+				in.close();
+				throw new IOException("The file is not a replay log.");
+			}
+			int version = in.readInt();
+			if(version != VERSION) {
+				in.close();
+				throw new IOException("The log has version " + version + ", but only version " + VERSION + " is supported.");
+			}
+			boolean asynchronous = in.readBoolean();
+			if(asynchronous != Configuration.asynchronousMode) {
+				in.close();
+				throw new IOException("The log was recorded in the " + (asynchronous ? "asynchronous" : "synchronous") + 
+				                      " simulation mode.");
+			}
+			Configuration.useSameSeedAsInPreviousRun = false;
+			Configuration.useFixedSeed = true;
+			Configuration.fixedSeed = in.readLong();
+			Configuration.asynchronousThreads = in.readInt();
+			Configuration.synchronousThreads = in.readInt();
+		} else {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeBoolean(Configuration.asynchronousMode);
+			out.writeLong(Distribution.getSeed());
+			out.writeInt(Configuration.asynchronousThreads);
+			out.writeInt(Configuration.synchronousThreads);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Records or checks an event that was just executed in the asynchronous mode.
+	 * @param e The event.
+	 */
+	public static void event(Event e) {
+		Node n = e.getEventNode();
+		int nodeID = n == null ? -1 : n.ID;
+		long state = Distribution.getRandomState();
+		if(!current.replay) {
+			try {
+				current.out.writeByte(EVENT);
+				current.out.writeLong(e.getID());
+				current.out.writeDouble(e.time);
+				current.out.writeInt(nodeID);
+				current.out.writeLong(state);
+			} catch(IOException ex) {
+				current.writeFailed(ex);
+			}
+			return;
+		}
+		try {
+			if(!current.next(EVENT, "the event " + e.getID() + " at time " + e.time)) {
+				return;
+			}
+			long id = current.in.readLong();
+			double time = current.in.readDouble();
+			int recordedNode = current.in.readInt();
+			long recordedState = current.in.readLong();
+			if(id != e.getID() || time != e.time || recordedNode != nodeID) {
+				current.diverged("The recorded run executed the event " + id + " at time " + time + " on node " + recordedNode + 
+				                 ", but this run executed the event " + e.getID() + " at time " + e.time + " on node " + nodeID + ".");
+			} else if(recordedState != state) {
+				current.diverged("The event " + id + " at time " + time + " on node " + nodeID + 
+				                 " drew other random numbers than in the recorded run.");
+			}
+		} catch(IOException ex) {
+			current.readFailed(ex);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Records or checks a time window of events that were just executed in parallel.
+	 * @param numEvents The number of events executed in the window.
+	 */
+	public static void window(int numEvents) {
+		long state = Distribution.getRandomState();
+		if(!current.replay) {
+			try {
+				current.out.writeByte(WINDOW);
+				current.out.writeInt(numEvents);
+				current.out.writeDouble(Global.currentTime);
+				current.out.writeLong(state);
+			} catch(IOException ex) {
+				current.writeFailed(ex);
+			}
+			return;
+		}
+		try {
+			if(!current.next(WINDOW, "a parallel window of " + numEvents + " events")) {
+				return;
+			}
+			int recordedEvents = current.in.readInt();
+			double time = current.in.readDouble();
+			long recordedState = current.in.readLong();
+			if(recordedEvents != numEvents || time != Global.currentTime) {
+				current.diverged("The recorded run executed " + recordedEvents + " events in parallel up to time " + time + 
+				                 ", but this run executed " + numEvents + " events up to time " + Global.currentTime + ".");
+			} else if(recordedState != state) {
+				current.diverged("The parallel window up to time " + time + " drew other random numbers than in the recorded run.");
+			}
+		} catch(IOException ex) {
+			current.readFailed(ex);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Records or checks the end of a phase of a synchronous round.
+	 * @param phase The phase, one of the PHASE constants.
+	 */
+	public static void phase(byte phase) {
+		long state = Distribution.getRandomState();
+		if(!current.replay) {
+			try {
+				current.out.writeByte(PHASE);
+				current.out.writeByte(phase);
+				current.out.writeDouble(Global.currentTime);
+				current.out.writeLong(state);
+			} catch(IOException ex) {
+				current.writeFailed(ex);
+			}
+			return;
+		}
+		try {
+			if(!current.next(PHASE, "the " + phaseNames[phase] + " phase of round " + Global.currentTime)) {
+				return;
+			}
+			byte recordedPhase = current.in.readByte();
+			double time = current.in.readDouble();
+			long recordedState = current.in.readLong();
+			if(recordedPhase != phase || time != Global.currentTime) {
+				current.diverged("The recorded run performed the " + phaseNames[recordedPhase] + " phase of round " + time + 
+				                 ", but this run performed the " + phaseNames[phase] + " phase of round " + Global.currentTime + ".");
+			} else if(recordedState != state) {
+				current.diverged("The " + phaseNames[phase] + " phase of round " + time + " drew other random numbers than in the recorded run.");
+			}
+		} catch(IOException ex) {
+			current.readFailed(ex);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Records the decision of a reliability model, or replaces it with the recorded decision. 
+	 * The decisions taken by the worker threads of the parallel asynchronous mode are 
+	 * neither recorded nor replaced, as they only depend on the random generators of the
+	 * workers, which are seeded from the recorded random generator.  
+	 * @param reachesDestination The decision of the reliability model.
+	 * @return The decision to use for the packet.
+	 */
+	public static boolean reliability(boolean reachesDestination) {
+		if(ParallelEventWorker.current() != null || ParallelRoundExecutor.getWorkerRandom() != null) {
+			return reachesDestination;
+		}
+		if(!current.replay) {
+			try {
+				current.out.writeByte(RELIABILITY);
+				current.out.writeBoolean(reachesDestination);
+			} catch(IOException ex) {
+				current.writeFailed(ex);
+			}
+			return reachesDestination;
+		}
+		try {
+			if(!current.next(RELIABILITY, "a decision of a reliability model")) {
+				return reachesDestination;
+			}
+			return current.in.readBoolean();
+		} catch(IOException ex) {
+			current.readFailed(ex);
+			return reachesDestination;
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Marks the position of a checkpoint that was just written in the recorded log.
+	 */
+	public static void checkpointWritten() {
+		if(current.replay) {
+			return; // the marks of the log are not checked
+		}
+		try {
+			current.writeCheckpointMark();
+		} catch(IOException ex) {
+			current.writeFailed(ex);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Called after the simulation was restored from a checkpoint. When replaying, skips 
+	 * the log up to the mark of this checkpoint. When recording, marks the position of
+	 * the checkpoint, such that the replay can find it.
+	 */
+	public static void checkpointRestored() {
+		if(!current.replay) {
+			checkpointWritten();
+			return;
+		}
+		DataInputStream in = current.in;
+		try {
+			while(true) {
+				byte type = in.readByte();
+				switch(type) {
+					case EVENT:
+						in.skipBytes(8 + 8 + 4 + 8);
+						break;
+					case WINDOW:
+						in.skipBytes(4 + 8 + 8);
+						break;
+					case PHASE:
+						in.skipBytes(1 + 8 + 8);
+						break;
+					case RELIABILITY:
+						in.skipBytes(1);
+						break;
+					case CHECKPOINT:
+						double time = in.readDouble();
+						long eventNumber = in.readLong();
+						long state = in.readLong();
+						if(time == Global.currentTime && eventNumber == EventQueue.eventNumber && state == Distribution.getRandomState()) {
+							return;
+						}
+						break;
+					default:
+						throw new IOException("Unknown entry " + type + ".");
+				}
+			}
+		} catch(EOFException ex) {
+			Main.fatalError("The restored checkpoint was not written during the run recorded in the log " + current.file.getName() + ".");
+		} catch(IOException ex) {
+			current.readFailed(ex);
+		}
+	}
+	
+	private void writeCheckpointMark() throws IOException {
+		out.writeByte(CHECKPOINT);
+		out.writeDouble(Global.currentTime);
+		out.writeLong(EventQueue.eventNumber);
+		out.writeLong(Distribution.getRandomState());
+	}
+	
+	/**
+	 * Reads the type of the next entry of the replayed log, skipping the marks of
+	 * checkpoints. 
+	 * @param type The expected type of the entry.
+	 * @param found Description of what this run did, used when the entry has another type.
+	 * @return True if the entry has the expected type, false if the end of the log is reached.
+	 */
+	private boolean next(byte type, String found) throws IOException {
+		byte t;
+		try {
+			t = in.readByte();
+			while(t == CHECKPOINT) {
+				in.skipBytes(8 + 8 + 8);
+				t = in.readByte();
+			}
+		} catch(EOFException e) {
+			Main.warning("The simulation reached the end of the run recorded in the log " + file.getName() + 
+			             ". The simulation continues without the log.");
+			stop();
+			return false;
+		}
+		if(t != type) {
+			String expected;
+			switch(t) {
+				case EVENT: expected = "an event"; break;
+				case WINDOW: expected = "a parallel window of events"; break;
+				case PHASE: expected = "a phase of a synchronous round"; break;
+				case RELIABILITY: expected = "a decision of a reliability model"; break;
+				default: throw new IOException("Unknown entry " + t + ".");
+			}
+			diverged("The recorded run continued with " + expected + ", but this run continued with " + found + ".");
+		}
+		return true;
+	}
+	
+	/**
+	 * Stops the simulation because it diverged from the recorded run.
+	 */
+	private void diverged(String reason) {
+		Main.fatalError("The simulation diverged from the run recorded in the log " + file.getName() + 
+		                (Global.isAsynchronousMode ? " at event " + EventQueue.eventNumber : " in round " + Global.currentTime) + 
+		                ":\n" + reason);
+	}
+	
+	private void writeFailed(IOException e) {
+		Main.minorError("Error writing the replay log to the file " + file.getName() + ":\n" + e.getMessage() + 
+		                "\nThe rest of the run is not recorded.");
+		stop();
+	}
+	
+	private void readFailed(IOException e) {
+		Main.fatalError("Error reading the replay log " + file.getName() + ":\n" + e.getMessage());
+	}
+	
+	private void close() {
+		try {
+			if(replay) {
+				in.close();
+			} else {
+				out.close();
+			}
+		} catch(IOException e) {
+			Main.minorError("Error closing the replay log " + file.getName() + ":\n" + e.getMessage());
+		}
+	}
+}
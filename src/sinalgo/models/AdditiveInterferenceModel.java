@@ -0,0 +1,88 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.models;
+
+import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Packet;
+
+/**
+ * An optional extension of the {@link InterferenceModel} for models whose interference
+ * is the sum of the contributions of the individual packets in the air, e.g. SINR.
+ * <p>
+ * If the interference is additive (see the flag <code>interferenceIsAdditive</code> in 
+ * the configuration file), the framework keeps in the asynchronous mode a running sum 
+ * of the interference at each node that is receiving a packet. The contribution of a
+ * packet is added to this sum when the packet is sent, and subtracted again when the 
+ * packet arrives. Whether a packet is disturbed is then determined from this sum, without
+ * iterating over all packets in the air. 
+ * <p>
+ * To use this feature, an interference model extends <code>InterferenceModel</code> and
+ * implements this interface. Nodes whose interference model does not implement this 
+ * interface are tested with <code>InterferenceModel.isDisturbed(Packet)</code>.
+ * <p>
+ * The framework handles the flags <code>canReceiveWhileSending</code> and 
+ * <code>canReceiveMultiplePacketsInParallel</code> itself: Packets sent by the receiver 
+ * do not contribute to the sum, and the method <code>isDisturbed(Packet, double)</code> is
+ * only called if the packet is not already disturbed due to these flags.   
+ * <p>
+ * The running sum assumes that the nodes do not move while packets are in the air.  
+ */
+public interface AdditiveInterferenceModel {
+
+	/**
+	 * Determines the interference a packet causes at a given node.
+	 * @param interferer A packet that actively contributes to interference.
+	 * @param receiver The node whose interference model implements this interface, 
+	 * and which is not the sender of the interferer.
+	 * @return The contribution of the interferer to the interference at the receiver. 
+	 */
+	public double getInterference(Packet interferer, Node receiver);
+	
+	/**
+	 * Determines whether a packet is disturbed, given the interference of all other packets 
+	 * at its destination.
+	 * <p>
+	 * The interference is accumulated over time and may carry small rounding errors. 
+	 * If the decision is very close, the implementation should fall back to the exact
+	 * test <code>isDisturbed(Packet)</code>.
+	 * @param p The packet to test, whose destination's interference model implements this interface.
+	 * @param interference The sum of the contributions of all other packets in the air, 
+	 * not including the packets sent by the destination of p.
+	 * @return True if the packet is disturbed, otherwise false.
+	 */
+	public boolean isDisturbed(Packet p, double interference);
+}
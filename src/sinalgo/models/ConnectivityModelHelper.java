@@ -37,6 +37,7 @@
 package sinalgo.models;
 
 
+import java.util.ArrayList;
 import java.util.Enumeration;
 
 import sinalgo.configuration.WrongConfigurationException;
@@ -86,6 +87,64 @@ public abstract class ConnectivityModelHelper extends ConnectivityModel {
 		return edgeAdded || dyingLinks; // return whether an edge has been added or removed.
 	}	
 
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Determines the possible neighbors of a node that are connected with the node, without 
+	 * modifying any edges. In contrast to <code>updateConnections</code>, this method may be 
+	 * called for several nodes in parallel.
+	 * @param n The node whose connections are evaluated.
+	 * @param connected The list to which the connected nodes are appended.
+	 */
+	public void findConnections(Node n, ArrayList<Node> connected) {
+		Enumeration<Node> pNE = Runtime.nodes.getPossibleNeighborsEnumeration(n);
+		while( pNE.hasMoreElements() ){
+			Node possibleNeighbor = pNE.nextElement();
+			if(n.ID != possibleNeighbor.ID && isConnected(n, possibleNeighbor)){
+				connected.add(possibleNeighbor);
+			}
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Updates the outgoing connections of a node given the connections found by 
+	 * <code>findConnections</code>. Together, the two methods have the same effect as 
+	 * <code>updateConnections</code>.
+	 * @param n The node whose connections are updated.
+	 * @param connected The list containing the connected nodes.
+	 * @param from The index of the first connected node of n in the list.
+	 * @param to The index after the last connected node of n in the list.
+	 * @return True if an edge was added or removed, otherwise false.
+	 */
+	public boolean applyConnections(Node n, ArrayList<Node> connected, int from, int to) {
+		boolean edgeAdded = false;
+		for(int i = from; i < to; i++) {
+			edgeAdded = !n.outgoingConnections.add(n, connected.get(i), true) || edgeAdded;
+		}
+		boolean dyingLinks = n.outgoingConnections.removeInvalidLinks(); 
+		return edgeAdded || dyingLinks;
+	}
+	
+	private int parallelizable = -1; // cached result of isParallelizable, -1 if not yet determined
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return True if the connections of this model may be evaluated with <code>findConnections</code> 
+	 * and <code>applyConnections</code>, which is the case if the subclass does not overwrite 
+	 * <code>updateConnections</code>.
+	 */
+	public boolean isParallelizable() {
+		if(parallelizable < 0) {
+			try {
+				Class<?> c = getClass().getMethod("updateConnections", Node.class).getDeclaringClass();
+				parallelizable = (c == ConnectivityModelHelper.class || c == KineticConnectivityModelHelper.class) ? 1 : 0;
+			} catch(NoSuchMethodException e) {
+				parallelizable = 0;
+			}
+		}
+		return parallelizable == 1;
+	}
+
 	/**
 	 * Function to find out, if two nodes are connected when evaluating the current Connectivity Model.
 	 * The connectivity is always checked only in one direction. This Function only checks, if there 
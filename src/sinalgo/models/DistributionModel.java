@@ -81,6 +81,27 @@ public abstract class DistributionModel extends Model {
 	 */
 	public abstract Position getNextPosition(); 
 
+	/**
+	 * Writes the next positions where nodes are placed to the given arrays. 
+	 * <p>
+	 * This method is used when many nodes are generated at once. It returns the 
+	 * same positions as <code>count</code> calls to <code>getNextPosition()</code>, 
+	 * and may be overwritten in the subclass to avoid creating a Position object for
+	 * each node.  
+	 * @param x The array to store the x-coordinates.
+	 * @param y The array to store the y-coordinates.
+	 * @param z The array to store the z-coordinates.
+	 * @param count The number of positions to write.
+	 */
+	public void getNextPositions(double[] x, double[] y, double[] z, int count) {
+		for(int i = 0; i < count; i++) {
+			Position p = getNextPosition();
+			x[i] = p.xCoord;
+			y[i] = p.yCoord;
+			z[i] = p.zCoord;
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see models.Model#getType()
 	 */
@@ -0,0 +1,673 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.models;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Runtime;
+
+
+/**
+ * A helper class for connectivity models where two nodes are connected only if their 
+ * distance is below the maximum transmission range, and whose decision depends on nothing 
+ * but the positions of the two nodes (e.g. the UDG). 
+ * <p>
+ * If <code>kineticConnectivitySlack</code> is set in the configuration file, this class 
+ * does not scan all possible neighbors of a node in every round. Instead, each node keeps a 
+ * list of candidates, i.e. the nodes that were closer than the transmission range plus the 
+ * slack when the list was built, together with its position at that time (the anchor). 
+ * As long as no node moves more than half of the slack away from its anchor, no node outside 
+ * of the candidate list can get within transmission range. Thus, a node only
+ * <ul>
+ * <li>re-evaluates the pairs with its candidates where one of the two nodes moved,</li>
+ * <li>rebuilds its candidate list after it moved more than half of the slack, and</li>
+ * <li>skips the evaluation entirely if neither the node nor any of its candidates moved.</li>
+ * </ul>
+ * The slack is reduced such that the transmission range plus 1.5 times the slack does not 
+ * exceed <code>GeometricNodeCollection/rMax</code>. 
+ * <p>
+ * Edges that were not added by the connectivity model are only removed when one of the two
+ * nodes moves, not in every round.  
+ */
+public abstract class KineticConnectivityModelHelper extends ConnectivityModelHelper {
+
+	/**
+	 * Returns the maximum transmission range of this connectivity model. The method 
+	 * <code>isConnected(from, to)</code> must return false whenever the distance between the 
+	 * two nodes is at least this range. 
+	 * @return The maximum transmission range of this connectivity model.
+	 */
+	public abstract double getMaxTransmissionRange();
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.ConnectivityModelHelper#isParallelizable()
+	 */
+	public boolean isParallelizable() {
+		if(!initialized) {
+			initialize(getMaxTransmissionRange());
+		}
+		return slack <= 0 && super.isParallelizable(); // the candidate lists are shared by all nodes
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.models.ConnectivityModelHelper#updateConnections(sinalgo.nodes.Node)
+	 */
+	public boolean updateConnections(Node n) throws WrongConfigurationException {
+		if(!initialized) {
+			initialize(getMaxTransmissionRange());
+		}
+		if(slack <= 0) {
+			return super.updateConnections(n);
+		}
+		if(passPending) {
+			processMovedNodes();
+		}
+		KineticInfo info = (KineticInfo) n.connectivityModelInfo;
+		if(info == null) { // the node was not registered yet
+			generation++;
+			info = register(n);
+			rebuildQueue.add(info);
+			processRebuildQueue();
+		}
+		boolean changed = false;
+		if(info.purge) {
+			info.purge = false;
+			changed = removeEdgesToNonCandidates(info);
+		}
+		if(info.scannedGeneration >= info.movedGeneration && info.scannedGeneration >= info.touchedGeneration) {
+			return changed; // neither this node nor any of its candidates moved 
+		}
+		int i = 0;
+		while(i < info.size) {
+			KineticInfo other = info.candidates[i];
+			long evaluated = info.evaluated[i];
+			if(other.node.connectivityModelInfo != other) { // the node was removed, together with its edges
+				info.removeCandidate(i);
+				continue;
+			}
+			if(evaluated == STALE) {
+				Edge e = n.outgoingConnections.remove(n, other.node);
+				if(e != null) {
+					e.free();
+					changed = true;
+				}
+				info.removeCandidate(i);
+				continue;
+			}
+			if(evaluated < info.movedGeneration || evaluated < other.movedGeneration) {
+				if(isConnected(n, other.node)) {
+					changed = !n.outgoingConnections.add(n, other.node, true) || changed;
+				} else {
+					Edge e = n.outgoingConnections.remove(n, other.node);
+					if(e != null) {
+						e.free();
+						changed = true;
+					}
+				}
+				info.evaluated[i] = generation;
+			}
+			i++;
+		}
+		info.scannedGeneration = generation;
+		return changed;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Called whenever a node is assigned a new position. 
+	 * @param n The node that moved.
+	 */
+	public static void nodeMoved(Node n) {
+		KineticInfo info = (KineticInfo) n.connectivityModelInfo;
+		if(info != null && !info.dirty) {
+			info.dirty = true;
+			movedNodes.add(info);
+			passPending = true;
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Called whenever a node is added to the simulation. 
+	 * @param n The node that was added.
+	 */
+	public static void nodeAdded(Node n) {
+		if(Configuration.kineticConnectivitySlack > 0 && (!initialized || slack > 0)) {
+			addedNodes.add(n);
+			passPending = true;
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Discards the candidate lists of all nodes, such that the next call to 
+	 * <code>updateConnections</code> evaluates all possible neighbors again. 
+	 */
+	public static void reset() {
+		movedNodes.clear();
+		addedNodes.clear();
+		if(Configuration.kineticConnectivitySlack > 0 && (!initialized || slack > 0)) {
+			for(Node n : Runtime.nodes) {
+				n.connectivityModelInfo = null;
+				addedNodes.add(n);
+			}
+			passPending = true;
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Writes the candidate lists of all nodes to a checkpoint. The order of the candidates 
+	 * is preserved, as it determines the order in which the edges are added.  
+	 * @param out The stream to write to.
+	 * @throws IOException If the stream cannot be written.
+	 */
+	public static void writeCandidateLists(DataOutput out) throws IOException {
+		out.writeBoolean(initialized);
+		out.writeDouble(slack);
+		out.writeDouble(halfSlackSquare);
+		out.writeLong(generation);
+		out.writeLong(markCounter);
+		out.writeBoolean(passPending);
+		for(Node n : Runtime.nodes) {
+			KineticInfo info = (KineticInfo) n.connectivityModelInfo;
+			if(info == null) {
+				out.writeBoolean(false);
+				continue;
+			}
+			out.writeBoolean(true);
+			out.writeDouble(info.x);
+			out.writeDouble(info.y);
+			out.writeDouble(info.z);
+			out.writeDouble(info.anchorX);
+			out.writeDouble(info.anchorY);
+			out.writeDouble(info.anchorZ);
+			out.writeLong(info.movedGeneration);
+			out.writeLong(info.touchedGeneration);
+			out.writeLong(info.scannedGeneration);
+			out.writeBoolean(info.purge);
+			out.writeLong(info.mark);
+			out.writeInt(info.markIndex);
+			out.writeInt(info.size);
+			for(int i = 0; i < info.size; i++) {
+				KineticInfo other = info.candidates[i];
+				// a removed node is kept as placeholder until the list is scanned the next time 
+				out.writeInt(other.node.connectivityModelInfo == other ? other.node.ID : -1);
+				out.writeLong(other.mark);
+				out.writeLong(info.evaluated[i]);
+			}
+		}
+		int numMoved = 0;
+		for(KineticInfo info : movedNodes) {
+			if(info.node.connectivityModelInfo == info) {
+				numMoved++;
+			}
+		}
+		out.writeInt(numMoved);
+		for(KineticInfo info : movedNodes) {
+			if(info.node.connectivityModelInfo == info) {
+				out.writeInt(info.node.ID);
+			}
+		}
+		out.writeInt(addedNodes.size());
+		for(Node n : addedNodes) {
+			out.writeInt(Runtime.nodes.getNodeByID(n.ID) == n ? n.ID : -1);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Restores the candidate lists written by <code>writeCandidateLists</code>. All nodes must 
+	 * already be contained in <code>Runtime.nodes</code>.  
+	 * @param in The stream to read from.
+	 * @throws IOException If the stream cannot be read or is corrupt.
+	 */
+	public static void readCandidateLists(DataInput in) throws IOException {
+		movedNodes.clear();
+		addedNodes.clear();
+		rebuildQueue.clear();
+		initialized = in.readBoolean();
+		slack = in.readDouble();
+		halfSlackSquare = in.readDouble();
+		generation = in.readLong();
+		markCounter = in.readLong();
+		passPending = in.readBoolean();
+		
+		// first create the kinetic information of all nodes, then link the candidates
+		int numNodes = Runtime.nodes.size();
+		KineticInfo[] infos = new KineticInfo[numNodes];
+		int[][] candidateIDs = new int[numNodes][];
+		long[][] candidateMarks = new long[numNodes][];
+		int index = 0;
+		for(Node n : Runtime.nodes) {
+			n.connectivityModelInfo = null;
+			if(!in.readBoolean()) {
+				index++;
+				continue;
+			}
+			KineticInfo info = new KineticInfo(n);
+			info.x = in.readDouble();
+			info.y = in.readDouble();
+			info.z = in.readDouble();
+			info.anchorX = in.readDouble();
+			info.anchorY = in.readDouble();
+			info.anchorZ = in.readDouble();
+			info.movedGeneration = in.readLong();
+			info.touchedGeneration = in.readLong();
+			info.scannedGeneration = in.readLong();
+			info.purge = in.readBoolean();
+			info.mark = in.readLong();
+			info.markIndex = in.readInt();
+			int size = in.readInt();
+			info.candidates = new KineticInfo[Math.max(8, size)];
+			info.evaluated = new long[info.candidates.length];
+			info.size = size;
+			candidateIDs[index] = new int[size];
+			candidateMarks[index] = new long[size];
+			for(int i = 0; i < size; i++) {
+				candidateIDs[index][i] = in.readInt();
+				candidateMarks[index][i] = in.readLong();
+				info.evaluated[i] = in.readLong();
+			}
+			infos[index++] = info;
+		}
+		for(int i = 0; i < numNodes; i++) {
+			KineticInfo info = infos[i];
+			if(info != null) {
+				info.node.connectivityModelInfo = info;
+			}
+		}
+		for(int i = 0; i < numNodes; i++) {
+			KineticInfo info = infos[i];
+			if(info == null) {
+				continue;
+			}
+			for(int j = 0; j < info.size; j++) {
+				int id = candidateIDs[i][j];
+				Node other = id < 0 ? null : Runtime.nodes.getNodeByID(id);
+				if(other == null || other.connectivityModelInfo == null) {
+					// a placeholder for a removed node, which is dropped when the list is scanned
+					KineticInfo removed = new KineticInfo(info.node);
+					removed.mark = candidateMarks[i][j];
+					info.candidates[j] = removed;
+				} else {
+					info.candidates[j] = (KineticInfo) other.connectivityModelInfo;
+				}
+			}
+		}
+		int numMoved = in.readInt();
+		for(int i = 0; i < numMoved; i++) {
+			KineticInfo info = (KineticInfo) getNode(in.readInt()).connectivityModelInfo;
+			info.dirty = true;
+			movedNodes.add(info);
+		}
+		int numAdded = in.readInt();
+		for(int i = 0; i < numAdded; i++) {
+			int id = in.readInt();
+			if(id >= 0) {
+				addedNodes.add(getNode(id));
+			}
+		}
+	}
+	
+	/**
+	 * @param id The ID of a node
+	 * @return The node with the given ID
+	 * @throws IOException If there is no such node. 
+	 */
+	private static Node getNode(int id) throws IOException {
+		Node n = Runtime.nodes.getNodeByID(id);
+		if(n == null) {
+			throw new IOException("The kinetic connectivity state refers to the unknown node " + id + ".");
+		}
+		return n;
+	}
+	
+	// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - 
+	// Maintenance of the candidate lists
+	// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - 
+
+	private static final long FRESH = -1; // a candidate pair that was not yet evaluated
+	private static final long STALE = Long.MIN_VALUE; // a pair that is no longer a candidate pair
+	
+	private static volatile boolean initialized = false;
+	private static double slack = 0;
+	private static double halfSlackSquare = 0;
+	
+	private static long generation = 0; // incremented whenever nodes moved
+	private static long markCounter = 0; 
+	private static boolean passPending = false;
+	private static ArrayList<KineticInfo> movedNodes = new ArrayList<KineticInfo>();
+	private static ArrayList<Node> addedNodes = new ArrayList<Node>();
+	private static ArrayList<KineticInfo> rebuildQueue = new ArrayList<KineticInfo>();
+	
+	/**
+	 * Determines the slack the first time a kinetic connectivity model is used.
+	 * @param range The transmission range of the model.
+	 */
+	private static synchronized void initialize(double range) {
+		if(initialized) {
+			return;
+		}
+		slack = Configuration.kineticConnectivitySlack;
+		if(slack <= 0) {
+			return;
+		}
+		try {
+			double rMax = Configuration.getDoubleParameter("GeometricNodeCollection/rMax");
+			if(range + 1.5 * slack > rMax) {
+				slack = (rMax - range) / 1.5;
+				Global.log.logln("\nWARNING: The kineticConnectivitySlack is too large for the rMax of the GeometricNodeCollection.\n" +
+				                 (slack > 0 ? "The simulation now uses a slack of " + slack + "." : "The kinetic connectivity is turned off.") + "\n");
+			}
+		} catch(CorruptConfigurationEntryException e) {
+			slack = 0; // node collection without cells
+		}
+		if(slack <= 0) {
+			slack = 0;
+			movedNodes.clear();
+			addedNodes.clear();
+		}
+		halfSlackSquare = slack * slack / 4;
+		initialized = true;
+	}
+
+	/**
+	 * Updates the positions of all nodes that moved since the last call, registers 
+	 * the new nodes, and rebuilds the candidate lists of the nodes that moved too far. 
+	 */
+	private static void processMovedNodes() {
+		passPending = false;
+		generation++;
+		for(Node n : addedNodes) {
+			if(n.connectivityModelInfo == null && Runtime.nodes.getNodeByID(n.ID) == n) {
+				rebuildQueue.add(register(n));
+			}
+		}
+		addedNodes.clear();
+		for(KineticInfo info : movedNodes) {
+			info.dirty = false;
+			if(info.node.connectivityModelInfo != info) {
+				continue; // the node was removed 
+			}
+			Position p = info.node.getPosition();
+			if(p.xCoord == info.x && p.yCoord == info.y && p.zCoord == info.z) {
+				continue;
+			}
+			info.x = p.xCoord;
+			info.y = p.yCoord;
+			info.z = p.zCoord;
+			info.movedGeneration = generation;
+			for(int i = 0; i < info.size; i++) {
+				info.candidates[i].touchedGeneration = generation;
+			}
+			double dx = info.x - info.anchorX, dy = info.y - info.anchorY, dz = info.z - info.anchorZ;
+			if(dx * dx + dy * dy + dz * dz > halfSlackSquare) {
+				rebuildQueue.add(info);
+			}
+		}
+		movedNodes.clear();
+		processRebuildQueue();
+	}
+	
+	/**
+	 * Rebuilds the candidate lists of all nodes in the rebuild queue. The queue may grow 
+	 * while it is processed. 
+	 */
+	private static void processRebuildQueue() {
+		for(int i = 0; i < rebuildQueue.size(); i++) {
+			KineticInfo info = rebuildQueue.get(i);
+			if(info.node.connectivityModelInfo == info) {
+				rebuild(info);
+			}
+		}
+		rebuildQueue.clear();
+	}
+	
+	/**
+	 * Creates the kinetic information for a node, anchored at its current position.
+	 * @param n The node to register
+	 * @return The kinetic information of the node
+	 */
+	private static KineticInfo register(Node n) {
+		KineticInfo info = new KineticInfo(n);
+		Position p = n.getPosition();
+		info.x = info.anchorX = p.xCoord;
+		info.y = info.anchorY = p.yCoord;
+		info.z = info.anchorZ = p.zCoord;
+		info.movedGeneration = generation;
+		n.connectivityModelInfo = info;
+		return info;
+	}
+	
+	/**
+	 * @param n A node
+	 * @return The transmission range of the connectivity model of the node, 0 if the 
+	 * model is not a kinetic connectivity model. 
+	 */
+	private static double getRange(Node n) {
+		ConnectivityModel cm = n.getConnectivityModel();
+		if(cm instanceof KineticConnectivityModelHelper) {
+			return ((KineticConnectivityModelHelper) cm).getMaxTransmissionRange();
+		}
+		return 0;
+	}
+	
+	/**
+	 * Anchors a node at its current position and recomputes its candidates. Pairs 
+	 * that enter the candidate list are marked for evaluation, pairs that leave the 
+	 * list are marked stale in both lists, such that each node removes its own edge 
+	 * the next time it updates its connections.
+	 * @param info The kinetic information of the node. 
+	 */
+	private static void rebuild(KineticInfo info) {
+		Position p = info.node.getPosition();
+		info.x = info.anchorX = p.xCoord;
+		info.y = info.anchorY = p.yCoord;
+		info.z = info.anchorZ = p.zCoord;
+		info.touchedGeneration = generation;
+		double range = getRange(info.node);
+		
+		long oldMark = ++markCounter;
+		long keptMark = ++markCounter;
+		int oldSize = info.size;
+		for(int i = 0; i < oldSize; i++) {
+			info.candidates[i].mark = oldMark;
+			info.candidates[i].markIndex = i;
+		}
+		
+		Enumeration<Node> pNE = Runtime.nodes.getPossibleNeighborsEnumeration(info.node);
+		while(pNE.hasMoreElements()) {
+			Node possibleNeighbor = pNE.nextElement();
+			if(possibleNeighbor.ID == info.node.ID) {
+				continue;
+			}
+			KineticInfo other = (KineticInfo) possibleNeighbor.connectivityModelInfo;
+			if(other == null) { // not registered yet
+				other = register(possibleNeighbor);
+				rebuildQueue.add(other);
+			}
+			double dist = Math.max(range, getRange(possibleNeighbor)) + slack;
+			double dx = info.anchorX - other.anchorX, dy = info.anchorY - other.anchorY, dz = info.anchorZ - other.anchorZ;
+			if(dx * dx + dy * dy + dz * dz < dist * dist) {
+				if(other.mark == oldMark) { // already a candidate
+					if(info.evaluated[other.markIndex] == STALE) {
+						info.evaluated[other.markIndex] = FRESH;
+						other.setCandidate(info);
+					}
+				} else if(other.mark != keptMark) {
+					info.addCandidate(other);
+					other.setCandidate(info);
+				}
+				other.mark = keptMark;
+			}
+		}
+		
+		for(int i = 0; i < oldSize; i++) {
+			KineticInfo other = info.candidates[i];
+			if(other.mark == oldMark) { // no longer a candidate
+				info.evaluated[i] = STALE;
+				other.markStale(info);
+			}
+		}
+	}
+	
+	/**
+	 * Removes all outgoing edges of a node that do not point to one of its candidates. 
+	 * Called after the candidate list of a node was built from scratch.
+	 * @param info The kinetic information of the node. 
+	 * @return True if an edge was removed, otherwise false.
+	 */
+	private static boolean removeEdgesToNonCandidates(KineticInfo info) {
+		long mark = ++markCounter;
+		for(int i = 0; i < info.size; i++) {
+			if(info.evaluated[i] != STALE) {
+				info.candidates[i].mark = mark;
+			}
+		}
+		ArrayList<Edge> toRemove = null;
+		for(Edge e : info.node.outgoingConnections) {
+			KineticInfo other = (KineticInfo) e.endNode.connectivityModelInfo;
+			if(other == null || other.mark != mark) {
+				if(toRemove == null) {
+					toRemove = new ArrayList<Edge>();
+				}
+				toRemove.add(e);
+			}
+		}
+		if(toRemove == null) {
+			return false;
+		}
+		for(Edge e : toRemove) {
+			Edge removed = info.node.outgoingConnections.remove(e.startNode, e.endNode);
+			if(removed != null) {
+				removed.free();
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * The kinetic information stored for each node. 
+	 */
+	private static class KineticInfo {
+		Node node;
+		double x, y, z; // the position when the node was last seen 
+		double anchorX, anchorY, anchorZ; // the position when the candidates were computed
+		long movedGeneration = 0; // the generation in which the node moved last 
+		long touchedGeneration = 0; // the generation in which a candidate moved or the candidates changed last 
+		long scannedGeneration = -1; // the generation in which the node last evaluated its candidates
+		boolean dirty = false; // whether the node is stored in movedNodes 
+		boolean purge = true; // whether edges to non-candidates need to be removed
+		long mark = 0; // temporary mark used while rebuilding
+		int markIndex = 0;
+		
+		KineticInfo[] candidates = new KineticInfo[8];
+		long[] evaluated = new long[8]; // the generation in which the pair was evaluated last
+		int size = 0;
+		
+		KineticInfo(Node n) {
+			node = n;
+		}
+		
+		/**
+		 * Appends a candidate, which still needs to be evaluated.  
+		 */
+		void addCandidate(KineticInfo other) {
+			if(size == candidates.length) {
+				KineticInfo[] c = new KineticInfo[2 * size];
+				long[] e = new long[2 * size];
+				System.arraycopy(candidates, 0, c, 0, size);
+				System.arraycopy(evaluated, 0, e, 0, size);
+				candidates = c;
+				evaluated = e;
+			}
+			candidates[size] = other;
+			evaluated[size] = FRESH;
+			size++;
+		}
+		
+		/**
+		 * Removes the i-th candidate by replacing it with the last one. 
+		 */
+		void removeCandidate(int i) {
+			size--;
+			candidates[i] = candidates[size];
+			evaluated[i] = evaluated[size];
+			candidates[size] = null;
+		}
+		
+		/**
+		 * Adds the given node as candidate, or marks it for evaluation if it is already a candidate. 
+		 */
+		void setCandidate(KineticInfo other) {
+			touchedGeneration = generation;
+			for(int i = 0; i < size; i++) {
+				if(candidates[i] == other) {
+					evaluated[i] = FRESH;
+					return;
+				}
+			}
+			addCandidate(other);
+		}
+		
+		/**
+		 * Marks the given candidate as stale. 
+		 */
+		void markStale(KineticInfo other) {
+			touchedGeneration = generation;
+			for(int i = 0; i < size; i++) {
+				if(candidates[i] == other) {
+					evaluated[i] = STALE;
+					return;
+				}
+			}
+		}
+	}
+}
@@ -59,6 +59,22 @@ public abstract class MessageTransmissionModel extends Model {
 	 */
 	public abstract double timeToReach(Node startNode, Node endNode, Message msg);
 
+	/**
+	 * Returns a lower bound on the time returned by <code>timeToReach</code>.
+	 * <p>
+	 * The parallel asynchronous mode uses this bound as lookahead: All events
+	 * within a time window of this size can be executed in parallel, as no message
+	 * sent within the window can arrive before the window ends.
+	 * <p>
+	 * Overwrite this method in your subclass if the transmission time is bounded
+	 * from below. The default implementation returns 0, which disables the parallel
+	 * execution.
+	 * @return A lower bound on the time a message takes to arrive at its destination.
+	 */
+	public double getMinimumTransmissionTime() {
+		return 0;
+	}
+
 	/* (non-Javadoc)
 	 * @see models.Model#getType()
 	 */
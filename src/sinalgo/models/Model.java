@@ -37,12 +37,18 @@
 package sinalgo.models;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.EnumMap;
 import java.util.HashMap;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.runtime.Main;
+import sinalgo.tools.InstanceFactory;
 import sinalgo.tools.Tuple;
 
 /**
@@ -51,12 +57,18 @@ import sinalgo.tools.Tuple;
 public abstract class Model {
 
 	private String paramString = ""; // The parameter string passed either on the console or by the gui
+	private boolean shared = false; // true if this instance of a stateless model is shared among several nodes
 
 	/**
 	 * Sets the parameter string that was passed to the constructor of this model on the console or through the GUI.
 	 * @param params The String to set the parameter string to.
 	 */
 	public void setParamString(String params) {
+		if(shared && (params == null ? paramString != null : !params.equals(paramString))) {
+			Main.fatalError("Cannot set the parameter string of the model " + getClass().getName() + 
+			                " to '" + params + "'. The model is stateless and its instance is shared among all nodes " +
+			                "with the parameter string '" + paramString + "'. Create the model with Model.newModelInstance(type, name, paramString) instead.");
+		}
 		paramString = params;
 	}
 	
@@ -68,6 +80,31 @@ public abstract class Model {
 		return paramString;
 	}
 	
+	/**
+	 * Writes the state of this model when a checkpoint of the simulation is written.
+	 * <p>
+	 * Overwrite this method together with <code>readState</code> if the members of 
+	 * your model change during the simulation, e.g. the current destination of a mobility 
+	 * model. The framework restores the model with its constructor without parameters, 
+	 * sets the parameter string and then calls <code>readState</code>. 
+	 * The default implementation writes nothing.
+	 * @param out The stream to write the state to.
+	 * @throws IOException If the state cannot be written.
+	 * @see sinalgo.io.checkpoint.CheckpointWriter
+	 */
+	public void writeState(DataOutput out) throws IOException {
+	}
+	
+	/**
+	 * Reads the state of this model written by <code>writeState</code> when the 
+	 * simulation is restored from a checkpoint. The default implementation reads nothing.
+	 * @param in The stream to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 * @see sinalgo.io.checkpoint.CheckpointReader
+	 */
+	public void readState(DataInput in) throws IOException {
+	}
+	
 	/**
 	 * Returns the type of this model.
 	 * @return The type of this model.
@@ -89,6 +126,18 @@ public abstract class Model {
 	 * @throws WrongConfigurationException If the specified class cannot be found or created.
 	 */
 	public static Class<?> getModelClass(ModelType type, String className) throws WrongConfigurationException {
+		HashMap<String, Class<?>> classes;
+		synchronized(modelClasses) {
+			classes = modelClasses.get(type);
+			if(classes == null) {
+				classes = new HashMap<String, Class<?>>();
+				modelClasses.put(type, classes);
+			}
+			Class<?> c = classes.get(className);
+			if(c != null) {
+				return c;
+			}
+		}
 		String modelName = type.name();
 	  // replace first letter with lower-case version and append an 's'
 		modelName = modelName.substring(0,1).toLowerCase() + modelName.substring(1) + "s"; 
@@ -106,6 +155,9 @@ public abstract class Model {
 				name = Configuration.defaultProjectPath + ".models." + modelName + "." + className;
 			}
 			result = Class.forName(name);
+			synchronized(modelClasses) {
+				classes.put(className, result);
+			}
 		} catch (ClassNotFoundException e) {
 			throw new WrongConfigurationException(e, "Cannot generate class for the " +
 			                                      modelName + ". The class " +  className + 
@@ -261,6 +313,9 @@ public abstract class Model {
 		}
 		Model result = null;
 		try {
+			if(parameters.length == 0) {
+				return newModelInstance(c);
+			}
 			Constructor<?> constructor = c.getConstructor(types);
 			result = (Model) constructor.newInstance(parameters);
 		} catch (SecurityException e) {
@@ -286,6 +341,114 @@ public abstract class Model {
 		return result;
 	}
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Creates an instance of a model with its public constructor without parameters. If the 
+	 * model class is annotated with {@link StatelessModel}, the instance is only created upon 
+	 * the first call, and all subsequent calls return the same instance.
+	 * @param c The class of the model.
+	 * @return An instance of the model.
+	 * @throws NoSuchMethodException If the class has no public constructor without parameters.
+	 * @throws IllegalAccessException If the class or its constructor is not accessible.
+	 * @throws InstantiationException If the class is abstract.
+	 * @throws InvocationTargetException If the constructor threw an exception.
+	 */
+	public static Model newModelInstance(Class<?> c) throws NoSuchMethodException, IllegalAccessException, InstantiationException, InvocationTargetException {
+		return newModelInstance(c, "", false);
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Creates an instance of a model with its public constructor without parameters and sets
+	 * its parameter string. If the model class is annotated with {@link StatelessModel}, 
+	 * the instance is only created upon the first call with the given parameter string, and 
+	 * all subsequent calls with the same parameter string return the same instance.
+	 * @param c The class of the model.
+	 * @param paramString The parameter string of the model.
+	 * @return An instance of the model.
+	 * @throws NoSuchMethodException If the class has no public constructor without parameters.
+	 * @throws IllegalAccessException If the class or its constructor is not accessible.
+	 * @throws InstantiationException If the class is abstract.
+	 * @throws InvocationTargetException If the constructor threw an exception.
+	 */
+	public static Model newModelInstance(Class<?> c, String paramString) throws NoSuchMethodException, IllegalAccessException, InstantiationException, InvocationTargetException {
+		return newModelInstance(c, paramString, true);
+	}
+	
+	/**
+	 * Creates an instance of a model given the name and type of the model, and sets its 
+	 * parameter string. If the model class is annotated with {@link StatelessModel}, all 
+	 * calls with the same parameter string return the same instance. 
+	 * 
+	 * @param type The type of the model
+	 * @param className The name of the model. If the model is stored 
+	 * in a project, it must be prefixed with the proejct-name and a 
+	 * colon. E.g. looks like 'project-name':'class-name'.
+	 * Otherwise, to take the default model, only give the class-name.
+	 * If className contains '.' characters, it is assumed that the fully qualified
+	 * class-name is provided.
+	 * @param paramString The parameter string of the model.
+	 * @return An instance of the specified model.
+	 * @throws WrongConfigurationException If the class cannot be found or the instanciation fails. Note: 
+	 * call <code>getCause()</code> to obtain the original exception.
+	 */
+	public static Model newModelInstance(ModelType type, String className, String paramString) throws WrongConfigurationException {
+		Class<?> c = getModelClass(type, className);
+		try {
+			return newModelInstance(c, paramString, true);
+		} catch (SecurityException e) {
+			throw new WrongConfigurationException("Cannot generate constructor of the model '" + className + "' due to a SecurityException: " + e.getMessage());
+		} catch (NoSuchMethodException e) {
+			throw new WrongConfigurationException(e, "Cannot generate constructor of the model '" + className + "'. There is no constructor that takes no parameters.");
+		} catch (InstantiationException e) {
+			String cause = e.getCause() == null ? "" : e.getCause().getMessage();
+			throw new WrongConfigurationException(e, "Cannot generate instance of the model '" + className + "' : " + cause);
+		} catch (IllegalAccessException e) {
+			throw new WrongConfigurationException(e, "Cannot generate instance of the model '" + className + "'");
+		} catch (InvocationTargetException e) {
+			String cause = e.getCause() == null ? "" : e.getCause().getMessage();
+			throw new WrongConfigurationException(e, "Cannot generate instance of the model '" + className + "' :  " + cause);
+		}
+	}
+	
+	/**
+	 * Creates an instance of a model, shared among all calls with the same parameter string
+	 * if the model is stateless.
+	 * @param setParamString True if the parameter string should be set on a newly created instance.
+	 */
+	private static Model newModelInstance(Class<?> c, String paramString, boolean setParamString) throws NoSuchMethodException, IllegalAccessException, InstantiationException, InvocationTargetException {
+		if(c.isAnnotationPresent(StatelessModel.class)) {
+			synchronized(sharedModels) {
+				HashMap<String, Model> instances = sharedModels.get(c);
+				if(instances == null) {
+					instances = new HashMap<String, Model>();
+					sharedModels.put(c, instances);
+				}
+				Model m = instances.get(paramString);
+				if(m == null) {
+					m = (Model) InstanceFactory.get(c).newInstance();
+					if(setParamString) {
+						m.setParamString(paramString);
+					}
+					m.shared = true;
+					instances.put(paramString, m);
+				}
+				return m;
+			}
+		}
+		Model m = (Model) InstanceFactory.get(c).newInstance();
+		if(setParamString) {
+			m.setParamString(paramString);
+		}
+		return m;
+	}
+	
+	// the classes of the models, by model type and the name of the model
+	private static EnumMap<ModelType, HashMap<String, Class<?>>> modelClasses = new EnumMap<ModelType, HashMap<String, Class<?>>>(ModelType.class);
+	
+	// the instances of the stateless models, by class and parameter string, which are shared among all nodes
+	private static HashMap<Class<?>, HashMap<String, Model>> sharedModels = new HashMap<Class<?>, HashMap<String, Model>>();
+	
 	/**
 	 * The model can be prefix with the type of the model in an abreviated manner in the form <code>X=model_name</code>
 	 * where X is the prefix of one character and model_name the name of the model. X is one of the
@@ -36,7 +36,10 @@
 */
 package sinalgo.nodes;
 
+import java.util.Collection;
+
 import sinalgo.configuration.Configuration;
+import sinalgo.io.messageTrace.MessageTraceRecorder;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.Packet;
@@ -113,7 +116,10 @@ public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements Packe
 				
 				bufferIterator.remove();
 				if(p.edge != null) {
-					p.edge.removeMessageForThisEdge(p.message);
+					p.edge.removePacketInFlight(p);
+				}
+				if(Configuration.messageTrace) {
+					MessageTraceRecorder.recordArrival(p);
 				}
 				if(p.positiveDelivery){
 					//successful transmission
@@ -141,12 +147,7 @@ public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements Packe
 	 * @see sinalgo.nodes.PacketBuffer#invalidatePacketsSentOverThisEdge(sinalgo.nodes.edges.Edge)
 	 */
 	public void invalidatePacketsSentOverThisEdge(Edge e){
-		for(Packet p : this) {
-			if(p.edge != null && p.edge.getID() == e.getID()){
-				p.positiveDelivery = false;
-				p.edge = null; // the edge may have been removed and should not be refered to anymore
-			}
-		}
+		e.invalidatePacketsInFlight(); // all packets sent over e are in this buffer
 	}
 
 	/* (non-Javadoc)
@@ -161,4 +162,13 @@ public class InboxPacketBuffer extends DoublyLinkedList<Packet> implements Packe
 		}
 		return inbox;
 	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#addPacketsTo(java.util.Collection)
+	 */
+	public void addPacketsTo(Collection<Packet> c) {
+		for(Packet p : this) {
+			c.add(p);
+		}
+	}
 }
\ No newline at end of file
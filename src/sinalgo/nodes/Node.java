@@ -43,26 +43,34 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Polygon;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.Iterator;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.configuration.ParameterKey;
 import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.io.eps.EPSOutputPrintStream;
+import sinalgo.io.messageTrace.MessageTraceRecorder;
+import sinalgo.io.replay.ReplayLog;
 import sinalgo.models.ConnectivityModel;
 import sinalgo.models.InterferenceModel;
+import sinalgo.models.KineticConnectivityModelHelper;
 import sinalgo.models.MobilityModel;
 import sinalgo.models.Model;
 import sinalgo.models.ReliabilityModel;
 import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.ImmutableMessage;
 import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.Message;
 import sinalgo.nodes.messages.NackBox;
@@ -73,11 +81,17 @@ import sinalgo.nodes.timers.Timer;
 import sinalgo.runtime.GUIRuntime;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
+import sinalgo.runtime.NodeGenerator;
 import sinalgo.runtime.NotInGUIModeException;
 import sinalgo.runtime.Runtime;
+import sinalgo.runtime.events.Event;
 import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.ParallelEventWorker;
 import sinalgo.runtime.nodeCollection.NodeCollectionInfoInterface;
+import sinalgo.tools.InstanceFactory;
+import sinalgo.tools.Tools;
 import sinalgo.tools.logging.LogL;
+import sinalgo.tools.storage.DoublyLinkedList;
 import sinalgo.tools.storage.DoublyLinkedListEntry;
 import sinalgo.tools.storage.ReusableListIterator;
 import sinalgo.tools.storage.SortableVector;
@@ -210,6 +224,36 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 */
 	public abstract void checkRequirements() throws WrongConfigurationException;
 	
+	/**
+	 * Writes the project specific state of this node when a checkpoint of the simulation
+	 * is written. 
+	 * <p>
+	 * Overwrite this method together with <code>readState</code> if the members of your 
+	 * node implementation change during the simulation and should be restored with the
+	 * checkpoint. The framework stores the ID, the position, the models, the radio intensity, 
+	 * the connections, the timers and the messages in transit by itself. Refer to other nodes 
+	 * by their ID. The default implementation writes nothing.
+	 * @param out The stream to write the state to.
+	 * @throws IOException If the state cannot be written.
+	 * @see sinalgo.io.checkpoint.CheckpointWriter
+	 */
+	public void writeState(DataOutput out) throws IOException {
+	}
+	
+	/**
+	 * Reads the project specific state of this node written by <code>writeState</code> 
+	 * when the simulation is restored from a checkpoint. 
+	 * <p>
+	 * The method is called instead of <code>init()</code>, after all nodes and edges 
+	 * have been restored, such that other nodes can be looked up by their ID. 
+	 * The default implementation reads nothing.
+	 * @param in The stream to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 * @see sinalgo.io.checkpoint.CheckpointReader
+	 */
+	public void readState(DataInput in) throws IOException {
+	}
+	
 	//-----------------------------------------------------------------------------------
 	//-----------------------------------------------------------------------------------
 	// End of methods that need to be implemented by the subclass
@@ -327,6 +371,9 @@ public abstract class Node implements DoublyLinkedListEntry{
 		position.zCoord = z;
 		cropPos(position);
 		Runtime.nodes.updateNodeCollection(this); // note that this method tests whether the node is already added to the node collection
+		if(connectivityModelInfo != null) {
+			KineticConnectivityModelHelper.nodeMoved(this);
+		}
 		nodePositionUpdated();
 	}
 	
@@ -420,23 +467,35 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @throws NoConnectionException Thrown when there exists no connection to the specified target. 
 	 */
 	public final void send(Message m, Node target, double intensity) {
-		Edge connection = null;
-		//check, if a connection to the destination node exists
-		edgeIteratorInstance.reset();
-		while( edgeIteratorInstance.hasNext()){
-			Edge edge = edgeIteratorInstance.next();
-			if(edge.endNode.equals(target)){
-				connection = edge;
-				break;
-			}
-		}
 		// If there is no edge, the message is marked to not arrive immediately in the sendMessage() method
-		Packet sentP = sendMessage(m, connection, this, target, intensity);
+		Packet sentP = sendMessage(m, getEdgeTo(target), this, target, intensity);
 		if(Configuration.interference){ //only add the message in the packetsInTheAirBuffer, if interference is turned on
 			Runtime.packetsInTheAir.add(sentP);
 		}	
 	}
 	
+	/**
+	 * Returns the outgoing edge of this node that ends at the given node.
+	 * <p>
+	 * The edge is found in constant time if the outgoing connections are stored in 
+	 * a NodeOutgoingConnectionsList, otherwise, the outgoing edges are searched.
+	 * @param target The end node of the edge.
+	 * @return The edge from this node to the target, null if there is no such edge. 
+	 */
+	public final Edge getEdgeTo(Node target) {
+		if(outgoingConnections instanceof NodeOutgoingConnectionsList) {
+			return ((NodeOutgoingConnectionsList) outgoingConnections).getEdge(this, target);
+		}
+		Iterator<Edge> edgeIter = outgoingConnections.iterator();
+		while(edgeIter.hasNext()){
+			Edge e = edgeIter.next();
+			if((e.startNode.ID == this.ID)&&(e.endNode.ID == target.ID)){
+				return e;
+			}
+		}
+		return null;
+	}
+	
 	/**
 	 * This method sends a Message to a specified target node. Note that this message is more efficient concerning 
 	 * the memory usage than the sendPacket message, but note also that with this method the user sends a message and receives a packet 
@@ -463,16 +522,13 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * @param target The destination node of the message
 	 */
 	public final void sendDirect(Message msg, Node target) {
-		Message clonedMsg = msg.clone(); // send a copy of the message
-		if(clonedMsg == null) {
-			Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
-		}
-		Packet packet = Packet.fabricatePacket(clonedMsg);
+		Packet packet = Packet.fabricatePacket(copyForSending(msg)); // send a copy of the message
 		double transmissionTime = Global.messageTransmissionModel.timeToReach(this, target, msg);
 		
 		// fill in the data of the header
-		packet.arrivingTime = Global.currentTime + transmissionTime;
-		packet.sendingTime = Global.currentTime;
+		double now = Tools.getGlobalTime();
+		packet.arrivingTime = now + transmissionTime;
+		packet.sendingTime = now;
 		packet.origin = this;
 		packet.destination = target;
 		packet.edge = null;
@@ -482,9 +538,13 @@ public abstract class Node implements DoublyLinkedListEntry{
 
 		Global.numberOfMessagesInThisRound++; // statistics
 		
+		if(Configuration.messageTrace) {
+			MessageTraceRecorder.recordSent(packet);
+		}
+		
 		if(Global.isAsynchronousMode) {
 			// add a packet event to the event list
-			Runtime.eventQueue.insert(PacketEvent.getNewPacketEvent(packet, Global.currentTime + transmissionTime));			
+			Runtime.eventQueue.insert(PacketEvent.getNewPacketEvent(packet, now + transmissionTime));			
 		} else { // Synchronous
 			//check whether the simulation is currently running or not.
 			if(!Global.isRunning){
@@ -526,6 +586,78 @@ public abstract class Node implements DoublyLinkedListEntry{
 		broadcastMessage(m, intensity);
 	}
 	
+	/**
+	 * Sends a message to each of the given target nodes. Each target receives the message 
+	 * as if it was sent with <code>send(m, target)</code>, but the send-process is set up only 
+	 * once: The packets of all targets are fabricated at once, and the sending time is 
+	 * determined only once. With interference turned on, the packets are considered as one 
+	 * transmission, as for a broadcast: Only the packet that takes longest to arrive causes 
+	 * interference, while all of them may be disturbed.
+	 * <p>
+	 * If the message implements <code>ImmutableMessage</code>, all targets receive
+	 * the same message instance. Otherwise, each target receives its own copy.
+	 * 
+	 * @param m The message to send.
+	 * @param targets The target nodes. The message is dropped for targets not connected to this node.
+	 */
+	public final void multicast(Message m, Iterable<? extends Node> targets) {
+		multicast(m, targets, this.intensity);
+	}
+	
+	/**
+	 * Sends a message to each of the given target nodes with a given intensity. 
+	 * @param m The message to send.
+	 * @param targets The target nodes. The message is dropped for targets not connected to this node.
+	 * @param intensity The intensity to send the messages with.
+	 * @see #multicast(Message, Iterable) 
+	 */
+	public final void multicast(Message m, Iterable<? extends Node> targets, double intensity) {
+		//check whether the simulation is currently running or not.
+		if(!Global.isRunning && !Global.isAsynchronousMode){
+			Main.fatalError("The node "+this.ID+" tried to multicast a message outside of its simulation " +
+					"cycle. Due to synchroniazion issues, this is not allowed.\n" +
+					"This problem probably came up due to a call from a nodes popup method.\n" +
+					"Do not directly call the multicast-method but start a timer so that the node sends during its simulation cycle.");
+			return;
+		}
+		int count = 0;
+		for(Node target : targets) {
+			if(count == multicastTargets.length) {
+				Node[] larger = new Node[2 * count];
+				System.arraycopy(multicastTargets, 0, larger, 0, count);
+				multicastTargets = larger;
+			}
+			multicastTargets[count++] = target;
+		}
+		if(multicastPackets.length < count) {
+			multicastPackets = new Packet[multicastTargets.length];
+		}
+		Packet.fabricatePackets(multicastPackets, count);
+		double now = Tools.getGlobalTime(); // the local time of the executing thread in the parallel mode
+		Packet longestPacket = null; // the packet that takes longest until delivery
+		for(int i = 0; i < count; i++) {
+			Node target = multicastTargets[i];
+			Packet packet = multicastPackets[i];
+			multicastTargets[i] = null;
+			multicastPackets[i] = null;
+			packet.message = copyForSending(m); 
+			transmit(packet, m, now, getEdgeTo(target), this, target, intensity);
+			if(Configuration.interference) {
+				Runtime.packetsInTheAir.addPassivePacket(packet);
+				if(longestPacket == null || longestPacket.arrivingTime < packet.arrivingTime) {
+					longestPacket = packet;
+				}
+			}
+		}
+		if(longestPacket != null) {
+			Runtime.packetsInTheAir.upgradeToActivePacket(longestPacket);
+		}
+	}
+	
+	// the targets and packets of the current multicast, reused by subsequent multicasts
+	private Node[] multicastTargets = new Node[8];
+	private Packet[] multicastPackets = new Packet[0];
+	
 	//-----------------------------------------------------------------------------------
 	//-----------------------------------------------------------------------------------
 	// The models used by this node, setters and getters
@@ -939,22 +1071,13 @@ public abstract class Node implements DoublyLinkedListEntry{
 		
 		timersToHandle.clear();
 		// Fire all timers which are going off in this round
-		if(timers.size() > 0){
-			Iterator<Timer> it = timers.iterator();
-			while(it.hasNext()) {
-				Timer timer = it.next();
-				if(timer.getFireTime() <= Global.currentTime){
-					it.remove();
-					// we may not call fire() while iterating over the list of timers of this node,
-					// as the timer could reschedule itself and require to be added again to the
-					// timers list of this node. Therefore, store all timers that fire in a separate
-					// list and call them afterwards. 
-					timersToHandle.add(timer); 
-				}
-			}
-
-			// sort timers by their exact time when they expired 
-			timersToHandle.sort();
+		if(timers.hasDueTimers()){
+			// we may not call fire() while removing the timers from the list of timers of this node,
+			// as the timer could reschedule itself and require to be added again to the
+			// timers list of this node. Therefore, store all timers that fire in a separate
+			// list and call them afterwards. The timers are already sorted by their exact 
+			// time when they expired. 
+			timers.removeDueTimers(timersToHandle);
 			for(Timer t : timersToHandle) {
 				t.fire();
 			}
@@ -1038,6 +1161,26 @@ public abstract class Node implements DoublyLinkedListEntry{
 		idCounter = 0;
 	}
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * <p>
+	 * Sets the ID counter s.t. the next generated node receives the ID <code>counter+1</code>,
+	 * e.g. after a stored graph has been loaded. 
+	 * 
+	 * @param counter The largest ID assigned so far.
+	 */
+	public static void setIDCounter(int counter) {
+		idCounter = counter;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @return The largest ID assigned so far.
+	 */
+	public static int getIDCounter() {
+		return idCounter;
+	}
+	
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
 	 * The node collection may store some implementation dependent information
@@ -1047,6 +1190,21 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 */
 	public NodeCollectionInfoInterface nodeCollectionInfo = null;
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * The index of this node in the NodeRegistry of the node collection, -1 if 
+	 * the node is not stored in a NodeRegistry.
+	 */
+	public int nodeRegistryIndex = -1;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * The kinetic connectivity models store the candidate neighbors of this node
+	 * in this member, null if the node is not handled by a kinetic connectivity model.
+	 * @see KineticConnectivityModelHelper
+	 */
+	public Object connectivityModelInfo = null;
+	
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
 	 * Indicates whether this node has been added to the node colleciton.
@@ -1055,6 +1213,31 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 * and set to false when removed from the node collection.   
 	 */
 	public boolean holdInNodeCollection = false;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * The edges of other nodes that end at this node. This list is maintained by the 
+	 * outgoing connections of the other nodes, such that all edges pointing to this node
+	 * can be removed without iterating over all nodes.  
+	 */
+	public DoublyLinkedList<Edge> incomingConnections = new DoublyLinkedList<Edge>(true);
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * The first of the events in the event queue of the asynchronous mode that execute on this 
+	 * node, i.e. the timers of this node and the packets that arrive at this node. This list is 
+	 * maintained by the event queue, such that the events of a removed node can be found without 
+	 * iterating over the entire event queue.
+	 */
+	public Event firstPendingEvent = null;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b><br>
+	 * The first of the packet events in the event queue of the asynchronous mode for packets sent 
+	 * by this node. This list is maintained by the event queue, such that the packets of a removed 
+	 * node can be invalidated without iterating over the entire event queue.
+	 */
+	public PacketEvent firstSentPacketEvent = null;
 
 	/**
 	 * A node-internal iterator over all outgoing edges of this node.
@@ -1064,7 +1247,7 @@ public abstract class Node implements DoublyLinkedListEntry{
 	/**
 	 * The buffer, where all arriving messages are stored.
 	 */
-	private PacketBuffer packetBuffer = new InboxPacketBuffer(true);
+	private PacketBuffer packetBuffer = Configuration.bucketPacketsByArrivalRound ? new RoundBucketPacketBuffer() : new InboxPacketBuffer(true);
 	
 	/**
 	 * Buffer that holds all packets that were sent by this round, and should
@@ -1088,17 +1271,21 @@ public abstract class Node implements DoublyLinkedListEntry{
 	//the position of the node
 	private Position position = new Position(0,0,0);
 
+	// the handle of the configuration entry for the default size of the nodes
+	private static ParameterKey defaultSizeKey = Configuration.getParameterKey("Node/defaultSize");
+
 	/**
 	 * Default constructor to construct a node. Initializes the ID of this node. 
 	 */
 	protected Node() {
 		try {
-			defaultDrawingSizeInPixels = Configuration.getIntegerParameter("Node/defaultSize");
+			defaultDrawingSizeInPixels = defaultSizeKey.getInt();
 		} catch (CorruptConfigurationEntryException e) {
 			Main.fatalError(e.getMessage());
 		}
-		// assign the next free ID
-		this.ID = ++ idCounter; 
+		// assign the next free ID, or the ID reserved by the parallel node generation
+		int id = NodeGenerator.getReservedID();
+		this.ID = id > 0 ? id : ++ idCounter; 
 	}
 	
 	/**
@@ -1114,6 +1301,16 @@ public abstract class Node implements DoublyLinkedListEntry{
 		}
 	}
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Sets whether the outgoing connections of this node changed in this round. Used 
+	 * instead of <code>updateConnections()</code> when the connections are evaluated in parallel.
+	 * @param changed True if an edge was added or removed, otherwise false.
+	 */
+	public final void setNeighborhoodChanged(boolean changed) {
+		neighborhoodChanged = changed;
+	}
+	
 	/**
 	 * <b>This method is framework internal and should not be used by the project developer.</b><br>
 	 * @return The list of packets that are being sent to this node.
@@ -1137,6 +1334,16 @@ public abstract class Node implements DoublyLinkedListEntry{
 		}
 	}
 	
+	/**
+	 * <b>This method is framework internal and should not be used by the project developer.</b><br>
+	 * @param evenRound True for the buffer reported in the next even round, false for the buffer of the next odd round.
+	 * @return The list of packets that were sent by this node, but did not arrive, and 
+	 * are reported in the next even or odd round.
+	 */
+	public PacketCollection getNackPackets(boolean evenRound) {
+		return evenRound ? nAckBufferEvenRound : nAckBufferOddRound;
+	}
+	
 	/**
 	 * Crops the postion to the the size of the field. This guarantees that the
 	 * node does not leave the field.
@@ -1281,6 +1488,24 @@ public abstract class Node implements DoublyLinkedListEntry{
 		}
 	}
 	
+	/**
+	 * Returns the message instance to be delivered to a receiver. This is a copy
+	 * of the message obtained through its <code>clone()</code> method, or the 
+	 * message itself if it implements <code>ImmutableMessage</code>.
+	 * @param msg The message to be sent.
+	 * @return The message instance to put into the packet.
+	 */
+	private static Message copyForSending(Message msg) {
+		if(msg instanceof ImmutableMessage) {
+			return msg; // all receivers share the same instance
+		}
+		Message clonedMsg = msg.clone();
+		if(clonedMsg == null) {
+			Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
+		}
+		return clonedMsg;
+	}
+	
 	/**
 	 * Starts the send-process to deliver a message to a target node.
 	 * 
@@ -1316,16 +1541,28 @@ public abstract class Node implements DoublyLinkedListEntry{
 	 */
 	private Packet asynchronousSending(Message msg, Edge edge, Node sender, Node target, double intensity){
 				
-		Message clonedMsg = msg.clone(); // send a copy of the message
-		if(clonedMsg == null) {
-			Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
-		}
-		Packet packet = Packet.fabricatePacket(clonedMsg);
+		Packet packet = Packet.fabricatePacket(copyForSending(msg)); // send a copy of the message
+		transmit(packet, msg, Tools.getGlobalTime(), edge, sender, target, intensity); // the local time of the executing thread in the parallel mode
+		return packet;
+	}
+	
+	/**
+	 * Fills in the header of a fabricated packet and sends it in the current simulation mode.
+	 * @param packet The packet, which already holds the message to deliver
+	 * @param msg The message to be sent, of which the packet holds a copy
+	 * @param now The current time
+	 * @param edge The edge over which the message is sent, may be null, if there is no edge,
+	 * in which case the packet is dropped immediately
+	 * @param sender The sender node who sends the message
+	 * @param target The destination node who should receive the message
+	 * @param intensity The intensity at which the message is sent
+	 */
+	private void transmit(Packet packet, Message msg, double now, Edge edge, Node sender, Node target, double intensity) {
 		double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
 		
 		// fill in the data of the header
-		packet.arrivingTime = Global.currentTime + transmissionTime;
-		packet.sendingTime = Global.currentTime;
+		packet.arrivingTime = now + transmissionTime;
+		packet.sendingTime = now;
 		packet.origin = sender;
 		packet.destination = target;
 		packet.edge = edge;
@@ -1334,16 +1571,39 @@ public abstract class Node implements DoublyLinkedListEntry{
 //		 this property must be checked when the entire packet was assembled
 		if(edge != null) {
 			packet.positiveDelivery = reliabilityModel.reachesDestination(packet);
-			edge.addMessageForThisEdge(packet.message);
+			if(ReplayLog.isActive()) {
+				packet.positiveDelivery = ReplayLog.reliability(packet.positiveDelivery);
+			}
+			if(Global.isAsynchronousMode) {
+				synchronized(edge) { // the receiver may be handled by another thread in the parallel mode
+					edge.addPacketInFlight(packet);
+				}
+			} else {
+				edge.addPacketInFlight(packet);
+			}
 		} else {
 			packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
 		}
 		
-		Global.numberOfMessagesOverAll++; // statistics (don't increment the counter that counts the number of sent messages per round. This counter has no meaning in the async mode.)
+		if(!Global.isAsynchronousMode) {
+			target.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer
+		}
 		
-		Runtime.eventQueue.insert(PacketEvent.getNewPacketEvent(packet, Global.currentTime + transmissionTime));
+		if(Configuration.messageTrace) {
+			MessageTraceRecorder.recordSent(packet);
+		}
 		
-		return packet;
+		if(Global.isAsynchronousMode) {
+			ParallelEventWorker worker = ParallelEventWorker.current();
+			if(worker != null) {
+				worker.numberOfSentMessages++; // added to the global counter at the end of the time window
+			} else {
+				Global.numberOfMessagesOverAll++; // statistics (don't increment the counter that counts the number of sent messages per round. This counter has no meaning in the async mode.)
+			}
+			Runtime.eventQueue.insert(PacketEvent.getNewPacketEvent(packet, packet.arrivingTime));
+		} else {
+			Global.numberOfMessagesInThisRound++; // statistics (At the end of the round, this member is added to Global.numberOfMessagesOverAll.)
+		}
 	}
 	
 	/**
@@ -1370,33 +1630,8 @@ public abstract class Node implements DoublyLinkedListEntry{
 			return null;
 		}
 		else{
-			Message clonedMsg = msg.clone(); // send a copy of the message
-			if(clonedMsg == null) {
-				Main.fatalError("The clone() method of '" + msg.getClass().getName() + "' returns null \n" + "instead of a copy of the message.");
-			}
-			Packet packet = Packet.fabricatePacket(clonedMsg);
-			double transmissionTime = Global.messageTransmissionModel.timeToReach(sender, target, msg);
-			
-			// fill in the data of the header
-			packet.arrivingTime = Global.currentTime + transmissionTime;
-			packet.sendingTime = Global.currentTime;
-			packet.origin = sender;
-			packet.destination = target;
-			packet.edge = edge;
-			packet.intensity = intensity;
-			packet.type = PacketType.UNICAST;
-	//		 this property must be checked when the entire packet was assembled
-			if(edge != null) {
-				packet.positiveDelivery = reliabilityModel.reachesDestination(packet);
-				edge.addMessageForThisEdge(packet.message);
-			} else {
-				packet.positiveDelivery = false; // when there is no edge, the packet is immediately dropped
-			}
-			
-			target.packetBuffer.addPacket(packet); // place the packet in the targets receive buffer
-			
-			Global.numberOfMessagesInThisRound++; // statistics (At the end of the round, this member is added to Global.numberOfMessagesOverAll.)
-			
+			Packet packet = Packet.fabricatePacket(copyForSending(msg)); // send a copy of the message
+			transmit(packet, msg, Global.currentTime, edge, sender, target, intensity);
 			return packet;
 		}
 	}
@@ -1422,6 +1657,19 @@ public abstract class Node implements DoublyLinkedListEntry{
 		Class<?> nodeClass;
 		Node node = null;
 		
+		InstanceFactory<?> factory;
+		synchronized(nodeFactories) {
+			factory = nodeFactories.get(classPath);
+		}
+		if(factory != null) {
+			try {
+				return (Node) factory.newInstance();
+			} catch (InvocationTargetException e) {
+				throw new WrongConfigurationException(e, "Could not instanciate a node object of type " + factory.getType().getName());
+			}
+		}
+		String name = classPath; // the name used to look up the factory
+		
 		if(!classPath.contains(".")) { // is a relative path
 			if(classPath.contains(":")){ // project implementation
 				String[] splitter = classPath.split(":");
@@ -1433,10 +1681,14 @@ public abstract class Node implements DoublyLinkedListEntry{
 		
 		try{
 			nodeClass = Class.forName(classPath);
-			Constructor<?> constructor = nodeClass.getConstructor(); 
-			// NOTE: we could also call newInstance() on the class-object. But this would not encapsulate 
-			// exceptions that may be thrown in the constructor.
-			node = (Node) constructor.newInstance();
+			if(!Node.class.isAssignableFrom(nodeClass)) {
+				throw new ClassCastException(nodeClass.getName());
+			}
+			factory = InstanceFactory.get(nodeClass);
+			node = (Node) factory.newInstance();
+			synchronized(nodeFactories) {
+				nodeFactories.put(name, factory);
+			}
 		}
 		catch(ClassNotFoundException e) {
 			throw new WrongConfigurationException(e, "Class not found. Please write a class called: " + classPath + ".java and compile it."); 
@@ -1461,6 +1713,9 @@ public abstract class Node implements DoublyLinkedListEntry{
 		return node;
 	}
 
+	// the factories of the node implementations, by the class names passed to createNodeByClassname
+	private static HashMap<String, InstanceFactory<?>> nodeFactories = new HashMap<String, InstanceFactory<?>>();
+
   // the DLLE entry for the DoublyLinkedList
 	private DLLFingerList dllFingerList = new DLLFingerList();
 
@@ -44,6 +44,9 @@ import sinalgo.tools.storage.ReusableListIterator;
 /**
  * A list that holds the links to all neighbors of a given node.
  * <p>This implementation is designed to be efficient for insertion and deletion of edges.
+ * In addition to the list, the edges are indexed by the ID of their end node, such that
+ * an edge to a given neighbor is found in constant time. Furthermore, each edge is added
+ * to the list of incoming connections of its end node. 
  */
 public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implements Connections {
 
@@ -81,16 +84,12 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 */
 	public Edge remove(Node from, Node to) {
 		//remove the edge from the EdgeCollection
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge edge = edgeIterator.next();
-			if((from.ID == edge.startNode.ID)&&(to.ID == edge.endNode.ID)){
-				edgeIterator.remove();
-				edge.removeEdgeFromGraph(); // does not free the edge
-				return edge;
-			}
+		Edge edge = getEdge(from, to);
+		if(edge != null) {
+			this.remove(edge);
+			edge.removeEdgeFromGraph(); // does not free the edge
 		}
-		return null;
+		return edge;
 	}
 	
 	/* (non-Javadoc)
@@ -110,14 +109,28 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 * @see nodes.Connections#contains(nodes.Node, nodes.Node)
 	 */
 	public boolean contains(Node startNode, Node endNode){
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge e = edgeIterator.next();
-			if((e.startNode.ID == startNode.ID)&&(e.endNode.ID == endNode.ID)){
-				return true;
+		return getEdge(startNode, endNode) != null;
+	}
+	
+	/**
+	 * Returns the edge from the start node to the end node in constant time, 
+	 * if it is contained in this collection.
+	 *
+	 * @param startNode The start node of the edge to search for. 
+	 * @param endNode The end node of the edge to search for.
+	 * @return The edge from the start node to the end node, null if there is no such edge in the collection.
+	 */
+	public Edge getEdge(Node startNode, Node endNode) {
+		int mask = edgeIndex.length - 1;
+		int i = getIndexSlot(endNode.ID, mask);
+		Edge e;
+		while((e = edgeIndex[i]) != null) {
+			if((e.endNode.ID == endNode.ID)&&(e.startNode.ID == startNode.ID)){
+				return e;
 			}
+			i = (i + 1) & mask;
 		}
-		return false;
+		return null;
 	}
 	
 	/* (non-Javadoc)
@@ -173,15 +186,7 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 * @return If the specified edge is in the vector.
 	 */
 	protected boolean containsAndSetVisited(Edge edge, boolean valid){
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge e = edgeIterator.next();
-			if((e.startNode.ID == edge.startNode.ID)&&(e.endNode.ID == edge.endNode.ID)){
-				e.valid = valid;
-				return true;
-			}
-		}
-		return false;
+		return containsAndSetVisited(edge.startNode, edge.endNode, valid);
 	}
 	
 	/**
@@ -198,13 +203,10 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	 * @return If the specified edge is in the vector.
 	 */
 	protected boolean containsAndSetVisited(Node startNode, Node endNode, boolean valid){
-		edgeIterator.reset();
-		while(edgeIterator.hasNext()){
-			Edge e = edgeIterator.next();
-			if((e.startNode.ID == startNode.ID)&&(e.endNode.ID == endNode.ID)){
-				e.valid = valid;
-				return true;
-			}
+		Edge e = getEdge(startNode, endNode);
+		if(e != null) {
+			e.valid = valid;
+			return true;
 		}
 		return false;
 	}
@@ -232,4 +234,119 @@ public class NodeOutgoingConnectionsList extends DoublyLinkedList<Edge> implemen
 	public void hackyAppend(Edge e){
 		this.append(e);
 	}
+	
+	//-----------------------------------------------------------------------------------
+	// Index of the edges by the ID of their end node
+	//-----------------------------------------------------------------------------------
+	
+	// Hash table with open addressing (linear probing) that holds all edges of this list, 
+	// hashed by the ID of their end node. The size of the table is a power of 2, and the
+	// table is at most half full.
+	private Edge[] edgeIndex = new Edge[8];
+	private int edgeIndexSize = 0; // number of edges in the index
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * <p>
+	 * Rebuilds the index of the edges by the ID of their end node. This method needs
+	 * to be called after the ID of an end node has changed. 
+	 */
+	public void rebuildIndex() {
+		edgeIndex = new Edge[edgeIndex.length];
+		edgeIndexSize = 0;
+		for(Edge e : this) {
+			addToIndex(e);
+		}
+	}
+	
+	/**
+	 * @param id The ID of the end node of an edge
+	 * @param mask The size of the hash table - 1
+	 * @return The preferred slot for the edge in the hash table
+	 */
+	private static int getIndexSlot(int id, int mask) {
+		int h = id * 0x9E3779B9; // Fibonacci hashing, to spread consecutive IDs
+		return (h ^ (h >>> 16)) & mask;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.tools.storage.DoublyLinkedList#entryAdded(sinalgo.tools.storage.DoublyLinkedListEntry)
+	 */
+	protected void entryAdded(Edge e) {
+		if(2 * (edgeIndexSize + 1) > edgeIndex.length) {
+			Edge[] old = edgeIndex;
+			edgeIndex = new Edge[2 * old.length];
+			edgeIndexSize = 0;
+			for(Edge x : old) {
+				if(x != null) {
+					addToIndex(x);
+				}
+			}
+		}
+		addToIndex(e);
+		e.endNode.incomingConnections.append(e); // the reverse index
+	}
+	
+	/**
+	 * Adds an edge to the hash table, which must have a free slot. 
+	 * @param e The edge to add
+	 */
+	private void addToIndex(Edge e) {
+		int mask = edgeIndex.length - 1;
+		int i = getIndexSlot(e.endNode.ID, mask);
+		while(edgeIndex[i] != null) {
+			if(edgeIndex[i] == e) {
+				return; // already contained
+			}
+			i = (i + 1) & mask;
+		}
+		edgeIndex[i] = e;
+		edgeIndexSize++;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.tools.storage.DoublyLinkedList#entryRemoved(sinalgo.tools.storage.DoublyLinkedListEntry)
+	 */
+	protected void entryRemoved(Edge e) {
+		int mask = edgeIndex.length - 1;
+		int i = -1;
+		if(e.endNode != null) {
+			e.endNode.incomingConnections.remove(e); // the reverse index
+			i = getIndexSlot(e.endNode.ID, mask);
+			while(edgeIndex[i] != null && edgeIndex[i] != e) {
+				i = (i + 1) & mask;
+			}
+			if(edgeIndex[i] == null) {
+				i = -1; 
+			}
+		} else { // the edge was already freed, search the entire table
+			for(int j = 0; j <= mask; j++) {
+				if(edgeIndex[j] == e) {
+					i = j;
+					break;
+				}
+			}
+		}
+		if(i == -1) {
+			return; // not in the index
+		}
+		edgeIndex[i] = null;
+		edgeIndexSize--;
+		// move the following entries of the cluster such that the lookup still finds them
+		int j = i;
+		while(true) {
+			j = (j + 1) & mask;
+			Edge x = edgeIndex[j];
+			if(x == null) {
+				return;
+			}
+			int k = getIndexSlot(x.endNode.ID, mask);
+			boolean stays = i <= j ? (i < k && k <= j) : (i < k || k <= j); // k is cyclically in (i, j]
+			if(!stays) {
+				edgeIndex[i] = x;
+				edgeIndex[j] = null;
+				i = j;
+			}
+		}
+	}
 }
@@ -36,6 +36,8 @@
 */
 package sinalgo.nodes;
 
+import java.util.Collection;
+
 import sinalgo.nodes.edges.Edge;
 import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.Packet;
@@ -99,5 +101,13 @@ public interface PacketBuffer {
 	 * @return An Inbox instance for this PacketBuffer.
 	 */
 	public abstract Inbox getInbox();
+	
+	/**
+	 * Adds all packets stored in this buffer that were not yet handed to the node,
+	 * i.e. the packets that are still being sent to the node, to the given collection. 
+	 * 
+	 * @param c The collection to add the packets to.
+	 */
+	public abstract void addPacketsTo(Collection<Packet> c);
 }
 
@@ -0,0 +1,298 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes;
+
+import java.util.Collection;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.io.messageTrace.MessageTraceRecorder;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.nodes.messages.Inbox;
+import sinalgo.nodes.messages.Packet;
+import sinalgo.nodes.messages.PacketCollection;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Runtime;
+import sinalgo.tools.storage.DoublyLinkedList;
+
+/**
+ * A packet buffer that sorts the arriving packets into buckets, one for each round
+ * in which packets arrive. 
+ * <p>
+ * Whereas the InboxPacketBuffer tests all buffered packets in every round whether they 
+ * arrive, this buffer only touches the packets that actually arrive in the given round.
+ * This is considerably faster if messages take several rounds to arrive, e.g. with 
+ * the RandomTime message transmission model. 
+ * <p>
+ * The buckets are stored in a ring that covers the following rounds. The ring grows as 
+ * needed up to a maximum size. Packets that arrive even later are stored in a separate list, 
+ * and are moved to the ring as soon as their round is covered by the ring.
+ * <p>
+ * This buffer is used in the synchronous mode if the flag 
+ * <code>bucketPacketsByArrivalRound</code> is set in the configuration file.
+ */
+public class RoundBucketPacketBuffer implements PacketBuffer {
+	
+	private static final int MAX_RING_SIZE = 4096; // the maximal number of rounds covered by the ring
+	
+	private DoublyLinkedList<Packet>[] ring = newRing(8); // the buckets, one for each round in (lastRound, lastRound + ring.length]
+	private DoublyLinkedList<Packet> due = new DoublyLinkedList<Packet>(true); // packets whose arrival round has already passed
+	private DoublyLinkedList<Packet> later = new DoublyLinkedList<Packet>(true); // packets that arrive after the rounds covered by the ring
+	private long firstLaterRound = Long.MAX_VALUE; // the earliest arrival round of the packets in 'later'
+	
+	private long lastRound; // the last round for which the arriving packets were collected
+	
+	//	 the vector of packets that arrive in this step
+	private PacketCollection arrivingPackets = new PacketCollection(); 
+	private boolean arrivingInOrder = true; // true if the arriving packets are sorted by their arrival time
+	private double lastArrivingTime; // the arrival time of the last packet added to arrivingPackets
+	
+	private Inbox inbox = null;
+	
+	/**
+	 * Creates a new packet buffer for the current round.
+	 */
+	public RoundBucketPacketBuffer() {
+		lastRound = (long) Math.floor(Global.currentTime);
+	}
+	
+	/**
+	 * Creates an array of empty buckets.
+	 * @param size The number of buckets, a power of 2
+	 * @return The new array of buckets
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static DoublyLinkedList<Packet>[] newRing(int size) {
+		DoublyLinkedList<Packet>[] r = new DoublyLinkedList[size];
+		for(int i = 0; i < size; i++) {
+			r[i] = new DoublyLinkedList<Packet>(true);
+		}
+		return r;
+	}
+	
+	/**
+	 * @param p A packet
+	 * @return The round in which the packet arrives
+	 */
+	private static long getArrivalRound(Packet p) {
+		return (long) Math.ceil(p.arrivingTime);
+	}
+	
+	/**
+	 * @param round A round covered by the ring
+	 * @return The bucket of the ring that holds the packets arriving in the given round
+	 */
+	private DoublyLinkedList<Packet> getBucket(long round) {
+		return ring[(int) (round & (ring.length - 1))];
+	}
+	
+	/**
+	 * Ensures that the ring covers at least the given number of rounds. 
+	 * @param numRounds The number of rounds to cover, at most MAX_RING_SIZE
+	 */
+	private void growRing(long numRounds) {
+		int size = ring.length;
+		while(size < numRounds) {
+			size *= 2;
+		}
+		DoublyLinkedList<Packet>[] newRing = newRing(size);
+		for(long r = lastRound + 1; r <= lastRound + ring.length; r++) {
+			newRing[(int) (r & (size - 1))] = getBucket(r);
+		}
+		ring = newRing;
+		moveLaterPackets();
+	}
+	
+	/**
+	 * Moves the packets whose arrival round is now covered by the ring from 
+	 * the list of later packets to their bucket.
+	 */
+	private void moveLaterPackets() {
+		if(firstLaterRound <= lastRound + ring.length) {
+			firstLaterRound = Long.MAX_VALUE;
+			DoublyLinkedList<Packet> tmp = later;
+			later = new DoublyLinkedList<Packet>(true);
+			Packet p;
+			while((p = tmp.pop()) != null) {
+				addPacket(p);
+			}
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#addPacket(sinalgo.nodes.messages.Packet)
+	 */
+	public void addPacket(Packet p) {
+		long round = getArrivalRound(p);
+		if(round <= lastRound) {
+			due.append(p);
+		} else if(round - lastRound <= ring.length) {
+			getBucket(round).append(p);
+		} else if(round - lastRound <= MAX_RING_SIZE) {
+			growRing(round - lastRound);
+			getBucket(round).append(p);
+		} else {
+			later.append(p);
+			firstLaterRound = Math.min(firstLaterRound, round);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#removePacket(sinalgo.nodes.messages.Packet)
+	 */
+	public void removePacket(Packet p) {
+		long round = getArrivalRound(p);
+		if(round <= lastRound) {
+			due.remove(p);
+		} else if(round - lastRound > ring.length || !getBucket(round).remove(p)) {
+			later.remove(p);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#updateMessageBuffer()
+	 */
+	public void updateMessageBuffer() {
+		// ensure that the list of packets is clean (should already be empty)
+		arrivingPackets.clear();
+		arrivingInOrder = true;
+		lastArrivingTime = Double.NEGATIVE_INFINITY;
+		
+		long round = (long) Math.floor(Global.currentTime);
+		collectArrivingPackets(due);
+		long last = Math.min(round, lastRound + ring.length); // the buckets after the ring are empty
+		for(long r = lastRound + 1; r <= last; r++) {
+			collectArrivingPackets(getBucket(r));
+		}
+		if(round > lastRound) {
+			lastRound = round;
+		}
+		
+		// move the packets that are now covered by the ring
+		moveLaterPackets();
+		if(!due.isEmpty()) { // in case the buffer was not updated in every round
+			collectArrivingPackets(due);
+		}
+	}
+	
+	/**
+	 * Removes all packets from the given bucket and adds the ones that are delivered
+	 * to the list of arriving packets.
+	 * @param bucket The bucket of a round that has passed
+	 */
+	private void collectArrivingPackets(DoublyLinkedList<Packet> bucket) {
+		Packet p;
+		while((p = bucket.pop()) != null) {
+			// only if added
+			if(Configuration.interference){
+				//remove it from the global queue
+				Runtime.packetsInTheAir.remove(p);
+			}
+			if(p.edge != null) {
+				p.edge.removePacketInFlight(p);
+			}
+			if(Configuration.messageTrace) {
+				MessageTraceRecorder.recordArrival(p);
+			}
+			if(p.positiveDelivery){
+				//successful transmission
+				if(p.arrivingTime < lastArrivingTime) {
+					arrivingInOrder = false;
+				}
+				lastArrivingTime = p.arrivingTime;
+				arrivingPackets.add(p);
+			} else {
+				// failed transmission, drop the package
+				if(Configuration.generateNAckMessages) {
+					p.origin.addNackPacket(p); // return the packet to the sender
+				} else {
+					Packet.free(p);
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#waitingPackets()
+	 */
+	public int waitingPackets() {
+		return arrivingPackets.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#invalidatePacketsSentOverThisEdge(sinalgo.nodes.edges.Edge)
+	 */
+	public void invalidatePacketsSentOverThisEdge(Edge e) {
+		e.invalidatePacketsInFlight(); // all packets sent over e are in this buffer
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#getInbox()
+	 */
+	public Inbox getInbox() {
+		// The buckets preserve the order in which the packets were sent. Packets arrive at 
+		// fractional times within a round, and the packets that were due in earlier rounds
+		// are collected as well, such that the packets are only sorted if they were not 
+		// collected in the order of their arrival time. (The sort is stable.)
+		if(!arrivingInOrder) {
+			arrivingPackets.sort();
+			arrivingInOrder = true;
+		}
+		if(inbox == null){
+			inbox = new Inbox(arrivingPackets);
+		}	else {
+			inbox.resetForList(arrivingPackets);
+		}
+		return inbox;
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.nodes.PacketBuffer#addPacketsTo(java.util.Collection)
+	 */
+	public void addPacketsTo(Collection<Packet> c) {
+		addPacketsTo(due, c);
+		for(DoublyLinkedList<Packet> bucket : ring) {
+			addPacketsTo(bucket, c);
+		}
+		addPacketsTo(later, c);
+	}
+	
+	private static void addPacketsTo(DoublyLinkedList<Packet> list, Collection<Packet> c) {
+		for(Packet p : list) {
+			c.add(p);
+		}
+	}
+}
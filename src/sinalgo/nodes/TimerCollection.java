@@ -37,28 +37,37 @@
 package sinalgo.nodes;
 
 
-import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.Vector;
 
 import sinalgo.nodes.timers.Timer;
+import sinalgo.nodes.timers.TimerWheel;
+import sinalgo.tools.storage.DoublyLinkedList;
 import sinalgo.tools.storage.ReusableIterator;
+import sinalgo.tools.storage.ReusableListIterator;
+import sinalgo.tools.storage.SortableVector;
 
 /**
  * This class is the collection of the timers of a node.
+ * <p>
+ * In addition to the list of timers of this node, all timers of all nodes are
+ * stored in a shared timing wheel, which hands out the timers that go off in a 
+ * round to their node. Therefore, a node does not need to look at its timers 
+ * in rounds where none of them goes off. 
  */
 public class TimerCollection implements Iterable<Timer>{
-	//Note that a vector is not the best solution, because elements are also removed from the 
-	//begining of the collection but the collection will often be filled with only a few timers 
-	//and thus this does not matter.
-	private Vector<Timer> timers = new Vector<Timer>(0);
+	
+	// the timers of this node, in the order they were added
+	private DoublyLinkedList<Timer> timers = new DoublyLinkedList<Timer>(true);
+	
+	// the timers of this node that go off in the current round, sorted by their fire time
+	private DoublyLinkedList<Timer> dueTimers = new DoublyLinkedList<Timer>(true);
+	
+	// the timing wheel holding the timers of all nodes that do not yet go off
+	private static TimerWheel wheel = new TimerWheel();
 	
 	//the instance of the reusable iterator
 	private ReusableIter iter = null;
 	
-	//the number of modifications (addings in our case) that are done on this collection.
-	private int modCount = 0;
-	
 	/**
 	 * This method returns the number of timers in this collection. This doesn't only include 
 	 * the ones to fire in this round but also the ones scheduled in the future.
@@ -70,13 +79,17 @@ public class TimerCollection implements Iterable<Timer>{
 	}
 	
 	/**
-	 * This method adds a Timer into the collection.
+	 * This method adds a Timer into the collection. If the timer is already
+	 * contained in this collection, it is rescheduled according to its current
+	 * fire time.
 	 * 
 	 * @param t The timer to add.
 	 */
 	public void add(Timer t){
-		timers.add(t);
-		modCount++;
+		if(!timers.append(t)) { // the timer is already in this collection
+			dueTimers.remove(t);
+		}
+		wheel.add(t);
 	}
 	
 	/**
@@ -94,7 +107,77 @@ public class TimerCollection implements Iterable<Timer>{
 	 * @param t The timer to remove
 	 */
 	public void remove(Timer t) {
-		timers.remove(t);
+		if(timers.remove(t)) {
+			if(!wheel.remove(t)) {
+				dueTimers.remove(t);
+			}
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Removes all timers from this collection and from the shared timing wheel. The framework
+	 * calls this method when the node is removed from the simulation.  
+	 */
+	public void removeAll() {
+		Timer t;
+		while((t = timers.pop()) != null) {
+			wheel.remove(t); // false if the timer is due in the current round
+		}
+		dueTimers.clear();
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return True if at least one timer of this collection goes off in the current round. 
+	 */
+	public boolean hasDueTimers() {
+		return !dueTimers.isEmpty();
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Removes the timers that go off in the current round from this collection. 
+	 * @param list The list to which the timers are added, sorted by the time they go off.
+	 */
+	public void removeDueTimers(SortableVector<Timer> list) {
+		Timer t;
+		while((t = dueTimers.pop()) != null) {
+			timers.remove(t);
+			list.add(t);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Hands out the timers of all nodes that go off at or before the given time to 
+	 * the timer collections of their nodes. The framework calls this method in every 
+	 * round of the synchronous mode, before the nodes perform their step. 
+	 * @param time The current time
+	 */
+	public static void handOutDueTimers(double time) {
+		for(Timer t : wheel.removeDueTimers(time)) {
+			t.getTargetNode().getTimers().dueTimers.append(t);
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Removes the timers of all nodes from the shared timing wheel. The framework calls this 
+	 * method when all nodes are removed from the simulation. 
+	 */
+	public static void clearAllTimers() {
+		wheel.clear();
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Removes the timers of all nodes from the shared timing wheel, such that the wheel 
+	 * continues at the given time. Used when a simulation is restored from a checkpoint. 
+	 * @param time The current time
+	 */
+	public static void resetAllTimers(double time) {
+		wheel.reset(time);
 	}
 	
 	/**
@@ -114,65 +197,48 @@ public class TimerCollection implements Iterable<Timer>{
 	}
 	
 	/**
-	 * This class is a reusable iterator for the vector based collection. Note that a vector is 
-	 * not the best solution, because elements are also removed from the begining of the collection
-	 * but the collection will often be filled with only a few timers and thus this does not matter.
+	 * This class is a reusable iterator for the list based collection, which also 
+	 * removes the timers from the timing wheel.
 	 */
 	private class ReusableIter implements ReusableIterator<Timer>{
 
-		//the counter for the number of modifications 
-		private int expectedModCount;
-		
-		//the position in the vector
-		private int position;
-		
+		// the iterator over the list of timers
+		private ReusableListIterator<Timer> listIter = timers.iterator();
 		
-		/**
-		 * Create a new instance of the ReusableIterator
-		 */
-		private ReusableIter(){
-			position = 0;
-			expectedModCount = modCount;
-		}
+		// the timer returned by the last call to next()
+		private Timer current = null;
 		
 		/**
 		 * This method resets the reusable iterator. This makes the iterator reusable.
 		 */
 		public void reset(){
-			position = 0;
-			expectedModCount = modCount;
+			listIter.reset();
+			current = null;
 		}
 		
 		/* (non-Javadoc)
 		 * @see java.util.Iterator#hasNext()
 		 */
 		public boolean hasNext() {
-			return (position+1 <= timers.size());
+			return listIter.hasNext();
 		}
 
 		/* (non-Javadoc)
 		 * @see java.util.Iterator#next()
 		 */
 		public Timer next() {
-			checkForComodification();
-			return timers.elementAt(position++);
+			current = listIter.next(); // throws a ConcurrentModificationException if the list was modified
+			return current;
 		}
 
 		/* (non-Javadoc)
 		 * @see java.util.Iterator#remove()
 		 */
 		public void remove() {
-			timers.remove(--position);
-		}
-		
-		/**
-		 * Tests whether the list has been modified other than through the iteration commands. If this is
-		 * the case, the method throws a ConcurrentModificationException. 
-		 * @throws ConcurrentModificationException if this list was modified other than through the iterators methods.  
-		 */
-		final void checkForComodification() {
-			if (expectedModCount != modCount)
-				throw new ConcurrentModificationException();
+			listIter.remove();
+			if(!wheel.remove(current)) {
+				dueTimers.remove(current);
+			}
 		}
 	}
 }
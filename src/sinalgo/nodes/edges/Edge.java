@@ -41,21 +41,23 @@ package sinalgo.nodes.edges;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.geom.Line2D;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.configuration.ParameterKey;
 import sinalgo.gui.helper.Arrow;
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.io.eps.EPSOutputPrintStream;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.Position;
 import sinalgo.nodes.messages.Message;
+import sinalgo.nodes.messages.Packet;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
 import sinalgo.runtime.Runtime;
+import sinalgo.tools.InstanceFactory;
 import sinalgo.tools.logging.Logging;
 import sinalgo.tools.storage.DoublyLinkedListEntry;
 
@@ -110,6 +112,32 @@ public class Edge implements DoublyLinkedListEntry{
 	public void cleanUp(){
 	}
 	
+	/**
+	 * Writes the attributes of this edge that need to be stored in a graph file, 
+	 * e.g. the weight of a weighted edge. The start and end node of the edge are 
+	 * stored by the framework and need not be written.
+	 * <p>
+	 * Overwrite this method together with <code>readAttributes</code> in your edge
+	 * implementation. The default implementation writes nothing. An edge may write
+	 * at most 32767 bytes.
+	 * 
+	 * @param buffer The buffer to write the attributes to.
+	 */
+	public void writeAttributes(ByteBuffer buffer) {
+	}
+	
+	/**
+	 * Reads the attributes that were written by <code>writeAttributes</code> when a 
+	 * graph file is loaded. This method is called after the edge has been added to 
+	 * the graph, and the buffer is limited to the bytes written for this edge.
+	 * <p>
+	 * The default implementation reads nothing.
+	 * 
+	 * @param buffer The buffer to read the attributes from.
+	 */
+	public void readAttributes(ByteBuffer buffer) {
+	}
+	
 	/**
 	 * @return The number of messages that are currently being sent over this edge.
 	 */
@@ -156,20 +184,38 @@ public class Edge implements DoublyLinkedListEntry{
 	
 	public static Color defaultEdgeColorPassive = Color.BLACK;
 	public static Color defaultEdgeColorActive = Color.RED;
+	
+	// the handles of the configuration entries for the edge colors, and the last decoded entries
+	private static ParameterKey passiveColorKey = Configuration.getParameterKey("Edge/PassiveColor");
+	private static ParameterKey activeColorKey = Configuration.getParameterKey("Edge/ActiveColor");
+	private static String decodedPassiveColor, decodedActiveColor;
+	private static Color configPassiveColor, configActiveColor;
 	{
-		try {
-			String s = Configuration.getStringParameter("Edge/PassiveColor");
-			defaultEdgeColorPassive = Color.decode(s);
-		} catch(CorruptConfigurationEntryException e) { // there is no config entry -> take default
-		} catch(NumberFormatException e) {
-			Main.fatalError("Invalid color specification for the configuration entry Edge/PassiveColor. Expected a hexadecimal number of the form 0xrrggbb");
+		if(passiveColorKey.isSet()) { // otherwise, there is no config entry -> take default
+			try {
+				String s = passiveColorKey.getString();
+				if(s != decodedPassiveColor) { // only decode the entry if it has changed
+					configPassiveColor = Color.decode(s);
+					decodedPassiveColor = s;
+				}
+				defaultEdgeColorPassive = configPassiveColor;
+			} catch(CorruptConfigurationEntryException e) { // cannot happen, the entry is set
+			} catch(NumberFormatException e) {
+				Main.fatalError("Invalid color specification for the configuration entry Edge/PassiveColor. Expected a hexadecimal number of the form 0xrrggbb");
+			}
 		}
-		try {
-			String s = Configuration.getStringParameter("Edge/ActiveColor");
-			defaultEdgeColorActive = Color.decode(s);
-		} catch(CorruptConfigurationEntryException e) { // there is no config entry -> take default
-		} catch(NumberFormatException e) {
-			Main.fatalError("Invalid color specification for the configuration entry Edge/ActiveColor. Expected a hexadecimal number of the form 0xrrggbb");
+		if(activeColorKey.isSet()) { // otherwise, there is no config entry -> take default
+			try {
+				String s = activeColorKey.getString();
+				if(s != decodedActiveColor) { // only decode the entry if it has changed
+					configActiveColor = Color.decode(s);
+					decodedActiveColor = s;
+				}
+				defaultEdgeColorActive = configActiveColor;
+			} catch(CorruptConfigurationEntryException e) { // cannot happen, the entry is set
+			} catch(NumberFormatException e) {
+				Main.fatalError("Invalid color specification for the configuration entry Edge/ActiveColor. Expected a hexadecimal number of the form 0xrrggbb");
+			}
 		}
 	}
 	
@@ -296,6 +342,84 @@ public class Edge implements DoublyLinkedListEntry{
 		numberOfMessagesOnThisEdge--;
 	}
 
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * The first of the packets that are currently being sent over this edge, null if there 
+	 * is none. The packets are linked through their <code>nextOnEdge</code> member. This
+	 * index allows to invalidate the packets of an edge without iterating over all pending 
+	 * packets (synchronous mode) or events (asynchronous mode). 
+	 */
+	public Packet firstPacketInFlight = null;
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Called by the framework whenever a packet is sent over this edge. Adds the packet
+	 * to the list of packets in flight and calls <code>addMessageForThisEdge</code>.
+	 * @param p The packet that is being sent over this edge.
+	 */
+	public final void addPacketInFlight(Packet p) {
+		p.previousOnEdge = null;
+		p.nextOnEdge = firstPacketInFlight;
+		if(firstPacketInFlight != null) {
+			firstPacketInFlight.previousOnEdge = p;
+		}
+		firstPacketInFlight = p;
+		addMessageForThisEdge(p.message);
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Called by the framework whenever a packet is not anymore being sent over this edge. 
+	 * Removes the packet from the list of packets in flight and calls <code>removeMessageForThisEdge</code>.
+	 * @param p The packet that was being sent over this edge.
+	 */
+	public final void removePacketInFlight(Packet p) {
+		unlinkPacketInFlight(p);
+		removeMessageForThisEdge(p.message);
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Removes a packet from the list of packets in flight, without notifying this edge. 
+	 * Does nothing if the packet is not in the list.
+	 * @param p The packet to remove.
+	 */
+	public final void unlinkPacketInFlight(Packet p) {
+		if(p.previousOnEdge != null) {
+			p.previousOnEdge.nextOnEdge = p.nextOnEdge;
+		} else if(firstPacketInFlight == p) {
+			firstPacketInFlight = p.nextOnEdge;
+		}
+		if(p.nextOnEdge != null) {
+			p.nextOnEdge.previousOnEdge = p.previousOnEdge;
+		}
+		p.previousOnEdge = null;
+		p.nextOnEdge = null;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Invalidates all packets currently being sent over this edge, such that they are not 
+	 * delivered. The packets are not removed from the simulation, as they still need to arrive 
+	 * at their destination (e.g. to cause interference). 
+	 * @return True if at least one packet was invalidated, otherwise false.
+	 */
+	public final boolean invalidatePacketsInFlight() {
+		boolean changed = false;
+		Packet p = firstPacketInFlight;
+		while(p != null) {
+			Packet next = p.nextOnEdge;
+			p.positiveDelivery = false;
+			p.edge = null; // the edge may not exist anymore
+			p.previousOnEdge = null;
+			p.nextOnEdge = null;
+			p = next;
+			changed = true;
+		}
+		firstPacketInFlight = null;
+		return changed;
+	}
+
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
 	 * A boolean used to indicate, wether the edge has been validated in this round.
@@ -311,14 +435,11 @@ public class Edge implements DoublyLinkedListEntry{
 	 * If there is no such edge, the field otherEdge is set to null.  
 	 */
 	protected final void findOppositeEdge() {
-		Iterator<Edge> edgeIter = endNode.outgoingConnections.iterator();
-		while(edgeIter.hasNext()){
-			Edge e = edgeIter.next();
-			if((e.startNode.ID == endNode.ID)&&(e.endNode.ID == startNode.ID)){
-				this.oppositeEdge = e;
-				e.oppositeEdge = this;
-				return;
-			}
+		Edge e = endNode.getEdgeTo(startNode); // constant time lookup
+		if(e != null) {
+			this.oppositeEdge = e;
+			e.oppositeEdge = this;
+			return;
 		}
 		this.oppositeEdge = null; // no other edge found 
 	}
@@ -360,7 +481,7 @@ public class Edge implements DoublyLinkedListEntry{
 	 */
 	private static long nextId = 1;
 
-	private static Constructor<?> constructor = null;
+	private static InstanceFactory<?> factory = null; // the factory of the current edge type
 	private static String nameOfSearchedEdge = "";
 	
 	public static int numEdgesOnTheFly = 0;
@@ -387,28 +508,14 @@ public class Edge implements DoublyLinkedListEntry{
 				Main.fatalError(Logging.getCodePosition() + " Edge factory failed! About to return an edge that was already returned. (Probably, free() was called > 1 on this edge.)");
 			}
 		} else try { // need to construct a new edge
-			if(Configuration.hasEdgeTypeChanged() || constructor == null) { // 
-				constructor = null;
+			if(Configuration.hasEdgeTypeChanged() || factory == null) { // 
+				factory = null;
 				nameOfSearchedEdge = Configuration.getEdgeType();
 				Class<?> edgeClass = Class.forName(nameOfSearchedEdge);
-				Constructor<?>[] list = edgeClass.getDeclaredConstructors();
-				// Test all constructors of the edge-class whether it has 
-				// a corresponding constructor.
-				for(Constructor<?> c : list) {
-					Class<?>[] paramClasses = c.getParameterTypes();
-					if(paramClasses.length != 0) {
-						continue; // need a constructor that takes 2 params
-					}	else {
-						constructor = c;
-						break;
-					}
-				}
-				if(constructor == null) {
-					throw new NoSuchMethodException("Did not find a valid constructor for the "+nameOfSearchedEdge+" class.");
-				}
+				factory = InstanceFactory.get(edgeClass); // needs a constructor without parameters
 				Configuration.setEdgeTypeChanged(false);
 			}
-			edge = (Edge) constructor.newInstance();
+			edge = (Edge) factory.newInstance();
 		}	catch(ClassNotFoundException cNFE){
 			Main.fatalError("The implementation of the edge '" + nameOfSearchedEdge + "' could not be found.\n" +
 			                "Change the Type in the XML-File or implement it." + "");
@@ -457,8 +564,6 @@ public class Edge implements DoublyLinkedListEntry{
 	 */
 	public final void removeEdgeFromGraph(){
 		if(Configuration.asynchronousMode) {
-			// This is quite slow as it iterates over all pending events. However,
-			// synchronous simulations are not mobile, therefore this method is not called often.
 			Runtime.eventQueue.invalidatePacketEventsForThisEdge(this);
 		} else {
 			this.endNode.getInboxPacketBuffer().invalidatePacketsSentOverThisEdge(this);
@@ -507,6 +612,31 @@ public class Edge implements DoublyLinkedListEntry{
 		return dllFingerList;
 	}
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Sets the ID of an edge that is restored from a checkpoint.
+	 * @param id The ID of this edge.
+	 */
+	public final void setID(long id) {
+		this.ID = id;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @return The ID that is given to the next edge.
+	 */
+	public static long getNextID() {
+		return nextId;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @param id The ID to give to the next edge, e.g. after a checkpoint has been restored.
+	 */
+	public static void setNextID(long id) {
+		nextId = id;
+	}
+	
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
 	 * @return The next ID to be used for an edge. 
@@ -37,6 +37,9 @@
 package sinalgo.nodes.messages;
 
 import java.awt.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * The superclass of all messages. Extend this class to get your own 
@@ -63,6 +66,9 @@ public abstract class Message {
 	 * is OK if a receiver of this message forwards it. Sending a message does <i>not</i> modify
 	 * the message object. The message is encapsulated in a <code>packet</code> that stores the
 	 * meta information for the transmission.) 
+	 * <p>
+	 * Alternatively, implement the marker interface <code>ImmutableMessage</code>, in which
+	 * case the framework does not call this method at all when sending the message. 
 	 */
 	public abstract Message clone();
 	
@@ -74,4 +80,40 @@ public abstract class Message {
 	public Color getEnvelopeColor() {
 		return null; // use the default color
 	}
+	
+	/**
+	 * The size of this message in bytes, as written to the message trace. The framework 
+	 * itself has no notion of the size of messages, overwrite this method if your project
+	 * models it. The default implementation returns 0.
+	 * @return The size of this message.
+	 * @see sinalgo.io.messageTrace.MessageTraceRecorder
+	 */
+	public int getTraceSize() {
+		return 0;
+	}
+	
+	/**
+	 * Writes the content of this message when a checkpoint of the simulation is written
+	 * while the message is in transit. 
+	 * <p>
+	 * Overwrite this method together with <code>readState</code> if your message carries
+	 * any data. To restore the message, the framework creates a new instance of the message 
+	 * class with its constructor without parameters, which may be private, and then calls 
+	 * <code>readState</code>. Refer to nodes by their ID. The default implementation writes nothing.
+	 * @param out The stream to write the content to.
+	 * @throws IOException If the content cannot be written.
+	 * @see sinalgo.io.checkpoint.CheckpointWriter
+	 */
+	public void writeState(DataOutput out) throws IOException {
+	}
+	
+	/**
+	 * Reads the content of this message written by <code>writeState</code> when the 
+	 * simulation is restored from a checkpoint. The default implementation reads nothing.
+	 * @param in The stream to read the content from.
+	 * @throws IOException If the content cannot be read.
+	 * @see sinalgo.io.checkpoint.CheckpointReader
+	 */
+	public void readState(DataInput in) throws IOException {
+	}
 }
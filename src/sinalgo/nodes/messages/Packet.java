@@ -37,8 +37,10 @@
 package sinalgo.nodes.messages;
 
 
-import java.util.Stack;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
+import sinalgo.configuration.Configuration;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.runtime.Main;
@@ -87,6 +89,12 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	 */
 	public Edge edge; 
 	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * The links to the other packets sent over the same edge, see <code>Edge.firstPacketInFlight</code>.
+	 */
+	public Packet previousOnEdge, nextOnEdge;
+	
 	/**
 	 * The intensity of the message. I.e. interference can depend on the intensity of
 	 * the message.
@@ -144,55 +152,100 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	//-----------------------------------------------------------------------------------
 	//-----------------------------------------------------------------------------------
 	
-	public static int numPacketsOnTheFly = 0; // number of packets in the system, not yet freed
-	
 	/**
 	 * Constructor to create new Packet objects. If possible, this method returns
-	 * a recycled packet. 
+	 * a recycled packet from the packet pool of the calling thread. 
 	 * @param msg The message to create the packet for.
 	 * @return A Packet instance, either a new one or a recycled one.
 	 */
 	public static Packet fabricatePacket(Message msg){
-		numPacketsOnTheFly++;
-		if(freePackets.empty()) {
-			Packet p = new Packet(msg);
+		PacketPool pp = pool.get();
+		pp.numOnTheFly++;
+		Packet p;
+		if(pp.numFree == 0) {
+			pp.misses++;
+			p = new Packet(msg);
+		} else {
+			pp.hits++;
+			p = pp.freePackets[--pp.numFree];
+			pp.freePackets[pp.numFree] = null;
+			if(p.message != null) {
+				Main.fatalError(Logging.getCodePosition() + " Packet factory failed! About to return a packet that was already returned. (Probably, free() was called > 1 on this packet.)");
+			}
+			p.ID = getNextFreeID();
+			p.message = msg;
+		}
+		if(isTrackingIssuedPackets()) {
 			synchronized(issuedPackets) {
 				issuedPackets.append(p);
 			}
-			return p;
 		}
-		else{
-			Packet rP = freePackets.pop();
-			if(rP.message != null) {
+		return p;
+	}
+	
+	/**
+	 * Fabricates several packets at once, recycling the packets of the packet pool 
+	 * of the calling thread where possible. The message of each fabricated packet 
+	 * is null and must be set by the caller.
+	 * @param packets The array to store the packets in.
+	 * @param count The number of packets to fabricate, stored in the first <code>count</code> entries of the array. 
+	 */
+	public static void fabricatePackets(Packet[] packets, int count) {
+		PacketPool pp = pool.get();
+		pp.numOnTheFly += count;
+		int recycled = Math.min(count, pp.numFree);
+		pp.hits += recycled;
+		pp.misses += count - recycled;
+		for(int i = 0; i < recycled; i++) {
+			Packet p = pp.freePackets[--pp.numFree];
+			pp.freePackets[pp.numFree] = null;
+			if(p.message != null) {
 				Main.fatalError(Logging.getCodePosition() + " Packet factory failed! About to return a packet that was already returned. (Probably, free() was called > 1 on this packet.)");
 			}
-			rP.ID = getNextFreeID();
-			rP.message = msg;
+			p.ID = getNextFreeID();
+			packets[i] = p;
+		}
+		for(int i = recycled; i < count; i++) {
+			packets[i] = new Packet(null);
+		}
+		if(isTrackingIssuedPackets()) {
 			synchronized(issuedPackets) {
-				issuedPackets.append(rP);
+				for(int i = 0; i < count; i++) {
+					issuedPackets.append(packets[i]);
+				}
 			}
-			return rP;
 		}
 	}
 	
 	/**
 	 * This method marks this packet as unused. This means that it adds itself to the 
-	 * packet pool and can thus be recycled by the fabricatePacket-method.
+	 * packet pool of the calling thread and can thus be recycled by the fabricatePacket-method.
 	 * 
 	 * @param pack The packet to free.
 	 */
 	public static void free(Packet pack){
-		synchronized(issuedPackets) {
-			if(!issuedPackets.remove(pack)) { // nothing happens if the packet is not in the list
-				System.err.println(Logging.getCodePosition() + " Bug in packet factory. Please report this error if you see this line.\n\n\n");
+		if(isTrackingIssuedPackets()) {
+			synchronized(issuedPackets) {
+				if(!issuedPackets.remove(pack)) { // nothing happens if the packet is not in the list
+					System.err.println(Logging.getCodePosition() + " Bug in packet factory. Please report this error if you see this line.\n\n\n");
+				}
 			}
 		}
-		numPacketsOnTheFly--;
+		if(pack.edge != null) { // the packet may be freed before it arrives
+			pack.edge.unlinkPacketInFlight(pack);
+		}
 		pack.destination = null;
 		pack.origin = null;
 		pack.edge = null;
 		pack.message = null;
-		freePackets.push(pack);
+		PacketPool pp = pool.get();
+		pp.numOnTheFly--;
+		if(pp.numFree == pp.freePackets.length) {
+			Packet[] newList = new Packet[2 * pp.freePackets.length];
+			System.arraycopy(pp.freePackets, 0, newList, 0, pp.numFree);
+			pp.freePackets = newList;
+		}
+		pp.freePackets[pp.numFree++] = pack;
 	}
 	
 	/**
@@ -201,25 +254,86 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	public long ID = 0;
 	
 	//the next id to give to a packet
-	private static long nextID = 1;
+	private static AtomicLong nextID = new AtomicLong(1);
 
 	/**
 	 * @return The next Free ID to be used.
 	 */
 	private static long getNextFreeID(){
-		if(nextID == 0){
+		long id = nextID.getAndIncrement();
+		if(id == 0){
 			Main.minorError("The Packet ID counter overflowed. It is likely that the simulation continues correctly despite of this overlow.");
 		}
-		return nextID++;//implicit post-increment
+		return id;
 	}
 	
 	/**
-	 * This is a stack containing all the unused packet instances. To reduce the garbage collection time,
-	 * used Packets are not destroyed but are added to a Packet pool. When a new instance is requested, 
-	 * the system only creates a new instance, when the stack is empty.
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return The ID that is given to the next packet.
 	 */
-	private static Stack<Packet> freePackets = new Stack<Packet>();
+	public static long getNextID() {
+		return nextID.get();
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @param id The ID to give to the next packet, e.g. after a checkpoint has been restored.
+	 */
+	public static void setNextID(long id) {
+		nextID.set(id);
+	}
+	
+	/**
+	 * The packet pool of a single thread. To reduce the garbage collection time,
+	 * used Packets are not destroyed but are added to the packet pool of the thread
+	 * that frees the packet. When a new instance is requested, the system only creates
+	 * a new instance, when the pool of the calling thread is empty. 
+	 * <p>
+	 * As each thread has its own pool, fabricating and freeing packets requires no 
+	 * synchronization.
+	 */
+	private static class PacketPool {
+		Thread owner; // the thread using this pool
+		Packet[] freePackets = new Packet[64]; // stack of the unused packet instances
+		int numFree = 0; // number of packets on the stack
+		int numOnTheFly = 0; // number of packets fabricated by this thread, minus the number of packets freed by this thread
+		long hits = 0; // number of packets that were recycled
+		long misses = 0; // number of packets that had to be allocated
+		
+		PacketPool(Thread owner) {
+			this.owner = owner;
+		}
+	}
+	
+	/**
+	 * The pools of all threads that have used packets, such that statistics can be computed, 
+	 * and the pools of terminated threads can be reused.
+	 */
+	private static Vector<PacketPool> allPools = new Vector<PacketPool>();
+	
+	private static ThreadLocal<PacketPool> pool = new ThreadLocal<PacketPool>() {
+		protected PacketPool initialValue() {
+			Thread t = Thread.currentThread();
+			synchronized(allPools) {
+				for(PacketPool pp : allPools) {
+					if(!pp.owner.isAlive()) { // inherit the pool of a terminated thread
+						pp.owner = t;
+						return pp;
+					}
+				}
+				PacketPool pp = new PacketPool(t);
+				allPools.add(pp);
+				return pp;
+			}
+		}
+	};
 	
+	/**
+	 * @return True if the issuedPackets list is maintained. 
+	 */
+	private static boolean isTrackingIssuedPackets() {
+		return Configuration.trackIssuedPackets || Configuration.showMessageAnimations;
+	}
 
 	/**
 	 * List of all packet-objects issued and not yet returned with free. 
@@ -230,22 +344,78 @@ public final class Packet implements DoublyLinkedListEntry, Comparable<Packet> {
 	 * Note that this list is not equivalent to the 'packetsInTheAir' list used
 	 * for interference! This list simply contains all packets objects that are 
 	 * currently used.
-	 * For now, this member is only experimental.
+	 * <p>
+	 * This list is only maintained if the message animations are shown, or if 
+	 * trackIssuedPackets is set in the configuration file, as its maintenance 
+	 * requires synchronization for each packet. 
 	 * <p>
 	 * Whenever accessing this member, you should synchronize on this member
 	 */
 	public static DoublyLinkedList<Packet> issuedPackets = new DoublyLinkedList<Packet>(true);
 	
-	
+	/**
+	 * Removes all packets ready to be reused from the packet pools. 
+	 * This method should only be called while the simulation is not running. 
+	 */
 	public static void clearUnusedPackets() {
-		freePackets.clear();
+		synchronized(allPools) {
+			for(PacketPool pp : allPools) {
+				pp.freePackets = new Packet[64];
+				pp.numFree = 0;
+			}
+		}
 	}
 	
 	/**
 	 * @return The number of packets ready to be reused.
 	 */
 	public static int getNumFreedPackets() {
-		return freePackets.size();
+		int sum = 0;
+		synchronized(allPools) {
+			for(PacketPool pp : allPools) {
+				sum += pp.numFree;
+			}
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The number of packets in the system, not yet freed.
+	 */
+	public static int getNumPacketsOnTheFly() {
+		int sum = 0;
+		synchronized(allPools) {
+			for(PacketPool pp : allPools) {
+				sum += pp.numOnTheFly;
+			}
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The number of packets that were taken from a packet pool.
+	 */
+	public static long getNumPoolHits() {
+		long sum = 0;
+		synchronized(allPools) {
+			for(PacketPool pp : allPools) {
+				sum += pp.hits;
+			}
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The number of packets that had to be allocated as the packet pool was empty.
+	 */
+	public static long getNumPoolMisses() {
+		long sum = 0;
+		synchronized(allPools) {
+			for(PacketPool pp : allPools) {
+				sum += pp.misses;
+			}
+		}
+		return sum;
 	}
 	
 
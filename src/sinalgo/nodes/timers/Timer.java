@@ -37,11 +37,18 @@
 package sinalgo.nodes.timers;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import sinalgo.nodes.Node;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
 import sinalgo.runtime.Runtime;
 import sinalgo.runtime.events.TimerEvent;
+import sinalgo.tools.Tools;
+import sinalgo.tools.storage.DoublyLinkedList;
+import sinalgo.tools.storage.DoublyLinkedListEntry;
 
 /**
  * The superclass of all node timers.
@@ -55,7 +62,7 @@ import sinalgo.runtime.events.TimerEvent;
  * are not associated with a particular node, and the <code>node</code> member of 
  * this class must be set to <code>null</code>. 
  */
-public abstract class Timer implements Comparable<Timer> {
+public abstract class Timer implements Comparable<Timer>, DoublyLinkedListEntry {
 
 	/**
 	 * The node that started the timer, null if the timer executes globally
@@ -76,11 +83,11 @@ public abstract class Timer implements Comparable<Timer> {
 			Main.fatalError("A relative time indicating when a timer should start must be strictly positive.");
 		}
 		node = null;
-		fireTime = Global.currentTime + relativeTime;
+		fireTime = Tools.getGlobalTime() + relativeTime;
 		if(Global.isAsynchronousMode) {
 			Runtime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
 		} else {
-			Global.customGlobal.globalTimers.add(this);
+			Global.customGlobal.getGlobalTimerWheel().add(this);
 		}
 	}
 	
@@ -97,7 +104,7 @@ public abstract class Timer implements Comparable<Timer> {
 			Main.fatalError("A relative time indicating when a timer should start must be strictly positive.");
 		}
 		node = n;
-		fireTime = Global.currentTime + relativeTime;
+		fireTime = Tools.getGlobalTime() + relativeTime;
 		if(Global.isAsynchronousMode){
 			Runtime.eventQueue.insert(TimerEvent.getNewTimerEvent(this, fireTime));
 		}	else {
@@ -114,7 +121,7 @@ public abstract class Timer implements Comparable<Timer> {
 	 * @param n The node that started the timer and on which the timer will be fired.
 	 */
 	public final void startAbsolute(double absoluteTime, Node n){
-		if(absoluteTime <= Global.currentTime){
+		if(absoluteTime <= Tools.getGlobalTime()){
 			Main.fatalError("The absolute time when a timer goes off must be strictly larger than the current time.");
 		}
 		node = n;
@@ -167,4 +174,71 @@ public abstract class Timer implements Comparable<Timer> {
 	 */
 	public abstract void fire();
 	
+	/**
+	 * Writes the state of this timer when a checkpoint of the simulation is written
+	 * while the timer is pending. 
+	 * <p>
+	 * Overwrite this method together with <code>readState</code> if your timer has any 
+	 * members. To restore the timer, the framework creates a new instance of the timer 
+	 * class with its constructor without parameters, which may be private, and then calls 
+	 * <code>readState</code>. The framework stores the target node and the fire time by itself.
+	 * Refer to nodes by their ID. The default implementation writes nothing.
+	 * @param out The stream to write the state to.
+	 * @throws IOException If the state cannot be written.
+	 * @see sinalgo.io.checkpoint.CheckpointWriter
+	 */
+	public void writeState(DataOutput out) throws IOException {
+	}
+	
+	/**
+	 * Reads the state of this timer written by <code>writeState</code> when the 
+	 * simulation is restored from a checkpoint. The default implementation reads nothing.
+	 * @param in The stream to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 * @see sinalgo.io.checkpoint.CheckpointReader
+	 */
+	public void readState(DataInput in) throws IOException {
+	}
+	
+	//-----------------------------------------------------------------------------------
+	//-----------------------------------------------------------------------------------
+	// Framework specific methods and member variables
+	// => You should not need to modify/overwrite/call/use any of these members or methods
+	//-----------------------------------------------------------------------------------
+	//-----------------------------------------------------------------------------------
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Sets the target node and the fire time of a timer that is restored from a checkpoint,
+	 * without scheduling the timer.
+	 * @param n The node on which the timer fires, null for a global timer.
+	 * @param time The time when the timer fires.
+	 */
+	public final void setRestoredState(Node n, double time) {
+		node = n;
+		fireTime = time;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return The order in which the timer was scheduled in the synchronous mode, which orders 
+	 * the timers with the same fire time.
+	 */
+	public final long getScheduleOrder() {
+		return wheelSeq;
+	}
+	
+	DoublyLinkedList<Timer> wheelSlot = null; // the slot of the timing wheel holding this timer, null if not in a wheel
+	long wheelSeq = 0; // the order in which the timer was added to the timing wheel
+	
+	// the DLLE entry for the DoublyLinkedList
+	private DLLFingerList dllFingerList = new DLLFingerList();
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @see sinalgo.tools.storage.DoublyLinkedListEntry#getDoublyLinkedListFinger()
+	 */
+	public DLLFingerList getDoublyLinkedListFinger() {
+		return dllFingerList;
+	}
 }
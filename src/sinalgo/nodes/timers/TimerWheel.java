@@ -0,0 +1,271 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.nodes.timers;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+import sinalgo.tools.storage.DoublyLinkedList;
+import sinalgo.tools.storage.SortableVector;
+
+/**
+ * <b>This class is framework internal and should not be used by the project developer.</b>
+ * <p>
+ * A hierarchical timing wheel that stores the timers of the synchronous simulation mode
+ * by the round in which they go off. A timer with fire time <i>t</i> goes off in round 
+ * <code>ceil(t)</code>, which is the first round whose time is at least <i>t</i>.
+ * <p>
+ * The wheel consists of several levels of 64 slots each. The slots of the first level 
+ * hold the timers of the next 64 rounds, one slot per round. Each slot of a higher 
+ * level covers 64 times more rounds than a slot of the level below. Whenever the 
+ * first level wraps around, the timers of the next slot of the second level are 
+ * distributed over the first level, and so on. Timers that go off even later are 
+ * kept in an overflow list. Adding and removing a timer takes constant time, and 
+ * advancing the wheel by one round takes constant amortized time plus the time to 
+ * sort the timers that go off.
+ */
+public class TimerWheel {
+	
+	private static final int SLOT_BITS = 6; // each level has 2^SLOT_BITS slots
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4; // the levels cover 2^24 rounds, the remaining timers go to the overflow list
+	
+	private DoublyLinkedList<Timer>[][] slots = newSlots();
+	private DoublyLinkedList<Timer> overflow = new DoublyLinkedList<Timer>(true); // timers beyond the last level
+	
+	private long nextRound = 1; // the next round to process, all timers of earlier rounds have been handed out
+	private int size = 0; // number of timers in the wheel
+	private long nextSeq = 1; // insertion counter to order timers with the same fire time
+	
+	private SortableVector<Timer> dueTimers = new SortableVector<Timer>(); // reused list of timers going off
+	
+	/**
+	 * The order in which timers go off: Sorted by their fire time, timers with the same 
+	 * fire time in the order they were added.  
+	 */
+	private static Comparator<Timer> dueOrder = new Comparator<Timer>() {
+		public int compare(Timer t1, Timer t2) {
+			int c = Double.compare(t1.getFireTime(), t2.getFireTime());
+			if(c != 0) {
+				return c;
+			}
+			return t1.wheelSeq < t2.wheelSeq ? -1 : (t1.wheelSeq == t2.wheelSeq ? 0 : 1);
+		}
+	};
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static DoublyLinkedList<Timer>[][] newSlots() {
+		DoublyLinkedList<Timer>[][] s = new DoublyLinkedList[LEVELS][SLOTS];
+		for(int l = 0; l < LEVELS; l++) {
+			for(int i = 0; i < SLOTS; i++) {
+				s[l][i] = new DoublyLinkedList<Timer>(true);
+			}
+		}
+		return s;
+	}
+	
+	/**
+	 * @return The number of timers in this wheel.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Adds a timer to this wheel. If the timer is already contained in 
+	 * this wheel, it is moved according to its current fire time.
+	 * @param t The timer to add.
+	 */
+	public void add(Timer t) {
+		if(t.wheelSlot != null) {
+			remove(t);
+		}
+		t.wheelSeq = nextSeq++;
+		insert(t);
+		size++;
+	}
+	
+	/**
+	 * Removes a timer from this wheel.
+	 * @param t The timer to remove.
+	 * @return True if the timer was contained in this wheel, otherwise false.
+	 */
+	public boolean remove(Timer t) {
+		if(t.wheelSlot == null || !t.wheelSlot.remove(t)) {
+			return false;
+		}
+		t.wheelSlot = null;
+		size--;
+		return true;
+	}
+	
+	/**
+	 * Removes all timers from this wheel.
+	 */
+	public void clear() {
+		for(int l = 0; l < LEVELS; l++) {
+			for(int i = 0; i < SLOTS; i++) {
+				release(slots[l][i]);
+			}
+		}
+		release(overflow);
+		size = 0;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Removes all timers from this wheel, such that the wheel continues at the given time. 
+	 * Used when a simulation is restored from a checkpoint. 
+	 * @param time The current time.
+	 */
+	public void reset(double time) {
+		clear();
+		nextRound = (long) Math.floor(time) + 1;
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Adds all timers of this wheel to the given collection, in no particular order.
+	 * @param c The collection to add the timers to.
+	 */
+	public void addTimersTo(Collection<Timer> c) {
+		for(int l = 0; l < LEVELS; l++) {
+			for(int i = 0; i < SLOTS; i++) {
+				for(Timer t : slots[l][i]) {
+					c.add(t);
+				}
+			}
+		}
+		for(Timer t : overflow) {
+			c.add(t);
+		}
+	}
+	
+	/**
+	 * Removes all timers from a slot.
+	 * @param slot The slot to empty.
+	 */
+	private void release(DoublyLinkedList<Timer> slot) {
+		Timer t;
+		while((t = slot.pop()) != null) {
+			t.wheelSlot = null;
+		}
+	}
+	
+	/**
+	 * Removes the timers that go off at or before the given time from this wheel.
+	 * <p>
+	 * The returned list is reused by subsequent calls and must be processed
+	 * before this method is called again.
+	 * @param time The current time.
+	 * @return The timers that go off at or before the given time, sorted 
+	 * by their fire time, and in the order they were added if they have
+	 * the same fire time.
+	 */
+	public SortableVector<Timer> removeDueTimers(double time) {
+		dueTimers.clear();
+		long round = (long) Math.floor(time);
+		if(size == 0) { // nothing to hand out, skip the empty rounds
+			nextRound = Math.max(nextRound, round + 1);
+			return dueTimers;
+		}
+		while(nextRound <= round && size > 0) {
+			int index = (int) (nextRound & SLOT_MASK);
+			if(index == 0) {
+				cascade(1);
+			}
+			Timer t;
+			DoublyLinkedList<Timer> slot = slots[0][index];
+			while((t = slot.pop()) != null) {
+				t.wheelSlot = null;
+				size--;
+				dueTimers.add(t);
+			}
+			nextRound++;
+		}
+		nextRound = Math.max(nextRound, round + 1);
+		if(dueTimers.size() > 1) {
+			dueTimers.sort(dueOrder);
+		}
+		return dueTimers;
+	}
+	
+	/**
+	 * Redistributes the timers of the current slot of the given level to the 
+	 * lower levels. If this slot is the first slot of the level, the
+	 * next higher level is cascaded first. 
+	 * @param level The level to cascade, at least 1.
+	 */
+	private void cascade(int level) {
+		DoublyLinkedList<Timer> slot;
+		if(level == LEVELS) {
+			slot = overflow;
+		} else {
+			int index = (int) ((nextRound >>> (level * SLOT_BITS)) & SLOT_MASK);
+			if(index == 0) {
+				cascade(level + 1);
+			}
+			slot = slots[level][index];
+		}
+		Timer t;
+		while((t = slot.pop()) != null) {
+			insert(t);
+		}
+	}
+	
+	/**
+	 * Puts a timer into the slot that covers the round in which it goes off.  
+	 * @param t The timer to insert.
+	 */
+	private void insert(Timer t) {
+		long round = (long) Math.ceil(t.getFireTime());
+		if(round < nextRound) {
+			round = nextRound; // already due, hand out with the next round
+		}
+		long delta = round - nextRound;
+		DoublyLinkedList<Timer> slot = overflow;
+		for(int l = 0; l < LEVELS; l++) {
+			if(delta < (1L << ((l + 1) * SLOT_BITS))) {
+				slot = slots[l][(int) ((round >>> (l * SLOT_BITS)) & SLOT_MASK)];
+				break;
+			}
+		}
+		slot.append(t);
+		t.wheelSlot = slot;
+	}
+}
@@ -38,6 +38,9 @@ package sinalgo.runtime;
 
 
 import java.awt.Graphics;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -48,6 +51,8 @@ import java.util.TreeSet;
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.timers.Timer;
+import sinalgo.nodes.timers.TimerWheel;
+import sinalgo.tools.storage.SortableVector;
 
 /**
  * Implementations of this class provide a global view of your simulation and is the
@@ -245,11 +250,58 @@ public abstract class AbstractCustomGlobal {
 	}
 	
 	/**
-	 * List of all global timers for a synchronous simulation. 
-	 * (In asynchronous mode, the global timers are also handled
+	 * The framework calls this method when a checkpoint of the simulation is written,
+	 * to store the project specific global state, e.g. the members of this class.
+	 * <p>
+	 * The nodes, edges, messages and timers are stored by the framework. Refer to nodes by
+	 * their ID. By default, this method writes nothing.
+	 * @param out The stream to write the state to.
+	 * @throws IOException If the state cannot be written.
+	 * @see sinalgo.io.checkpoint.CheckpointWriter
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		// No implementation here! Add your code to the CustomGlobal.java 
+		// file in your project.
+	}
+	
+	/**
+	 * The framework calls this method when the simulation is restored from a checkpoint,
+	 * to read the state written by <code>writeState</code>. The method is called after all nodes,
+	 * edges, messages and timers have been restored. 
+	 * <p>
+	 * Note that {@link #preRun()} is not called when the simulation starts from a checkpoint.  
+	 * By default, this method reads nothing.
+	 * @param in The stream to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 * @see sinalgo.io.checkpoint.CheckpointReader
+	 */
+	public void readState(DataInput in) throws IOException {
+		// No implementation here! Add your code to the CustomGlobal.java 
+		// file in your project.
+	}
+	
+	/**
+	 * List of global timers for a synchronous simulation that were added directly 
+	 * to this set. (In asynchronous mode, the global timers are also handled
 	 * as events.) 
+	 * <p>
+	 * The timers started with {@link Timer#startGlobalTimer(double)} are kept in a 
+	 * timing wheel and are not contained in this set. The timers of this set go off 
+	 * together with the timers of the wheel, in the order of their fire time.
 	 */
 	public TreeSet<Timer> globalTimers = new TreeSet<Timer>();
+	
+	// the global timers started with Timer.startGlobalTimer in synchronous mode
+	private TimerWheel globalTimerWheel = new TimerWheel();
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return The timing wheel that holds the global timers started with 
+	 * {@link Timer#startGlobalTimer(double)} in synchronous mode.
+	 */
+	public TimerWheel getGlobalTimerWheel() {
+		return globalTimerWheel;
+	}
 
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b>
@@ -260,17 +312,23 @@ public abstract class AbstractCustomGlobal {
 	 * incrementing the global time, and after calling {@link #preRound()}.  
 	 */
 	public void handleGlobalTimers() {
-		if(globalTimers.isEmpty()) {
-			return;
-		}
-		Timer t = globalTimers.first();
-		while(t.getFireTime() <= Global.currentTime) {
-			globalTimers.remove(t);
-			t.fire();
-			if(globalTimers.isEmpty()) {
+		SortableVector<Timer> due = globalTimerWheel.removeDueTimers(Global.currentTime);
+		int i = 0;
+		while(true) {
+			Timer t = i < due.size() ? due.elementAt(i) : null;
+			if(!globalTimers.isEmpty()) {
+				Timer first = globalTimers.first();
+				if(first.getFireTime() <= Global.currentTime && (t == null || first.getFireTime() < t.getFireTime())) {
+					globalTimers.remove(first);
+					first.fire();
+					continue;
+				}
+			}
+			if(t == null) {
 				break;
 			}
-			t = globalTimers.first(); // go to the next timer
+			i++;
+			t.fire();
 		}
 	}
 	
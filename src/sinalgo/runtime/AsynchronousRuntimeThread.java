@@ -37,9 +37,13 @@
 package sinalgo.runtime;
 
 import sinalgo.configuration.Configuration;
+import sinalgo.io.checkpoint.CheckpointWriter;
+import sinalgo.io.replay.ReplayLog;
 import sinalgo.nodes.Node;
 import sinalgo.runtime.events.Event;
 import sinalgo.runtime.events.EventQueue;
+import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.ParallelEventExecutor;
 import sinalgo.tools.logging.LogL;
 
 /**
@@ -68,6 +72,9 @@ public class AsynchronousRuntimeThread extends Thread{
 	
 	private static Node lastEventNode = null;
 	
+	private static ParallelEventExecutor parallelExecutor = null; // executes the events in parallel, if enabled
+	private static boolean parallelExecutorInitialized = false;
+	
 	/**
 	 * The Condtructor for the AsynchronousRuntimeThread creating an instancs with a given GUIRuntime.
 	 *
@@ -95,6 +102,31 @@ public class AsynchronousRuntimeThread extends Thread{
 		}
 	}
 	
+	/**
+	 * Returns the executor to execute the events in parallel. The executor is
+	 * only created if more than one asynchronous thread is configured, and the 
+	 * simulation settings allow for a parallel execution. 
+	 * @return The executor to execute the events in parallel, null if the events 
+	 * need to be executed sequentially.
+	 */
+	private static ParallelEventExecutor getParallelExecutor() {
+		if(!parallelExecutorInitialized) {
+			parallelExecutorInitialized = true;
+			if(Configuration.asynchronousThreads > 1) {
+				double lookahead = Global.messageTransmissionModel.getMinimumTransmissionTime();
+				if(Configuration.interference || Configuration.generateNAckMessages) {
+					Main.warning("The events are executed sequentially, as the parallel asynchronous mode does not support interference and NACK messages.");
+				} else if(lookahead <= 0) {
+					Main.warning("The events are executed sequentially, as the message transmission model '" + 
+					             Global.messageTransmissionModel.getClass().getName() + "' provides no minimum transmission time.");
+				} else {
+					parallelExecutor = new ParallelEventExecutor(Configuration.asynchronousThreads, lookahead);
+				}
+			}
+		}
+		return parallelExecutor;
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Thread#run()
 	 */
@@ -106,6 +138,8 @@ public class AsynchronousRuntimeThread extends Thread{
 		if(!connectivityInitialized && Configuration.initializeConnectionsOnStartup){
 			initializeConnectivity();
 		}
+		
+		ParallelEventExecutor executor = getParallelExecutor();
 
 		for(long i = 0; i < numberOfEvents; i++) {
 			// In GUI-mode, check whether ABORT was pressed.
@@ -117,6 +151,25 @@ public class AsynchronousRuntimeThread extends Thread{
 				event.free(); // free the previous event
 				event = null;
 			}
+			if(executor != null) {
+				int numExecuted = executor.executeWindow(Runtime.eventQueue, numberOfEvents - i);
+				if(numExecuted > 0) {
+					long last = i + numExecuted - 1; // index of the last event executed in this window
+					if(Global.isGuiMode && (last + 1) / refreshRate > i / refreshRate && last + 1 < numberOfEvents) {
+						runtime.getGUI().setRoundsPerformed((Global.currentTime), EventQueue.eventNumber);
+						runtime.getGUI().setCurrentlyProcessedEvent(null);
+						runtime.getGUI().redrawGUINow();
+					}
+					i = last;
+					if(ReplayLog.isActive()) {
+						ReplayLog.window(numExecuted);
+					}
+					if(Configuration.checkpointInterval > 0) {
+						CheckpointWriter.writePeriodicCheckpoint(EventQueue.eventNumber);
+					}
+					continue;
+				}
+			}
 			event = Runtime.eventQueue.getNextEvent(); // returns null if there is no further event
 			
 			if(event == null && Configuration.handleEmptyEventQueue){
@@ -135,10 +188,19 @@ public class AsynchronousRuntimeThread extends Thread{
 			
 			Global.currentTime = event.time;
 			
-			event.handle(); // does not yet free the event
+			long first = i; // index of the first event executed in this iteration
+			if(Configuration.coalescePacketEvents && event instanceof PacketEvent) {
+				// does not yet free the event, and counts the events delivered together with it
+				i += ((PacketEvent) event).handleCoalesced(numberOfEvents - i) - 1;
+			} else {
+				event.handle(); // does not yet free the event
+			}
+			if(ReplayLog.isActive()) {
+				ReplayLog.event(event);
+			}
 			
 			if(Global.isGuiMode){
-				if(i%refreshRate == refreshRate -1 && i+1 < numberOfEvents){ // only perform if we continue with more events
+				if((i + 1) / refreshRate > first / refreshRate && i+1 < numberOfEvents){ // only perform if we continue with more events
 					if(lastEventNode != null){
 						lastEventNode.highlight(false);
 					}
@@ -151,6 +213,10 @@ public class AsynchronousRuntimeThread extends Thread{
 					runtime.getGUI().redrawGUINow();
 				}
 			}
+			
+			if(Configuration.checkpointInterval > 0) {
+				CheckpointWriter.writePeriodicCheckpoint(EventQueue.eventNumber);
+			}
 		}
 		
 		if(Global.isGuiMode){
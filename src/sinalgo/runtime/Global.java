@@ -37,7 +37,6 @@
 package sinalgo.runtime;
 
 
-import java.io.File;
 import java.util.Date;
 import java.util.Vector;
 
@@ -177,6 +176,9 @@ public class Global {
 	/**
 	 * Gathers all implementations contained in the project-folder and the default folder.
 	 * e.g. to get all mobility-models, set path to models/mobilityModels.
+	 * <p>
+	 * The content of the folders is cached in an index file in the binary folder,
+	 * and a folder is only listed again after its time stamp has changed.
 	 * 
 	 * @param subDir
 	 * @return A list of all class-names that are contained in the project or default folder.
@@ -211,6 +213,7 @@ public class Global {
 			// default project after the user implementations
 			includeDirForImplementations(Configuration.binaryDir + "/" + Configuration.defaultProjectDir + "/" + subDir, "defaultProject", result);
 		}
+		ImplementationIndex.store();
 		return result;
 	}
 	
@@ -221,18 +224,12 @@ public class Global {
 	 * @param result A vector to which the found implementaions are added in the form projectName:implName (for the default project just the implName)
 	 */
 	private static void includeDirForImplementations(String dirName, String projectName, Vector<String> result) {
-		File dir = new File(dirName);
-		String[] list = dir.list();
-		if(list != null) {
-			for(String s : list) {
-				// cut off the '.class', but prefix with the project name and a colon.
-				if(s.endsWith(".class") && !s.contains("$")) {
-					if(projectName.equals("defaultProject")) {
-						result.add(s.substring(0, s.lastIndexOf('.'))); // cut off the '.class'	
-					} else {
-						result.add(projectName + ":" + s.substring(0, s.lastIndexOf('.'))); // prefix with the project name
-					}
-				}
+		// the folders are listed only if they have changed since they were last listed 
+		for(String s : ImplementationIndex.getClassNames(dirName)) {
+			if(projectName.equals("defaultProject")) {
+				result.add(s);
+			} else {
+				result.add(projectName + ":" + s); // prefix with the project name
 			}
 		}
 	}
@@ -0,0 +1,185 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import sinalgo.configuration.Configuration;
+
+/**
+ * <b>This class is framework internal and should not be used by the project developer.</b>
+ * <p>
+ * An index of the classes contained in the implementation folders of the projects,
+ * which is used by <code>Global.getImplementations</code>.
+ * <p>
+ * The index is stored in a file in the binary folder, such that the folders need not be
+ * listed again when the simulation is started the next time. The entry of a folder is 
+ * valid as long as the time stamp of the folder is unchanged, i.e. until a class file 
+ * is added to or removed from the folder.  
+ */
+class ImplementationIndex {
+
+	private static final int VERSION = 1; // the version of the file format
+	private static final File indexFile = new File(Configuration.binaryDir + "/implementations.idx");
+
+	private static HashMap<String, Entry> entries = null; // the entry of each folder, null if not yet loaded
+	private static boolean changed = false; // true if the entries differ from the index file
+	
+	/**
+	 * Returns the names of the classes contained in a folder, without the 
+	 * '.class' suffix. Inner classes are not included. 
+	 * @param dirName The folder.
+	 * @return The names of the classes in the folder, an empty array if the folder does not exist.
+	 */
+	static synchronized String[] getClassNames(String dirName) {
+		if(entries == null) {
+			entries = new HashMap<String, Entry>();
+			load();
+		}
+		File dir = new File(dirName);
+		long modified = dir.lastModified(); // 0 if the folder does not exist
+		Entry e = entries.get(dirName);
+		if(e == null || e.modified != modified) {
+			e = new Entry(modified, listClasses(dir));
+			entries.put(dirName, e);
+			changed = true;
+		}
+		return e.classNames;
+	}
+	
+	/**
+	 * Writes the index file if an entry has changed since the index file was read or written. 
+	 */
+	static synchronized void store() {
+		if(!changed) {
+			return;
+		}
+		changed = false;
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+			try {
+				out.writeInt(VERSION);
+				out.writeInt(entries.size());
+				for(Map.Entry<String, Entry> me : entries.entrySet()) {
+					out.writeUTF(me.getKey());
+					out.writeLong(me.getValue().modified);
+					out.writeInt(me.getValue().classNames.length);
+					for(String s : me.getValue().classNames) {
+						out.writeUTF(s);
+					}
+				}
+			} finally {
+				out.close();
+			}
+		} catch(IOException e) {
+			// the index is only a cache - the folders are listed again next time
+			indexFile.delete();
+		}
+	}
+	
+	/**
+	 * Reads the entries from the index file. A missing or corrupt index file is ignored.
+	 */
+	private static void load() {
+		if(!indexFile.exists()) {
+			return;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if(in.readInt() != VERSION) {
+					return;
+				}
+				int numEntries = in.readInt();
+				for(int i = 0; i < numEntries; i++) {
+					String dirName = in.readUTF();
+					long modified = in.readLong();
+					String[] classNames = new String[in.readInt()];
+					for(int j = 0; j < classNames.length; j++) {
+						classNames[j] = in.readUTF();
+					}
+					entries.put(dirName, new Entry(modified, classNames));
+				}
+			} finally {
+				in.close();
+			}
+		} catch(IOException e) {
+			entries.clear(); // the folders are listed again
+		}
+	}
+	
+	/**
+	 * Lists the classes contained in a folder.
+	 * @param dir The folder.
+	 * @return The names of the classes in the folder, without the '.class' suffix.
+	 */
+	private static String[] listClasses(File dir) {
+		Vector<String> result = new Vector<String>();
+		String[] list = dir.list();
+		if(list != null) {
+			for(String s : list) {
+				if(s.endsWith(".class") && !s.contains("$")) {
+					result.add(s.substring(0, s.lastIndexOf('.'))); // cut off the '.class'
+				}
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+	
+	/**
+	 * The classes of a folder and the time stamp of the folder when it was listed. 
+	 */
+	private static class Entry {
+		long modified;
+		String[] classNames;
+		
+		Entry(long modified, String[] classNames) {
+			this.modified = modified;
+			this.classNames = classNames;
+		}
+	}
+}
@@ -53,6 +53,8 @@ import sinalgo.configuration.AppConfig;
 import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.gui.GUI;
 import sinalgo.gui.ProjectSelector;
+import sinalgo.io.messageTrace.MessageTraceRecorder;
+import sinalgo.io.replay.ReplayLog;
 import sinalgo.io.versionTest.VersionTester;
 import sinalgo.io.xml.XMLParser;
 import sinalgo.models.Model;
@@ -161,6 +163,28 @@ public class Main{
 		
 		// parse the -overwrite parameters
 		parseOverwriteParameters(args, true);
+		
+		// record or replay the run (before the random generator is used)
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-record") || args[i].equals("-replay")) {
+				if(i+1 >= args.length) {
+					Main.fatalError("Missing parameter: The command-line flag '" + args[i] + "' must " +
+					                "be followed by the name of the log file.");
+				}
+				if(ReplayLog.isActive()) {
+					Main.fatalError("You may only specify one of the flags '-record' and '-replay', and only once.");
+				}
+				if(args[i].equals("-record")) {
+					ReplayLog.startRecording(new File(args[i+1]));
+				} else {
+					File log = new File(args[i+1]);
+					if(!log.isFile()) {
+						Main.fatalError("Cannot find the log file '" + args[i+1] + "' given to the '-replay' flag.");
+					}
+					ReplayLog.startReplay(log);
+				}
+			}
+		}
 
 		// activate the logging (after all overwrite parameters have been handled)
 		Logging.activate();
@@ -223,6 +247,10 @@ public class Main{
 		VersionTester.testVersion(true, false);
 		
 		try{
+			if(Configuration.messageTrace) {
+				MessageTraceRecorder.start();
+			}
+			
 			//initialize the appropriate runtime environment
 			runtime.initializeRuntimeSystem(args);
 			
@@ -513,6 +541,9 @@ public class Main{
 								else if(field.getType() == long.class){
 									field.setLong(null, Long.parseLong(nameVal[1]));
 								}
+								else if(field.getType() == double.class){
+									field.setDouble(null, Double.parseDouble(nameVal[1]));
+								}
 								else{
 									try{
 										field.set(Configuration.class, nameVal[1]);
@@ -557,7 +588,10 @@ public class Main{
 	 */
 	public static void exitApplication() {
 		cleanup();
+		Logging.flushAll(); // write the pending log statements before the project's onExit output
 		Global.customGlobal.onExit(); // may perform some cleanup ops
+		MessageTraceRecorder.stop(); // write the remaining records
+		ReplayLog.stop();
 		System.exit(0);
 	}
 	
@@ -591,7 +625,7 @@ public class Main{
 	}
 	
 	private static void usage(PrintStream ps){
-		ps.println("Usage: {-help|-project|-gui|-batch|-gen|-refreshRate|-rounds|-overwrite}*\n" +
+		ps.println("Usage: {-help|-project|-gui|-batch|-gen|-restore|-refreshRate|-rounds|-overwrite}*\n" +
 		           "\n-help   Prints this help\n" +
 		           "\n-project name\n" +
 		           "        Initializes the simulation with the project 'name'\n" +
@@ -614,6 +648,14 @@ public class Main{
 		           "        \n" +
 		           "        For disambiguation, you may prefix any model-name with 'X='\n" +
 		           "        where X is {D|C|I|M|R} as used above for the corresponding model.\n"+
+		           "\n-restore file\n" +
+		           "        Continues the simulation stored in the checkpoint 'file'\n" +
+		           "        instead of calling the preRun() method of the CustomGlobal\n" +
+		           "\n-record file\n" +
+		           "        Records the decisions of the run to the log 'file'\n" +
+		           "\n-replay file\n" +
+		           "        Repeats the run recorded in the log 'file', and stops where\n" +
+		           "        the simulation diverges from the recorded run\n" +
 		           "\n-rounds x\n" +
 		           "        Immediately performs x rounds\n" +
 		           "\n-refreshRate x\n" +
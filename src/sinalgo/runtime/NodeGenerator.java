@@ -0,0 +1,352 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.models.ConnectivityModel;
+import sinalgo.models.DistributionModel;
+import sinalgo.models.InterferenceModel;
+import sinalgo.models.MobilityModel;
+import sinalgo.models.Model;
+import sinalgo.models.ModelType;
+import sinalgo.models.ReliabilityModel;
+import sinalgo.nodes.Node;
+import sinalgo.tools.Tuple;
+import sinalgo.tools.statistics.Distribution;
+
+/**
+ * <b>This class is framework internal and should not be used by the project developer.</b>
+ * <p>
+ * Generates the nodes specified by the -gen flag or by <code>Tools.generateNodes</code>.
+ * <p>
+ * By default, the nodes are generated one after the other: the node is constructed, placed 
+ * at the next position of the distribution model, its models are constructed, and it is 
+ * initialized and added to the framework. 
+ * <p>
+ * If <code>Configuration.nodeGenerationThreads</code> is larger than 1, the nodes are generated
+ * in batches. For each batch, the positions of all nodes are drawn from the distribution model.
+ * Then, the worker threads construct the nodes of the batch and the models specified for the 
+ * nodes in parallel. Finally, the nodes are placed, initialized and added to the framework 
+ * in the order of their IDs. The constructors of the nodes and the models must then be
+ * thread-safe. The first node is always constructed sequentially, such that the static
+ * members that the constructors initialize lazily are set before the workers start. 
+ * <p>
+ * The parallel generation is deterministic and does not depend on the number of threads: 
+ * The nodes receive the same IDs as in the sequential generation, and random numbers drawn
+ * in the constructors stem from a generator that is seeded from the seed of the simulation 
+ * and the ID of the node. 
+ */
+public class NodeGenerator {
+
+	private static final int BATCH_SIZE = 1 << 13; // the number of nodes per batch
+
+	private String nodeTypeName;
+	private DistributionModel distribution;
+	private Vector<Tuple<ModelType, Class<?>>> models; // the models specified for the nodes
+	private String[] modelNames, modelParams; // the names and parameters of the models
+	
+	// the state of the current batch
+	private Node[] batch = new Node[0];
+	private double[] x = new double[0], y = new double[0], z = new double[0]; // the positions of the nodes of the batch
+	private int firstID; // the ID of the first node of the batch
+	
+	private Worker[] workers = null;
+	private CyclicBarrier startBarrier, endBarrier; // to synchronize the workers with the generating thread
+	private boolean finished = false; // set to true to terminate the workers
+
+	/**
+	 * Creates a new node generator.
+	 * @param nodeTypeName The name of the node implementation.
+	 * @param distribution The distribution model that places the nodes, which is initialized.
+	 * @param models The models specified for the nodes, the remaining models are set to the default models.
+	 * @param modelNames The names of the specified models, only used for the error messages.
+	 * @param modelParams The parameter string of each specified model.
+	 */
+	public NodeGenerator(String nodeTypeName, DistributionModel distribution, Vector<Tuple<ModelType, Class<?>>> models, 
+	                     String[] modelNames, String[] modelParams) {
+		this.nodeTypeName = nodeTypeName;
+		this.distribution = distribution;
+		this.models = models;
+		this.modelNames = modelNames;
+		this.modelParams = modelParams;
+	}
+	
+	/**
+	 * Generates nodes and adds them to the framework. 
+	 * @param numNodes The number of nodes to generate. 
+	 * @param progress The runtime to which the progress is reported, null if the progress is not reported.
+	 */
+	public void generate(int numNodes, Runtime progress) {
+		Runtime.nodes.ensureCapacity(Runtime.nodes.size() + numNodes, Node.getIDCounter() + numNodes);
+		if(Configuration.nodeGenerationThreads <= 1 || numNodes <= 1) {
+			for(int j = 0; j < numNodes; j++) {
+				if(progress != null) {
+					progress.setProgress(100.0d * j / numNodes);
+				}
+				Node node = createNode();
+				node.setPosition(distribution.getNextPosition());
+				setModels(node);
+				// set default models
+				node.finishInitializationWithDefaultModels(true);
+			}
+			return;
+		}
+		startWorkers();
+		int generated = 0;
+		while(generated < numNodes) {
+			if(progress != null) {
+				progress.setProgress(100.0d * generated / numNodes);
+			}
+			int count = Math.min(BATCH_SIZE, numNodes - generated);
+			generateBatch(count, generated == 0);
+			generated += count;
+		}
+		stopWorkers();
+	}
+	
+	/**
+	 * Generates a batch of nodes.
+	 * @param count The number of nodes in the batch.
+	 * @param first True if this is the first batch of the generation.
+	 */
+	private void generateBatch(int count, boolean first) {
+		if(batch.length < count) {
+			batch = new Node[count];
+			x = new double[count];
+			y = new double[count];
+			z = new double[count];
+		}
+		distribution.getNextPositions(x, y, z, count);
+		firstID = Node.getIDCounter() + 1;
+		int start = 0;
+		if(first) { // construct the first node sequentially
+			batch[0] = createNode();
+			setModels(batch[0]);
+			batch[0].finishInitializationWithDefaultModels(false);
+			start = 1;
+		}
+		for(int w = 0; w < workers.length; w++) {
+			workers[w].firstNode = start + (int) ((long) (count - start) * w / workers.length);
+			workers[w].lastNode = start + (int) ((long) (count - start) * (w + 1) / workers.length);
+		}
+		if(!await(startBarrier) || !await(endBarrier)) {
+			Main.fatalError("The parallel generation of the nodes was interrupted.");
+		}
+		Node.setIDCounter(firstID + count - 1);
+		// place, initialize and add the nodes in the order of their IDs: setPosition, init() 
+		// and the nodeAddedEvent call project code, which may access the nodes added before
+		for(int i = 0; i < count; i++) {
+			Node node = batch[i];
+			batch[i] = null;
+			node.setPosition(x[i], y[i], z[i]);
+			node.finishInitializationWithDefaultModels(true);
+		}
+	}
+	
+	/**
+	 * Constructs a node of the node type of this generator.
+	 * @return The new node.
+	 */
+	private Node createNode() {
+		Node node = null;
+		try{
+			node = Node.createNodeByClassname(nodeTypeName);
+		}
+		catch(WrongConfigurationException e){
+			Main.fatalError(e);
+		}
+		return node;
+	}
+	
+	/**
+	 * Constructs the models specified for the nodes and assigns them to a node. 
+	 * @param node The node.
+	 */
+	private void setModels(Node node) {
+		for(int k=0; k<models.size(); k++) {
+			Tuple<ModelType, Class<?>> tmp = models.elementAt(k);
+			try {
+				// shared among the nodes with the same parameter string if the model is stateless
+				Model m = Model.newModelInstance(tmp.second, modelParams[k]);
+				switch(tmp.first) {
+				case ConnectivityModel: {
+					node.setConnectivityModel((ConnectivityModel) m);
+				} break;
+				case MobilityModel: {
+					node.setMobilityModel((MobilityModel) m);
+				} break;
+				case InterferenceModel: {
+					node.setInterferenceModel((InterferenceModel) m);
+				} break;
+				case ReliabilityModel: {
+					node.setReliabilityModel((ReliabilityModel) m);
+				} break;
+				default: {
+					assert false; // bug if here
+				} break;
+				}
+			} catch(IllegalAccessException e) {
+				Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' due to illegal access. " +
+				                "(The model needs a public constructor w/o parameters.):\n" + e);
+			} catch(InstantiationException e) {
+				Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
+				                "(The model needs a public constructor w/o parameters.):\n" + e);
+			} catch (SecurityException e) {
+				Main.fatalError("Cannot generate instance of the model'" + modelNames[k] + "' " +
+				                "(Probably not sufficient security permissions.):\n" + e);
+			} catch (NoSuchMethodException e) {
+				Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
+				                "(The model needs a public constructor w/o parameters.):\n" + e);
+			} catch (IllegalArgumentException e) {
+				Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
+				                "(The model needs a public constructor w/o parameters.):\n" + e);
+			} catch (InvocationTargetException e) {
+				// The constructor has thrown an exception
+				Main.fatalError(e.getCause().getMessage() + "\n\nMore Info:\n" + e.getCause());
+			}
+		}
+	}
+	
+	/**
+	 * Starts the worker threads.
+	 */
+	private void startWorkers() {
+		int numberOfThreads = Configuration.nodeGenerationThreads;
+		startBarrier = new CyclicBarrier(numberOfThreads + 1);
+		endBarrier = new CyclicBarrier(numberOfThreads + 1);
+		finished = false;
+		workers = new Worker[numberOfThreads];
+		for(int i = 0; i < numberOfThreads; i++) {
+			workers[i] = new Worker(i);
+			workers[i].start();
+		}
+	}
+	
+	/**
+	 * Terminates the worker threads.
+	 */
+	private void stopWorkers() {
+		finished = true;
+		await(startBarrier);
+		workers = null;
+	}
+	
+	private boolean await(CyclicBarrier barrier) {
+		try {
+			barrier.await();
+			return true;
+		} catch(InterruptedException e) {
+			return false;
+		} catch(BrokenBarrierException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Called by the constructor of the nodes to obtain their ID. 
+	 * @return The ID reserved for the node constructed by the calling thread, 
+	 * 0 if the calling thread is not a worker of the parallel node generation. 
+	 */
+	public static int getReservedID() {
+		Thread t = Thread.currentThread();
+		if(t instanceof Worker) {
+			int id = ((Worker) t).reservedID;
+			((Worker) t).reservedID = 0;
+			return id;
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return The random number generator of the worker executing on the current 
+	 * thread, null if the current thread is not a worker of the parallel node generation.
+	 */
+	public static Random getWorkerRandom() {
+		Thread t = Thread.currentThread();
+		if(t instanceof Worker) {
+			return ((Worker) t).random;
+		}
+		return null;
+	}
+	
+	/**
+	 * A worker thread, which constructs a contiguous range of the nodes of each batch. 
+	 */
+	private class Worker extends Thread {
+		int firstNode, lastNode; // the range of nodes of this worker in the current batch
+		int reservedID = 0; // the ID of the node this worker constructs next
+		Random random = Distribution.newPartitionRandom(0); // reseeded for each node 
+		
+		Worker(int partition) {
+			super("NodeGenerator-" + partition);
+			setDaemon(true);
+			setUncaughtExceptionHandler(new MyUncaughtExceptionHandler());
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Thread#run()
+		 */
+		public void run() {
+			long seed = Distribution.getSeed();
+			while(true) {
+				if(!await(startBarrier) || finished) {
+					return;
+				}
+				for(int i = firstNode; i < lastNode; i++) {
+					reservedID = firstID + i;
+					random.setSeed(seed ^ (reservedID * 0x9E3779B97F4A7C15L));
+					Node node = createNode();
+					setModels(node);
+					node.finishInitializationWithDefaultModels(false); // only sets the default models
+					batch[i] = node;
+				}
+				if(!await(endBarrier)) {
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime;
+
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import sinalgo.models.ConnectivityModel;
+import sinalgo.models.ConnectivityModelHelper;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.Position;
+import sinalgo.tools.statistics.Distribution;
+
+/**
+ * Executes the mobility and the connectivity phase of the synchronous rounds in parallel.
+ * <p>
+ * The nodes are split into contiguous partitions, one for each worker thread. In the 
+ * mobility phase, each worker determines the next position of its nodes. The nodes are 
+ * then moved in a merge step, in the order of the nodes, which updates the node collection.
+ * <p>
+ * In the connectivity phase, each worker evaluates <code>isConnected</code> for the 
+ * possible neighbors of its nodes, if the connectivity model of the node is a 
+ * <code>ConnectivityModelHelper</code> that does not overwrite <code>updateConnections</code>.
+ * The edges are added and removed in the merge step, in the order of the nodes, such that the 
+ * resulting edges are the same as in the sequential execution. The connections of all other 
+ * nodes are updated sequentially in the merge step. 
+ * <p>
+ * The execution is deterministic for a given number of threads: Each worker draws
+ * its random numbers from its own generator, which is seeded from the seed of the 
+ * simulation, the round and the partition.
+ */
+public class ParallelRoundExecutor {
+	
+	private static final int MOBILITY = 0, CONNECTIVITY = 1; // the phases
+	
+	private Worker[] workers;
+	private CyclicBarrier startBarrier, endBarrier; // to synchronize the workers with the runtime thread
+	private int phase = MOBILITY;
+	
+	private Node[] nodes = new Node[0]; // the nodes, in the order of the node collection
+	private int numNodes = 0;
+	private Position[] nextPositions = new Position[0]; // the positions determined in the mobility phase
+	private int[] connectionsEnd = new int[0]; // end of the connections of each node in the list of its worker, -1 if evaluated sequentially
+	
+	/**
+	 * Creates a new executor and starts its worker threads.
+	 * @param numberOfThreads The number of worker threads, at least 1.
+	 */
+	public ParallelRoundExecutor(int numberOfThreads) {
+		startBarrier = new CyclicBarrier(numberOfThreads + 1);
+		endBarrier = new CyclicBarrier(numberOfThreads + 1);
+		workers = new Worker[numberOfThreads];
+		for(int i = 0; i < numberOfThreads; i++) {
+			workers[i] = new Worker(i);
+			workers[i].start();
+		}
+	}
+	
+	/**
+	 * Moves all nodes according to their mobility model. 
+	 */
+	public void performMobility() {
+		execute(MOBILITY);
+		// merge: move the nodes in the node collection 
+		for(int i = 0; i < numNodes; i++) {
+			nodes[i].setPosition(nextPositions[i]);
+			nextPositions[i] = null;
+		}
+	}
+	
+	/**
+	 * Updates the outgoing connections of all nodes. 
+	 */
+	public void performConnectivity() {
+		execute(CONNECTIVITY);
+		// merge: add and remove the edges in the order of the nodes
+		for(Worker w : workers) {
+			int start = 0;
+			for(int i = w.firstNode; i < w.lastNode; i++) {
+				Node n = nodes[i];
+				int end = connectionsEnd[i];
+				if(end < 0) {
+					n.updateConnections();
+				} else {
+					ConnectivityModelHelper cm = (ConnectivityModelHelper) n.getConnectivityModel();
+					n.setNeighborhoodChanged(cm.applyConnections(n, w.connections, start, end));
+					start = end;
+				}
+			}
+			w.connections.clear();
+		}
+		for(int i = 0; i < numNodes; i++) {
+			nodes[i] = null;
+		}
+	}
+	
+	/**
+	 * Assigns the nodes to the workers and executes the given phase in parallel.
+	 * @param phase The phase to execute
+	 */
+	private void execute(int phase) {
+		this.phase = phase;
+		numNodes = Runtime.nodes.size();
+		if(nodes.length < numNodes) {
+			nodes = new Node[numNodes];
+			nextPositions = new Position[numNodes];
+			connectionsEnd = new int[numNodes];
+		}
+		int i = 0;
+		for(Node n : Runtime.nodes) {
+			nodes[i++] = n;
+		}
+		long seed = Distribution.getSeed() ^ ((long) Global.currentTime * 0x9E3779B97F4A7C15L);
+		for(int w = 0; w < workers.length; w++) {
+			workers[w].firstNode = (int) ((long) numNodes * w / workers.length);
+			workers[w].lastNode = (int) ((long) numNodes * (w + 1) / workers.length);
+			workers[w].random.setSeed(seed + 2 * w + phase);
+		}
+		if(!await(startBarrier) || !await(endBarrier)) {
+			Main.fatalError("The execution of a round in the parallel synchronous mode was interrupted.");
+		}
+	}
+	
+	private boolean await(CyclicBarrier barrier) {
+		try {
+			barrier.await();
+			return true;
+		} catch(InterruptedException e) {
+			return false;
+		} catch(BrokenBarrierException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * @return The random number generator of the worker executing on the current 
+	 * thread, null if the current thread is not a worker of the parallel synchronous mode.
+	 */
+	public static Random getWorkerRandom() {
+		Thread t = Thread.currentThread();
+		if(t instanceof Worker) {
+			return ((Worker) t).random;
+		}
+		return null;
+	}
+	
+	/**
+	 * A worker thread, which executes the phases for a contiguous range of the nodes. 
+	 */
+	private class Worker extends Thread {
+		int firstNode, lastNode; // the range of nodes of this worker
+		Random random = Distribution.newPartitionRandom(0); // reseeded for each phase 
+		ArrayList<Node> connections = new ArrayList<Node>(); // the connections found for the nodes of this worker
+		
+		Worker(int partition) {
+			super("ParallelRoundWorker-" + partition);
+			setDaemon(true);
+			setUncaughtExceptionHandler(new MyUncaughtExceptionHandler());
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Thread#run()
+		 */
+		public void run() {
+			while(await(startBarrier)) {
+				if(phase == MOBILITY) {
+					for(int i = firstNode; i < lastNode; i++) {
+						Node n = nodes[i];
+						nextPositions[i] = n.getMobilityModel().getNextPos(n);
+					}
+				} else {
+					for(int i = firstNode; i < lastNode; i++) {
+						Node n = nodes[i];
+						ConnectivityModel cm = n.getConnectivityModel();
+						if(cm instanceof ConnectivityModelHelper && ((ConnectivityModelHelper) cm).isParallelizable()) {
+							((ConnectivityModelHelper) cm).findConnections(n, connections);
+							connectionsEnd[i] = connections.size();
+						} else {
+							connectionsEnd[i] = -1;
+						}
+					}
+				}
+				if(!await(endBarrier)) {
+					return;
+				}
+			}
+		}
+	}
+}
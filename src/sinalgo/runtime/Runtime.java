@@ -38,10 +38,10 @@ package sinalgo.runtime;
 
 
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Enumeration;
 import java.util.Vector;
 
 import sinalgo.configuration.AppConfig;
@@ -51,19 +51,19 @@ import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.gui.GUI;
 import sinalgo.gui.GraphPanel;
 import sinalgo.gui.transformation.PositionTransformation;
+import sinalgo.io.checkpoint.CheckpointReader;
 import sinalgo.io.mapIO.Map;
-import sinalgo.models.ConnectivityModel;
 import sinalgo.models.DistributionModel;
-import sinalgo.models.InterferenceModel;
-import sinalgo.models.MobilityModel;
+import sinalgo.models.KineticConnectivityModelHelper;
 import sinalgo.models.Model;
 import sinalgo.models.ModelType;
-import sinalgo.models.ReliabilityModel;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.TimerCollection;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.runtime.events.Event;
 import sinalgo.runtime.events.EventQueue;
 import sinalgo.runtime.nodeCollection.NodeCollectionInterface;
+import sinalgo.runtime.nodeCollection.NodeOrdering;
 import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
 import sinalgo.tools.Tools;
 import sinalgo.tools.Tuple;
@@ -125,6 +125,9 @@ public abstract class Runtime{
 	
 	protected boolean nodeCreationFinished = true;
 	
+	// the checkpoint from which the simulation is restored, null if the simulation starts from scratch
+	private File restoreFile = null;
+	
 	/**
 	 * The constructor for the Runtime class. It initializes some basic variables. (like the map)
 	 *
@@ -153,6 +156,13 @@ public abstract class Runtime{
 	 * Called exactly once just before the <code>run</code> is called the first time.
 	 */
 	public void preRun() {
+		if(restoreFile != null) {
+			// continue the simulation stored in the checkpoint, which was already ordered and initialized 
+			new CheckpointReader(restoreFile).read();
+			return;
+		}
+		// store the nodes in the order given in the configuration file
+		NodeOrdering.reorder();
 		// call the preRun() method of the CustomGlobal, if there was a project specified.
 		Global.customGlobal.preRun();
 	}
@@ -355,9 +365,24 @@ public abstract class Runtime{
 				i--; // point to last processed entry, for-loop increments i afterwards
 				
 			}
+			else if(args[i].equals("-restore")){
+				if(i+1 >= args.length) {
+					Main.fatalError("Missing parameter: The command-line flag '-restore' must " +
+					"be followed by the name of the checkpoint file."); 
+				}
+				restoreFile = new File(args[i+1]);
+				if(!restoreFile.isFile()) {
+					Main.fatalError("Cannot find the checkpoint file '" + args[i+1] + "' given to the '-restore' flag.");
+				}
+				i++; // don't have to look at args[i+1] anymore
+			}
 			else if(args[i].equals("-project")){
 				// omitting -project as is was already used in the main class.
 			}
+			else if(args[i].equals("-record") || args[i].equals("-replay")){
+				// omitting the log file as it was already used in the main class.
+				i++;
+			}
 			else if(args[i].equals("-gui")){
 				// omitting -gui as is was already used in the main class.
 			}
@@ -425,6 +450,7 @@ public abstract class Runtime{
 	 */
 	public static void addNode(Node n){
 		nodes.addNode(n);
+		KineticConnectivityModelHelper.nodeAdded(n);
 		Global.customGlobal.nodeAddedEvent(n);
 		if(Global.isGuiMode){
 			try {
@@ -451,20 +477,22 @@ public abstract class Runtime{
 	 */
 	public static void removeNode(Node n){
 		// remove the outgoing connections from neighbor to this nodes
-		// TODO: This is really expensive! Can't we have a better data structure?
-		//       The problem so far is the 'getRandomNode' method
-		Enumeration<Node> nodeEnumer = nodes.getNodeEnumeration();
-		while(nodeEnumer.hasMoreElements()){
-			Node node = nodeEnumer.nextElement();
-			Edge e = node.outgoingConnections.remove(node, n); // does only remove it it really exists
+		Edge incoming;
+		while((incoming = n.incomingConnections.peek()) != null) {
+			Node node = incoming.startNode;
+			Edge e = node.outgoingConnections.remove(node, n); // also removes the edge from the incoming connections
 			if(e != null) {
 				e.free();
+			} else {
+				n.incomingConnections.remove(incoming); // not an outgoing connection of its start node anymore
 			}
 		}
 		n.outgoingConnections.removeAndFreeAllEdges();
 		
 		nodes.removeNode(n);
+		n.connectivityModelInfo = null;
 		eventQueue.removeAllEventsForThisNode(n); 
+		n.getTimers().removeAll(); // remove its timers from the shared timing wheel
 		if(Global.isGuiMode){
 			// un highlight this node
 			Tools.getGUI().getGraphPanel().setNodeHighlighted(n, false);
@@ -544,6 +572,7 @@ public abstract class Runtime{
 	 * Reevaluates all the connections (edges) between all the nodes currently in the graph.
 	 */
 	public static void reevaluateConnections(){
+		KineticConnectivityModelHelper.reset();
 		for(Node n: nodes){
 			n.getConnectivityModel().updateConnections(n);
 		}
@@ -557,6 +586,7 @@ public abstract class Runtime{
 	 */
 	public static void clearAllNodes() {
 		eventQueue.pruneAllNodeEvents();
+		TimerCollection.clearAllTimers(); // the node timers of the synchronous mode
 
 		packetsInTheAir = new PacketsInTheAirBuffer();
 		for(Node n : nodes) {
@@ -590,68 +620,8 @@ public abstract class Runtime{
 	 */
 	public synchronized void createNodes() {
 		// Create the nodes
-		for(int j=0; j< numNodes; j++) {
-			
-			this.setProgress(100.0d* j/ numNodes);
-			
-			Node node = null;
-			try{
-				node = Node.createNodeByClassname(nodeTypeName);
-			}
-			catch(WrongConfigurationException e){
-				Main.fatalError(e);
-			}
-			node.setPosition(nodeDistribution.getNextPosition());
-			
-			// set the models 
-			for(int k=0; k<numSpecifiedModels; k++) {
-				Tuple<ModelType, Class<?>> tmp = models.elementAt(k);
-				try {
-					// NOTE: we could also call newInstance() on the class-object. But this would not encapsulate 
-					// exceptions that may be thrown in the constructor.
-					Constructor<?> constructor = tmp.second.getConstructor();
-					Model m = (Model) constructor.newInstance();
-					m.setParamString(modelParams[k]); // set the parameter string for this model
-					switch(tmp.first) {
-					case ConnectivityModel: {
-						node.setConnectivityModel((ConnectivityModel) m);
-					} break;
-					case MobilityModel: {
-						node.setMobilityModel((MobilityModel) m);
-					} break;
-					case InterferenceModel: {
-						node.setInterferenceModel((InterferenceModel) m);
-					} break;
-					case ReliabilityModel: {
-						node.setReliabilityModel((ReliabilityModel) m);
-					} break;
-					default: {
-						assert false; // bug if here
-					} break;
-					}
-				} catch(IllegalAccessException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' due to illegal access. " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch(InstantiationException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (SecurityException e) {
-					Main.fatalError("Cannot generate instance of the model'" + modelNames[k] + "' " +
-					                "(Probably not sufficient security permissions.):\n" + e);
-				} catch (NoSuchMethodException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (IllegalArgumentException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (InvocationTargetException e) {
-					// The constructor has thrown an exception
-					Main.fatalError(e.getCause().getMessage() + "\n\nMore Info:\n" + e.getCause());
-				}
-			}
-			// set default models
-			node.finishInitializationWithDefaultModels(true);
-		}
+		NodeGenerator generator = new NodeGenerator(nodeTypeName, nodeDistribution, models, modelNames, modelParams);
+		generator.generate(numNodes, this);
 		//the system nodes are initialized and thus the waiting thread (the main-Thread) can be invoked again. (If it is still waiting
 		nodeCreationFinished = true;
 		
@@ -41,7 +41,10 @@ import java.util.Date;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.WrongConfigurationException;
+import sinalgo.io.checkpoint.CheckpointWriter;
+import sinalgo.io.replay.ReplayLog;
 import sinalgo.nodes.Node;
+import sinalgo.nodes.TimerCollection;
 import sinalgo.tools.logging.LogL;
 
 
@@ -79,6 +82,21 @@ public class SynchronousRuntimeThread extends Thread {
 		runtime = null;
 	}
 	
+	private static ParallelRoundExecutor parallelExecutor = null; // executes the mobility and connectivity in parallel, if enabled
+	
+	/**
+	 * Returns the executor to perform the mobility and connectivity phase in parallel.
+	 * The executor is only created if more than one synchronous thread is configured.
+	 * @return The executor to perform the phases in parallel, null if the phases 
+	 * need to be executed sequentially.
+	 */
+	private static ParallelRoundExecutor getParallelExecutor() {
+		if(parallelExecutor == null && Configuration.synchronousThreads > 1) {
+			parallelExecutor = new ParallelRoundExecutor(Configuration.synchronousThreads);
+		}
+		return parallelExecutor;
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Runnable#run()
 	 */
@@ -103,25 +121,50 @@ public class SynchronousRuntimeThread extends Thread {
 
 			Global.customGlobal.preRound();
 			Global.customGlobal.handleGlobalTimers();
+			if(ReplayLog.isActive()) {
+				ReplayLog.phase(ReplayLog.PHASE_GLOBAL);
+			}
+			
+			ParallelRoundExecutor executor = getParallelExecutor();
 			
 			//Mobility is performed in a separate iteration over all nodes to avoid inconsistencies.			
 			if(Configuration.mobility){
-				for(Node n : Runtime.nodes) {
-					n.setPosition(n.getMobilityModel().getNextPos(n));
+				if(executor != null) {
+					executor.performMobility();
+				} else {
+					for(Node n : Runtime.nodes) {
+						n.setPosition(n.getMobilityModel().getNextPos(n));
+					}
+				}
+				if(ReplayLog.isActive()) {
+					ReplayLog.phase(ReplayLog.PHASE_MOBILITY);
 				}
 			}
 
 			// Before the nodes perform their step, the entire network graph is updated
 			// such that all nodes see the same network when they perform their step.
-			for(Node n : Runtime.nodes) {
-				n.updateConnections();
+			if(executor != null) {
+				executor.performConnectivity();
+			} else {
+				for(Node n : Runtime.nodes) {
+					n.updateConnections();
+				}
+			}
+			if(ReplayLog.isActive()) {
+				ReplayLog.phase(ReplayLog.PHASE_CONNECTIVITY);
 			}
 
 			// Test all messages still being sent for interference
 			if(Configuration.interference) {
 				Runtime.packetsInTheAir.testForInterference();
+				if(ReplayLog.isActive()) {
+					ReplayLog.phase(ReplayLog.PHASE_INTERFERENCE);
+				}
 			}
 			
+			// Hand out the timers that go off in this round to their nodes
+			TimerCollection.handOutDueTimers(Global.currentTime);
+			
 			// Perform the step for each node
 			try{
 				for(Node n : Runtime.nodes) {
@@ -136,8 +179,14 @@ public class SynchronousRuntimeThread extends Thread {
 				Global.isRunning = false;
 				return;
 			}
+			if(ReplayLog.isActive()) {
+				ReplayLog.phase(ReplayLog.PHASE_NODES);
+			}
 			
 			Global.customGlobal.postRound();
+			if(ReplayLog.isActive()) {
+				ReplayLog.phase(ReplayLog.PHASE_POST_ROUND);
+			}
 			
 			if(Global.isGuiMode) { //redraw the graph all 'refreshRate' Steps except the last
 				if((i%refreshRate) == (refreshRate-1)){
@@ -169,9 +218,13 @@ public class SynchronousRuntimeThread extends Thread {
 			Global.numberOfMessagesOverAll += Global.numberOfMessagesInThisRound;
 			
 			if(LogL.ROUND_DETAIL){
-				Global.log.logln("Round "+(Global.currentTime)+" finished");
-				Global.log.logln("In this round "+Global.numberOfMessagesInThisRound+" Messages were sent");
-				Global.log.logln("Overall "+Global.numberOfMessagesOverAll+" Messages were sent\n");
+				Global.log.logln(LogL.ROUND_DETAIL, "Round {} finished", Global.currentTime);
+				Global.log.logln(LogL.ROUND_DETAIL, "In this round {} Messages were sent", Global.numberOfMessagesInThisRound);
+				Global.log.logln(LogL.ROUND_DETAIL, "Overall {} Messages were sent\n", Global.numberOfMessagesOverAll);
+			}
+			
+			if(Configuration.checkpointInterval > 0) {
+				CheckpointWriter.writePeriodicCheckpoint((long) Global.currentTime);
 			}
 		}
 		
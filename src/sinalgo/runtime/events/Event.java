@@ -53,6 +53,9 @@ public abstract class Event implements DoublyLinkedListEntry {
 	long id = 0;
 	protected static long nextId = 1;
 	
+	// the links to the other events of the same node in the event queue, see Node.firstPendingEvent
+	Event previousOfNode, nextOfNode;
+	
 	/**
 	 * Returns a string representation of the time when this event
 	 * executes, truncated to the given number of digits.  
@@ -68,7 +71,41 @@ public abstract class Event implements DoublyLinkedListEntry {
 		double temp = Math.round(time * factor) / factor;
 		return Double.toString(temp);
 	}
-	
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return The id that orders this event among the events with the same time.
+	 */
+	public long getID() {
+		return id;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Sets the id of an event that is restored from a checkpoint. The event must not be
+	 * in the event queue.
+	 * @param id The id of the event.
+	 */
+	public void setID(long id) {
+		this.id = id;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @return The id that is given to the next event.
+	 */
+	public static long getNextID() {
+		return nextId;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * @param id The id to give to the next event.
+	 */
+	public static void setNextID(long id) {
+		nextId = id;
+	}
+
 	/**
 	 * Creates an event with a given time to execute and a given node to execute on.
 	 *
@@ -93,6 +93,11 @@ public class EventQueue extends TreeSet<Event> {
 	 * @param e The event to add to the queue.
 	 */
 	public void insert(Event e){
+		ParallelEventWorker worker = ParallelEventWorker.current();
+		if(worker != null) { // the event was created while executing a time window in parallel
+			worker.schedule(e);
+			return;
+		}
 		this.add(e);
 		notifyListeners();
 	}
@@ -109,23 +114,17 @@ public class EventQueue extends TreeSet<Event> {
 	public void removeAllEventsForThisNode(Node n){
 		boolean changed = false;
 		
-		Iterator<Event> eventIter = iterator();
-		while(eventIter.hasNext()){
-			Event e = eventIter.next();
-			if(e.isNodeEvent() && n.equals(e.getEventNode())) {
-				// an event that would execute on this node
-				eventIter.remove();
-				e.free(); // free the event (and also the packet, if it's a packet event)
-				changed = true;
-			} else {
-				// test whether it's a msg event sent by this node, then invalidate
-				if(e instanceof PacketEvent) {
-					PacketEvent pe = (PacketEvent) e;
-					if(pe.packet.origin.equals(n)) {
-						pe.packet.denyDelivery();
-					}
-				}
-			}
+		Event e;
+		while((e = n.firstPendingEvent) != null) {
+			// an event that would execute on this node
+			super.remove(e);
+			removeFromIndex(e);
+			e.free(); // free the event (and also the packet, if it's a packet event)
+			changed = true;
+		}
+		// invalidate the msg events sent by this node
+		for(PacketEvent pe = n.firstSentPacketEvent; pe != null; pe = pe.nextOfSender) {
+			pe.packet.denyDelivery();
 		}
 		
 		if(changed){
@@ -142,23 +141,98 @@ public class EventQueue extends TreeSet<Event> {
 	 * @param toDelFor The edge to remove all the events for.
 	 */
 	public void invalidatePacketEventsForThisEdge(Edge toDelFor){
-		boolean changed = false;
-		
-		Iterator<Event> eventIter = iterator();
-		while(eventIter.hasNext()){
-			Event eventInQueue = eventIter.next();
-			if(eventInQueue instanceof PacketEvent){
-				PacketEvent pe = (PacketEvent) eventInQueue;
-				if(pe.packet.edge != null && toDelFor.getID() == pe.packet.edge.getID()) {
-					pe.packet.positiveDelivery = false;
-					pe.packet.edge = null; // the edge may not exist anymore
-					changed = true;
+		if(toDelFor.invalidatePacketsInFlight()){
+			notifyListeners();
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.util.TreeSet#add(java.lang.Object)
+	 */
+	public boolean add(Event e) {
+		if(super.add(e)) {
+			addToIndex(e);
+			return true;
+		}
+		return false;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.util.TreeSet#remove(java.lang.Object)
+	 */
+	public boolean remove(Object o) {
+		if(super.remove(o)) {
+			removeFromIndex((Event) o);
+			return true;
+		}
+		return false;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.util.TreeSet#clear()
+	 */
+	public void clear() {
+		for(Event e : this) {
+			removeFromIndex(e);
+		}
+		super.clear();
+	}
+	
+	/**
+	 * Adds an event that was inserted into this queue to the list of pending 
+	 * events of its node, and a packet event to the list of sent packets of the sender.
+	 * @param e The event that was inserted into this queue
+	 */
+	private void addToIndex(Event e) {
+		if(e.isNodeEvent()) {
+			Node n = e.getEventNode();
+			e.previousOfNode = null;
+			e.nextOfNode = n.firstPendingEvent;
+			if(n.firstPendingEvent != null) {
+				n.firstPendingEvent.previousOfNode = e;
+			}
+			n.firstPendingEvent = e;
+			if(e instanceof PacketEvent) {
+				PacketEvent pe = (PacketEvent) e;
+				Node sender = pe.packet.origin;
+				pe.previousOfSender = null;
+				pe.nextOfSender = sender.firstSentPacketEvent;
+				if(sender.firstSentPacketEvent != null) {
+					sender.firstSentPacketEvent.previousOfSender = pe;
 				}
+				sender.firstSentPacketEvent = pe;
 			}
 		}
-		
-		if(changed){
-			notifyListeners();
+	}
+	
+	/**
+	 * Removes an event that was taken out of this queue from the index lists.
+	 * Must be called before the event is freed.  
+	 * @param e The event that was removed from this queue
+	 */
+	private void removeFromIndex(Event e) {
+		if(e.isNodeEvent()) {
+			if(e.previousOfNode != null) {
+				e.previousOfNode.nextOfNode = e.nextOfNode;
+			} else {
+				e.getEventNode().firstPendingEvent = e.nextOfNode;
+			}
+			if(e.nextOfNode != null) {
+				e.nextOfNode.previousOfNode = e.previousOfNode;
+			}
+			e.previousOfNode = e.nextOfNode = null;
+			if(e instanceof PacketEvent) {
+				PacketEvent pe = (PacketEvent) e;
+				if(pe.previousOfSender != null) {
+					pe.previousOfSender.nextOfSender = pe.nextOfSender;
+				} else {
+					pe.packet.origin.firstSentPacketEvent = pe.nextOfSender;
+				}
+				if(pe.nextOfSender != null) {
+					pe.nextOfSender.previousOfSender = pe.previousOfSender;
+				}
+				pe.previousOfSender = pe.nextOfSender = null;
+			}
 		}
 	}
 	
@@ -173,6 +247,7 @@ public class EventQueue extends TreeSet<Event> {
 		while(eventIter.hasNext()){
 			Event e = eventIter.next();
 			if(e.isNodeEvent()) {
+				removeFromIndex(e);
 				e.free(); // also frees a corresponding packet event, inclusive the packet
 			} else {
 				eq.add(e);
@@ -190,6 +265,7 @@ public class EventQueue extends TreeSet<Event> {
 		Iterator<Event> eventIter = iterator();
 		while(eventIter.hasNext()){
 			Event e = eventIter.next();
+			removeFromIndex(e);
 			e.drop();
 			e.free(); // free the event resources
 		}
@@ -265,10 +341,11 @@ public class EventQueue extends TreeSet<Event> {
 
 		public void remove() {
 			iter.remove();
+			removeFromIndex(current);
 		}
 	}
 	
-	private static class EventComparator implements Comparator<Event>{
+	static class EventComparator implements Comparator<Event>{
 
 		public int compare(Event arg0, Event arg1) {
 			// the comparison is twofold: first, we sort based on the time when the event fires
@@ -40,6 +40,7 @@ package sinalgo.runtime.events;
 import java.util.Stack;
 
 import sinalgo.configuration.Configuration;
+import sinalgo.io.messageTrace.MessageTraceRecorder;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.messages.Inbox;
 import sinalgo.nodes.messages.NackBox;
@@ -49,6 +50,7 @@ import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
 import sinalgo.runtime.Runtime;
 import sinalgo.tools.logging.Logging;
+import sinalgo.tools.storage.SortableVector;
 
 /**
  * The event that represents that a message is reaching its destination.
@@ -72,6 +74,9 @@ public class PacketEvent extends Event {
 	 */
 	public Packet packet;
 	
+	// the links to the other packet events of the same sender in the event queue, see Node.firstSentPacketEvent
+	PacketEvent previousOfSender, nextOfSender;
+	
 	/**
 	 * Creates a new PacketEvent for a given packet, a given time and a given node. This event
 	 * represents that the packet reaches eventNode at time. 
@@ -92,7 +97,7 @@ public class PacketEvent extends Event {
 	 * @param time The time this event is scheduled to.
 	 * @return An instance of PacketEvent
 	 */
-	public static PacketEvent getNewPacketEvent(Packet packet, double time){
+	public static synchronized PacketEvent getNewPacketEvent(Packet packet, double time){
 		PacketEvent pe = null;
 		if(unusedPacketEvents.size() > 0){
 			pe = unusedPacketEvents.pop();
@@ -117,8 +122,10 @@ public class PacketEvent extends Event {
 			Packet.free(packet);
 			this.packet = null;
 		}
-		unusedPacketEvents.push(this);
-		numPacketEventsOnTheFly--;
+		synchronized(PacketEvent.class) { // events may be freed concurrently in the parallel mode
+			unusedPacketEvents.push(this);
+			numPacketEventsOnTheFly--;
+		}
 	}
 	
 	// Two static objects to prevent from allocating them all over again
@@ -133,10 +140,17 @@ public class PacketEvent extends Event {
 			Runtime.packetsInTheAir.remove(packet);
 		}
 		if(packet.edge != null){
-			packet.edge.removeMessageForThisEdge(packet.message);
+			synchronized(packet.edge) {
+				packet.edge.removePacketInFlight(packet);
+			}
+		}
+		if(Configuration.messageTrace) {
+			MessageTraceRecorder.recordArrival(packet);
 		}
 		if(packet.positiveDelivery){
-			packet.destination.handleMessages(inbox.resetForPacket(packet));
+			ParallelEventWorker worker = ParallelEventWorker.current();
+			Inbox in = worker == null ? inbox : worker.inbox; // each worker thread has its own inbox
+			packet.destination.handleMessages(in.resetForPacket(packet));
 		} else {
 			if(Configuration.generateNAckMessages && packet.type == PacketType.UNICAST) {
 				packet.origin.handleNAckMessages(nAckBox.resetForPacket(packet));
@@ -144,6 +158,92 @@ public class PacketEvent extends Event {
 		}
 	}
 	
+	// Reused lists to collect the events and packets delivered together
+	private static SortableVector<PacketEvent> coalescedEvents = new SortableVector<PacketEvent>();
+	private static SortableVector<Packet> coalescedPackets = new SortableVector<Packet>();
+	
+	/**
+	 * Executes this event together with the packet events that follow it directly in the 
+	 * event queue, as long as they reach the same node at exactly the same time. The run 
+	 * ends at the first event that is not such a packet event, e.g. a timer or a packet 
+	 * event for another node, such that the handlers observe the same order of events as
+	 * without coalescing. The messages of the run are delivered in a single inbox, in 
+	 * the order of the events.  
+	 * <p>
+	 * A dropped packet for which the sender is informed ends the run: The messages 
+	 * collected so far are delivered first, and then the sender is informed. With 
+	 * interference turned on, the messages sent by a handler may disturb the following 
+	 * packets, and therefore each event is executed on its own.
+	 * <p>
+	 * The additional events are removed from the event queue and freed. This event
+	 * is not freed. 
+	 * @param maxEvents The maximum number of events to execute, including this event.
+	 * @return The number of events executed, including this event.
+	 */
+	public int handleCoalesced(long maxEvents) {
+		EventQueue queue = Runtime.eventQueue;
+		if(maxEvents <= 1 || Configuration.interference || !isCoalescedWith(queue)) {
+			handle();
+			return 1;
+		}
+		Node destination = packet.destination;
+		Packet nAckPacket = null; // a dropped packet whose sender is informed after the delivery
+		coalescedEvents.clear();
+		coalescedPackets.clear();
+		PacketEvent pe = this;
+		while(true) {
+			coalescedEvents.add(pe);
+			Packet p = pe.packet;
+			if(p.edge != null){
+				p.edge.removePacketInFlight(p);
+			}
+			if(Configuration.messageTrace) {
+				MessageTraceRecorder.recordArrival(p);
+			}
+			if(p.positiveDelivery){
+				coalescedPackets.add(p);
+			} else if(Configuration.generateNAckMessages && p.type == PacketType.UNICAST) {
+				nAckPacket = p;
+				break;
+			}
+			if(coalescedEvents.size() >= maxEvents || !isCoalescedWith(queue)) {
+				break;
+			}
+			pe = (PacketEvent) queue.first();
+			queue.remove(pe);
+		}
+		EventQueue.eventNumber += coalescedEvents.size() - 1;
+		
+		if(!coalescedPackets.isEmpty()) {
+			ParallelEventWorker worker = ParallelEventWorker.current();
+			Inbox in = worker == null ? inbox : worker.inbox; // each worker thread has its own inbox
+			destination.handleMessages(in.resetForList(coalescedPackets));
+		}
+		coalescedPackets.clear();
+		if(nAckPacket != null) {
+			nAckPacket.origin.handleNAckMessages(nAckBox.resetForPacket(nAckPacket));
+		}
+		for(int i = 1; i < coalescedEvents.size(); i++) {
+			coalescedEvents.get(i).free(); // also frees the packet
+		}
+		int numExecuted = coalescedEvents.size();
+		coalescedEvents.clear();
+		return numExecuted;
+	}
+	
+	/**
+	 * @param queue The event queue.
+	 * @return True if the first event of the queue is a packet event that reaches the
+	 * destination of this event at the same time. 
+	 */
+	private boolean isCoalescedWith(EventQueue queue) {
+		if(queue.isEmpty()) {
+			return false;
+		}
+		Event e = queue.first();
+		return e.time == time && e instanceof PacketEvent && ((PacketEvent) e).packet.destination == packet.destination;
+	}
+	
 	/* (non-Javadoc)
 	 * @see sinalgo.runtime.events.Event#drop()
 	 */
@@ -153,7 +253,7 @@ public class PacketEvent extends Event {
 			Runtime.packetsInTheAir.remove(packet);
 		}
 		if(packet.edge != null){
-			packet.edge.removeMessageForThisEdge(packet.message);
+			packet.edge.removePacketInFlight(packet);
 		}
 	}
 	
@@ -0,0 +1,196 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import sinalgo.nodes.Node;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.tools.statistics.Distribution;
+
+/**
+ * Executes the events of the asynchronous mode in parallel, using a conservative
+ * time window approach.
+ * <p>
+ * The nodes are partitioned among a fixed number of worker threads. Given the 
+ * first event in the event queue, which executes at time t, no message sent at 
+ * time t or later can arrive before t + lookahead, where lookahead is the minimum
+ * transmission time of the message transmission model. Thus, all node events in 
+ * the window [t, t + lookahead) are independent of the events executed on the 
+ * other partitions, and each worker executes the events of its nodes in their
+ * chronological order. At the end of the window, the events created by the workers
+ * are added to the event queue in the order of the workers.
+ * <p>
+ * The execution is deterministic for a given number of threads: Each worker draws
+ * its random numbers from its own generator, which is seeded from the singleton 
+ * random generator at the beginning of each window.
+ */
+public class ParallelEventExecutor {
+	
+	private ParallelEventWorker[] workers;
+	private CyclicBarrier startBarrier, endBarrier; // to synchronize the workers with the runtime thread
+	private double lookahead;
+	
+	/**
+	 * The (exclusive) end of the time window currently executed.
+	 */
+	double windowEnd = 0;
+	
+	/**
+	 * Creates a new executor and starts its worker threads.
+	 * @param numberOfThreads The number of worker threads, at least 1.
+	 * @param lookahead The size of the time windows, which must not be larger than 
+	 * the minimum time a message takes to arrive. 
+	 */
+	public ParallelEventExecutor(int numberOfThreads, double lookahead) {
+		this.lookahead = lookahead;
+		startBarrier = new CyclicBarrier(numberOfThreads + 1);
+		endBarrier = new CyclicBarrier(numberOfThreads + 1);
+		workers = new ParallelEventWorker[numberOfThreads];
+		for(int i = 0; i < numberOfThreads; i++) {
+			workers[i] = new ParallelEventWorker(this, i);
+			workers[i].start();
+		}
+	}
+	
+	/**
+	 * @param n A node
+	 * @return The index of the worker that executes the events of the given node.
+	 */
+	int getPartition(Node n) {
+		return (n.ID & 0x7fffffff) % workers.length;
+	}
+	
+	/**
+	 * Removes all node events of the next time window from the event queue and 
+	 * executes them in parallel. 
+	 * <p>
+	 * If the first event of the queue is not associated with a node, no events are 
+	 * executed, and the caller should execute this event sequentially. 
+	 * 
+	 * @param queue The event queue of the simulation
+	 * @param maxEvents The maximum number of events to take from the event queue. Note
+	 * that events created and executed within the window are not bounded by this value. 
+	 * @return The number of events executed, 0 if no event was executed.
+	 */
+	public int executeWindow(EventQueue queue, long maxEvents) {
+		if(queue.isEmpty() || maxEvents <= 0) {
+			return 0;
+		}
+		Event first = queue.first();
+		if(!first.isNodeEvent()) {
+			return 0;
+		}
+		double startTime = first.time; // the event is freed by the worker that executes it
+		windowEnd = startTime + lookahead;
+		long firstId = Event.nextId;
+		int numTaken = 0;
+		while(numTaken < maxEvents && !queue.isEmpty()) {
+			Event e = queue.first();
+			if(e.time >= windowEnd || !e.isNodeEvent()) {
+				break;
+			}
+			queue.remove(e);
+			workers[getPartition(e.getEventNode())].localEvents.add(e);
+			numTaken++;
+		}
+		if(!queue.isEmpty()) {
+			// events remaining in the queue must not be overtaken by events created in this window
+			windowEnd = Math.min(windowEnd, queue.first().time);
+		}
+		
+		Random rand = Distribution.getRandom();
+		for(ParallelEventWorker w : workers) {
+			w.prepareWindow(startTime, firstId, rand.nextLong());
+		}
+		Global.currentTime = startTime;
+		
+		if(!awaitWindow() || !awaitWindowEnd()) {
+			Main.fatalError("The execution of a time window in the parallel asynchronous mode was interrupted.");
+		}
+		
+		// merge the results of the workers in a deterministic order 
+		int numExecuted = 0;
+		double lastTime = startTime;
+		Event.nextId = firstId;
+		for(ParallelEventWorker w : workers) {
+			for(Event e : w.outbox) {
+				e.id = Event.nextId++; // implicit increment
+				queue.add(e);
+			}
+			w.outbox.clear();
+			numExecuted += w.numberOfExecutedEvents;
+			Global.numberOfMessagesOverAll += w.numberOfSentMessages;
+			lastTime = Math.max(lastTime, w.getLocalTime());
+		}
+		EventQueue.eventNumber += numExecuted;
+		Global.currentTime = lastTime;
+		queue.notifyListeners();
+		return numExecuted;
+	}
+	
+	/**
+	 * Waits until a new window is started.
+	 * @return False if the waiting was interrupted, otherwise true.
+	 */
+	boolean awaitWindow() {
+		return await(startBarrier);
+	}
+	
+	/**
+	 * Waits until all workers have finished the current window.
+	 * @return False if the waiting was interrupted, otherwise true.
+	 */
+	boolean awaitWindowEnd() {
+		return await(endBarrier);
+	}
+	
+	private boolean await(CyclicBarrier barrier) {
+		try {
+			barrier.await();
+			return true;
+		} catch(InterruptedException e) {
+			return false;
+		} catch(BrokenBarrierException e) {
+			return false;
+		}
+	}
+}
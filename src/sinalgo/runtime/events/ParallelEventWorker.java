@@ -0,0 +1,185 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.events;
+
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Vector;
+
+import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Inbox;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.MyUncaughtExceptionHandler;
+import sinalgo.tools.statistics.Distribution;
+
+/**
+ * A worker thread of the parallel asynchronous mode. Each worker is responsible 
+ * for a partition of the nodes and executes the events of these nodes for the
+ * current time window in their chronological order.
+ * <p>
+ * All events created while the worker executes are passed to the worker through 
+ * <code>schedule()</code>. Events that fall into the current time window are
+ * executed right away, all other events are collected and added to the global 
+ * event queue at the end of the window.  
+ */
+public class ParallelEventWorker extends Thread {
+	
+	private ParallelEventExecutor executor; // the executor this worker belongs to
+	private int partition; // the partition of nodes this worker is responsible for
+	
+	// the events of this worker that still need to be executed in the current window
+	PriorityQueue<Event> localEvents = new PriorityQueue<Event>(64, new EventQueue.EventComparator());
+	// the events created in the current window that execute after the window
+	Vector<Event> outbox = new Vector<Event>();
+	
+	/**
+	 * The inbox used to deliver messages on this thread.
+	 */
+	Inbox inbox = new Inbox();
+
+	private Random random = Distribution.newPartitionRandom(0); // reseeded at the beginning of each window
+	
+	private double localTime = 0; // the time of the event being executed
+	
+	private long nextLocalId = 0; // the id for the next event scheduled within the window
+	
+	/**
+	 * The number of events this worker executed in the current window.
+	 */
+	int numberOfExecutedEvents = 0;
+
+	/**
+	 * The number of messages sent by the nodes of this worker in the current window.
+	 * This counter is added to Global.numberOfMessagesOverAll at the end of the window.
+	 */
+	public int numberOfSentMessages = 0;
+	
+	/**
+	 * Creates a new worker thread for a given partition of the nodes.
+	 * @param executor The executor this worker belongs to.
+	 * @param partition The index of the partition this worker executes.
+	 */
+	ParallelEventWorker(ParallelEventExecutor executor, int partition) {
+		super("ParallelEventWorker-" + partition);
+		this.executor = executor;
+		this.partition = partition;
+		setDaemon(true);
+		setUncaughtExceptionHandler(new MyUncaughtExceptionHandler());
+	}
+	
+	/**
+	 * @return The worker executing on the current thread, null if the current 
+	 * thread is not a worker of the parallel asynchronous mode.
+	 */
+	public static ParallelEventWorker current() {
+		Thread t = Thread.currentThread();
+		if(t instanceof ParallelEventWorker) {
+			return (ParallelEventWorker) t;
+		}
+		return null;
+	}
+	
+	/**
+	 * @return The time of the event this worker currently executes.
+	 */
+	public double getLocalTime() {
+		return localTime;
+	}
+	
+	/**
+	 * @return The random number generator used by this worker, which replaces
+	 * the singleton random generator of the simulation on this thread. 
+	 */
+	public Random getRandom() {
+		return random;
+	}
+	
+	/**
+	 * Prepares this worker for the execution of the next time window.
+	 * @param startTime The time at which the window starts.
+	 * @param firstId The first event id available in this window.
+	 * @param seed The seed for the random number generator of this worker.
+	 */
+	void prepareWindow(double startTime, long firstId, long seed) {
+		localTime = startTime;
+		nextLocalId = firstId;
+		random.setSeed(seed);
+		numberOfExecutedEvents = 0;
+		numberOfSentMessages = 0;
+	}
+	
+	/**
+	 * Schedules an event that was created by this worker.
+	 * @param e The event to schedule.
+	 */
+	void schedule(Event e) {
+		if(e.time < executor.windowEnd) {
+			Node n = e.isNodeEvent() ? e.getEventNode() : null;
+			if(n == null || executor.getPartition(n) != partition) {
+				Main.fatalError("An event was scheduled within the lookahead of the parallel asynchronous mode " +
+				                "for " + (n == null ? "no node" : "node " + n.ID) + " at time " + e.time + ".\n" +
+				                "In the parallel mode, the nodes may only set timers on themselves, and the " +
+				                "message transmission model must not deliver messages faster than its " +
+				                "minimum transmission time.\n" +
+				                "Set 'asynchronousThreads' to 1 in the configuration file to execute the events sequentially.");
+			}
+			e.id = nextLocalId++; // orders after all events already in the queue, as in the sequential mode
+			localEvents.add(e);
+		} else {
+			outbox.add(e);
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	public void run() {
+		while(executor.awaitWindow()) {
+			Event e;
+			while((e = localEvents.poll()) != null) {
+				localTime = e.time;
+				e.handle();
+				e.free();
+				numberOfExecutedEvents++;
+			}
+			if(!executor.awaitWindowEnd()) {
+				return;
+			}
+		}
+	}
+}
@@ -87,7 +87,7 @@ public class TimerEvent extends Event {
 	 * @param time The time this event is scheduled to.
 	 * @return An instance of PacketEvent
 	 */
-	public static TimerEvent getNewTimerEvent(Timer timer, double time){
+	public static synchronized TimerEvent getNewTimerEvent(Timer timer, double time){
 		TimerEvent te = null;
 		if(unusedTimerEvents.size() > 0){
 			te = unusedTimerEvents.pop();
@@ -109,8 +109,10 @@ public class TimerEvent extends Event {
 	 */
 	public void free(){
 		this.timer = null; 
-		unusedTimerEvents.push(this);
-		numTimerEventsOnTheFly --;
+		synchronized(TimerEvent.class) { // events may be freed concurrently in the parallel mode
+			unusedTimerEvents.push(this);
+			numTimerEventsOnTheFly --;
+		}
 	}
 
 	@Override
@@ -66,6 +66,17 @@ public class DLLNodeList extends DoublyLinkedList<Node> implements NodeListInter
 		theIteratorInstance.reset();
 		return theIteratorInstance;
 	}
+	
+	/**
+	 * Returns a new iterator over this list. In contrast to <code>iterator()</code>, 
+	 * which always returns the same instance, several threads may use the 
+	 * returned iterators concurrently, as long as the list is not modified.
+	 * 
+	 * @return A new iterator over the nodes of this list.
+	 */
+	public ReusableListIterator<Node> newIterator() {
+		return super.iterator();
+	}
 
 	public boolean removeNode(Node nw) {
 		return this.remove(nw);
@@ -39,7 +39,6 @@ package sinalgo.runtime.nodeCollection;
 
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
@@ -68,30 +67,25 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 	//
 	private double rMax;
 	
-	//the local nodes to be able to simply traverse the nodes. A Vector is ok... well...
-	private Vector<Node> localNodes = new Vector<Node>();
-	// TODO: removing nodes from this list is expensive and costs O(n). The main 
-	// difficulty to replace this datastructure with a better one is the 'getRandomNode' 
-	// method, which returns a random entry in this list. For a vector, this is easy 
-	// to achieve. 
-	// Proposed solution: Implement a modified TreeSet, which is a red-black tree, and add
-	// to each entry of the tree a field that indicates the number of entries stored in 
-	// its descendants. This would permit to access entries from the tree using an array-style
-	// method (return the i-th element) in O(log n) time. add, delete, contains also take O(log n)
-	// time. Furthermore, iteration is also very cheap with a stack of at most log(n) size.
-	// Use the same datastructure for the 3D implementation. 
+	//the local nodes to be able to simply traverse the nodes, to access a random node,
+	//and to find a node by its ID. Adding and removing a node takes constant time.
+	private NodeRegistry localNodes = new NodeRegistry();
 	
 	
 	//the core datastructure able to store the nodes depending on the position.
-	private NodeListInterface[][] lists = null;
+	private DLLNodeList[][] lists = null;
 	
 	//This instance of the Squarepos is used to return the squarePosition of a node. It seams wierd to declare it
 	//here but this is necessary to get rid of the allocation and garbage collection of the returned squarePos
 	private SquarePos oneSquarePos = new SquarePos(0, 0);
 	
-	//The instance of the GeometricNodeEnumeration. This is the instance that is either created or reset by the 
-	//getPossibleNeighborsEnumeration method.
-	private GeometricNodeEnumeration geometricNodeEnumeration = null;
+	//The instances of the GeometricNodeEnumeration, one per thread, such that the possible neighbors 
+	//can be enumerated concurrently. The instance is reset by the getPossibleNeighborsEnumeration method.
+	private ThreadLocal<GeometricNodeEnumeration> geometricNodeEnumeration = new ThreadLocal<GeometricNodeEnumeration>() {
+		protected GeometricNodeEnumeration initialValue() {
+			return new GeometricNodeEnumeration();
+		}
+	};
 	
 	/**
 	 * The constructor for the GeometricNodeCollection class.
@@ -122,13 +116,9 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 	 * @see nodeCollection.NodeCollection#getPossibleNeighborsEnumeration(nodes.Node)
 	 */
 	public Enumeration<Node> getPossibleNeighborsEnumeration(Node n){
-		if(geometricNodeEnumeration == null){
-			geometricNodeEnumeration = new GeometricNodeEnumeration(n);
-		}
-		else{
-			geometricNodeEnumeration.resetForNode(n);
-		}
-		return geometricNodeEnumeration;
+		GeometricNodeEnumeration e = geometricNodeEnumeration.get();
+		e.resetForNode(n);
+		return e;
 	}
 	
 	/* (non-Javadoc)
@@ -165,7 +155,7 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 			
 			//do not call this.remove. Already calculated the new position and thus we can 
 			//save time to directly call the remove on the list and on the localNodes.
-			NodeListInterface list = lists[oldPosition.x][oldPosition.y];
+			DLLNodeList list = lists[oldPosition.x][oldPosition.y];
 			list.removeNode(n);
 	
 			oldPosition.x = newPosition.x;
@@ -199,61 +189,55 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 		return oneSquarePos;
 	}
 	
+	/**
+	 * Enumeration over the nodes of the matrix cell of a given node and its 8 neighboring 
+	 * cells. Each thread uses its own instance, which is reset for every node.
+	 */
 	class GeometricNodeEnumeration implements Enumeration<Node>{
 
-		private GeometricNodeListEnumeration sNLE = null;
+		private int x, y; // the matrix cell of the node this enumeration is for
+		private int cell; // the index of the current cell in the 3x3 neighborhood, from 0 to 8
 		private Iterator<Node> nI = null;
 		
-		/**
-		 * The constructor for the GeometricNodeEnumeration class. This Enumeration is used
-		 * to find out all the possible neighbors and pass them to the connectivityModel.
-		 *
-		 * @param n The node to get the neighbors for.
-		 */
-		public GeometricNodeEnumeration(Node n){
-			if(sNLE == null){
-				sNLE = new GeometricNodeListEnumeration(n);
-			}
-			else{
-				sNLE.resetForNode(n);
-			}
-			
-			if(sNLE.hasMoreElements()){
-				nI = sNLE.nextElement().iterator();
-			}
-		}
-		
 		/**
 		 * This method resets the Enumeration to the initial state without allocating a 
 		 * new Enumeration instance.
 		 * 
 		 * @param n The node to reset the Enumeration for.
-		 * @see GeometricNodeEnumeration#GeometricNodeEnumeration(Node)
 		 */
 		public void resetForNode(Node n){
-			if(sNLE == null){
-				sNLE = new GeometricNodeListEnumeration(n);
-			}
-			else{
-				sNLE.resetForNode(n);
-			}
-			
-			if(sNLE.hasMoreElements()){
-				nI = sNLE.nextElement().iterator();
+			Position p = n.getPosition();
+			x = (int)Math.floor(p.xCoord/rMax);
+			y = (int)Math.floor(p.yCoord/rMax);
+			cell = -1;
+			gotoNextCell();
+		}
+		
+		/**
+		 * Moves to the next neighboring cell that lies within the matrix. The cells are 
+		 * visited row by row.
+		 * @return True if there is another cell, otherwise false.
+		 */
+		private boolean gotoNextCell() {
+			while(++cell < 9) {
+				int cx = x + (cell % 3) - 1;
+				int cy = y + (cell / 3) - 1;
+				if(cx >= 0 && cy >= 0 && cx < xDim && cy < yDim) {
+					// the iterator of the list itself is not thread safe, but does not allocate
+					nI = Configuration.synchronousThreads > 1 ? lists[cx][cy].newIterator() : lists[cx][cy].iterator(); 
+					return true;
+				}
 			}
+			nI = null;
+			return false;
 		}
 		
 		public boolean hasMoreElements() {
-			if(nI.hasNext()){
-				return true;
-			}
-			else{
-				while(sNLE.hasMoreElements()){
-					nI = sNLE.nextElement().iterator();
-					if(nI.hasNext()){
-						return true;
-					}
+			while(nI != null) {
+				if(nI.hasNext()) {
+					return true;
 				}
+				gotoNextCell();
 			}
 			return false;
 		}
@@ -297,97 +281,6 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 //	}
 	
 	
-	/**
-	 * Enumeration to traverse the Lists of nodes to find possible neighbors.
-	 */
-	class GeometricNodeListEnumeration implements Enumeration<NodeListInterface>{
-	
-		//this is the collection of all the squares where neighbors may be.
-		private SquarePositionCollection squares = null;
-		//the location of the node this enumeration is for
-		private SquarePos location = null;
-		//the enumeration over the 
-		private Enumeration<SquarePos> listEnumeration = null;
-		//the mask where the possible neighbors nay be. Initially all neighboring squares are possible. If the node is in a 
-		//"border"-square some 1's are changed to 0's.
-		private int[][] mask = {{1,1,1},{1,1,1},{1,1,1}};
-		
-		/**
-		 * The constructor for the GeometricNodeListEnumeration class. This class is used to 
-		 * traverse all the nodelists saved in the datastructure. It returns a enumeration
-		 * over NodeLists which are used by the GeometricNodeEnumeration.
-		 *
-		 * @param n The Node to get all the NodeLists of potential neighbors.
-		 */
-		public GeometricNodeListEnumeration(Node n){
-			squares = new SquarePositionCollection();
-			//calculate the position in the datastructure of the node
-			location = getPosOfNode(n);
-			
-			//fill the vector with the addresses of the neighborhood squares
-			if(location.x == 0){ mask[0][0] = 0; mask[0][1] = 0; mask[0][2] = 0; }
-			if(location.x+1 == xDim){ mask[2][0] = 0; mask[2][1] = 0; mask[2][2] = 0; }
-			if(location.y == 0){ mask[0][0] = 0; mask[1][0] = 0; mask[2][0] = 0; }
-			if(location.y+1 == yDim){ mask[0][2] = 0; mask[1][2] = 0; mask[2][2] = 0; }
-
-			for(int i = 0; i < 3; i++){
-				for(int j = 0; j < 3; j++){
-					if(mask[j][i] != 0){
-						squares.add(location.x+(j-1), location.y+(i-1));
-					}
-				}
-			}
-			
-			//initialize the enumeration over the vector
-			listEnumeration = squares.elements();
-		}
-		
-		/**
-		 * This method resets the nodeListIterator. Do not allocate a new Enumeration in every step but reset the current one. This
-		 * reduces the number of allocated objects and thus the amount of garbage the garbage collector has to collect.
-		 * 
-		 * @param n The node to create reset the enumeration for.
-		 */
-		public void resetForNode(Node n){
-			
-			squares.clear();
-			
-			for(int i = 0; i < 3; i++){
-				for(int j = 0; j < 3; j++){
-					mask[j][i] = 1;
-				}
-			}
-			
-			//calculate the position in the datastructure of the node
-			location = getPosOfNode(n);
-			
-			//fill the vector with the addresses of the neighborhood squares
-			if(location.x == 0){ mask[0][0] = 0; mask[0][1] = 0; mask[0][2] = 0; }
-			if(location.x+1 == xDim){ mask[2][0] = 0; mask[2][1] = 0; mask[2][2] = 0; }
-			if(location.y == 0){ mask[0][0] = 0; mask[1][0] = 0; mask[2][0] = 0; }
-			if(location.y+1 == yDim){ mask[0][2] = 0; mask[1][2] = 0; mask[2][2] = 0; }
-
-			for(int i = 0; i < 3; i++){
-				for(int j = 0; j < 3; j++){
-					if(mask[j][i] != 0){
-						squares.add(location.x+(j-1), location.y+(i-1));
-					}
-				}
-			}
-			//initialize the enumeration over the vector
-			listEnumeration = squares.elements();
-		}
-
-		public boolean hasMoreElements() {
-			return listEnumeration.hasMoreElements();
-		}
-
-		public NodeListInterface nextElement() {
-			SquarePos sp = listEnumeration.nextElement();
-			return lists[sp.x][sp.y];
-		}
-	}
-
 	/* (non-Javadoc)
 	 * @see nodeCollection.NodeCollection#getRandomNode()
 	 */
@@ -395,13 +288,64 @@ public class Geometric2DNodeCollection extends NodeCollectionInterface {
 		if(localNodes.size() > 0){
 			java.util.Random rand = Distribution.getRandom();
 			int position = rand.nextInt(localNodes.size());
-			return localNodes.elementAt(position);
+			return localNodes.get(position);
 		}
 		else{
 			return null;
 		}
 	}
 	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getNodeByID(int)
+	 */
+	public Node getNodeByID(int id) {
+		return localNodes.getNodeByID(id);
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#setNodeOrder(sinalgo.nodes.Node[])
+	 */
+	public void setNodeOrder(Node[] order) {
+		localNodes.setOrder(order);
+		localNodes.updateIDs();
+		setCellOrder(order); // store the nodes of each cell in the same order
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getCellOrder()
+	 */
+	public Node[] getCellOrder() {
+		Node[] order = new Node[localNodes.size()];
+		int i = 0;
+		for(int x = 0; x < xDim; x++) {
+			for(int y = 0; y < yDim; y++) {
+				for(Node n : lists[x][y]) {
+					order[i++] = n;
+				}
+			}
+		}
+		return order;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#setCellOrder(sinalgo.nodes.Node[])
+	 */
+	public void setCellOrder(Node[] order) {
+		for(Node n : order) {
+			SquarePos pos = (SquarePos) n.nodeCollectionInfo;
+			NodeListInterface list = lists[pos.x][pos.y];
+			list.removeNode(n);
+			list.addNode(n);
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#ensureCapacity(int, int)
+	 */
+	public void ensureCapacity(int numNodes, int maxID) {
+		localNodes.ensureCapacity(numNodes, maxID);
+	}
+	
 	/* (non-Javadoc)
 	 * @see runtime.nodeCollection.NodeCollectionInterface#numberOfNodes()
 	 */
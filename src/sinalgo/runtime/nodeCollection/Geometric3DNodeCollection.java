@@ -41,7 +41,6 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Vector;
 
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
@@ -71,10 +70,10 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 	private int numX, numY, numZ; // cardinality of matrix in each dimension
 
 	// a hierarchical matrix to access the nodes based on their position
-	private NodeListInterface[][][] list;
+	private DLLNodeList[][][] list;
 
-	// a flat list for fast iteration over all nodes
-	private Vector<Node> flatList = new Vector<Node>();
+	// a flat list for fast iteration over all nodes and to find a node by its ID
+	private NodeRegistry flatList = new NodeRegistry();
 	private boolean flatListChanged = false;
 	
 	private Node[] sortedNodeArray = new Node[1];
@@ -87,8 +86,13 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 	// Flag indicating whether some nodes have changed the matrix cell
 	//private boolean sensitiveInformationChanged = false;
 	
-	// The enumeration object used repeatedly to access the potential neighbors of a node
-	Geometric3DNodeEnumeration enumeration = new Geometric3DNodeEnumeration();
+	// The enumeration objects used repeatedly to access the potential neighbors of a node, one
+	// per thread, such that the potential neighbors can be enumerated concurrently
+	private ThreadLocal<Geometric3DNodeEnumeration> enumeration = new ThreadLocal<Geometric3DNodeEnumeration>() {
+		protected Geometric3DNodeEnumeration initialValue() {
+			return new Geometric3DNodeEnumeration();
+		}
+	};
 	
 	/**
 	 * Default constructor. Creates and initializes the geometric node collection. 
@@ -207,8 +211,9 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getPossibleNeighborsEnumeration(sinalgo.nodes.Node)
 	 */
 	public Enumeration<Node> getPossibleNeighborsEnumeration(Node n) {
-		enumeration.resetForNode(n);
-		return enumeration;
+		Geometric3DNodeEnumeration e = enumeration.get();
+		e.resetForNode(n);
+		return e;
 	}
 
 	/* (non-Javadoc)
@@ -291,13 +296,67 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 		if(flatList.size() > 0){
 			java.util.Random rand = Distribution.getRandom();
 			int position = rand.nextInt(flatList.size());
-			return flatList.elementAt(position);
+			return flatList.get(position);
 		}
 		else{
 			return null;
 		}
 	}
 
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getNodeByID(int)
+	 */
+	public Node getNodeByID(int id) {
+		return flatList.getNodeByID(id);
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#setNodeOrder(sinalgo.nodes.Node[])
+	 */
+	public void setNodeOrder(Node[] order) {
+		flatList.setOrder(order);
+		flatList.updateIDs();
+		flatListChanged = true;
+		setCellOrder(order); // store the nodes of each cell in the same order
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#getCellOrder()
+	 */
+	public Node[] getCellOrder() {
+		Node[] order = new Node[size()];
+		int i = 0;
+		for(int x = 0; x < numX; x++) {
+			for(int y = 0; y < numY; y++) {
+				for(int z = 0; z < numZ; z++) {
+					for(Node n : list[x][y][z]) {
+						order[i++] = n;
+					}
+				}
+			}
+		}
+		return order;
+	}
+	
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#setCellOrder(sinalgo.nodes.Node[])
+	 */
+	public void setCellOrder(Node[] order) {
+		for(Node n : order) {
+			CubePos pos = (CubePos) n.nodeCollectionInfo;
+			NodeListInterface cell = list[pos.x][pos.y][pos.z];
+			cell.removeNode(n);
+			cell.addNode(n);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#ensureCapacity(int, int)
+	 */
+	public void ensureCapacity(int numNodes, int maxID) {
+		flatList.ensureCapacity(numNodes, maxID);
+	}
+	
 	/* (non-Javadoc)
 	 * @see sinalgo.runtime.nodeCollection.NodeCollectionInterface#numberOfNodes()
 	 */
@@ -352,7 +411,9 @@ public class Geometric3DNodeCollection extends NodeCollectionInterface {
 				}
 			} while(ox + dx < 0 || oy + dy < 0 || oz + dz < 0 ||	
 					ox + dx >= numX || oy + dy >= numY || oz + dz >= numZ);
-			iterator = list[ox + dx][oy + dy][oz + dz].iterator(); // get new iterator
+			// the iterator of the list itself is not thread safe, but does not allocate
+			DLLNodeList cell = list[ox + dx][oy + dy][oz + dz];
+			iterator = Configuration.synchronousThreads > 1 ? cell.newIterator() : cell.iterator();
 			return true;
 		}
 				
@@ -189,6 +189,71 @@ public abstract class NodeCollectionInterface implements Iterable<Node> {
 	 */
 	public abstract Node getRandomNode();
 	
+	/**
+	 * Returns the node with the given ID, null if there is no such node.
+	 * <p>
+	 * This default implementation loops over all nodes until it finds the suitable node. 
+	 * Subclasses should overwrite this method if they can find the node faster. 
+	 * @param id The ID of the node to return.
+	 * @return The node with the given ID, null if there is no such node.
+	 */
+	public Node getNodeByID(int id) {
+		for(Node n : this) {
+			if(n.ID == id) {
+				return n;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Changes the order in which the nodes of this collection are traversed, e.g. by 
+	 * the iterator and the node enumeration. The mapping from the IDs to the nodes is
+	 * rebuilt as well, such that this method can also be called after the IDs of the 
+	 * nodes have been changed.
+	 * <p>
+	 * This default implementation ignores the given order. 
+	 * @param order All nodes of this collection, in the new order.
+	 */
+	public void setNodeOrder(Node[] order) {
+	}
+	
+	/**
+	 * Returns the nodes of this collection in the order in which they are stored in the 
+	 * spatial index of this collection, e.g. cell by cell. This order determines the order 
+	 * in which <code>getPossibleNeighborsEnumeration</code> returns the nodes, and may differ 
+	 * from the order in which the nodes were added, as nodes move between the cells. 
+	 * <p>
+	 * This default implementation returns null, indicating that the collection has no 
+	 * spatial index. 
+	 * @return All nodes of this collection in the order of the spatial index, null if
+	 * the collection has no spatial index.
+	 */
+	public Node[] getCellOrder() {
+		return null;
+	}
+	
+	/**
+	 * Restores the order of the spatial index returned by <code>getCellOrder</code>, e.g.
+	 * when a checkpoint of the simulation is restored.
+	 * <p>
+	 * This default implementation ignores the given order. 
+	 * @param order All nodes of this collection, in the order of the spatial index.
+	 */
+	public void setCellOrder(Node[] order) {
+	}
+	
+	/**
+	 * Prepares this collection to hold the given number of nodes, e.g. before many
+	 * nodes are generated at once.
+	 * <p>
+	 * This default implementation does nothing.
+	 * @param numNodes The number of nodes this collection needs to hold.
+	 * @param maxID The largest ID of these nodes.
+	 */
+	public void ensureCapacity(int numNodes, int maxID) {
+	}
+	
 	/**
 	 * Returns the number of nodes stored in this collection.
 	 * @return the number of nodes stored in this collection.
@@ -0,0 +1,242 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.NodeOutgoingConnectionsList;
+import sinalgo.nodes.Position;
+import sinalgo.nodes.edges.Edge;
+import sinalgo.runtime.Global;
+import sinalgo.runtime.Main;
+import sinalgo.runtime.Runtime;
+import sinalgo.tools.logging.LogL;
+
+/**
+ * Reorders the nodes of the node collection such that nodes that are close to each 
+ * other are traversed one after the other. This improves the memory locality when the 
+ * nodes are stepped and send messages to their neighbors. 
+ * <p>
+ * Two orders are available: 
+ * <ul>
+ * <li><code>hilbert</code> sorts the nodes along a Hilbert curve over their x and y coordinates.</li>
+ * <li><code>rcm</code> sorts the nodes in reverse Cuthill-McKee order, i.e. by a breadth first
+ * search over the edges, which visits the neighbors with fewer edges first.</li>
+ * </ul>
+ * Optionally, the nodes are renumbered with the IDs 1, 2, 3, ... in the new order. 
+ * Data of the project that is stored by the ID of a node is not updated, such that the 
+ * nodes should only be renumbered before the project accesses the IDs. 
+ * <p>
+ * The framework applies the order given by the configuration entries 
+ * <code>nodeOrdering</code> and <code>renumberNodes</code> just before the simulation starts.
+ */
+public class NodeOrdering {
+	
+	private static final int HILBERT_ORDER = 16; // the Hilbert curve covers 2^16 x 2^16 cells
+	
+	/**
+	 * Reorders the nodes according to the configuration entries 
+	 * <code>nodeOrdering</code> and <code>renumberNodes</code>.
+	 */
+	public static void reorder() {
+		reorder(Configuration.nodeOrdering, Configuration.renumberNodes);
+	}
+	
+	/**
+	 * Reorders the nodes of the node collection. 
+	 * @param ordering The order, one of 'none', 'hilbert', and 'rcm'.
+	 * @param renumber True if the nodes should get the IDs 1, 2, 3, ... in the new order.
+	 */
+	public static void reorder(String ordering, boolean renumber) {
+		Node[] order;
+		if(ordering.equalsIgnoreCase("none")) {
+			if(!renumber) {
+				return;
+			}
+			order = getNodes();
+		} else if(ordering.equalsIgnoreCase("hilbert")) {
+			order = getHilbertOrder();
+		} else if(ordering.equalsIgnoreCase("rcm")) {
+			order = getReverseCuthillMcKeeOrder();
+		} else {
+			Main.fatalError("Unknown node ordering '" + ordering + "'. Possible values are 'none', 'hilbert', and 'rcm'.");
+			return;
+		}
+		if(renumber) {
+			for(int i = 0; i < order.length; i++) {
+				order[i].ID = i + 1;
+			}
+		}
+		Runtime.nodes.setNodeOrder(order);
+		if(renumber) {
+			// the edges are indexed by the ID of their end node
+			for(Node n : order) {
+				if(n.outgoingConnections instanceof NodeOutgoingConnectionsList) {
+					((NodeOutgoingConnectionsList) n.outgoingConnections).rebuildIndex();
+				}
+			}
+		}
+		Global.log.logln(LogL.ALWAYS, "> Reordered the nodes (" + ordering + (renumber ? ", renumbered" : "") + ").");
+	}
+	
+	/**
+	 * @return All nodes of the node collection, in the order of the node collection.
+	 */
+	private static Node[] getNodes() {
+		Node[] nodes = new Node[Runtime.nodes.size()];
+		int i = 0;
+		for(Node n : Runtime.nodes) {
+			nodes[i++] = n;
+		}
+		return nodes;
+	}
+	
+	/**
+	 * Sorts the nodes along a Hilbert curve over the deployment area. In 3D, the 
+	 * z coordinate is ignored. 
+	 * @return All nodes of the node collection, sorted along a Hilbert curve.
+	 */
+	public static Node[] getHilbertOrder() {
+		Node[] nodes = getNodes();
+		final IdentityHashMap<Node, Long> keys = new IdentityHashMap<Node, Long>();
+		int cells = 1 << HILBERT_ORDER;
+		double cellSize = Math.max(Math.max(Configuration.dimX, Configuration.dimY), 1) / (double) cells;
+		for(Node n : nodes) {
+			Position p = n.getPosition();
+			int x = (int) Math.max(0, Math.min(cells - 1, Math.floor(p.xCoord / cellSize)));
+			int y = (int) Math.max(0, Math.min(cells - 1, Math.floor(p.yCoord / cellSize)));
+			keys.put(n, getHilbertIndex(x, y, cells));
+		}
+		Arrays.sort(nodes, new Comparator<Node>() {
+			public int compare(Node n1, Node n2) {
+				int c = keys.get(n1).compareTo(keys.get(n2));
+				return c != 0 ? c : (n1.ID < n2.ID ? -1 : (n1.ID == n2.ID ? 0 : 1));
+			}
+		});
+		return nodes;
+	}
+	
+	/**
+	 * Computes the position of a cell along the Hilbert curve.
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @param cells The number of cells per side, a power of 2. 
+	 * @return The index of the cell along the Hilbert curve.
+	 */
+	private static long getHilbertIndex(int x, int y, int cells) {
+		long d = 0;
+		for(int s = cells / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant
+			if(ry == 0) {
+				if(rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+	
+	/**
+	 * Sorts the nodes in reverse Cuthill-McKee order over the outgoing edges of the nodes.
+	 * Each connected component is traversed in breadth first order, starting at a node with
+	 * the fewest edges, and visiting the neighbors of a node in increasing order of their
+	 * number of edges. The resulting order is reversed.
+	 * @return All nodes of the node collection, sorted in reverse Cuthill-McKee order.
+	 */
+	public static Node[] getReverseCuthillMcKeeOrder() {
+		Node[] nodes = getNodes();
+		Comparator<Node> byDegree = new Comparator<Node>() {
+			public int compare(Node n1, Node n2) {
+				int d1 = n1.outgoingConnections.size(), d2 = n2.outgoingConnections.size(); 
+				if(d1 != d2) {
+					return d1 < d2 ? -1 : 1;
+				}
+				return n1.ID < n2.ID ? -1 : (n1.ID == n2.ID ? 0 : 1);
+			}
+		};
+		Node[] starts = nodes.clone();
+		Arrays.sort(starts, byDegree);
+		
+		IdentityHashMap<Node, Node> visited = new IdentityHashMap<Node, Node>();
+		Node[] order = new Node[nodes.length]; // also the queue of the breadth first search
+		int size = 0;
+		Node[] neighbors = new Node[16];
+		for(Node start : starts) {
+			if(visited.containsKey(start)) {
+				continue;
+			}
+			visited.put(start, start);
+			int head = size;
+			order[size++] = start;
+			while(head < size) {
+				Node n = order[head++];
+				int count = 0;
+				for(Edge e : n.outgoingConnections) {
+					Node m = e.endNode;
+					if(!visited.containsKey(m) && m.holdInNodeCollection) {
+						visited.put(m, m);
+						if(count == neighbors.length) {
+							neighbors = Arrays.copyOf(neighbors, 2 * count);
+						}
+						neighbors[count++] = m;
+					}
+				}
+				Arrays.sort(neighbors, 0, count, byDegree);
+				System.arraycopy(neighbors, 0, order, size, count);
+				size += count;
+			}
+		}
+		// reverse the order
+		for(int i = 0, j = size - 1; i < j; i++, j--) {
+			Node t = order[i];
+			order[i] = order[j];
+			order[j] = t;
+		}
+		return order;
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.nodeCollection;
+
+import java.util.ConcurrentModificationException;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import sinalgo.nodes.Node;
+
+/**
+ * A flat store of nodes, used by the node collections to traverse all nodes 
+ * and to look up a node by its ID.
+ * <p>
+ * The nodes are kept in a dense array, and each node stores its index in this array
+ * in <code>Node.nodeRegistryIndex</code>. A node is removed by moving the last node 
+ * of the array to its place, such that adding and removing a node takes constant time.
+ * Removing a node thus changes the order of the remaining nodes. 
+ * <p>
+ * In addition, the store keeps an array that maps the ID of each node to the node.
+ * As the IDs are assigned consecutively, this array is about as large as the number
+ * of nodes. 
+ * <p>
+ * This class is not synchronized.
+ */
+public class NodeRegistry implements Iterable<Node> {
+	
+	private Node[] nodes = new Node[16]; // the dense array of nodes
+	private int size = 0; // the number of nodes
+	private Node[] nodesByID = new Node[16]; // the node for each ID, null if there is no such node
+	private int modCount = 0; // incremented upon each modification, to detect concurrent modifications
+	
+	/**
+	 * Adds a node to this store. 
+	 * @param n The node to add, which must not be contained in this store.
+	 */
+	public void add(Node n) {
+		if(size == nodes.length) {
+			Node[] a = new Node[2 * size];
+			System.arraycopy(nodes, 0, a, 0, size);
+			nodes = a;
+		}
+		n.nodeRegistryIndex = size;
+		nodes[size++] = n;
+		mapID(n);
+		modCount++;
+	}
+	
+	/**
+	 * Enlarges the arrays of this store, such that nodes can be added without
+	 * copying the arrays.
+	 * @param numNodes The number of nodes this store needs to hold.
+	 * @param maxID The largest ID of the nodes this store needs to hold.
+	 */
+	public void ensureCapacity(int numNodes, int maxID) {
+		if(numNodes > nodes.length) {
+			Node[] a = new Node[numNodes];
+			System.arraycopy(nodes, 0, a, 0, size);
+			nodes = a;
+		}
+		if(maxID >= nodesByID.length) {
+			Node[] a = new Node[maxID + 1];
+			System.arraycopy(nodesByID, 0, a, 0, nodesByID.length);
+			nodesByID = a;
+		}
+	}
+	
+	/**
+	 * Removes a node from this store. The last node of the store is moved to the 
+	 * place of the removed node.
+	 * @param n The node to remove.
+	 * @return True if the node was contained in this store, otherwise false.
+	 */
+	public boolean remove(Node n) {
+		int index = n.nodeRegistryIndex;
+		if(index < 0 || index >= size || nodes[index] != n) {
+			return false;
+		}
+		Node last = nodes[--size];
+		nodes[index] = last;
+		last.nodeRegistryIndex = index;
+		nodes[size] = null;
+		n.nodeRegistryIndex = -1;
+		if(n.ID >= 0 && n.ID < nodesByID.length && nodesByID[n.ID] == n) {
+			nodesByID[n.ID] = null;
+		}
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Returns the node stored at a given index.
+	 * @param index The index, in the range [0, size()-1].
+	 * @return The node at the given index.
+	 */
+	public Node get(int index) {
+		if(index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return nodes[index];
+	}
+	
+	/**
+	 * Returns the node with the given ID in constant time.
+	 * @param id The ID of the node to return.
+	 * @return The node with the given ID, null if there is no such node in this store.
+	 */
+	public Node getNodeByID(int id) {
+		if(id < 0 || id >= nodesByID.length) {
+			return null;
+		}
+		return nodesByID[id];
+	}
+	
+	/**
+	 * Changes the order of the nodes in this store. 
+	 * @param order All nodes of this store, in the new order. 
+	 * @throws IllegalArgumentException If the given nodes are not the nodes of this store.
+	 */
+	public void setOrder(Node[] order) {
+		if(order.length != size) {
+			throw new IllegalArgumentException("The new order contains " + order.length + " nodes, but there are " + size + " nodes.");
+		}
+		boolean[] contained = new boolean[size];
+		for(Node n : order) {
+			int index = n.nodeRegistryIndex;
+			if(index < 0 || index >= size || nodes[index] != n) {
+				throw new IllegalArgumentException("The new order contains a node that is not stored: " + n);
+			}
+			if(contained[index]) {
+				throw new IllegalArgumentException("The new order contains a node twice: " + n);
+			}
+			contained[index] = true;
+		}
+		System.arraycopy(order, 0, nodes, 0, size);
+		for(int i = 0; i < size; i++) {
+			nodes[i].nodeRegistryIndex = i;
+		}
+		modCount++;
+	}
+	
+	/**
+	 * Rebuilds the mapping from the IDs to the nodes. This method needs to be
+	 * called after the ID of a node in this store has been changed.
+	 */
+	public void updateIDs() {
+		for(int i = 0; i < nodesByID.length; i++) {
+			nodesByID[i] = null;
+		}
+		for(int i = 0; i < size; i++) {
+			mapID(nodes[i]);
+		}
+	}
+	
+	/**
+	 * @return The number of nodes in this store.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Copies the nodes of this store into an array. If the array is too small, a 
+	 * new array is allocated.
+	 * @param a The array to store the nodes.
+	 * @return The array holding the nodes. 
+	 */
+	public Node[] toArray(Node[] a) {
+		if(a.length < size) {
+			a = new Node[size];
+		}
+		System.arraycopy(nodes, 0, a, 0, size);
+		if(a.length > size) {
+			a[size] = null;
+		}
+		return a;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Node> iterator() {
+		return new NodeIterator();
+	}
+	
+	/**
+	 * @return An enumeration over all nodes of this store. 
+	 */
+	public Enumeration<Node> elements() {
+		return new Enumeration<Node>() {
+			int cursor = 0;
+			public boolean hasMoreElements() {
+				return cursor < size;
+			}
+			public Node nextElement() {
+				if(cursor >= size) {
+					throw new NoSuchElementException();
+				}
+				return nodes[cursor++];
+			}
+		};
+	}
+	
+	/**
+	 * Adds the node to the mapping from the IDs to the nodes.
+	 * @param n The node.
+	 */
+	private void mapID(Node n) {
+		if(n.ID < 0) {
+			return;
+		}
+		if(n.ID >= nodesByID.length) {
+			Node[] a = new Node[Math.max(n.ID + 1, 2 * nodesByID.length)];
+			System.arraycopy(nodesByID, 0, a, 0, nodesByID.length);
+			nodesByID = a;
+		}
+		nodesByID[n.ID] = n;
+	}
+	
+	/**
+	 * An iterator over the nodes, which supports removal of the current node. 
+	 */
+	private class NodeIterator implements Iterator<Node> {
+		private int cursor = 0; // the index of the next node to return
+		private int lastReturned = -1; // the index of the last returned node, -1 if none
+		private int expectedModCount = modCount;
+		
+		public boolean hasNext() {
+			return cursor < size;
+		}
+		
+		public Node next() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(cursor >= size) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			return nodes[cursor++];
+		}
+		
+		public void remove() {
+			if(lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			NodeRegistry.this.remove(nodes[lastReturned]);
+			cursor = lastReturned; // the last node was moved to this place 
+			lastReturned = -1;
+			expectedModCount = modCount;
+		}
+	}
+}
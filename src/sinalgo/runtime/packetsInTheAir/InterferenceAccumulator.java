@@ -0,0 +1,242 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.runtime.packetsInTheAir;
+
+import java.util.IdentityHashMap;
+
+import sinalgo.configuration.Configuration;
+import sinalgo.models.AdditiveInterferenceModel;
+import sinalgo.models.InterferenceModel;
+import sinalgo.nodes.Node;
+import sinalgo.nodes.messages.Packet;
+
+/**
+ * Keeps a running sum of the interference at every node that is the destination of 
+ * a packet in the air, provided the interference model of the node implements 
+ * {@link AdditiveInterferenceModel}. 
+ * <p>
+ * The contribution of a packet that actively contributes to interference is added to 
+ * the sum of each receiver when it is sent, and subtracted when it is removed. A node 
+ * that starts receiving computes its sum once from all active packets.
+ * <p>
+ * The rounding error of each running sum is tracked. If it grows too large compared
+ * to the sum, the sum is recomputed from scratch before it is used.    
+ */
+class InterferenceAccumulator {
+	// the maximal relative rounding error of a running sum before it is recomputed
+	private static final double MAX_RELATIVE_ERROR = 1e-12;
+	
+	private Iterable<Packet> activePackets; // all packets that actively contribute to interference
+	
+	private IdentityHashMap<Node, Receiver> receivers = new IdentityHashMap<Node, Receiver>();
+	private Receiver[] receiverList = new Receiver[16]; // the receivers, for fast iteration 
+	private int receiverCount = 0;
+	
+	/**
+	 * @param activePackets The packets that actively contribute to interference.
+	 */
+	InterferenceAccumulator(Iterable<Packet> activePackets) {
+		this.activePackets = activePackets;
+	}
+	
+	/**
+	 * Registers a packet whose destination needs to be tested for interference. 
+	 * Must be called before the packet is added to the active packets.
+	 * @param p The packet that was sent.
+	 */
+	void track(Packet p) {
+		Receiver r = receivers.get(p.destination);
+		if(r == null) {
+			InterferenceModel model = p.destination.getInterferenceModel();
+			if(!(model instanceof AdditiveInterferenceModel)) {
+				return; // this node is tested with the exact interference test
+			}
+			r = new Receiver(p.destination, (AdditiveInterferenceModel) model);
+			recompute(r);
+			if(receiverCount == receiverList.length) {
+				Receiver[] list = new Receiver[2 * receiverCount];
+				System.arraycopy(receiverList, 0, list, 0, receiverCount);
+				receiverList = list;
+			}
+			r.index = receiverCount;
+			receiverList[receiverCount++] = r;
+			receivers.put(p.destination, r);
+		}
+		r.packets++;
+	}
+	
+	/**
+	 * Unregisters a packet that is no longer in the air. 
+	 * @param p The packet that was removed.
+	 */
+	void untrack(Packet p) {
+		Receiver r = receivers.get(p.destination);
+		if(r != null && --r.packets == 0) {
+			receivers.remove(p.destination);
+			Receiver last = receiverList[--receiverCount];
+			receiverList[r.index] = last;
+			last.index = r.index;
+			receiverList[receiverCount] = null;
+		}
+	}
+	
+	/**
+	 * Adds the interference of a packet that started to actively contribute to interference
+	 * to the running sums of all receivers. 
+	 * @param p The packet.
+	 */
+	void activate(Packet p) {
+		for(int i = 0; i < receiverCount; i++) {
+			add(receiverList[i], p, 1);
+		}
+	}
+	
+	/**
+	 * Subtracts the interference of a packet that stopped to actively contribute to interference
+	 * from the running sums of all receivers. 
+	 * @param p The packet.
+	 */
+	void deactivate(Packet p) {
+		for(int i = 0; i < receiverCount; i++) {
+			add(receiverList[i], p, -1);
+		}
+	}
+	
+	/**
+	 * Determines whether a packet in the air is disturbed.
+	 * @param p The packet to test.
+	 * @param active True if p actively contributes to interference, otherwise false.
+	 * @return True if the packet is disturbed, otherwise false.
+	 */
+	boolean isDisturbed(Packet p, boolean active) {
+		Receiver r = receivers.get(p.destination);
+		if(r == null) {
+			return p.destination.getInterferenceModel().isDisturbed(p);
+		}
+		if(r.error > MAX_RELATIVE_ERROR * Math.abs(r.interference)) {
+			recompute(r);
+		}
+		int sending = r.sending;
+		int incoming = r.incoming;
+		int infinite = r.infinite;
+		double interference = r.interference;
+		if(active) { // p itself does not interfere
+			if(p.origin.ID == r.node.ID) {
+				sending--;
+			} else {
+				incoming--;
+				double c = r.model.getInterference(p, r.node);
+				if(Double.isInfinite(c)) {
+					infinite--;
+				} else {
+					interference -= c;
+				}
+			}
+		}
+		if(sending > 0 && !Configuration.canReceiveWhileSending) {
+			return true; // the receiver node of p is sending a packet itself
+		}
+		if(incoming > 0 && !Configuration.canReceiveMultiplePacketsInParallel) {
+			return true; // multiple packets arrive in parallel at the same destination
+		}
+		return r.model.isDisturbed(p, infinite > 0 ? Double.POSITIVE_INFINITY : interference);
+	}
+	
+	/**
+	 * Adds or subtracts the interference of a packet at a receiver.
+	 * @param r The receiver
+	 * @param p The packet that actively contributes to interference
+	 * @param sign 1 to add the packet, -1 to subtract it. 
+	 */
+	private void add(Receiver r, Packet p, int sign) {
+		if(p.origin.ID == r.node.ID) {
+			r.sending += sign; // the interference created from this sender is not considered
+			return;
+		}
+		if(p.destination.ID == r.node.ID) {
+			r.incoming += sign;
+		}
+		double c = r.model.getInterference(p, r.node);
+		if(Double.isInfinite(c)) {
+			r.infinite += sign;
+		} else if((r.interferers += sign) == 0) {
+			r.interference = 0; // no error accumulates over time
+			r.error = 0;
+		} else {
+			r.interference += sign * c;
+			r.error += Math.ulp(r.interference);
+		}
+	}
+	
+	/**
+	 * Recomputes the running sum of a receiver from all active packets.
+	 * @param r The receiver
+	 */
+	private void recompute(Receiver r) {
+		r.interference = 0;
+		r.interferers = 0;
+		r.infinite = 0;
+		r.sending = 0;
+		r.incoming = 0;
+		for(Packet p : activePackets) {
+			add(r, p, 1);
+		}
+		r.error = 0; // as accurate as summing up all packets for each test
+	}
+	
+	/**
+	 * The running sum of the interference at a node that is the destination of a packet. 
+	 */
+	private static class Receiver {
+		private Node node; 
+		private AdditiveInterferenceModel model; // the interference model of the node
+		private int index; // the position in the receiver list
+		private int packets = 0; // the number of packets in the air sent to the node
+		
+		private double interference = 0; // the sum of all finite contributions
+		private double error = 0; // a bound on the rounding error of the interference
+		private int interferers = 0; // the number of packets with a finite contribution
+		private int infinite = 0; // the number of packets with an infinite contribution
+		private int sending = 0; // the number of active packets sent by the node 
+		private int incoming = 0; // the number of active packets sent to the node by other nodes 
+		
+		private Receiver(Node node, AdditiveInterferenceModel model) {
+			this.node = node;
+			this.model = model;
+		}
+	}
+}
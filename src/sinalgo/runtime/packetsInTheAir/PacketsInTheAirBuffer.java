@@ -55,6 +55,7 @@ import sinalgo.tools.storage.ReusableListIterator;
  */
 public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	private boolean newAdded = true;
+	private int modificationCount = 0; // incremented whenever the set of active packets changes
 	
 	// The list of all packets that actively contribute to interference.
 	private DoublyLinkedList<Packet> activePackets = new DoublyLinkedList<Packet>(true);
@@ -67,23 +68,43 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	private ReusableListIterator<Packet> activePacketsIterator = activePackets.iterator();
 	private ReusableListIterator<Packet> passivePacketsIterator = passivePackets.iterator();
 	
+	// the running sums of the interference, used in asynchronous mode if interference is additive
+	private InterferenceAccumulator accumulator = new InterferenceAccumulator(activePackets);
+	
 	/**
 	 * Removes a packet from the list of packets being sent,
 	 * does nothing if the packet was not added (e.g. packets sent through sendDirect) 
 	 * @param p The packet to remove
 	 */
 	public void remove(Packet p) {
-		if(!activePackets.remove(p)) {
+		boolean active = activePackets.remove(p);
+		if(!active) {
 			if(!passivePackets.remove(p)) {
 				// The packet was in neither list
 				return; // nothing changed, the interference did not change
 			}
+		} else {
+			modificationCount++;
+		}
+		if(isAccumulating()) {
+			if(active) {
+				accumulator.deactivate(p);
+			}
+			accumulator.untrack(p);
 		}
 		if(Configuration.asynchronousMode && !Configuration.interferenceIsAdditive) {
 			testForInterference();
 		}
 	}
 	
+	/**
+	 * @return True if the interference is determined from the running sums of the 
+	 * accumulator, i.e. in asynchronous mode with additive interference.
+	 */
+	private boolean isAccumulating() {
+		return Configuration.asynchronousMode && Configuration.interferenceIsAdditive;
+	}
+	
 	/**
 	 * Tests all packets for interference, and sets the interference flag if necessary.
 	 * 
@@ -95,9 +116,29 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	 * when the PacketsInTheAir buffer changes, or assume that the interference is
 	 * 'additive', i.e. interference only decreses if a packet is removed. In the latter
 	 * case, we need to test for interference only upon removal of a packet and only
-	 * if there were insertions after the last removal.  
+	 * if there were insertions after the last removal. For additive interference, the
+	 * nodes whose interference model implements <code>AdditiveInterferenceModel</code>
+	 * test their packets in constant time from a running sum of the interference.
 	 */
 	public void testForInterference() {
+		if(isAccumulating()) {
+			activePacketsIterator.reset();
+			while(activePacketsIterator.hasNext()){
+				Packet pack = activePacketsIterator.next();
+				if(pack.positiveDelivery){ 
+					pack.positiveDelivery = !accumulator.isDisturbed(pack, true);
+				}
+			}
+			passivePacketsIterator.reset();
+			while(passivePacketsIterator.hasNext()){
+				Packet pack = passivePacketsIterator.next();
+				if(pack.positiveDelivery){ 
+					pack.positiveDelivery = !accumulator.isDisturbed(pack, false);
+				}
+			}
+			return;
+		}
+
 		//check for packets that are interferred
 		//PS: only check the packets for interference that are still alive
 		//    dead packets are still "int the air" as the sender does not know that it is disturbed.
@@ -147,7 +188,14 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	 */
 	public void add(Packet p) {
 		newAdded = true;
+		modificationCount++;
+		if(isAccumulating()) {
+			accumulator.track(p);
+		}
 		activePackets.append(p);
+		if(isAccumulating()) {
+			accumulator.activate(p);
+		}
 		if(Configuration.asynchronousMode && !Configuration.interferenceIsAdditive) {
 			testForInterference();
 		}
@@ -165,6 +213,9 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	 */
 	public void addPassivePacket(Packet p) {
 		passivePackets.append(p);
+		if(isAccumulating()) {
+			accumulator.track(p);
+		}
 	}
 	
 	/**
@@ -176,7 +227,15 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	 */
 	public void upgradeToActivePacket(Packet p) {
 		passivePackets.remove(p);
-		add(p);
+		newAdded = true;
+		modificationCount++;
+		activePackets.append(p);
+		if(isAccumulating()) {
+			accumulator.activate(p); // the destination is already tracked
+		}
+		if(Configuration.asynchronousMode && !Configuration.interferenceIsAdditive) {
+			testForInterference();
+		}
 	}
 
 
@@ -188,6 +247,17 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 		return activePackets.size();
 	}
 	
+	/**
+	 * Returns a counter that is incremented whenever a packet is added to or removed from
+	 * the set of packets that actively contribute to interference. Interference models may
+	 * use this counter to detect whether data derived from the packets in the air is still
+	 * up to date.
+	 * @return The number of modifications of the set of active packets.
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+	
 	/**
 	 * Returns an iterator over all packets currently being sent that actively contribute to interference. 
 	 * (This list only contains one message per multicast.)   
@@ -198,4 +268,16 @@ public class PacketsInTheAirBuffer implements Iterable<Packet> {
 	public Iterator<Packet> iterator() {
 		return activePackets.iterator();
 	}
+	
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b>
+	 * Returns an iterator over all packets currently being sent that do not actively contribute 
+	 * to interference, i.e. the packets of a multicast that are not the longest one.
+	 * <p>
+	 * Important! You must not add / remove any entries to/of this list.
+	 * @return An iterator over the passive packets.
+	 */
+	public Iterator<Packet> passiveIterator() {
+		return passivePackets.iterator();
+	}
 }
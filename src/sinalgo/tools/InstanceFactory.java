@@ -0,0 +1,116 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.tools;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+
+/**
+ * A factory that creates instances of a class with its public constructor 
+ * without parameters.
+ * <p>
+ * The constructor is looked up once per class, and subsequent calls to 
+ * {@link #get(Class)} for the same class return the same factory. Use this 
+ * class instead of looking up the constructor by reflection whenever many 
+ * objects of the same class are created, e.g. nodes, edges and models.
+ * @param <T> The class of the objects created by this factory.
+ */
+public final class InstanceFactory<T> {
+
+	private static HashMap<Class<?>, InstanceFactory<?>> factories = new HashMap<Class<?>, InstanceFactory<?>>();
+	private static MethodType constructorType = MethodType.methodType(void.class);
+	private static MethodType factoryType = MethodType.methodType(Object.class);
+	
+	private Class<T> type;
+	private MethodHandle constructor; // the constructor, adapted to return an Object
+	
+	private InstanceFactory(Class<T> type, MethodHandle constructor) {
+		this.type = type;
+		this.constructor = constructor;
+	}
+	
+	/**
+	 * Returns the factory for a given class.
+	 * @param <T> The class of the objects created by the factory.
+	 * @param c The class of the objects created by the factory.
+	 * @return The factory for the given class.
+	 * @throws NoSuchMethodException If the class has no public constructor without parameters.
+	 * @throws IllegalAccessException If the class or its constructor is not accessible.
+	 * @throws InstantiationException If the class is abstract or an interface.
+	 */
+	@SuppressWarnings("unchecked")
+	public static synchronized <T> InstanceFactory<T> get(Class<T> c) throws NoSuchMethodException, IllegalAccessException, InstantiationException {
+		InstanceFactory<T> f = (InstanceFactory<T>) factories.get(c);
+		if(f == null) {
+			if(Modifier.isAbstract(c.getModifiers()) || c.isInterface()) {
+				throw new InstantiationException("Cannot create an instance of the abstract class " + c.getName() + ".");
+			}
+			MethodHandle h = MethodHandles.publicLookup().findConstructor(c, constructorType);
+			f = new InstanceFactory<T>(c, h.asType(factoryType));
+			factories.put(c, f);
+		}
+		return f;
+	}
+	
+	/**
+	 * @return The class of the objects created by this factory.
+	 */
+	public Class<T> getType() {
+		return type;
+	}
+	
+	/**
+	 * Creates a new instance of the class of this factory. 
+	 * @return A new instance.
+	 * @throws InvocationTargetException If the constructor threw an exception, which 
+	 * is the cause of the InvocationTargetException.
+	 */
+	@SuppressWarnings("unchecked")
+	public T newInstance() throws InvocationTargetException {
+		Object o;
+		try {
+			o = (Object) constructor.invokeExact();
+		} catch(Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+		return (T) o;
+	}
+}
@@ -39,20 +39,15 @@ package sinalgo.tools;
 
 import javax.swing.JOptionPane;
 
-import sinalgo.configuration.WrongConfigurationException;
 import sinalgo.gui.GUI;
 import sinalgo.gui.GraphPanel;
 import sinalgo.gui.helper.NodeSelectionHandler;
 import sinalgo.gui.transformation.PositionTransformation;
 import sinalgo.io.mapIO.Map;
-import sinalgo.models.ConnectivityModel;
 import sinalgo.models.DistributionModel;
-import sinalgo.models.InterferenceModel;
 import sinalgo.models.MessageTransmissionModel;
-import sinalgo.models.MobilityModel;
 import sinalgo.models.Model;
 import sinalgo.models.ModelType;
-import sinalgo.models.ReliabilityModel;
 import sinalgo.nodes.Node;
 import sinalgo.nodes.edges.Edge;
 import sinalgo.nodes.edges.EdgePool;
@@ -62,11 +57,13 @@ import sinalgo.runtime.BatchRuntime;
 import sinalgo.runtime.GUIRuntime;
 import sinalgo.runtime.Global;
 import sinalgo.runtime.Main;
+import sinalgo.runtime.NodeGenerator;
 import sinalgo.runtime.NotInBatchModeException;
 import sinalgo.runtime.NotInGUIModeException;
 import sinalgo.runtime.Runtime;
 import sinalgo.runtime.events.EventQueue;
 import sinalgo.runtime.events.PacketEvent;
+import sinalgo.runtime.events.ParallelEventWorker;
 import sinalgo.runtime.events.TimerEvent;
 import sinalgo.runtime.nodeCollection.NodeCollectionInterface;
 import sinalgo.runtime.packetsInTheAir.PacketsInTheAirBuffer;
@@ -75,8 +72,6 @@ import sinalgo.tools.statistics.Distribution;
 
 
 import java.io.PrintStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Date;
 import java.util.Random;
 import java.util.Vector;
@@ -133,9 +128,18 @@ public class Tools {
 	//**************************************************************************************
 	
 	/**
+	 * Returns the global time of the simulation.
+	 * <p>
+	 * When the events of the asynchronous mode are executed in parallel, each 
+	 * thread has its own clock. Use this method (and not Global.currentTime)
+	 * to obtain the time of the event that is currently being executed. 
 	 * @return The global time of the simulation.
 	 */
 	public static double getGlobalTime(){
+		ParallelEventWorker worker = ParallelEventWorker.current();
+		if(worker != null) {
+			return worker.getLocalTime();
+		}
 		return Global.currentTime;
 	}
 	
@@ -388,18 +392,12 @@ public class Tools {
 	
 	/**
 	 * Returns the node with the given ID, null if there is no such node.
-	 * Note: This method is rather expensive, as it loops over all
-	 * nodes until it finds the suitable node.  
+	 * The geometric node collections find the node in constant time.  
 	 * @param id The ID of the node to return.
 	 * @return The node with the given ID, null if there is no such node.
 	 */
 	public static Node getNodeByID(int id) {
-		for(Node n : Runtime.nodes) {
-			if(n.ID == id) {
-				return n;
-			}
-		}
-		return null;
+		return Runtime.nodes.getNodeByID(id);
 	}
 	
 	/**
@@ -524,65 +522,8 @@ public class Tools {
 		}
 
 		// Create the nodes
-		for(int j=0; j< numNodes; j++) {
-			Node node = null;
-			try{
-				node = Node.createNodeByClassname(nodeTypeName);
-			}
-			catch(WrongConfigurationException e){
-				Main.fatalError(e);
-			}
-			node.setPosition(nodeDistribution.getNextPosition());
-			
-			// set the models 
-			for(int k=0; k<numSpecifiedModels; k++) {
-				Tuple<ModelType, Class<?>> tmp = models.elementAt(k);
-				try {
-					// NOTE: we could also call newInstance() on the class-object. But this would not encapsulate 
-					// exceptions that may be thrown in the constructor.
-					Constructor<?> constructor = tmp.second.getConstructor();
-					Model m = (Model) constructor.newInstance();
-					m.setParamString(modelParams[k]); // set the parameter string for this model
-					switch(tmp.first) {
-					case ConnectivityModel: {
-						node.setConnectivityModel((ConnectivityModel) m);
-					} break;
-					case MobilityModel: {
-						node.setMobilityModel((MobilityModel) m);
-					} break;
-					case InterferenceModel: {
-						node.setInterferenceModel((InterferenceModel) m);
-					} break;
-					case ReliabilityModel: {
-						node.setReliabilityModel((ReliabilityModel) m);
-					} break;
-					default: {
-						assert false; // bug if here
-					} break;
-					}
-				} catch(IllegalAccessException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' due to illegal access. " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch(InstantiationException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (SecurityException e) {
-					Main.fatalError("Cannot generate instance of the model'" + modelNames[k] + "' " +
-					                "(Probably not sufficient security permissions.):\n" + e);
-				} catch (NoSuchMethodException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (IllegalArgumentException e) {
-					Main.fatalError("Cannot generate instance of the model '" + modelNames[k] + "' " +
-					                "(The model needs a public constructor w/o parameters.):\n" + e);
-				} catch (InvocationTargetException e) {
-					// The constructor has thrown an exception
-					Main.fatalError(e.getCause().getMessage() + "\n\nMore Info:\n" + e.getCause());
-				}
-			}
-			// set default models
-			node.finishInitializationWithDefaultModels(true);
-		}
+		NodeGenerator generator = new NodeGenerator(nodeTypeName, nodeDistribution, models, modelNames, modelParams);
+		generator.generate(numNodes, null);
 	}
 	
 	
@@ -859,12 +800,14 @@ public class Tools {
 	 */
 	public static void printSinalgoMemoryStats(PrintStream ps) {
 		ps.print("\nSinalgo Memory Stats:\nRecycling:  (used / recycled)\n");
-		ps.print("  Packets \t(" + Packet.numPacketsOnTheFly + " / " + Packet.getNumFreedPackets() + ")\n");  
+		ps.print("  Packets \t(" + Packet.getNumPacketsOnTheFly() + " / " + Packet.getNumFreedPackets() + ")\n");  
 		if(Global.isAsynchronousMode) {
 			ps.print("  PacketEvents \t(" + PacketEvent.numPacketEventsOnTheFly + " / " + PacketEvent.getNumFreedPacketEvents() + ")\n"); 
 			ps.print("  TimerEvents \t(" + TimerEvent.numTimerEventsOnTheFly + " / " + TimerEvent.getNumFreedTimerEvents() + ")\n");
 		}
 		ps.print("  Edges \t(" + Edge.numEdgesOnTheFly + " / " + EdgePool.getNumFreedEdges() + ")\n");
+		ps.print("Packet Pool:  (recycled / allocated)\n");
+		ps.print("  Packets \t(" + Packet.getNumPoolHits() + " / " + Packet.getNumPoolMisses() + ")\n");
 		
 		ps.print("General Memory:\n");
 		java.lang.Runtime r = java.lang.Runtime.getRuntime();
@@ -0,0 +1,262 @@
+/*
+ Copyright (c) 2007, Distributed Computing Group (DCG)
+                    ETH Zurich
+                    Switzerland
+                    dcg.ethz.ch
+
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ - Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright
+   notice, this list of conditions and the following disclaimer in the
+   documentation and/or other materials provided with the
+   distribution.
+
+ - Neither the name 'Sinalgo' nor the names of its contributors may be
+   used to endorse or promote products derived from this software
+   without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package sinalgo.tools.logging;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+import sinalgo.configuration.Configuration;
+
+/**
+ * The buffer of a single thread in which the asynchronous logging collects the
+ * log statements of this thread. The statements are kept as a sequence of
+ * segments, each of which holds the text for one logger. A background thread
+ * periodically swaps the buffers of all threads and writes their content to 
+ * the log files. 
+ * <p>
+ * The statements of one thread appear in the order they were logged. The 
+ * statements of different threads to the same logger are interleaved at the 
+ * granularity of the background writes. 
+ */
+class LogBuffer {
+
+	/**
+	 * The number of characters in a buffer after which the background thread
+	 * is woken before its regular interval.
+	 */
+	private static final int WAKE_THRESHOLD = 1 << 16;
+	
+	/**
+	 * The number of characters in a buffer after which the logging thread writes
+	 * all buffers itself instead of waiting for the background thread.
+	 */
+	private static final int MAX_SIZE = 1 << 22;
+	
+	/**
+	 * The interval in milliseconds at which the background thread writes the buffers. 
+	 */
+	private static final long FLUSH_INTERVAL = 100;
+	
+	private static ArrayList<LogBuffer> buffers = new ArrayList<LogBuffer>(); // the buffers of all live threads that logged
+	private static Object writeLock = new Object(); // serializes the writing of the buffers
+	private static Object flusherMonitor = new Object(); // the background thread waits on this object
+	private static Thread flusher = null;
+
+	private static ThreadLocal<LogBuffer> threadBuffer = new ThreadLocal<LogBuffer>() {
+		protected LogBuffer initialValue() {
+			LogBuffer b = new LogBuffer();
+			synchronized(buffers) {
+				buffers.add(b);
+			}
+			return b;
+		}
+	};
+
+	private Thread owner = Thread.currentThread(); // the thread that fills this buffer
+	
+	// the text and segments filled by the owner thread
+	private StringBuilder text = new StringBuilder(1024);
+	private Logging[] targets = new Logging[32];
+	private int[] ends = new int[32];
+	private int numSegments = 0;
+	
+	// the text and segments being written by the writing thread
+	private StringBuilder backText = new StringBuilder(1024);
+	private Logging[] backTargets = new Logging[32];
+	private int[] backEnds = new int[32];
+	private int backNumSegments = 0;
+	
+	/**
+	 * @return The buffer of the calling thread.
+	 */
+	static LogBuffer get() {
+		return threadBuffer.get();
+	}
+	
+	/**
+	 * Returns the text buffer to which the owner thread appends its next log statement.
+	 * The caller needs to hold the lock of this object and call {@link #endStatement(Logging)}
+	 * after appending the text.   
+	 * @return The text buffer of this object.
+	 */
+	StringBuilder getText() {
+		return text;
+	}
+	
+	/**
+	 * Terminates the log statement that was appended to the text buffer. The
+	 * caller needs to hold the lock of this object.
+	 * @param target The logger to which the statement belongs.
+	 */
+	void endStatement(Logging target) {
+		int end = text.length();
+		if(numSegments > 0 && targets[numSegments - 1] == target) {
+			ends[numSegments - 1] = end; // extends the last segment
+			return;
+		}
+		if(numSegments == targets.length) {
+			Logging[] t = new Logging[2 * numSegments];
+			System.arraycopy(targets, 0, t, 0, numSegments);
+			targets = t;
+			int[] e = new int[2 * numSegments];
+			System.arraycopy(ends, 0, e, 0, numSegments);
+			ends = e;
+		}
+		targets[numSegments] = target;
+		ends[numSegments] = end;
+		numSegments++;
+	}
+	
+	/**
+	 * Called by the owner thread after it released the lock of this buffer. Wakes the 
+	 * background thread or writes the buffers itself if this buffer grows too large.
+	 */
+	void afterStatement() {
+		int length = text.length();
+		if(length >= MAX_SIZE) {
+			writeAll();
+		} else if(length >= WAKE_THRESHOLD) {
+			synchronized(flusherMonitor) {
+				flusherMonitor.notify();
+			}
+		}
+	}
+	
+	/**
+	 * Swaps the front and back buffers. The caller needs to hold the writeLock.
+	 */
+	private synchronized void swap() {
+		StringBuilder s = text; text = backText; backText = s;
+		Logging[] t = targets; targets = backTargets; backTargets = t;
+		int[] e = ends; ends = backEnds; backEnds = e;
+		backNumSegments = numSegments;
+		numSegments = 0;
+	}
+	
+	/**
+	 * Writes the back buffer to the log files and clears it. The caller needs to hold
+	 * the writeLock.
+	 * @param touched The list to which the loggers are added that were written to.
+	 */
+	private void writeBack(ArrayList<Logging> touched) {
+		int start = 0;
+		for(int i = 0; i < backNumSegments; i++) {
+			Logging target = backTargets[i];
+			PrintStream out = target.getStream();
+			out.append(backText, start, backEnds[i]);
+			start = backEnds[i];
+			backTargets[i] = null; // do not hold on to the logger
+			if(!touched.contains(target)) {
+				touched.add(target);
+			}
+		}
+		backNumSegments = 0;
+		backText.setLength(0);
+	}
+	
+	/**
+	 * Writes the buffered log statements of all threads to the log files. The buffers
+	 * of terminated threads are dropped once their content is written.
+	 */
+	static void writeAll() {
+		synchronized(writeLock) {
+			LogBuffer[] list;
+			synchronized(buffers) {
+				list = buffers.toArray(new LogBuffer[buffers.size()]);
+			}
+			ArrayList<Logging> touched = new ArrayList<Logging>();
+			ArrayList<LogBuffer> terminated = null;
+			for(LogBuffer b : list) {
+				boolean alive = b.owner.isAlive(); // tested before the swap, such that no statement is added afterwards
+				b.swap();
+				b.writeBack(touched);
+				if(!alive) {
+					if(terminated == null) {
+						terminated = new ArrayList<LogBuffer>();
+					}
+					terminated.add(b);
+				}
+			}
+			if(terminated != null) {
+				synchronized(buffers) {
+					buffers.removeAll(terminated);
+				}
+			}
+			if(Configuration.eagerFlush) {
+				for(Logging l : touched) {
+					l.getStream().flush();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Starts the background thread that writes the buffers to the log files, and a
+	 * shutdown hook that writes the remaining statements when the application exits.
+	 */
+	static synchronized void startFlusher() {
+		if(flusher != null) {
+			return;
+		}
+		flusher = new Thread("Log Writer") {
+			public void run() {
+				while(true) {
+					synchronized(flusherMonitor) {
+						try {
+							flusherMonitor.wait(FLUSH_INTERVAL);
+						} catch(InterruptedException e) {
+							return;
+						}
+					}
+					writeAll();
+				}
+			}
+		};
+		flusher.setDaemon(true);
+		flusher.start();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				writeAll();
+				synchronized(writeLock) {
+					for(Logging l : Logging.getAllLoggers()) {
+						l.getStream().flush();
+					}
+				}
+			}
+		});
+	}
+}
@@ -42,6 +42,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 
@@ -143,6 +144,17 @@ whereas the first one won't be printed, as LogL.testLog is set to false.
  created with the append flag set to true are always placed in the
  '<i>logs</i>' folder and ignore the <i>'logToTimeDirectory'</i> flag.
 
+<p><p>
+
+<b>d) Asynchronous logging</b><br>
+By default, each log statement is written to the log-file when it is
+logged, such that the simulation waits for the I/O. If the entry
+'asynchronousLogging' is set to 'true' in the Config.xml file, the log
+statements are collected in a buffer per thread, and a background thread
+writes them to the log-files. The log statements of one thread always
+appear in the order they were logged, but may appear with a short delay.
+All pending log statements are written when the application exits.
+
 <br><br>
 <b><u>Remarks:</u></b></br>
 <b>a) Runtime:</b><br>
@@ -170,6 +182,13 @@ to true. E.g.<br>
 if(LogL.testLog) { <br>
 myLog.log("Test"); //we don't need the log-level anymore<br>
 }
+</code>
+<br>
+Alternatively, use the log-methods that take a pattern and up to three
+arguments. Each occurrence of '{}' in the pattern is replaced by the 
+next argument, and the text is only composed if the log-level is set. E.g.<br>
+<code>
+myLog.logln(LogL.testLog, "Round {} finished", Global.currentTime);
 </code>
  */
 public class Logging {
@@ -278,10 +297,7 @@ public class Logging {
 	 */
 	public void log(boolean logFlag, String txt) {
 		if(logFlag) {
-			out.print(txt);
-			if(Configuration.eagerFlush) {
-				out.flush();
-			}
+			write(txt, false);
 		}
 	}
 
@@ -290,10 +306,7 @@ public class Logging {
 	 * @param txt The text to log.
 	 */
 	public void log(String txt) {
-		out.print(txt);
-		if(Configuration.eagerFlush) {
-			out.flush();
-		}
+		write(txt, false);
 	}
 	
 	/**
@@ -304,10 +317,7 @@ public class Logging {
 	 */
 	public void logln(boolean logFlag, String txt) {
 		if(logFlag) {
-			out.println(txt);
-			if(Configuration.eagerFlush) {
-				out.flush();
-			}
+			write(txt, true);
 		}
 	}
 
@@ -316,20 +326,14 @@ public class Logging {
 	 * @param txt The log message to be printed.
 	 */
 	public void logln(String txt) {
-		out.println(txt);
-		if(Configuration.eagerFlush) {
-			out.flush();
-		}
+		write(txt, true);
 	}
 	
 	/**
 	 * Adds a line-break to the log-file. 
 	 */
 	public void logln() {
-		out.println();
-		if(Configuration.eagerFlush) {
-			out.flush();
-		}
+		write("", true);
 	}
 	
 	
@@ -339,12 +343,7 @@ public class Logging {
 	 * @param txt The log message to be printed.
 	 */
 	public void logPos(String txt) {
-		out.print(getCodePosition(1));
-		out.print(" ");
-		out.print(txt);
-		if(Configuration.eagerFlush) {
-			out.flush();
-		}
+		write(getCodePosition(1) + " " + txt, false);
 	}
 
 	/**
@@ -355,12 +354,7 @@ public class Logging {
 	 */
 	public void logPos(boolean logFlag, String txt) {
 		if(logFlag) {
-			out.print(getCodePosition(1));
-			out.print(" ");
-			out.print(txt);
-			if(Configuration.eagerFlush) {
-				out.flush();
-			}
+			write(getCodePosition(1) + " " + txt, false);
 		}
 	}
 	
@@ -371,12 +365,7 @@ public class Logging {
 	 * @param txt The log message to be printed.
 	 */
 	public void logPosln(String txt) {
-		out.print(getCodePosition(1));
-		out.print(" ");
-		out.println(txt);
-		if(Configuration.eagerFlush) {
-			out.flush();
-		}
+		write(getCodePosition(1) + " " + txt, true);
 	}
 
 	/**
@@ -388,12 +377,153 @@ public class Logging {
 	 */
 	public void logPosln(boolean logFlag, String txt) {
 		if(logFlag) {
-			out.print(getCodePosition(1));
-			out.print(" ");
-			out.println(txt);
-			if(Configuration.eagerFlush) {
-				out.flush();
-			}
+			write(getCodePosition(1) + " " + txt, true);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message to the log file in which
+	 * the first occurrence of '{}' in the pattern is replaced by the argument.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for the argument.
+	 * @param arg The argument.
+	 */
+	public void log(boolean logFlag, String pattern, Object arg) {
+		if(logFlag) {
+			write(format(pattern, 1, arg, null, null), false);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message to the log file in which
+	 * the first two occurrences of '{}' in the pattern are replaced by the arguments.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for each argument.
+	 * @param arg1 The first argument.
+	 * @param arg2 The second argument.
+	 */
+	public void log(boolean logFlag, String pattern, Object arg1, Object arg2) {
+		if(logFlag) {
+			write(format(pattern, 2, arg1, arg2, null), false);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message to the log file in which
+	 * the first three occurrences of '{}' in the pattern are replaced by the arguments.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for each argument.
+	 * @param arg1 The first argument.
+	 * @param arg2 The second argument.
+	 * @param arg3 The third argument.
+	 */
+	public void log(boolean logFlag, String pattern, Object arg1, Object arg2, Object arg3) {
+		if(logFlag) {
+			write(format(pattern, 3, arg1, arg2, arg3), false);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message to the log file in which
+	 * the first occurrence of '{}' in the pattern is replaced by the argument.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for the argument.
+	 * @param arg The argument.
+	 */
+	public void log(boolean logFlag, String pattern, long arg) {
+		if(logFlag) {
+			write(format(pattern, arg), false);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message to the log file in which
+	 * the first occurrence of '{}' in the pattern is replaced by the argument.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for the argument.
+	 * @param arg The argument.
+	 */
+	public void log(boolean logFlag, String pattern, double arg) {
+		if(logFlag) {
+			write(format(pattern, arg), false);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message with line-break to the log file 
+	 * in which the first occurrence of '{}' in the pattern is replaced by the argument.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for the argument.
+	 * @param arg The argument.
+	 */
+	public void logln(boolean logFlag, String pattern, Object arg) {
+		if(logFlag) {
+			write(format(pattern, 1, arg, null, null), true);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message with line-break to the log file 
+	 * in which the first two occurrences of '{}' in the pattern are replaced by the 
+	 * arguments. The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for each argument.
+	 * @param arg1 The first argument.
+	 * @param arg2 The second argument.
+	 */
+	public void logln(boolean logFlag, String pattern, Object arg1, Object arg2) {
+		if(logFlag) {
+			write(format(pattern, 2, arg1, arg2, null), true);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message with line-break to the log file 
+	 * in which the first three occurrences of '{}' in the pattern are replaced by the 
+	 * arguments. The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for each argument.
+	 * @param arg1 The first argument.
+	 * @param arg2 The second argument.
+	 * @param arg3 The third argument.
+	 */
+	public void logln(boolean logFlag, String pattern, Object arg1, Object arg2, Object arg3) {
+		if(logFlag) {
+			write(format(pattern, 3, arg1, arg2, arg3), true);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message with line-break to the log file 
+	 * in which the first occurrence of '{}' in the pattern is replaced by the argument.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for the argument.
+	 * @param arg The argument.
+	 */
+	public void logln(boolean logFlag, String pattern, long arg) {
+		if(logFlag) {
+			write(format(pattern, arg), true);
+		}
+	}
+
+	/**
+	 * If the logFlag is set, adds a log-message with line-break to the log file 
+	 * in which the first occurrence of '{}' in the pattern is replaced by the argument.
+	 * The log-message is only composed if the logFlag is set.
+	 * @param logFlag Flag to enable/disable ths log-message
+	 * @param pattern The log message, containing a '{}' for the argument.
+	 * @param arg The argument.
+	 */
+	public void logln(boolean logFlag, String pattern, double arg) {
+		if(logFlag) {
+			write(format(pattern, arg), true);
 		}
 	}
 
@@ -402,6 +532,9 @@ public class Logging {
 	 * @return The print stream where this logger logs to.
 	 */
 	public PrintStream getOutputStream() {
+		if(asynchronous) {
+			LogBuffer.writeAll(); // such that direct writes to the stream appear after the pending log statements
+		}
 		return out;
 	}
 	
@@ -503,6 +636,15 @@ public class Logging {
 	private static Logging instance = null;
 	private static HashMap<String, Logging> loggers = new HashMap<String, Logging>();
 	private PrintStream out;
+	private static boolean asynchronous = false; // whether the log statements are written by the background thread
+	private static final String lineSeparator = System.getProperty("line.separator");
+	private static final String placeholder = "{}";
+	// the buffer in which each thread composes its parameterized log statements 
+	private static ThreadLocal<StringBuilder> formatBuffer = new ThreadLocal<StringBuilder>() {
+		protected StringBuilder initialValue() {
+			return new StringBuilder(128);
+		}
+	};
 	private static String timePrefix; // the time when the simulation started - can be prefixed to the log-files to distringish different rounds. 
 
 	//a boolean, indicating whether the logging mechanism is already activated. This means that the -overwrite
@@ -589,8 +731,177 @@ public class Logging {
 			timePrefix = df.format(new Date());
 		}
 		activated = true;
+		if(Configuration.asynchronousLogging) {
+			asynchronous = true;
+			LogBuffer.startFlusher();
+		}
 		Global.log = Logging.getLogger(); // the default logger
 	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Writes a log statement to the log file, or to the buffer of the calling thread
+	 * if asynchronous logging is enabled.
+	 * @param txt The text of the log statement.
+	 * @param newLine Whether a line-break is added to the text.
+	 */
+	private void write(CharSequence txt, boolean newLine) {
+		if(asynchronous) {
+			LogBuffer b = LogBuffer.get();
+			synchronized(b) {
+				StringBuilder sb = b.getText();
+				sb.append(txt);
+				if(newLine) {
+					sb.append(lineSeparator);
+				}
+				b.endStatement(this);
+			}
+			b.afterStatement();
+		} else {
+			if(newLine) {
+				out.println(txt);
+			} else {
+				out.print(txt);
+			}
+			if(Configuration.eagerFlush) {
+				out.flush();
+			}
+		}
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Appends the pattern to the buffer, starting at a given position, until the next 
+	 * placeholder. 
+	 * @param sb The buffer to append to.
+	 * @param pattern The pattern.
+	 * @param from The position in the pattern where to start.
+	 * @return The position in the pattern after the placeholder, -1 if the pattern 
+	 * contains no further placeholder, in which case the rest of the pattern has been appended.
+	 */
+	private static int appendUntilPlaceholder(StringBuilder sb, String pattern, int from) {
+		if(from < 0) {
+			return -1;
+		}
+		int index = pattern.indexOf(placeholder, from);
+		if(index < 0) {
+			sb.append(pattern, from, pattern.length());
+			return -1;
+		}
+		sb.append(pattern, from, index);
+		return index + placeholder.length();
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @return The cleared format buffer of the calling thread.
+	 */
+	private static StringBuilder getFormatBuffer() {
+		StringBuilder sb = formatBuffer.get();
+		sb.setLength(0);
+		return sb;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Replaces the placeholders of the pattern by the given arguments. Arguments
+	 * without a placeholder are ignored. 
+	 * @param pattern The pattern.
+	 * @param numArgs The number of valid arguments.
+	 * @param arg1 The first argument.
+	 * @param arg2 The second argument.
+	 * @param arg3 The third argument.
+	 * @return The format buffer of the calling thread, containing the formatted text.
+	 */
+	private static StringBuilder format(String pattern, int numArgs, Object arg1, Object arg2, Object arg3) {
+		StringBuilder sb = getFormatBuffer();
+		int pos = appendUntilPlaceholder(sb, pattern, 0);
+		if(pos >= 0) {
+			sb.append(arg1);
+			if(numArgs > 1) {
+				pos = appendUntilPlaceholder(sb, pattern, pos);
+				if(pos >= 0) {
+					sb.append(arg2);
+					if(numArgs > 2) {
+						pos = appendUntilPlaceholder(sb, pattern, pos);
+						if(pos >= 0) {
+							sb.append(arg3);
+						}
+					}
+				}
+			}
+			if(pos >= 0) { // the remaining placeholders are kept
+				sb.append(pattern, pos, pattern.length());
+			}
+		}
+		return sb;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Replaces the first placeholder of the pattern by the given argument.
+	 * @param pattern The pattern.
+	 * @param arg The argument.
+	 * @return The format buffer of the calling thread, containing the formatted text.
+	 */
+	private static StringBuilder format(String pattern, long arg) {
+		StringBuilder sb = getFormatBuffer();
+		int pos = appendUntilPlaceholder(sb, pattern, 0);
+		if(pos >= 0) {
+			sb.append(arg);
+			sb.append(pattern, pos, pattern.length());
+		}
+		return sb;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * Replaces the first placeholder of the pattern by the given argument.
+	 * @param pattern The pattern.
+	 * @param arg The argument.
+	 * @return The format buffer of the calling thread, containing the formatted text.
+	 */
+	private static StringBuilder format(String pattern, double arg) {
+		StringBuilder sb = getFormatBuffer();
+		int pos = appendUntilPlaceholder(sb, pattern, 0);
+		if(pos >= 0) {
+			sb.append(arg);
+			sb.append(pattern, pos, pattern.length());
+		}
+		return sb;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @return The stream this logger writes to, without writing the pending log statements.
+	 */
+	PrintStream getStream() {
+		return out;
+	}
+
+	/**
+	 * <b>This member is framework internal and should not be used by the project developer.</b> 
+	 * @return All loggers that have been created so far.
+	 */
+	static synchronized Logging[] getAllLoggers() {
+		ArrayList<Logging> list = new ArrayList<Logging>(loggers.values());
+		if(instance != null && !list.contains(instance)) {
+			list.add(instance);
+		}
+		return list.toArray(new Logging[list.size()]);
+	}
+
+	/**
+	 * Writes all pending log statements to the log files. This method only
+	 * has an effect if asynchronous logging is enabled, otherwise, the log 
+	 * statements are written immediately.
+	 */
+	public static void flushAll() {
+		if(asynchronous) {
+			LogBuffer.writeAll();
+		}
+	}
+
 	
 	/**
 	 * <b>This member is framework internal and should not be used by the project developer.</b> 
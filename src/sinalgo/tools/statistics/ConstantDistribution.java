@@ -75,4 +75,11 @@ public class ConstantDistribution extends Distribution {
 	public double nextSample() {
 		return value;
 	}
+	
+	/**
+	 * @return The value returned by this distribution.
+	 */
+	public double getValue() {
+		return value;
+	}
 }
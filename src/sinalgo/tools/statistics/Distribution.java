@@ -37,6 +37,9 @@
 package sinalgo.tools.statistics;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Random;
@@ -44,6 +47,9 @@ import java.util.Random;
 import sinalgo.configuration.AppConfig;
 import sinalgo.configuration.Configuration;
 import sinalgo.configuration.CorruptConfigurationEntryException;
+import sinalgo.runtime.NodeGenerator;
+import sinalgo.runtime.ParallelRoundExecutor;
+import sinalgo.runtime.events.ParallelEventWorker;
 
 /**
  * Abstract class that provides the basis for distribution models, which are
@@ -100,11 +106,148 @@ public abstract class Distribution {
 					Configuration.fixedSeed = randomSeed;
 				}
 			}
-			randomGenerator = new Random(randomSeed); // use a random seed
+			randomGenerator = new SimulationRandom(randomSeed, false); // use a random seed
 		}
 		return randomGenerator;
 	}
 	
+	/**
+	 * Creates a new random generator for a worker thread of the parallel 
+	 * asynchronous mode. While the worker executes, the singleton random generator
+	 * forwards all requests of the worker thread to this random generator.  
+	 * @param seed The seed of the new random generator
+	 * @return A new random generator for a worker thread. 
+	 */
+	public static Random newPartitionRandom(long seed) {
+		return new SimulationRandom(seed, true);
+	}
+	
+	/**
+	 * <b>This method is framework internal and should not be used by the project developer.</b>
+	 * Writes the seed and the current state of the singleton random generator, such 
+	 * that a restored simulation continues with the same sequence of random numbers.
+	 * @param out The stream to write the state to.
+	 * @throws IOException If the state cannot be written.
+	 */
+	public static void writeState(DataOutput out) throws IOException {
+		SimulationRandom r = (SimulationRandom) getRandom();
+		out.writeLong(randomSeed);
+		out.writeLong(r.state);
+		out.writeBoolean(r.haveNextNextGaussian);
+		out.writeDouble(r.nextNextGaussian);
+	}
+	
+	/**
+	 * <b>This method is framework internal and should not be used by the project developer.</b>
+	 * Restores the seed and the state of the singleton random generator written by 
+	 * <code>writeState</code>. The random generator object is kept, as the models may 
+	 * hold a reference to it.
+	 * @param in The stream to read the state from.
+	 * @throws IOException If the state cannot be read.
+	 */
+	public static void readState(DataInput in) throws IOException {
+		SimulationRandom r = (SimulationRandom) getRandom();
+		randomSeed = in.readLong();
+		r.state = in.readLong();
+		r.haveNextNextGaussian = in.readBoolean();
+		r.nextNextGaussian = in.readDouble();
+	}
+	
+	/**
+	 * <b>This method is framework internal and should not be used by the project developer.</b>
+	 * @return The current state of the singleton random generator, which changes with 
+	 * each random number drawn from it.
+	 */
+	public static long getRandomState() {
+		return ((SimulationRandom) getRandom()).state;
+	}
+	
+	/**
+	 * The random generator of the simulation. When used by a worker thread of 
+	 * the parallel asynchronous mode, the singleton instance forwards the request
+	 * to the random generator of the worker, such that the random numbers drawn 
+	 * by each worker do not depend on the scheduling of the threads.  
+	 * <p>
+	 * The generator implements the same linear congruential generator as 
+	 * <code>java.util.Random</code>, and thus returns the same numbers for a given
+	 * seed, but keeps its state accessible such that it can be stored in a checkpoint.
+	 */
+	@SuppressWarnings("serial")
+	private static class SimulationRandom extends Random {
+		private static final long MULTIPLIER = 0x5DEECE66DL;
+		private static final long ADDEND = 0xBL;
+		private static final long MASK = (1L << 48) - 1;
+		
+		private boolean isPartitionRandom; // true if this random generator belongs to a worker thread
+		
+		// set by setSeed(), which is already called by the constructor of the super class
+		private long state; // the 48 bit state of the generator
+		private double nextNextGaussian;
+		private boolean haveNextNextGaussian;
+		
+		private SimulationRandom(long seed, boolean isPartitionRandom) {
+			super(seed);
+			this.isPartitionRandom = isPartitionRandom;
+		}
+		
+		/**
+		 * @return The random generator of the current worker thread, null if this 
+		 * method is not called from a worker thread.
+		 */
+		private SimulationRandom getWorkerRandom() {
+			if(isPartitionRandom) {
+				return null;
+			}
+			ParallelEventWorker worker = ParallelEventWorker.current();
+			if(worker != null) {
+				return (SimulationRandom) worker.getRandom();
+			}
+			SimulationRandom r = (SimulationRandom) ParallelRoundExecutor.getWorkerRandom();
+			if(r != null) {
+				return r;
+			}
+			return (SimulationRandom) NodeGenerator.getWorkerRandom();
+		}
+		
+		@Override
+		public synchronized void setSeed(long seed) {
+			state = (seed ^ MULTIPLIER) & MASK;
+			haveNextNextGaussian = false;
+		}
+		
+		@Override
+		protected int next(int bits) {
+			SimulationRandom r = getWorkerRandom();
+			if(r != null) {
+				return r.next(bits);
+			}
+			state = (state * MULTIPLIER + ADDEND) & MASK;
+			return (int) (state >>> (48 - bits));
+		}
+		
+		@Override
+		public double nextGaussian() {
+			SimulationRandom r = getWorkerRandom();
+			if(r != null) {
+				return r.nextGaussian();
+			}
+			if(haveNextNextGaussian) {
+				haveNextNextGaussian = false;
+				return nextNextGaussian;
+			}
+			double v1, v2, s;
+			do { // the polar method, as in java.util.Random
+				v1 = 2 * nextDouble() - 1;
+				v2 = 2 * nextDouble() - 1;
+				s = v1 * v1 + v2 * v2;
+			} while(s >= 1 || s == 0);
+			double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+			nextNextGaussian = v2 * multiplier;
+			haveNextNextGaussian = true;
+			return v1 * multiplier;
+		}
+	}
+	
 	/**
 	 * Constructs a distribution that was specified in the XML configuration file.
 	 * The entry in the configuration file is supposed to look as following:
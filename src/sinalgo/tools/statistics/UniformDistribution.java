@@ -89,6 +89,13 @@ public class UniformDistribution extends Distribution {
 		return min + range * randomGenerator.nextDouble();
 	}
 	
+	/**
+	 * @return The minimum value this distribution may return.
+	 */
+	public double getMin() {
+		return min;
+	}
+	
 	/**
 	 * Creates a random sample drawn from a uniform distribution of a given range.
 	 * @param minRange The minimum value of the interval the sample is drawn from
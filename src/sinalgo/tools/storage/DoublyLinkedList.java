@@ -156,6 +156,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		}
 		size ++;
 		modCount++;
+		entryAdded(entry);
 		return true;
 	}
 	
@@ -197,6 +198,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		}
 		size ++;
 		modCount++;
+		entryAdded(entry);
 		return true;
 	}
 	
@@ -225,6 +227,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 	 * @param f The finger of the entry
 	 * @return True if the entry was in this list, otherwise false.
 	 */
+	@SuppressWarnings("unchecked")
 	private boolean remove(DoublyLinkedListEntry.Finger f) {
 		if(f == null) {
 			return false; // not in list and no finger
@@ -239,9 +242,11 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		} else { // was last entry
 			tail = f.previous;
 		}
+		DoublyLinkedListEntry e = f.object;
 		f.object.getDoublyLinkedListFinger().releaseFinger(f, keepFinger);
 		size--;
 		modCount++;
+		entryRemoved((E) e);
 		return true;
 	}
 
@@ -259,6 +264,15 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		return null;
 	}
 	
+	/**
+	 * Removes all entries from this list.
+	 */
+	public void clear() {
+		while(head.next != null) {
+			remove(head.next);
+		}
+	}
+	
 	/**
 	 * Returns the first entry of the list
 	 * @return The first entry of the list, null if the list is empty.
@@ -295,6 +309,22 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		return size == 0;
 	}
 
+	/**
+	 * Called whenever an entry has been added to this list. Subclasses may 
+	 * overwrite this method to maintain additional indices on the entries.
+	 * @param entry The entry that was added.
+	 */
+	protected void entryAdded(E entry) {
+	}
+	
+	/**
+	 * Called whenever an entry has been removed from this list. Subclasses may 
+	 * overwrite this method to maintain additional indices on the entries.
+	 * @param entry The entry that was removed.
+	 */
+	protected void entryRemoved(E entry) {
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Iterable#iterator()
 	 */
@@ -517,6 +547,7 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 		/* (non-Javadoc)
 		 * @see java.util.ListIterator#set(E)
 		 */
+		@SuppressWarnings("unchecked")
 		public void set(E o) {
 			if (lastReturned == head) {
 				throw new IllegalStateException();
@@ -534,7 +565,10 @@ public class DoublyLinkedList<E extends DoublyLinkedListEntry> implements Iterab
 			}
 			lastReturned.previous.next = f; // there's always a previous
 			// release the finger of the old entry
+			DoublyLinkedListEntry old = lastReturned.object;
 			lastReturned.object.getDoublyLinkedListFinger().releaseFinger(lastReturned, keepFinger);
+			entryRemoved((E) old);
+			entryAdded(o);
 			if(lastReturned == next) { // restore the pointers
 				lastReturned = next = f;
 			} else {